@@ -0,0 +1,57 @@
+package com.bidb.personetakip.benchmark;
+
+import com.bidb.personetakip.util.QrCodePngEncoder;
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.WriterException;
+import com.google.zxing.client.j2se.MatrixToImageWriter;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of QR code PNG rendering: the former QRCodeWriter + MatrixToImageWriter path
+ * against QrCodePngEncoder. Run with {@code ./gradlew jmh}; the GC profiler reports
+ * gc.alloc.rate.norm, the bytes allocated per rendered image.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QrCodeRenderBenchmark {
+
+    /**
+     * Signed token of typical length
+     */
+    private static final String QR_CODE_VALUE = "QR1.104857.20261016.k1.3q2-7wE9VtZbXc1mKdL0sRgHpYnAuJfO4iTeWxBkC5y";
+
+    @Param({"300", "600"})
+    private int size;
+
+    @Benchmark
+    public byte[] zxingImageIo() throws WriterException, IOException {
+        BitMatrix bitMatrix = new QRCodeWriter().encode(QR_CODE_VALUE, BarcodeFormat.QR_CODE, size, size);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        MatrixToImageWriter.writeToStream(bitMatrix, "PNG", outputStream);
+        return outputStream.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] pngEncoder() throws WriterException {
+        return QrCodePngEncoder.encode(QR_CODE_VALUE, size);
+    }
+}
@@ -1,29 +1,68 @@
 package com.bidb.personetakip.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
-import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.support.SimpleCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+import java.util.List;
+
 /**
  * Cache configuration for the Personnel Tracking System.
- * Enables caching for dashboard statistics and other frequently accessed data.
- * 
+ * Enables caching for dashboard statistics, department admin access and other frequently accessed data.
+ * Each cache has its own TTL, maximum size and eviction policy (cache.&lt;name&gt;.* properties).
+ *
  * Requirements: 1.2 - Dashboard statistics caching for performance
  */
 @Configuration
 @EnableCaching
 public class CacheConfig {
-    
+
+    /**
+     * Name of the cache holding dashboard statistics per accessible department set
+     */
+    public static final String DASHBOARD_STATS_CACHE = "dashboardStats";
+
+    /**
+     * Name of the cache holding effective department sets per user ID
+     */
+    public static final String DEPARTMENT_ACCESS_CACHE = "departmentAccess";
+
+    /**
+     * Name of the cache holding record counts of cursor-paginated listings per filter combination
+     */
+    public static final String RECORD_COUNTS_CACHE = "recordCounts";
+
     /**
-     * Configure cache manager for dashboard statistics.
-     * Uses in-memory caching with 30-second TTL for dashboard stats.
-     * 
+     * Configure cache manager for dashboard statistics, department access and record counts.
+     * Dashboard stats expire after a short TTL (30 seconds by default); department sets are
+     * evicted explicitly on changes and expire after a longer TTL as a safety net; record
+     * counts are reused for a minute by default.
+     *
      * @return CacheManager instance
      */
     @Bean
-    public CacheManager cacheManager() {
-        return new ConcurrentMapCacheManager("dashboardStats");
+    public CacheManager cacheManager(
+            @Value("${cache.dashboard-stats.ttl-seconds:30}") long dashboardStatsTtlSeconds,
+            @Value("${cache.dashboard-stats.max-size:200}") int dashboardStatsMaxSize,
+            @Value("${cache.dashboard-stats.eviction-policy:LRU}") ExpiringCache.EvictionPolicy dashboardStatsEviction,
+            @Value("${cache.department-access.ttl-seconds:3600}") long departmentAccessTtlSeconds,
+            @Value("${cache.department-access.max-size:1000}") int departmentAccessMaxSize,
+            @Value("${cache.department-access.eviction-policy:LRU}") ExpiringCache.EvictionPolicy departmentAccessEviction,
+            @Value("${cache.record-counts.ttl-seconds:60}") long recordCountsTtlSeconds,
+            @Value("${cache.record-counts.max-size:500}") int recordCountsMaxSize,
+            @Value("${cache.record-counts.eviction-policy:LRU}") ExpiringCache.EvictionPolicy recordCountsEviction) {
+        SimpleCacheManager cacheManager = new SimpleCacheManager();
+        cacheManager.setCaches(List.of(
+                new ExpiringCache(DASHBOARD_STATS_CACHE, Duration.ofSeconds(dashboardStatsTtlSeconds),
+                        dashboardStatsMaxSize, dashboardStatsEviction),
+                new ExpiringCache(DEPARTMENT_ACCESS_CACHE, Duration.ofSeconds(departmentAccessTtlSeconds),
+                        departmentAccessMaxSize, departmentAccessEviction),
+                new ExpiringCache(RECORD_COUNTS_CACHE, Duration.ofSeconds(recordCountsTtlSeconds),
+                        recordCountsMaxSize, recordCountsEviction)));
+        return cacheManager;
     }
-}
\ No newline at end of file
+}
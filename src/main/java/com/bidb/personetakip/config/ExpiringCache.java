@@ -0,0 +1,182 @@
+package com.bidb.personetakip.config;
+
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory cache with a time-to-live and a maximum size.
+ * When the cache is full the least recently used (LRU) or the oldest inserted (FIFO) entry
+ * is evicted. Hits, misses, evictions and expirations are counted so the TTL and size
+ * can be tuned in production.
+ *
+ * Requirements: 1.2 - Dashboard statistics caching for performance
+ */
+public class ExpiringCache extends AbstractValueAdaptingCache {
+
+    /**
+     * Which entry is evicted when the cache is full
+     */
+    public enum EvictionPolicy {
+        /** Least recently read or written entry */
+        LRU,
+        /** Oldest inserted entry */
+        FIFO
+    }
+
+    /**
+     * Counters of a cache
+     *
+     * @param size Current number of entries
+     * @param maxSize Maximum number of entries
+     * @param ttlSeconds Time-to-live of an entry in seconds
+     * @param evictionPolicy Eviction policy
+     * @param hits Lookups answered from the cache
+     * @param misses Lookups that found no live entry
+     * @param evictions Entries dropped because the cache was full
+     * @param expirations Entries dropped because their TTL had passed
+     */
+    public record Stats(int size, int maxSize, long ttlSeconds, EvictionPolicy evictionPolicy,
+                        long hits, long misses, long evictions, long expirations) {
+
+        public double hitRatio() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0 : (double) hits / lookups;
+        }
+    }
+
+    private final String name;
+    private final long ttlNanos;
+    private final int maxSize;
+    private final EvictionPolicy evictionPolicy;
+    private final Map<Object, Entry> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    public ExpiringCache(String name, Duration ttl, int maxSize, EvictionPolicy evictionPolicy) {
+        super(false);
+        this.name = name;
+        this.ttlNanos = ttl.toNanos();
+        this.maxSize = Math.max(1, maxSize);
+        this.evictionPolicy = evictionPolicy;
+        this.entries = new LinkedHashMap<>(16, 0.75f, evictionPolicy == EvictionPolicy.LRU);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return entries;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.isExpired(System.nanoTime())) {
+                entries.remove(key);
+                expirations.increment();
+                entry = null;
+            }
+            if (entry == null) {
+                misses.increment();
+                return null;
+            }
+            hits.increment();
+            return entry.value;
+        }
+    }
+
+    /**
+     * Get a value, loading it on a miss. The loader runs outside the cache lock, so concurrent
+     * misses for the same key may both load; the last result is kept.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper cached = get(key);
+        if (cached != null) {
+            return (T) cached.get();
+        }
+        T value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        put(key, value);
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        long now = System.nanoTime();
+        synchronized (entries) {
+            entries.put(key, new Entry(toStoreValue(value), now + ttlNanos));
+            if (entries.size() > maxSize) {
+                purgeExpired(now);
+            }
+            Iterator<Entry> iterator = entries.values().iterator();
+            while (entries.size() > maxSize && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    @Override
+    public void evict(Object key) {
+        synchronized (entries) {
+            entries.remove(key);
+        }
+    }
+
+    @Override
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * @return Current counters of this cache
+     */
+    public Stats getStats() {
+        int size;
+        synchronized (entries) {
+            purgeExpired(System.nanoTime());
+            size = entries.size();
+        }
+        return new Stats(size, maxSize, Duration.ofNanos(ttlNanos).toSeconds(), evictionPolicy,
+                hits.sum(), misses.sum(), evictions.sum(), expirations.sum());
+    }
+
+    private void purgeExpired(long now) {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().isExpired(now)) {
+                iterator.remove();
+                expirations.increment();
+            }
+        }
+    }
+
+    private record Entry(Object value, long expiresAt) {
+
+        boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
+    }
+}
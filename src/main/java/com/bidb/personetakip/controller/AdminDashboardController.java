@@ -1,18 +1,26 @@
 package com.bidb.personetakip.controller;
 
+import com.bidb.personetakip.config.ExpiringCache;
 import com.bidb.personetakip.dto.DashboardStatsDto;
 import com.bidb.personetakip.service.AdminDashboardService;
+import com.bidb.personetakip.service.DashboardStreamService;
+import com.bidb.personetakip.service.DepartmentAccessResolver;
 import com.bidb.personetakip.service.IpTrackingInformationService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
 /**
  * REST controller for admin dashboard API endpoints.
@@ -31,6 +39,15 @@ public class AdminDashboardController {
     @Autowired
     private IpTrackingInformationService ipTrackingInformationService;
     
+    @Autowired
+    private DashboardStreamService dashboardStreamService;
+    
+    @Autowired
+    private DepartmentAccessResolver departmentAccessResolver;
+    
+    @Autowired
+    private CacheManager cacheManager;
+    
     /**
      * Get dashboard statistics.
      * 
@@ -45,6 +62,39 @@ public class AdminDashboardController {
         return ResponseEntity.ok(stats);
     }
     
+    /**
+     * Live dashboard updates as Server-Sent Events.
+     * Sends a "stats" event with the full statistics, then a "counters" event whenever
+     * today's counts of the admin's departments change.
+     * 
+     * @param authentication Authentication object for department filtering
+     * @return Event stream
+     * Requirements: 1.2 - Display total user count, today's entry/exit count, and recent activity summary
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamDashboard(Authentication authentication) {
+        List<String> accessibleDepartments = departmentAccessResolver.getAccessibleDepartmentCodes(authentication);
+        return dashboardStreamService.subscribe(accessibleDepartments,
+            adminDashboardService.getDashboardStatsForDepartments(accessibleDepartments));
+    }
+    
+    /**
+     * Get hit, miss and eviction counters of the application caches, for tuning their TTL and size.
+     * 
+     * @return Statistics per cache name
+     */
+    @PreAuthorize("hasRole('ADMIN') or hasRole('SUPER_ADMIN')")
+    @GetMapping("/cache-stats")
+    public ResponseEntity<Map<String, ExpiringCache.Stats>> getCacheStats() {
+        Map<String, ExpiringCache.Stats> stats = new TreeMap<>();
+        for (String cacheName : cacheManager.getCacheNames()) {
+            if (cacheManager.getCache(cacheName) instanceof ExpiringCache cache) {
+                stats.put(cacheName, cache.getStats());
+            }
+        }
+        return ResponseEntity.ok(stats);
+    }
+    
     /**
      * Get user count by role.
      * 
@@ -0,0 +1,81 @@
+package com.bidb.personetakip.controller;
+
+import com.bidb.personetakip.exception.ValidationException;
+import com.bidb.personetakip.service.QrCodeSheetService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * REST controller for admin QR code operations.
+ * Provides printable daily QR code badges for departments that scan printed badges.
+ * Requirements: 5.1, 5.5 - Daily QR code generation and rendering
+ */
+@RestController
+@RequestMapping("/api/admin/qrcodes")
+@PreAuthorize("hasRole('ADMIN') or hasRole('DEPARTMENT_ADMIN') or hasRole('SUPER_ADMIN')")
+public class AdminQrCodeController {
+
+    private static final int MIN_IMAGE_SIZE = 100;
+    private static final int MAX_IMAGE_SIZE = 1000;
+
+    private final QrCodeSheetService qrCodeSheetService;
+
+    public AdminQrCodeController(QrCodeSheetService qrCodeSheetService) {
+        this.qrCodeSheetService = qrCodeSheetService;
+    }
+
+    /**
+     * Download today's QR codes of all users of a department.
+     * The QR codes are looked up (and created if missing) before the download starts;
+     * the images are then rendered in parallel and streamed to the client.
+     *
+     * @param departmentCode Department code
+     * @param format Output format: pdf (A4 badge sheet) or zip (one PNG per user)
+     * @param size PNG size in pixels for zip output (default: 300)
+     * @param authentication Authentication object for department filtering
+     * @return Streamed PDF or ZIP download
+     */
+    @GetMapping("/department/{departmentCode}/sheet")
+    public ResponseEntity<StreamingResponseBody> getDepartmentSheet(
+            @PathVariable String departmentCode,
+            @RequestParam(defaultValue = "pdf") String format,
+            @RequestParam(defaultValue = "300") int size,
+            Authentication authentication) {
+
+        boolean pdf = "pdf".equalsIgnoreCase(format);
+        if (!pdf && !"zip".equalsIgnoreCase(format)) {
+            throw new ValidationException("Format must be pdf or zip");
+        }
+        if (size < MIN_IMAGE_SIZE || size > MAX_IMAGE_SIZE) {
+            throw new ValidationException(
+                    String.format("Image size must be between %d and %d", MIN_IMAGE_SIZE, MAX_IMAGE_SIZE));
+        }
+
+        List<QrCodeSheetService.SheetEntry> entries =
+                qrCodeSheetService.prepareDepartmentSheet(departmentCode, authentication);
+
+        String filename = "qr_kodlari_" + departmentCode.replaceAll("[^A-Za-z0-9_-]", "_") + "_" +
+                LocalDate.now().format(DateTimeFormatter.ofPattern("yyyyMMdd")) + (pdf ? ".pdf" : ".zip");
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(pdf ? MediaType.APPLICATION_PDF : MediaType.parseMediaType("application/zip"));
+        headers.setContentDispositionFormData("attachment", filename);
+
+        StreamingResponseBody body = pdf
+                ? outputStream -> qrCodeSheetService.writePdf(entries, outputStream)
+                : outputStream -> qrCodeSheetService.writeZip(entries, size, outputStream);
+
+        return ResponseEntity.ok()
+                .headers(headers)
+                .body(body);
+    }
+}
@@ -1,6 +1,7 @@
 package com.bidb.personetakip.controller;
 
 import com.bidb.personetakip.dto.AdminRecordDto;
+import com.bidb.personetakip.dto.AdminRecordSliceDto;
 import com.bidb.personetakip.service.AdminRecordsService;
 import org.springframework.data.domain.Page;
 import org.springframework.format.annotation.DateTimeFormat;
@@ -10,7 +11,12 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
@@ -26,6 +32,11 @@ import java.util.Map;
 @PreAuthorize("hasRole('ADMIN') or hasRole('DEPARTMENT_ADMIN') or hasRole('SUPER_ADMIN')")
 public class AdminRecordsController {
 
+    /**
+     * Largest page or slice size a listing returns; larger requests are clamped
+     */
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final AdminRecordsService adminRecordsService;
 
     public AdminRecordsController(AdminRecordsService adminRecordsService) {
@@ -36,7 +47,7 @@ public class AdminRecordsController {
      * Get paginated list of all entry/exit records.
      *
      * @param page Page number (default: 0)
-     * @param size Page size (default: 20)
+     * @param size Page size (default: 20, at most 100)
      * @param authentication Authentication object for department filtering
      * @return Page of AdminRecordDto objects
      * Requirements: 3.1, 3.2 - Paginated record listing with user information
@@ -47,7 +58,7 @@ public class AdminRecordsController {
             @RequestParam(defaultValue = "20") int size,
             Authentication authentication) {
 
-        Page<AdminRecordDto> records = adminRecordsService.getAllRecords(page, size, authentication);
+        Page<AdminRecordDto> records = adminRecordsService.getAllRecords(page, clampSize(size), authentication);
         return ResponseEntity.ok(records);
     }
 
@@ -61,7 +72,7 @@ public class AdminRecordsController {
      * @param ipAddress IP address filter (optional)
      * @param ipMismatch IP mismatch filter (optional: "mismatch", "match", "unknown")
      * @param page Page number (default: 0)
-     * @param size Page size (default: 20)
+     * @param size Page size (default: 20, at most 100)
      * @param authentication Authentication object for department filtering
      * @return Page of AdminRecordDto objects matching filters
      * Requirements: 3.3, 3.4, 2.4, 4.4 - Date range, user, department, IP and IP mismatch filtering
@@ -79,10 +90,46 @@ public class AdminRecordsController {
             Authentication authentication) {
 
         Page<AdminRecordDto> records = adminRecordsService.getRecordsWithFilters(
-                startDate, endDate, userId, departmentCode, ipAddress, ipMismatch, page, size, authentication);
+                startDate, endDate, userId, departmentCode, ipAddress, ipMismatch, page, clampSize(size), authentication);
         return ResponseEntity.ok(records);
     }
 
+    /**
+     * Get a cursor-paginated slice of entry/exit records with filters.
+     * Each slice costs the same regardless of scroll depth; pass the returned nextCursor
+     * to fetch the following slice.
+     *
+     * @param startDate Start date (optional, format: yyyy-MM-dd)
+     * @param endDate End date (optional, format: yyyy-MM-dd)
+     * @param userId User ID (optional)
+     * @param departmentCode Department code (optional)
+     * @param ipAddress IP address filter (optional)
+     * @param ipMismatch IP mismatch filter (optional: "mismatch", "match", "unknown")
+     * @param cursor Cursor from the previous slice (optional, omit for the first slice)
+     * @param size Slice size (default: 20, at most 100)
+     * @param includeTotal Whether to include the (cached) total count (default: false)
+     * @param authentication Authentication object for department filtering
+     * @return Slice of AdminRecordDto objects matching filters
+     * Requirements: 3.1, 3.2, 3.3, 3.4 - Paginated and filtered record listing
+     */
+    @GetMapping("/scroll")
+    public ResponseEntity<AdminRecordSliceDto> getRecordsSlice(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) String departmentCode,
+            @RequestParam(required = false) String ipAddress,
+            @RequestParam(required = false) String ipMismatch,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean includeTotal,
+            Authentication authentication) {
+
+        AdminRecordSliceDto slice = adminRecordsService.getRecordsSlice(
+                startDate, endDate, userId, departmentCode, ipAddress, ipMismatch, cursor, clampSize(size), includeTotal, authentication);
+        return ResponseEntity.ok(slice);
+    }
+
     /**
      * Get IP address statistics for advanced filtering.
      *
@@ -96,6 +143,20 @@ public class AdminRecordsController {
         return ResponseEntity.ok(statistics);
     }
 
+    /**
+     * Rebuild the IP usage statistics from all entry/exit records.
+     * Only needed after bulk data changes that bypass the scan flow.
+     *
+     * @return Number of department/IP counter rows written
+     * Requirements: 2.4 - IP address filtering functionality
+     */
+    @PostMapping("/ip-statistics/rebuild")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('SUPER_ADMIN')")
+    public ResponseEntity<Map<String, Object>> rebuildIpStatistics() {
+        int rows = adminRecordsService.rebuildIpStatistics();
+        return ResponseEntity.ok(Map.of("rows", rows));
+    }
+
     /**
      * Search records by IP address with advanced options.
      *
@@ -103,7 +164,7 @@ public class AdminRecordsController {
      * @param ipType IP type filter (ipv4, ipv6, unknown)
      * @param complianceStatus Compliance status filter
      * @param page Page number (default: 0)
-     * @param size Page size (default: 20)
+     * @param size Page size (default: 20, at most 100)
      * @param authentication Authentication object for department filtering
      * @return Page of AdminRecordDto objects matching IP search criteria
      * Requirements: 2.4 - IP address filtering functionality
@@ -118,7 +179,7 @@ public class AdminRecordsController {
             Authentication authentication) {
 
         Page<AdminRecordDto> records = adminRecordsService.searchRecordsByIp(
-                ipQuery, ipType, complianceStatus, page, size, authentication);
+                ipQuery, ipType, complianceStatus, page, clampSize(size), authentication);
         return ResponseEntity.ok(records);
     }
 
@@ -128,7 +189,7 @@ public class AdminRecordsController {
      * @param startDate Start date (format: yyyy-MM-dd)
      * @param endDate End date (format: yyyy-MM-dd)
      * @param page Page number (default: 0)
-     * @param size Page size (default: 20)
+     * @param size Page size (default: 20, at most 100)
      * @param authentication Authentication object for department filtering
      * @return Page of AdminRecordDto objects within date range
      * Requirements: 3.3 - Date range filtering
@@ -142,7 +203,7 @@ public class AdminRecordsController {
             Authentication authentication) {
 
         Page<AdminRecordDto> records = adminRecordsService.getRecordsByDateRange(
-                startDate, endDate, page, size, authentication);
+                startDate, endDate, page, clampSize(size), authentication);
         return ResponseEntity.ok(records);
     }
 
@@ -151,7 +212,7 @@ public class AdminRecordsController {
      *
      * @param userId User ID
      * @param page Page number (default: 0)
-     * @param size Page size (default: 20)
+     * @param size Page size (default: 20, at most 100)
      * @param authentication Authentication object for department filtering
      * @return Page of AdminRecordDto objects for specified user
      * Requirements: 3.4 - User-specific record filtering
@@ -163,12 +224,14 @@ public class AdminRecordsController {
             @RequestParam(defaultValue = "20") int size,
             Authentication authentication) {
 
-        Page<AdminRecordDto> records = adminRecordsService.getRecordsByUser(userId, page, size, authentication);
+        Page<AdminRecordDto> records = adminRecordsService.getRecordsByUser(userId, page, clampSize(size), authentication);
         return ResponseEntity.ok(records);
     }
 
     /**
      * Export entry/exit records as CSV.
+     * The file is streamed to the client while records are read from the database in chunks,
+     * so large exports start immediately and do not need to fit in memory.
      *
      * @param startDate Start date (optional, format: yyyy-MM-dd)
      * @param endDate End date (optional, format: yyyy-MM-dd)
@@ -177,11 +240,11 @@ public class AdminRecordsController {
      * @param ipAddress IP address filter (optional)
      * @param ipMismatch IP mismatch filter (optional)
      * @param authentication Authentication object for department filtering
-     * @return CSV file download
+     * @return Streamed CSV file download
      * Requirements: 3.5, 2.5 - CSV export functionality with IP addresses
      */
     @GetMapping("/export/csv")
-    public ResponseEntity<String> exportRecordsCsv(
+    public ResponseEntity<StreamingResponseBody> exportRecordsCsv(
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
             @RequestParam(required = false) Long userId,
@@ -190,8 +253,6 @@ public class AdminRecordsController {
             @RequestParam(required = false) String ipMismatch,
             Authentication authentication) {
 
-        String csvContent = adminRecordsService.generateCsvExport(startDate, endDate, userId, departmentCode, ipAddress, ipMismatch, authentication);
-
         // Generate filename with current date
         String filename = "giris_cikis_kayitlari_" +
                 LocalDate.now().format(DateTimeFormatter.ofPattern("yyyyMMdd")) + ".csv";
@@ -200,9 +261,15 @@ public class AdminRecordsController {
         headers.setContentType(MediaType.parseMediaType("text/csv; charset=UTF-8"));
         headers.setContentDispositionFormData("attachment", filename);
 
+        StreamingResponseBody body = outputStream -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+            adminRecordsService.writeCsvExport(startDate, endDate, userId, departmentCode, ipAddress, ipMismatch, authentication, writer);
+            writer.flush();
+        };
+
         return ResponseEntity.ok()
                 .headers(headers)
-                .body(csvContent);
+                .body(body);
     }
 
     /**
@@ -230,7 +297,7 @@ public class AdminRecordsController {
      * Get entry/exit records with IP mismatches.
      *
      * @param page Page number (default: 0)
-     * @param size Page size (default: 20)
+     * @param size Page size (default: 20, at most 100)
      * @param authentication Authentication object for department filtering
      * @return Page of AdminRecordDto objects with IP mismatches
      * Requirements: 4.4 - IP mismatch filtering
@@ -241,7 +308,7 @@ public class AdminRecordsController {
             @RequestParam(defaultValue = "20") int size,
             Authentication authentication) {
 
-        Page<AdminRecordDto> records = adminRecordsService.getRecordsWithIpMismatch(page, size, authentication);
+        Page<AdminRecordDto> records = adminRecordsService.getRecordsWithIpMismatch(page, clampSize(size), authentication);
         return ResponseEntity.ok(records);
     }
 
@@ -256,4 +323,11 @@ public class AdminRecordsController {
         List<Map<String, String>> departments = adminRecordsService.getDepartments(authentication);
         return ResponseEntity.ok(departments);
     }
+
+    /**
+     * Clamp a requested page or slice size to 1..MAX_PAGE_SIZE
+     */
+    private static int clampSize(int size) {
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
 }
@@ -5,6 +5,7 @@ import com.bidb.personetakip.model.DepartmentPermission;
 import com.bidb.personetakip.model.User;
 import com.bidb.personetakip.repository.DepartmentPermissionRepository;
 import com.bidb.personetakip.repository.UserRepository;
+import com.bidb.personetakip.service.DepartmentAccessResolver;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -34,6 +35,9 @@ public class DepartmentPermissionController {
     @Autowired
     private UserRepository userRepository;
     
+    @Autowired
+    private DepartmentAccessResolver departmentAccessResolver;
+    
     @PersistenceContext
     private EntityManager entityManager;
     
@@ -97,6 +101,7 @@ public class DepartmentPermissionController {
                 .build();
         
         departmentPermissionRepository.save(permission);
+        departmentAccessResolver.evict(userId);
         
         return ResponseEntity.ok(Map.of(
                 "success", true,
@@ -118,6 +123,7 @@ public class DepartmentPermissionController {
             @PathVariable String departmentCode) {
         
         departmentPermissionRepository.deleteByUserIdAndDepartmentCode(userId, departmentCode);
+        departmentAccessResolver.evict(userId);
         
         return ResponseEntity.ok(Map.of(
                 "success", true,
@@ -169,6 +175,7 @@ public class DepartmentPermissionController {
             
             departmentPermissionRepository.save(permission);
         }
+        departmentAccessResolver.evict(userId);
         
         return ResponseEntity.ok(Map.of(
                 "success", true,
@@ -1,15 +1,17 @@
 package com.bidb.personetakip.controller;
 
 import com.bidb.personetakip.dto.AuthTokenDto;
+import com.bidb.personetakip.dto.EntryExitBatchRequestDto;
+import com.bidb.personetakip.dto.EntryExitBatchResultDto;
 import com.bidb.personetakip.dto.EntryExitRecordDto;
 import com.bidb.personetakip.dto.EntryExitRequestDto;
 import com.bidb.personetakip.dto.ExcuseRequestDto;
 import com.bidb.personetakip.dto.ExcuseResponseDto;
 import com.bidb.personetakip.dto.ExcuseTypeDto;
 import com.bidb.personetakip.dto.LoginRequest;
-import com.bidb.personetakip.dto.QrCodeValidationDto;
 import com.bidb.personetakip.dto.SimpleExcuseRequestDto;
 import com.bidb.personetakip.dto.UserStatusDto;
+import com.bidb.personetakip.exception.ValidationException;
 import com.bidb.personetakip.model.EntryExitRecord;
 import com.bidb.personetakip.model.EntryExitType;
 import com.bidb.personetakip.model.User;
@@ -20,6 +22,7 @@ import com.bidb.personetakip.service.AuthenticationService;
 import com.bidb.personetakip.service.EntryExitService;
 import com.bidb.personetakip.service.ExcuseService;
 import com.bidb.personetakip.service.QrCodeService;
+import com.bidb.personetakip.service.ScanIdempotencyService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -61,6 +64,7 @@ public class MobileApiController {
     private final EntryExitRecordRepository entryExitRecordRepository;
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final ScanIdempotencyService scanIdempotencyService;
     
     // Simple in-memory rate limiting (20 requests per minute per user)
     private final Map<Long, RateLimitInfo> rateLimitMap = new ConcurrentHashMap<>();
@@ -77,7 +81,8 @@ public class MobileApiController {
             ExcuseService excuseService,
             EntryExitRecordRepository entryExitRecordRepository,
             UserRepository userRepository,
-            PasswordEncoder passwordEncoder) {
+            PasswordEncoder passwordEncoder,
+            ScanIdempotencyService scanIdempotencyService) {
         this.authenticationService = authenticationService;
         this.entryExitService = entryExitService;
         this.qrCodeService = qrCodeService;
@@ -85,6 +90,7 @@ public class MobileApiController {
         this.entryExitRecordRepository = entryExitRecordRepository;
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.scanIdempotencyService = scanIdempotencyService;
     }
     
     /**
@@ -166,7 +172,11 @@ public class MobileApiController {
      * Records entry/exit event with QR code data.
      * POST /api/mobil/giris-cikis-kaydet
      * 
+     * Retried submissions (same Idempotency-Key header, or the same QR code and timestamp
+     * within the dedup window) return the original record without being recorded again.
+     * 
      * @param request Entry/exit request with QR code, timestamp, and GPS coordinates
+     * @param idempotencyKey Optional client-generated key identifying this submission
      * @param httpRequest HTTP servlet request for IP address extraction
      * @return EntryExitRecordDto containing recorded event data
      * Requirements: 8.1 - Extract JWT token from request headers
@@ -245,6 +255,21 @@ public class MobileApiController {
                 )
             )
         ),
+        @ApiResponse(
+            responseCode = "409",
+            description = "The same scan is still being processed",
+            content = @Content(
+                mediaType = "application/json",
+                examples = @ExampleObject(
+                    name = "In Progress",
+                    value = """
+                    {
+                        "message": "This scan is already being processed. Please try again shortly."
+                    }
+                    """
+                )
+            )
+        ),
         @ApiResponse(
             responseCode = "429",
             description = "Rate limit exceeded",
@@ -265,44 +290,143 @@ public class MobileApiController {
     public ResponseEntity<?> recordEntryExit(
             @Parameter(description = "Entry/exit request with QR code, timestamp, and GPS coordinates", required = true)
             @Valid @RequestBody EntryExitRequestDto request,
+            @Parameter(description = "Client-generated key identifying this submission across retries")
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
             HttpServletRequest httpRequest) {
         Long userId = getAuthenticatedUserId();
         
-        // Check rate limit
+        // Answer retries with the original record before any validation or database work
+        try (ScanIdempotencyService.Claim claim = scanIdempotencyService.claim(
+                userId, idempotencyKey, request.qrCodeValue(), request.timestamp())) {
+            if (claim.isDuplicate()) {
+                return ResponseEntity.ok(claim.getOriginalResponse());
+            }
+            if (claim.isInProgress()) {
+                return ResponseEntity.status(409)
+                    .body(Map.of("message", "This scan is already being processed. Please try again shortly."));
+            }
+            
+            // Check rate limit
+            if (!checkRateLimit(userId)) {
+                return ResponseEntity.status(429)
+                    .body(Map.of("message", "Too many requests. Please try again later."));
+            }
+            
+            // Validate GPS coordinates
+            if (!isValidGpsCoordinate(request.latitude(), request.longitude())) {
+                return ResponseEntity.badRequest()
+                    .body(Map.of("message", "Invalid GPS coordinates"));
+            }
+            
+            // Record entry/exit with IP address capture; the service validates the QR code
+            // on the row it loads for the record
+            // Requirements: 1.1, 1.2, 6.2, 6.5 - IP tracking with graceful failure handling
+            EntryExitRecordDto record;
+            try {
+                record = entryExitService.recordEntryExit(
+                    userId,
+                    request.qrCodeValue(),
+                    request.timestamp(),
+                    request.latitude(),
+                    request.longitude(),
+                    httpRequest  // Pass HTTP request for IP address extraction
+                );
+            } catch (ValidationException e) {
+                return ResponseEntity.badRequest()
+                    .body(Map.of("message", e.getMessage()));
+            }
+            claim.complete(record);
+            
+            return ResponseEntity.ok(record);
+        }
+    }
+    
+    /**
+     * Records scans made while the device was offline, in one request.
+     * POST /api/mobil/giris-cikis-toplu-kaydet
+     * 
+     * Scans are processed in list order in a single transaction and validated like single scans;
+     * each gets its own result. Scans already recorded by an earlier upload of the same backlog
+     * are reported as duplicates, so a failed upload can simply be sent again.
+     * 
+     * @param request Ordered list of scans with QR code, client timestamp, and GPS coordinates
+     * @param httpRequest HTTP servlet request for IP address extraction
+     * @return One EntryExitBatchResultDto per scan, in list order
+     * Requirements: 8.2 - Validate QR code against current date and personnel ID
+     *               8.5 - Store entry/exit record with all required fields
+     */
+    @Operation(
+        summary = "Record offline entry/exit scans",
+        description = "Records an ordered batch of scans made while offline and returns a result per scan",
+        security = @SecurityRequirement(name = "bearerAuth")
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Batch processed; see the status of each scan",
+            content = @Content(
+                mediaType = "application/json",
+                examples = @ExampleObject(
+                    name = "Success Response",
+                    value = """
+                    [
+                        {
+                            "index": 0,
+                            "status": "RECORDED",
+                            "message": null,
+                            "record": { "id": 456, "userId": 123, "type": "ENTRY", "timestamp": "2024-12-16T08:30:00" }
+                        },
+                        {
+                            "index": 1,
+                            "status": "REJECTED",
+                            "message": "QR code has reached maximum usage limit for today",
+                            "record": null
+                        }
+                    ]
+                    """
+                )
+            )
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Oversized batch",
+            content = @Content(
+                mediaType = "application/json",
+                examples = @ExampleObject(
+                    name = "Too Many Scans",
+                    value = """
+                    {
+                        "message": "A batch may contain at most 500 scans, got: 501"
+                    }
+                    """
+                )
+            )
+        ),
+        @ApiResponse(
+            responseCode = "429",
+            description = "Rate limit exceeded"
+        )
+    })
+    @PostMapping("/giris-cikis-toplu-kaydet")
+    public ResponseEntity<?> recordEntryExitBatch(
+            @Parameter(description = "Ordered list of offline scans", required = true)
+            @Valid @RequestBody EntryExitBatchRequestDto request,
+            HttpServletRequest httpRequest) {
+        Long userId = getAuthenticatedUserId();
+        
+        // The whole batch counts as one request
         if (!checkRateLimit(userId)) {
             return ResponseEntity.status(429)
                 .body(Map.of("message", "Too many requests. Please try again later."));
         }
         
-        // Validate QR code
-        QrCodeValidationDto validation = qrCodeService.validateQrCode(
-            request.qrCodeValue(), 
-            userId
-        );
-        
-        if (!validation.valid()) {
-            return ResponseEntity.badRequest()
-                .body(Map.of("message", validation.message()));
-        }
-        
-        // Validate GPS coordinates
-        if (!isValidGpsCoordinate(request.latitude(), request.longitude())) {
-            return ResponseEntity.badRequest()
-                .body(Map.of("message", "Invalid GPS coordinates"));
-        }
-        
-        // Record entry/exit with IP address capture
-        // Requirements: 1.1, 1.2, 6.2, 6.5 - IP tracking with graceful failure handling
-        EntryExitRecordDto record = entryExitService.recordEntryExit(
+        List<EntryExitBatchResultDto> results = entryExitService.recordEntryExitBatch(
             userId,
-            request.qrCodeValue(),
-            request.timestamp(),
-            request.latitude(),
-            request.longitude(),
-            httpRequest  // Pass HTTP request for IP address extraction
+            request.scans(),
+            httpRequest
         );
         
-        return ResponseEntity.ok(record);
+        return ResponseEntity.ok(results);
     }
     
     /**
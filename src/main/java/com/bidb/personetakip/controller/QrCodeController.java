@@ -1,6 +1,8 @@
 package com.bidb.personetakip.controller;
 
 import com.bidb.personetakip.dto.QrCodeDto;
+import com.bidb.personetakip.exception.ValidationException;
+import com.bidb.personetakip.service.QrCodeImageCache;
 import com.bidb.personetakip.service.QrCodeService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -11,13 +13,15 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
 
 /**
  * REST controller for QR code operations.
@@ -29,10 +33,16 @@ import org.springframework.web.bind.annotation.*;
 @Tag(name = "QR Code", description = "QR code generation and management endpoints")
 public class QrCodeController {
     
+    private static final int DEFAULT_IMAGE_SIZE = 300;
+    private static final int MIN_IMAGE_SIZE = 100;
+    private static final int MAX_IMAGE_SIZE = 1000;
+    
     private final QrCodeService qrCodeService;
+    private final QrCodeImageCache qrCodeImageCache;
     
-    public QrCodeController(QrCodeService qrCodeService) {
+    public QrCodeController(QrCodeService qrCodeService, QrCodeImageCache qrCodeImageCache) {
         this.qrCodeService = qrCodeService;
+        this.qrCodeImageCache = qrCodeImageCache;
     }
     
     /**
@@ -92,26 +102,33 @@ public class QrCodeController {
     }
     
     /**
-     * Gets QR code image as PNG for authenticated user.
+     * Gets QR code image as PNG or SVG for authenticated user.
+     * Rendered images are cached and carry an ETag, so unchanged images are answered with 304.
      * GET /api/qrcode/image
      * 
      * @param qrCodeValue QR code value to generate image for
-     * @return PNG image bytes
+     * @param size Image size in pixels
+     * @param format Image format (png or svg)
+     * @return Image bytes, or 304 if the client's copy is current
      * Requirements: 5.5 - Render QR code as scannable image
      */
     @Operation(
         summary = "Get QR code image",
-        description = "Generates and returns QR code as a PNG image for scanning",
+        description = "Generates and returns QR code as a PNG or SVG image for scanning; supports If-None-Match",
         security = @SecurityRequirement(name = "bearerAuth")
     )
     @ApiResponses(value = {
         @ApiResponse(
             responseCode = "200",
             description = "QR code image generated successfully",
-            content = @Content(
-                mediaType = "image/png",
-                schema = @Schema(type = "string", format = "binary")
-            )
+            content = {
+                @Content(mediaType = "image/png", schema = @Schema(type = "string", format = "binary")),
+                @Content(mediaType = "image/svg+xml", schema = @Schema(type = "string"))
+            }
+        ),
+        @ApiResponse(
+            responseCode = "304",
+            description = "Image not modified since the ETag sent in If-None-Match"
         ),
         @ApiResponse(
             responseCode = "400",
@@ -148,14 +165,36 @@ public class QrCodeController {
     @GetMapping("/image")
     public ResponseEntity<byte[]> getQrCodeImage(
         @Parameter(description = "QR code value to generate image for", required = true, example = "USER_123_2024-12-16_abc123def456")
-        @RequestParam String qrCodeValue) {
-        byte[] imageBytes = qrCodeService.generateQrCodeImage(qrCodeValue);
+        @RequestParam String qrCodeValue,
+        @Parameter(description = "Image size in pixels (100-1000)", example = "300")
+        @RequestParam(defaultValue = "" + DEFAULT_IMAGE_SIZE) int size,
+        @Parameter(description = "Image format: png or svg", example = "png")
+        @RequestParam(defaultValue = "png") String format,
+        WebRequest webRequest) {
+        if (size < MIN_IMAGE_SIZE || size > MAX_IMAGE_SIZE) {
+            throw new ValidationException(
+                String.format("Image size must be between %d and %d", MIN_IMAGE_SIZE, MAX_IMAGE_SIZE));
+        }
+        QrCodeImageCache.Format imageFormat;
+        try {
+            imageFormat = QrCodeImageCache.Format.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Image format must be png or svg");
+        }
         
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.IMAGE_PNG);
-        headers.setContentLength(imageBytes.length);
+        // Answer revalidation from the ETag alone, without rendering or a cache lookup
+        String etag = qrCodeImageCache.etag(qrCodeValue, size, imageFormat);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
         
-        return new ResponseEntity<>(imageBytes, headers, HttpStatus.OK);
+        QrCodeImageCache.RenderedImage image = qrCodeImageCache.get(qrCodeValue, size, imageFormat);
+        return ResponseEntity.ok()
+            .contentType(image.mediaType())
+            .contentLength(image.bytes().length)
+            .eTag(image.etag())
+            .cacheControl(CacheControl.maxAge(1, TimeUnit.DAYS).cachePrivate())
+            .body(image.bytes());
     }
     
     /**
@@ -0,0 +1,52 @@
+package com.bidb.personetakip.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO for a cursor-paginated slice of admin entry/exit records.
+ * Unlike a Page, a slice does not require a COUNT query; the total is only
+ * included on request and may be served from a short-lived cache.
+ * 
+ * Requirements: 3.1, 3.2 - Paginated record listing with user information
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AdminRecordSliceDto {
+    
+    /**
+     * Records in this slice, newest first
+     */
+    private List<AdminRecordDto> content;
+    
+    /**
+     * Requested slice size
+     */
+    private int size;
+    
+    /**
+     * Whether more records exist after this slice
+     */
+    private boolean hasNext;
+    
+    /**
+     * Opaque cursor for the next slice (null if there is no next slice)
+     */
+    private String nextCursor;
+    
+    /**
+     * Total number of matching records (null unless requested)
+     */
+    private Long totalElements;
+    
+    /**
+     * Whether totalElements was served from the count cache and may be slightly stale
+     */
+    private boolean totalCached;
+}
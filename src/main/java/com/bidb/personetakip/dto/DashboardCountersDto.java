@@ -0,0 +1,17 @@
+package com.bidb.personetakip.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Live update of the dashboard counters, pushed to subscribed admins.
+ * Field names match {@link DashboardStatsDto}.
+ *
+ * Requirements: 1.2 - Dashboard statistics display
+ */
+public record DashboardCountersDto(
+    long todayEntryCount,
+    long todayExitCount,
+    long todayTotalActivity,
+    long currentlyInsideCount,
+    LocalDateTime lastUpdated
+) {}
@@ -42,6 +42,11 @@ public class DashboardStatsDto {
      */
     private long todayTotalActivity;
     
+    /**
+     * Number of users currently inside (last action was ENTRY)
+     */
+    private long currentlyInsideCount;
+    
     /**
      * Recent entry/exit records (last 24 hours, max 10)
      */
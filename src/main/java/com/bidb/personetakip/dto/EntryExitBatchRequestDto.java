@@ -0,0 +1,13 @@
+package com.bidb.personetakip.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.List;
+
+@Schema(description = "Scans recorded while the device was offline, in the order they were made")
+public record EntryExitBatchRequestDto(
+    @Schema(
+        description = "Scans with QR code value, client scan time and GPS coordinates",
+        required = true
+    )
+    List<EntryExitRequestDto> scans
+) {}
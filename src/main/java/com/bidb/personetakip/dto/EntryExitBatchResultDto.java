@@ -0,0 +1,37 @@
+package com.bidb.personetakip.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Outcome of one scan of an offline batch upload")
+public record EntryExitBatchResultDto(
+    @Schema(description = "Position of the scan in the uploaded list", example = "0")
+    int index,
+
+    @Schema(description = "RECORDED, DUPLICATE (already recorded by an earlier upload) or REJECTED", example = "RECORDED")
+    Status status,
+
+    @Schema(description = "Reason for a rejected scan", example = "QR code is not valid for today")
+    String message,
+
+    @Schema(description = "Recorded entry/exit event (null if rejected)")
+    EntryExitRecordDto record
+) {
+
+    public enum Status {
+        RECORDED,
+        DUPLICATE,
+        REJECTED
+    }
+
+    public static EntryExitBatchResultDto recorded(int index, EntryExitRecordDto record) {
+        return new EntryExitBatchResultDto(index, Status.RECORDED, null, record);
+    }
+
+    public static EntryExitBatchResultDto duplicate(int index, EntryExitRecordDto record) {
+        return new EntryExitBatchResultDto(index, Status.DUPLICATE, null, record);
+    }
+
+    public static EntryExitBatchResultDto rejected(int index, String message) {
+        return new EntryExitBatchResultDto(index, Status.REJECTED, message, null);
+    }
+}
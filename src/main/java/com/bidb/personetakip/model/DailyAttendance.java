@@ -0,0 +1,102 @@
+package com.bidb.personetakip.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Entity holding the attendance of one user on one day, rolled up from the entry/exit records.
+ * Today's rows are recomputed after each scan; rows of closed days are finalized nightly and
+ * never change again unless a late upload arrives, so reports over long periods read one row
+ * per person and day instead of every scan.
+ */
+@Entity
+@Table(name = "daily_attendance", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_daily_attendance_user_date", columnNames = {"user_id", "attendance_date"})
+}, indexes = {
+    @Index(name = "idx_daily_attendance_date", columnList = "attendance_date, finalized")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailyAttendance {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "attendance_date", nullable = false)
+    private LocalDate attendanceDate;
+
+    /**
+     * Time of the first entry of the day (null without entries)
+     */
+    @Column(name = "first_entry_time")
+    private LocalDateTime firstEntryTime;
+
+    /**
+     * Time of the last entry of the day (null without entries)
+     */
+    @Column(name = "last_entry_time")
+    private LocalDateTime lastEntryTime;
+
+    /**
+     * Time of the last exit of the day (null without exits)
+     */
+    @Column(name = "last_exit_time")
+    private LocalDateTime lastExitTime;
+
+    @Column(name = "entry_count", nullable = false)
+    private int entryCount;
+
+    @Column(name = "exit_count", nullable = false)
+    private int exitCount;
+
+    /**
+     * Number of entries after the late entry time (the day was late if positive)
+     */
+    @Column(name = "late_entry_count", nullable = false)
+    private int lateEntryCount;
+
+    /**
+     * Number of exits before the early exit time (the day ended early if positive)
+     */
+    @Column(name = "early_exit_count", nullable = false)
+    private int earlyExitCount;
+
+    /**
+     * Minutes between each entry and the following exit
+     */
+    @Column(name = "worked_minutes", nullable = false)
+    private int workedMinutes;
+
+    @Column(name = "ip_match_count", nullable = false)
+    private int ipMatchCount;
+
+    @Column(name = "ip_mismatch_count", nullable = false)
+    private int ipMismatchCount;
+
+    @Column(name = "ip_no_assignment_count", nullable = false)
+    private int ipNoAssignmentCount;
+
+    @Column(name = "ip_unknown_count", nullable = false)
+    private int ipUnknownCount;
+
+    /**
+     * True once the day has closed and the row was rebuilt from all of its records
+     */
+    @Column(name = "finalized", nullable = false)
+    private boolean finalized;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
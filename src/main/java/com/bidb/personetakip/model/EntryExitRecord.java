@@ -1,5 +1,6 @@
 package com.bidb.personetakip.model;
 
+import com.bidb.personetakip.util.IpAddressUtil;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.AllArgsConstructor;
@@ -17,9 +18,13 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "entry_exit_records", indexes = {
     @Index(name = "idx_user_id", columnList = "user_id"),
+    @Index(name = "idx_user_timestamp", columnList = "user_id, timestamp"),
     @Index(name = "idx_timestamp", columnList = "timestamp"),
+    @Index(name = "idx_timestamp_id", columnList = "timestamp, id"),
     @Index(name = "idx_qr_code", columnList = "qr_code_value"),
-    @Index(name = "idx_ip_address", columnList = "ip_address")
+    @Index(name = "idx_ip_address", columnList = "ip_address"),
+    @Index(name = "idx_ip_address_key", columnList = "ip_address_key, timestamp"),
+    @Index(name = "idx_ip_compliance_status", columnList = "ip_compliance_status, timestamp")
 })
 @Data
 @NoArgsConstructor
@@ -84,6 +89,23 @@ public class EntryExitRecord {
     @Size(max = 45, message = "IP address must not exceed 45 characters")
     private String ipAddress;
     
+    /**
+     * Sortable 128-bit form of the IP address (32 hex characters, IPv4 stored IPv4-mapped),
+     * used for indexed exact, prefix and CIDR searches. Derived from ipAddress on write;
+     * null if the IP address is missing or not a valid address
+     */
+    @Column(name = "ip_address_key", length = 32)
+    private String ipAddressKey;
+    
+    /**
+     * IP compliance status evaluated against the user's assigned IP addresses when the record was written.
+     * Recomputed when the user's assignment changes; null until evaluated (records created before
+     * this column existed are filled in by a background job)
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "ip_compliance_status", length = 20)
+    private IpComplianceStatus ipComplianceStatus;
+    
     /**
      * Excuse/reason text for the entry/exit (optional)
      * Used when user submits an excuse instead of QR scan
@@ -99,6 +121,15 @@ public class EntryExitRecord {
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
     
+    /**
+     * Keep the IP address key in sync with the IP address
+     */
+    @PrePersist
+    @PreUpdate
+    protected void updateIpAddressKey() {
+        ipAddressKey = IpAddressUtil.toKey(ipAddress);
+    }
+    
     /**
      * Check if GPS coordinates are present
      * @return true if both latitude and longitude are not null
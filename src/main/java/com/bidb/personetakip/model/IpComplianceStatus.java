@@ -0,0 +1,26 @@
+package com.bidb.personetakip.model;
+
+/**
+ * Enum representing the IP compliance status of an entry/exit record.
+ */
+public enum IpComplianceStatus {
+    /**
+     * IP matches an assigned IP
+     */
+    MATCH,
+    
+    /**
+     * IP doesn't match any assigned IP
+     */
+    MISMATCH,
+    
+    /**
+     * User has no assigned IP addresses
+     */
+    NO_ASSIGNMENT,
+    
+    /**
+     * Entry/exit IP is unknown
+     */
+    UNKNOWN_IP
+}
@@ -0,0 +1,77 @@
+package com.bidb.personetakip.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entity holding precomputed entry/exit counters per department and IP address.
+ * Updated as each record is written so that IP statistics do not scan entry_exit_records.
+ * Records without an IP address are counted under an empty ipAddress,
+ * users without a department under an empty departmentCode.
+ */
+@Entity
+@Table(name = "ip_usage_stats", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_ip_usage_department_ip", columnNames = {"department_code", "ip_address"})
+}, indexes = {
+    @Index(name = "idx_ip_usage_ip_address", columnList = "ip_address")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IpUsageStat {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    /**
+     * Department code of the record owner when the record was written (empty if none)
+     */
+    @Column(name = "department_code", nullable = false, length = 10)
+    private String departmentCode;
+    
+    /**
+     * IP address of the records (empty for records without an IP address)
+     */
+    @Column(name = "ip_address", nullable = false, length = 45)
+    private String ipAddress;
+    
+    /**
+     * IP version: 4, 6, or 0 if unknown
+     */
+    @Column(name = "ip_version", nullable = false)
+    private int ipVersion;
+    
+    /**
+     * Number of records
+     */
+    @Column(name = "record_count", nullable = false)
+    private long recordCount;
+    
+    /**
+     * Number of records whose IP matched the owner's assignment
+     */
+    @Column(name = "match_count", nullable = false)
+    private long matchCount;
+    
+    /**
+     * Number of records whose IP did not match the owner's assignment
+     */
+    @Column(name = "mismatch_count", nullable = false)
+    private long mismatchCount;
+    
+    /**
+     * Number of records without an assignment, a known IP, or an owner
+     */
+    @Column(name = "other_count", nullable = false)
+    private long otherCount;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
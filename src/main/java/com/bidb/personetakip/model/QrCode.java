@@ -16,16 +16,17 @@ import java.time.LocalDateTime;
 
 /**
  * Entity representing a daily QR code for a user.
- * Each user gets one unique QR code per day, usable twice (entry and exit).
+ * Each user gets one unique QR code per day, usable twice (entry and exit);
+ * the (user_id, valid_date) unique key enforces it.
  */
 @Entity
 @Table(name = "qr_codes", 
     indexes = {
-        @Index(name = "idx_user_date", columnList = "user_id, valid_date"),
         @Index(name = "idx_qr_value", columnList = "qr_code_value")
     },
     uniqueConstraints = {
-        @UniqueConstraint(name = "uk_qr_code_value", columnNames = "qr_code_value")
+        @UniqueConstraint(name = "uk_qr_code_value", columnNames = "qr_code_value"),
+        @UniqueConstraint(name = "uk_user_valid_date", columnNames = {"user_id", "valid_date"})
     }
 )
 @Data
@@ -0,0 +1,52 @@
+package com.bidb.personetakip.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entity holding the last entry/exit event of each user.
+ * Written together with every entry/exit record so the current status of a user
+ * is a primary key lookup instead of a query over the user's records.
+ */
+@Entity
+@Table(name = "user_last_status")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserLastStatus {
+
+    /**
+     * User the status belongs to
+     */
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    /**
+     * Type of the last event (ENTRY or EXIT)
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "last_type", nullable = false, length = 10)
+    private EntryExitType lastType;
+
+    /**
+     * Time of the last event
+     */
+    @Column(name = "last_timestamp", nullable = false)
+    private LocalDateTime lastTimestamp;
+
+    /**
+     * ID of the last entry/exit record, used to order events with the same timestamp
+     */
+    @Column(name = "last_record_id", nullable = false)
+    private Long lastRecordId;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -44,10 +44,10 @@ public interface AdminAuditLogRepository extends JpaRepository<AdminAuditLog, Lo
                                                Pageable pageable);
     
     /**
-     * Find recent audit logs (last 24 hours) for dashboard
+     * Find the most recent audit logs since a time for dashboard
      */
-    @Query("SELECT a FROM AdminAuditLog a WHERE a.timestamp >= :since ORDER BY a.timestamp DESC")
-    List<AdminAuditLog> findRecentLogs(@Param("since") LocalDateTime since);
+    @Query("SELECT a FROM AdminAuditLog a WHERE a.timestamp >= :since ORDER BY a.timestamp DESC, a.id DESC")
+    List<AdminAuditLog> findRecentLogs(@Param("since") LocalDateTime since, Pageable pageable);
     
     /**
      * Count audit logs by action type within date range
@@ -0,0 +1,211 @@
+package com.bidb.personetakip.repository;
+
+import com.bidb.personetakip.model.DailyAttendance;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository interface for DailyAttendance entity operations.
+ */
+@Repository
+public interface DailyAttendanceRepository extends JpaRepository<DailyAttendance, Long> {
+
+    /**
+     * Write the rollup row of a user and day, replacing an existing one.
+     * @return Number of affected rows
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO daily_attendance " +
+                   "(user_id, attendance_date, first_entry_time, last_entry_time, last_exit_time, entry_count, exit_count, " +
+                   "late_entry_count, early_exit_count, worked_minutes, ip_match_count, ip_mismatch_count, " +
+                   "ip_no_assignment_count, ip_unknown_count, finalized, updated_at) " +
+                   "VALUES (:userId, :attendanceDate, :firstEntryTime, :lastEntryTime, :lastExitTime, :entryCount, :exitCount, " +
+                   ":lateEntryCount, :earlyExitCount, :workedMinutes, :ipMatchCount, :ipMismatchCount, " +
+                   ":ipNoAssignmentCount, :ipUnknownCount, :finalized, :updatedAt) " +
+                   "ON DUPLICATE KEY UPDATE " +
+                   "first_entry_time = :firstEntryTime, last_entry_time = :lastEntryTime, last_exit_time = :lastExitTime, " +
+                   "entry_count = :entryCount, exit_count = :exitCount, " +
+                   "late_entry_count = :lateEntryCount, early_exit_count = :earlyExitCount, worked_minutes = :workedMinutes, " +
+                   "ip_match_count = :ipMatchCount, ip_mismatch_count = :ipMismatchCount, " +
+                   "ip_no_assignment_count = :ipNoAssignmentCount, ip_unknown_count = :ipUnknownCount, " +
+                   "finalized = :finalized, updated_at = :updatedAt",
+           nativeQuery = true)
+    int upsert(@Param("userId") Long userId,
+               @Param("attendanceDate") LocalDate attendanceDate,
+               @Param("firstEntryTime") LocalDateTime firstEntryTime,
+               @Param("lastEntryTime") LocalDateTime lastEntryTime,
+               @Param("lastExitTime") LocalDateTime lastExitTime,
+               @Param("entryCount") int entryCount,
+               @Param("exitCount") int exitCount,
+               @Param("lateEntryCount") int lateEntryCount,
+               @Param("earlyExitCount") int earlyExitCount,
+               @Param("workedMinutes") int workedMinutes,
+               @Param("ipMatchCount") int ipMatchCount,
+               @Param("ipMismatchCount") int ipMismatchCount,
+               @Param("ipNoAssignmentCount") int ipNoAssignmentCount,
+               @Param("ipUnknownCount") int ipUnknownCount,
+               @Param("finalized") boolean finalized,
+               @Param("updatedAt") LocalDateTime updatedAt);
+
+    /**
+     * Delete the rollup row of a user and day
+     * @param userId User ID
+     * @param attendanceDate Day
+     * @return Number of deleted rows
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM DailyAttendance d WHERE d.userId = :userId AND d.attendanceDate = :attendanceDate")
+    int deleteByUserIdAndAttendanceDate(@Param("userId") Long userId, @Param("attendanceDate") LocalDate attendanceDate);
+
+    /**
+     * Delete the rows of a day except those of the given users
+     * @param attendanceDate Day
+     * @param userIds Users whose rows are kept (must not be empty)
+     * @return Number of deleted rows
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM DailyAttendance d WHERE d.attendanceDate = :attendanceDate AND d.userId NOT IN :userIds")
+    int deleteByAttendanceDateAndUserIdNotIn(@Param("attendanceDate") LocalDate attendanceDate,
+                                             @Param("userIds") Collection<Long> userIds);
+
+    /**
+     * Delete all rows of a day
+     * @param attendanceDate Day
+     * @return Number of deleted rows
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM DailyAttendance d WHERE d.attendanceDate = :attendanceDate")
+    int deleteByAttendanceDate(@Param("attendanceDate") LocalDate attendanceDate);
+
+    /**
+     * Delete all rows of a user
+     * @param userId User ID
+     * @return Number of deleted rows
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM DailyAttendance d WHERE d.userId = :userId")
+    int deleteByUserId(@Param("userId") Long userId);
+
+    /**
+     * Find the rollup row of a user and day
+     * @param userId User ID
+     * @param attendanceDate Day
+     * @return Row, if the user has records on that day
+     */
+    Optional<DailyAttendance> findByUserIdAndAttendanceDate(Long userId, LocalDate attendanceDate);
+
+    /**
+     * Find closed days that still have rows which were not finalized
+     * @param before First day that is not closed (today)
+     * @return Days in ascending order
+     */
+    @Query("SELECT DISTINCT d.attendanceDate FROM DailyAttendance d " +
+           "WHERE d.attendanceDate < :before AND d.finalized = false ORDER BY d.attendanceDate")
+    List<LocalDate> findUnfinalizedDatesBefore(@Param("before") LocalDate before);
+
+    /**
+     * Sum each user's attendance over a range of days
+     * @param startDate First day
+     * @param endDate Last day
+     * @param departmentCode Department code of the users (null for all departments)
+     * @return One row per user with records in the range
+     */
+    @Query("SELECT d.userId AS userId, SUM(d.entryCount) AS entryCount, SUM(d.exitCount) AS exitCount, " +
+           "SUM(d.lateEntryCount) AS lateEntryCount, SUM(d.earlyExitCount) AS earlyExitCount, " +
+           "MAX(d.lastEntryTime) AS lastEntryTime, MAX(d.lastExitTime) AS lastExitTime " +
+           "FROM DailyAttendance d JOIN User u ON d.userId = u.id " +
+           "WHERE d.attendanceDate BETWEEN :startDate AND :endDate " +
+           "AND (:departmentCode IS NULL OR u.departmentCode = :departmentCode) " +
+           "GROUP BY d.userId")
+    List<EntryExitRecordRepository.UserAttendanceSummary> summarizeAttendanceByUser(
+        @Param("startDate") LocalDate startDate,
+        @Param("endDate") LocalDate endDate,
+        @Param("departmentCode") String departmentCode
+    );
+
+    /**
+     * Sum each user's IP compliance counts over a range of days
+     * @param startDate First day
+     * @param endDate Last day
+     * @return One row per existing user with records in the range
+     */
+    @Query("SELECT d.userId AS userId, SUM(d.ipMatchCount) AS matchCount, SUM(d.ipMismatchCount) AS mismatchCount, " +
+           "SUM(d.ipNoAssignmentCount) AS noAssignmentCount, SUM(d.ipUnknownCount) AS unknownIpCount " +
+           "FROM DailyAttendance d JOIN User u ON d.userId = u.id " +
+           "WHERE d.attendanceDate BETWEEN :startDate AND :endDate " +
+           "GROUP BY d.userId")
+    List<UserIpCompliance> summarizeIpComplianceByUser(
+        @Param("startDate") LocalDate startDate,
+        @Param("endDate") LocalDate endDate
+    );
+
+    /**
+     * Sum entry and exit counts over a range of days
+     * @param startDate First day
+     * @param endDate Last day
+     * @param departmentCodes Department codes of the users
+     * @return Totals of users in the given departments
+     */
+    @Query("SELECT COALESCE(SUM(d.entryCount), 0) AS entryCount, COALESCE(SUM(d.exitCount), 0) AS exitCount " +
+           "FROM DailyAttendance d JOIN User u ON d.userId = u.id " +
+           "WHERE d.attendanceDate BETWEEN :startDate AND :endDate AND u.departmentCode IN :departmentCodes")
+    ActivityTotals sumActivityByUserDepartmentCodes(
+        @Param("startDate") LocalDate startDate,
+        @Param("endDate") LocalDate endDate,
+        @Param("departmentCodes") List<String> departmentCodes
+    );
+
+    /**
+     * Sum entry and exit counts over a range of days
+     * @param startDate First day
+     * @param endDate Last day
+     * @return Totals of all users
+     */
+    @Query("SELECT COALESCE(SUM(d.entryCount), 0) AS entryCount, COALESCE(SUM(d.exitCount), 0) AS exitCount " +
+           "FROM DailyAttendance d WHERE d.attendanceDate BETWEEN :startDate AND :endDate")
+    ActivityTotals sumActivity(
+        @Param("startDate") LocalDate startDate,
+        @Param("endDate") LocalDate endDate
+    );
+
+    /**
+     * IP compliance counts of one user over a range of days
+     */
+    interface UserIpCompliance {
+
+        Long getUserId();
+
+        long getMatchCount();
+
+        long getMismatchCount();
+
+        long getNoAssignmentCount();
+
+        long getUnknownIpCount();
+    }
+
+    /**
+     * Entry and exit totals over a range of days
+     */
+    interface ActivityTotals {
+
+        long getEntryCount();
+
+        long getExitCount();
+    }
+}
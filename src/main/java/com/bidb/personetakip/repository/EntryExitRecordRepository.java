@@ -2,21 +2,29 @@ package com.bidb.personetakip.repository;
 
 import com.bidb.personetakip.model.EntryExitRecord;
 import com.bidb.personetakip.model.EntryExitType;
+import com.bidb.personetakip.model.IpComplianceStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Repository interface for EntryExitRecord entity operations.
+ * Supports dynamic filtering through {@link EntryExitRecordSpecifications}.
  */
 @Repository
-public interface EntryExitRecordRepository extends JpaRepository<EntryExitRecord, Long> {
+public interface EntryExitRecordRepository extends JpaRepository<EntryExitRecord, Long>, JpaSpecificationExecutor<EntryExitRecord> {
     
     /**
      * Find all entry/exit records for a user
@@ -25,6 +33,14 @@ public interface EntryExitRecordRepository extends JpaRepository<EntryExitRecord
      */
     List<EntryExitRecord> findByUserId(Long userId);
     
+    /**
+     * Find a user's entry/exit records with any of the given timestamps
+     * @param userId User ID
+     * @param timestamps Event timestamps
+     * @return List of entry/exit records
+     */
+    List<EntryExitRecord> findByUserIdAndTimestampIn(Long userId, Collection<LocalDateTime> timestamps);
+    
     /**
      * Find all entry/exit records for a user within a date range
      * @param userId User ID
@@ -61,6 +77,13 @@ public interface EntryExitRecordRepository extends JpaRepository<EntryExitRecord
     @Query("SELECT e FROM EntryExitRecord e WHERE e.userId = :userId ORDER BY e.timestamp DESC")
     List<EntryExitRecord> findLatestByUserId(@Param("userId") Long userId);
     
+    /**
+     * Find the most recent entry/exit record for a user, reading a single row
+     * @param userId User ID
+     * @return Most recent record, or empty if the user has no records
+     */
+    Optional<EntryExitRecord> findFirstByUserIdOrderByTimestampDescIdDesc(Long userId);
+    
     /**
      * Count entry/exit records for a user on a specific date
      * @param userId User ID
@@ -102,12 +125,13 @@ public interface EntryExitRecordRepository extends JpaRepository<EntryExitRecord
     );
     
     /**
-     * Find recent records after a specific timestamp
+     * Find the most recent records after a specific timestamp
      * @param timestamp Timestamp to search after
-     * @return List of recent records (max 10)
+     * @param pageable Page size limiting the number of records
+     * @return Recent records, newest first
      */
-    @Query("SELECT e FROM EntryExitRecord e WHERE e.timestamp > :timestamp ORDER BY e.timestamp DESC")
-    List<EntryExitRecord> findTop10ByTimestampAfterOrderByTimestampDesc(@Param("timestamp") LocalDateTime timestamp);
+    @Query("SELECT e FROM EntryExitRecord e WHERE e.timestamp > :timestamp ORDER BY e.timestamp DESC, e.id DESC")
+    List<EntryExitRecord> findRecentRecords(@Param("timestamp") LocalDateTime timestamp, Pageable pageable);
     
     /**
      * Find all entry/exit records with pagination
@@ -169,21 +193,48 @@ public interface EntryExitRecordRepository extends JpaRepository<EntryExitRecord
     Page<EntryExitRecord> findByUnknownIpAddressOrderByTimestampDesc(Pageable pageable);
     
     /**
-     * Find entry/exit records by IP address pattern (for IP range filtering)
-     * @param ipPattern IP pattern to match (e.g., "192.168.1.%" for subnet)
-     * @return List of entry/exit records with matching IP pattern
+     * Find entry/exit records whose IP address key lies within a range (exact IP, prefix or CIDR block)
+     * @param lowKey Lowest IP address key (inclusive)
+     * @param highKey Highest IP address key (inclusive)
+     * @return List of entry/exit records within the range
+     * @see com.bidb.personetakip.util.IpAddressUtil#parseKeyRange(String)
      */
-    @Query("SELECT e FROM EntryExitRecord e WHERE e.ipAddress LIKE :ipPattern")
-    List<EntryExitRecord> findByIpAddressPattern(@Param("ipPattern") String ipPattern);
+    @Query("SELECT e FROM EntryExitRecord e WHERE e.ipAddressKey BETWEEN :lowKey AND :highKey")
+    List<EntryExitRecord> findByIpAddressKeyBetween(@Param("lowKey") String lowKey, @Param("highKey") String highKey);
     
     /**
-     * Find entry/exit records by IP address pattern with pagination
-     * @param ipPattern IP pattern to match (e.g., "192.168.1.%" for subnet)
+     * Find entry/exit records whose IP address key lies within a range with pagination
+     * @param lowKey Lowest IP address key (inclusive)
+     * @param highKey Highest IP address key (inclusive)
      * @param pageable Pagination information
-     * @return Page of entry/exit records with matching IP pattern
+     * @return Page of entry/exit records within the range
+     */
+    @Query("SELECT e FROM EntryExitRecord e WHERE e.ipAddressKey BETWEEN :lowKey AND :highKey ORDER BY e.timestamp DESC")
+    Page<EntryExitRecord> findByIpAddressKeyBetweenOrderByTimestampDesc(@Param("lowKey") String lowKey, @Param("highKey") String highKey, Pageable pageable);
+    
+    /**
+     * Find distinct IP addresses of records whose IP address key has not been computed yet,
+     * in ascending order after the given address
+     * @param afterIpAddress Exclusive lower bound ("" to start from the beginning)
+     * @param pageable Pagination information (limit)
+     * @return Distinct IP addresses
+     */
+    @Query("SELECT DISTINCT e.ipAddress FROM EntryExitRecord e " +
+           "WHERE e.ipAddress IS NOT NULL AND e.ipAddressKey IS NULL AND e.ipAddress > :afterIpAddress " +
+           "ORDER BY e.ipAddress")
+    List<String> findIpAddressesWithoutKey(@Param("afterIpAddress") String afterIpAddress, Pageable pageable);
+    
+    /**
+     * Set the IP address key of all records with the given IP address that do not have one yet
+     * @param ipAddress IP address
+     * @param ipAddressKey IP address key
+     * @return Number of updated records
      */
-    @Query("SELECT e FROM EntryExitRecord e WHERE e.ipAddress LIKE :ipPattern ORDER BY e.timestamp DESC")
-    Page<EntryExitRecord> findByIpAddressPatternOrderByTimestampDesc(@Param("ipPattern") String ipPattern, Pageable pageable);
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Transactional
+    @Query("UPDATE EntryExitRecord e SET e.ipAddressKey = :ipAddressKey " +
+           "WHERE e.ipAddress = :ipAddress AND e.ipAddressKey IS NULL")
+    int updateIpAddressKey(@Param("ipAddress") String ipAddress, @Param("ipAddressKey") String ipAddressKey);
     
     /**
      * Find entry/exit records by user and IP address
@@ -253,15 +304,17 @@ public interface EntryExitRecordRepository extends JpaRepository<EntryExitRecord
     );
     
     /**
-     * Find recent records for users in specific departments
+     * Find the most recent records for users in specific departments
      * @param timestamp Timestamp to search after
      * @param departmentCodes List of department codes
-     * @return List of recent records for users in specified departments (max 10)
+     * @param pageable Page size limiting the number of records
+     * @return Recent records for users in specified departments, newest first
      */
-    @Query("SELECT e FROM EntryExitRecord e JOIN User u ON e.userId = u.id WHERE e.timestamp > :timestamp AND u.departmentCode IN :departmentCodes ORDER BY e.timestamp DESC")
-    List<EntryExitRecord> findTop10ByTimestampAfterAndUserDepartmentCodesOrderByTimestampDesc(
+    @Query("SELECT e FROM EntryExitRecord e JOIN User u ON e.userId = u.id WHERE e.timestamp > :timestamp AND u.departmentCode IN :departmentCodes ORDER BY e.timestamp DESC, e.id DESC")
+    List<EntryExitRecord> findRecentRecordsByUserDepartmentCodes(
         @Param("timestamp") LocalDateTime timestamp,
-        @Param("departmentCodes") List<String> departmentCodes
+        @Param("departmentCodes") List<String> departmentCodes,
+        Pageable pageable
     );
     
     /**
@@ -293,4 +346,307 @@ public interface EntryExitRecordRepository extends JpaRepository<EntryExitRecord
         @Param("endDate") LocalDateTime endDate,
         @Param("departmentCodes") List<String> departmentCodes
     );
+    
+    /**
+     * Find distinct IDs of users that still have records without an IP compliance status
+     * @param pageable Limits the number of user IDs returned
+     * @return List of user IDs
+     */
+    @Query("SELECT DISTINCT e.userId FROM EntryExitRecord e WHERE e.ipComplianceStatus IS NULL")
+    List<Long> findUserIdsWithoutIpComplianceStatus(Pageable pageable);
+    
+    /**
+     * Find the distinct IP addresses a user has performed entries/exits from
+     * @param userId User ID
+     * @return List of IP addresses (may contain null for records without an IP)
+     */
+    @Query("SELECT DISTINCT e.ipAddress FROM EntryExitRecord e WHERE e.userId = :userId")
+    List<String> findDistinctIpAddressesByUserId(@Param("userId") Long userId);
+    
+    /**
+     * Count a user's records grouped by IP address and stored IP compliance status
+     * @param userId User ID
+     * @return Rows of [ipAddress, ipComplianceStatus, count]
+     */
+    @Query("SELECT e.ipAddress, e.ipComplianceStatus, COUNT(e) FROM EntryExitRecord e " +
+           "WHERE e.userId = :userId GROUP BY e.ipAddress, e.ipComplianceStatus")
+    List<Object[]> countByIpAddressAndComplianceStatusForUser(@Param("userId") Long userId);
+    
+    /**
+     * Set the IP compliance status of all records of a user made from the given IP address
+     * @param userId User ID
+     * @param ipAddress IP address
+     * @param status IP compliance status
+     * @return Number of updated records
+     */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE EntryExitRecord e SET e.ipComplianceStatus = :status WHERE e.userId = :userId AND e.ipAddress = :ipAddress")
+    int updateIpComplianceStatus(@Param("userId") Long userId,
+                                 @Param("ipAddress") String ipAddress,
+                                 @Param("status") IpComplianceStatus status);
+    
+    /**
+     * Set the IP compliance status of all records of a user without an IP address
+     * @param userId User ID
+     * @param status IP compliance status
+     * @return Number of updated records
+     */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE EntryExitRecord e SET e.ipComplianceStatus = :status WHERE e.userId = :userId AND e.ipAddress IS NULL")
+    int updateIpComplianceStatusWithoutIp(@Param("userId") Long userId,
+                                          @Param("status") IpComplianceStatus status);
+    
+    /**
+     * Summarize activity within a time range in a single aggregate query
+     * @param startDate Start date/time
+     * @param endDate End date/time
+     * @return Total, entry, exit and distinct user counts
+     */
+    @Query("SELECT COUNT(e) AS totalRecords, " +
+           "COALESCE(SUM(CASE WHEN e.type = com.bidb.personetakip.model.EntryExitType.ENTRY THEN 1 ELSE 0 END), 0) AS entryCount, " +
+           "COALESCE(SUM(CASE WHEN e.type = com.bidb.personetakip.model.EntryExitType.EXIT THEN 1 ELSE 0 END), 0) AS exitCount, " +
+           "COUNT(DISTINCT e.userId) AS uniqueUsers " +
+           "FROM EntryExitRecord e WHERE e.timestamp BETWEEN :startDate AND :endDate")
+    ActivitySummary summarizeByTimestampBetween(
+        @Param("startDate") LocalDateTime startDate,
+        @Param("endDate") LocalDateTime endDate
+    );
+    
+    /**
+     * Summarize activity of users in specified departments within a time range in a single aggregate query
+     * @param startDate Start date/time
+     * @param endDate End date/time
+     * @param departmentCodes List of department codes
+     * @return Total, entry, exit and distinct user counts
+     */
+    @Query("SELECT COUNT(e) AS totalRecords, " +
+           "COALESCE(SUM(CASE WHEN e.type = com.bidb.personetakip.model.EntryExitType.ENTRY THEN 1 ELSE 0 END), 0) AS entryCount, " +
+           "COALESCE(SUM(CASE WHEN e.type = com.bidb.personetakip.model.EntryExitType.EXIT THEN 1 ELSE 0 END), 0) AS exitCount, " +
+           "COUNT(DISTINCT e.userId) AS uniqueUsers " +
+           "FROM EntryExitRecord e JOIN User u ON e.userId = u.id " +
+           "WHERE e.timestamp BETWEEN :startDate AND :endDate AND u.departmentCode IN :departmentCodes")
+    ActivitySummary summarizeByTimestampBetweenAndUserDepartmentCodes(
+        @Param("startDate") LocalDateTime startDate,
+        @Param("endDate") LocalDateTime endDate,
+        @Param("departmentCodes") List<String> departmentCodes
+    );
+
+    /**
+     * Count records grouped by owner department, IP address and stored IP compliance status.
+     * Records of deleted users are grouped under a null department.
+     * @return Rows of [departmentCode, ipAddress, ipComplianceStatus, count]
+     */
+    @Query("SELECT u.departmentCode, e.ipAddress, e.ipComplianceStatus, COUNT(e) " +
+           "FROM EntryExitRecord e LEFT JOIN User u ON e.userId = u.id " +
+           "GROUP BY u.departmentCode, e.ipAddress, e.ipComplianceStatus")
+    List<Object[]> countByDepartmentIpAndComplianceStatus();
+
+    /**
+     * Count a user's records grouped by IP address and stored IP compliance status.
+     * @param userId User ID
+     * @return Rows of [ipAddress, ipComplianceStatus, count]
+     */
+    @Query("SELECT e.ipAddress, e.ipComplianceStatus, COUNT(e) FROM EntryExitRecord e " +
+           "WHERE e.userId = :userId GROUP BY e.ipAddress, e.ipComplianceStatus")
+    List<Object[]> countByIpAndComplianceStatusForUser(@Param("userId") Long userId);
+
+    /**
+     * Count records within a time range per user department and type
+     * @param startDate Start date/time
+     * @param endDate End date/time
+     * @return One row per department and type with records
+     */
+    @Query("SELECT u.departmentCode AS departmentCode, e.type AS type, COUNT(e) AS recordCount " +
+           "FROM EntryExitRecord e JOIN User u ON e.userId = u.id " +
+           "WHERE e.timestamp BETWEEN :startDate AND :endDate " +
+           "GROUP BY u.departmentCode, e.type")
+    List<DepartmentTypeCount> countByDepartmentAndTypeBetween(
+        @Param("startDate") LocalDateTime startDate,
+        @Param("endDate") LocalDateTime endDate
+    );
+    
+    /**
+     * Summarize each user's attendance within a time range in a single grouped query.
+     * An entry is late when its time of day is after the late threshold; an exit is early
+     * when its time of day is before the early threshold.
+     * @param startDate Start date/time
+     * @param endDate End date/time
+     * @param departmentCode Department code of the users (null for all departments)
+     * @param lateEntryAfter Late entry threshold (time of day)
+     * @param earlyExitBefore Early exit threshold (time of day)
+     * @return One row per user with records in the range
+     */
+    @Query("SELECT e.userId AS userId, " +
+           "SUM(CASE WHEN e.type = com.bidb.personetakip.model.EntryExitType.ENTRY THEN 1 ELSE 0 END) AS entryCount, " +
+           "SUM(CASE WHEN e.type = com.bidb.personetakip.model.EntryExitType.ENTRY THEN 0 ELSE 1 END) AS exitCount, " +
+           "SUM(CASE WHEN e.type = com.bidb.personetakip.model.EntryExitType.ENTRY " +
+           "AND CAST(e.timestamp AS LocalTime) > :lateEntryAfter " +
+           "THEN 1 ELSE 0 END) AS lateEntryCount, " +
+           "SUM(CASE WHEN e.type <> com.bidb.personetakip.model.EntryExitType.ENTRY " +
+           "AND CAST(e.timestamp AS LocalTime) < :earlyExitBefore " +
+           "THEN 1 ELSE 0 END) AS earlyExitCount, " +
+           "MAX(CASE WHEN e.type = com.bidb.personetakip.model.EntryExitType.ENTRY THEN e.timestamp END) AS lastEntryTime, " +
+           "MAX(CASE WHEN e.type <> com.bidb.personetakip.model.EntryExitType.ENTRY THEN e.timestamp END) AS lastExitTime " +
+           "FROM EntryExitRecord e JOIN User u ON e.userId = u.id " +
+           "WHERE e.timestamp BETWEEN :startDate AND :endDate " +
+           "AND (:departmentCode IS NULL OR u.departmentCode = :departmentCode) " +
+           "GROUP BY e.userId")
+    List<UserAttendanceSummary> summarizeAttendanceByUser(
+        @Param("startDate") LocalDateTime startDate,
+        @Param("endDate") LocalDateTime endDate,
+        @Param("departmentCode") String departmentCode,
+        @Param("lateEntryAfter") LocalTime lateEntryAfter,
+        @Param("earlyExitBefore") LocalTime earlyExitBefore
+    );
+    
+    /**
+     * Find the time of the earliest record
+     * @return Earliest timestamp (null if there are no records)
+     */
+    @Query("SELECT MIN(e.timestamp) FROM EntryExitRecord e")
+    LocalDateTime findEarliestTimestamp();
+    
+    /**
+     * Count records of existing users per IP address within a time range, most used first
+     * @param startDate Start date/time
+     * @param endDate End date/time
+     * @param pageable Page size limiting the number of IP addresses
+     * @return One row per IP address (null for records without an IP address)
+     */
+    @Query("SELECT e.ipAddress AS ipAddress, COUNT(e) AS recordCount, COUNT(DISTINCT e.userId) AS userCount " +
+           "FROM EntryExitRecord e JOIN User u ON e.userId = u.id " +
+           "WHERE e.timestamp BETWEEN :startDate AND :endDate " +
+           "GROUP BY e.ipAddress ORDER BY COUNT(e) DESC")
+    List<IpAddressUsage> countByIpAddressBetween(
+        @Param("startDate") LocalDateTime startDate,
+        @Param("endDate") LocalDateTime endDate,
+        Pageable pageable
+    );
+    
+    /**
+     * Find the distinct users of IP addresses within a time range
+     * @param startDate Start date/time
+     * @param endDate End date/time
+     * @param ipAddresses IP addresses (must not be empty)
+     * @param includeUnknown Whether to include records without an IP address
+     * @return Rows of [ipAddress, userId]
+     */
+    @Query("SELECT DISTINCT e.ipAddress, e.userId FROM EntryExitRecord e " +
+           "WHERE e.timestamp BETWEEN :startDate AND :endDate " +
+           "AND (e.ipAddress IN :ipAddresses OR (:includeUnknown = true AND e.ipAddress IS NULL))")
+    List<Object[]> findIpAddressUsers(
+        @Param("startDate") LocalDateTime startDate,
+        @Param("endDate") LocalDateTime endDate,
+        @Param("ipAddresses") Collection<String> ipAddresses,
+        @Param("includeUnknown") boolean includeUnknown
+    );
+    
+    /**
+     * Find the distinct IP addresses of records with a given compliance status of some users
+     * @param startDate Start date/time
+     * @param endDate End date/time
+     * @param userIds User IDs
+     * @param status Stored IP compliance status
+     * @return Rows of [userId, ipAddress]
+     */
+    @Query("SELECT DISTINCT e.userId, e.ipAddress FROM EntryExitRecord e " +
+           "WHERE e.timestamp BETWEEN :startDate AND :endDate AND e.userId IN :userIds " +
+           "AND e.ipComplianceStatus = :status")
+    List<Object[]> findUserIpAddressesByComplianceStatus(
+        @Param("startDate") LocalDateTime startDate,
+        @Param("endDate") LocalDateTime endDate,
+        @Param("userIds") Collection<Long> userIds,
+        @Param("status") IpComplianceStatus status
+    );
+    
+    /**
+     * Aggregate activity counts for a time range
+     */
+    interface ActivitySummary {
+        
+        /**
+         * @return Total number of records
+         */
+        long getTotalRecords();
+        
+        /**
+         * @return Number of entry records
+         */
+        long getEntryCount();
+        
+        /**
+         * @return Number of exit records
+         */
+        long getExitCount();
+        
+        /**
+         * @return Number of distinct users with at least one record
+         */
+        long getUniqueUsers();
+    }
+    
+    /**
+     * Record count of one department and type
+     */
+    interface DepartmentTypeCount {
+        
+        /**
+         * @return Department code (null for users without a department)
+         */
+        String getDepartmentCode();
+        
+        EntryExitType getType();
+        
+        long getRecordCount();
+    }
+    
+    /**
+     * Attendance of one user within a time range
+     */
+    interface UserAttendanceSummary {
+        
+        Long getUserId();
+        
+        long getEntryCount();
+        
+        long getExitCount();
+        
+        /**
+         * @return Number of entries after the late threshold
+         */
+        long getLateEntryCount();
+        
+        /**
+         * @return Number of exits before the early threshold
+         */
+        long getEarlyExitCount();
+        
+        /**
+         * @return Latest entry time (null without entries)
+         */
+        LocalDateTime getLastEntryTime();
+        
+        /**
+         * @return Latest exit time (null without exits)
+         */
+        LocalDateTime getLastExitTime();
+    }
+    
+    /**
+     * Record count of one IP address
+     */
+    interface IpAddressUsage {
+        
+        /**
+         * @return IP address (null for records without an IP address)
+         */
+        String getIpAddress();
+        
+        long getRecordCount();
+        
+        /**
+         * @return Number of distinct users
+         */
+        long getUserCount();
+    }
 }
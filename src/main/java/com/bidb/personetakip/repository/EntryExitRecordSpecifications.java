@@ -0,0 +1,280 @@
+package com.bidb.personetakip.repository;
+
+import com.bidb.personetakip.model.EntryExitRecord;
+import com.bidb.personetakip.model.User;
+import com.bidb.personetakip.model.IpComplianceStatus;
+import com.bidb.personetakip.util.IpAddressUtil;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Composable JPA specifications for EntryExitRecord queries.
+ * Each filter of the admin records screen is translated into a SQL predicate so that
+ * filtering, sorting and paging are executed by the database instead of in memory.
+ */
+public final class EntryExitRecordSpecifications {
+
+    /**
+     * Placeholder stored by IpAddressService when the client IP could not be determined
+     */
+    private static final String UNKNOWN_IP = "Unknown";
+
+    private EntryExitRecordSpecifications() {
+    }
+
+    /**
+     * Combine specifications with AND, ignoring null entries.
+     * @param specifications Specifications to combine
+     * @return Specification matching records that satisfy all given specifications
+     */
+    public static Specification<EntryExitRecord> allOf(List<Specification<EntryExitRecord>> specifications) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            for (Specification<EntryExitRecord> specification : specifications) {
+                if (specification == null) {
+                    continue;
+                }
+                Predicate predicate = specification.toPredicate(root, query, cb);
+                if (predicate != null) {
+                    predicates.add(predicate);
+                }
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    /**
+     * Records whose timestamp is within the given range (inclusive)
+     * @param startDate Start date/time
+     * @param endDate End date/time
+     * @return Specification
+     */
+    public static Specification<EntryExitRecord> timestampBetween(LocalDateTime startDate, LocalDateTime endDate) {
+        return (root, query, cb) -> cb.between(root.get("timestamp"), startDate, endDate);
+    }
+
+    /**
+     * Records that belong to the given user
+     * @param userId User ID
+     * @return Specification
+     */
+    public static Specification<EntryExitRecord> hasUserId(Long userId) {
+        return (root, query, cb) -> cb.equal(root.get("userId"), userId);
+    }
+
+    /**
+     * Records of users whose department code is one of the given codes
+     * @param departmentCodes Department codes
+     * @return Specification
+     */
+    public static Specification<EntryExitRecord> userInDepartments(Collection<String> departmentCodes) {
+        return (root, query, cb) -> {
+            Subquery<Long> departmentUsers = query.subquery(Long.class);
+            Root<User> user = departmentUsers.from(User.class);
+            departmentUsers.select(user.get("id"))
+                    .where(user.get("departmentCode").in(departmentCodes));
+            return root.get("userId").in(departmentUsers);
+        };
+    }
+
+    /**
+     * Records matching an IP address filter.
+     * "unknown" or "null" matches records without an IP address. Exact addresses, prefixes
+     * ("192.168.1.", "10.20.*", "2001:db8:"), CIDR blocks ("10.20.0.0/16") and
+     * "range:a-b" queries become a range scan on the indexed IP address key.
+     * "*term*" matches addresses containing the term (not indexed), anything else must
+     * match the stored value exactly.
+     * @param ipAddress IP address filter
+     * @return Specification
+     */
+    public static Specification<EntryExitRecord> ipAddressMatches(String ipAddress) {
+        String value = ipAddress.trim();
+        if ("unknown".equalsIgnoreCase(value) || "null".equalsIgnoreCase(value)) {
+            return (root, query, cb) -> cb.isNull(root.get("ipAddress"));
+        }
+
+        IpAddressUtil.KeyRange range = IpAddressUtil.parseKeyRange(value);
+        if (range != null) {
+            return ipAddressKeyBetween(range);
+        }
+
+        return (root, query, cb) -> {
+            Expression<String> recordIp = root.get("ipAddress");
+            if (value.length() > 2 && value.startsWith("*") && value.endsWith("*")) {
+                return cb.like(recordIp, "%" + escapeLike(value.substring(1, value.length() - 1)) + "%", '\\');
+            }
+            return cb.equal(recordIp, value);
+        };
+    }
+
+    /**
+     * Records whose IP address key lies within the given range (inclusive)
+     * @param range Key range
+     * @return Specification
+     */
+    public static Specification<EntryExitRecord> ipAddressKeyBetween(IpAddressUtil.KeyRange range) {
+        return (root, query, cb) -> cb.between(root.get("ipAddressKey"), range.lowKey(), range.highKey());
+    }
+
+    /**
+     * Records matching an IP type filter.
+     * "ipv4" and "ipv6" select valid addresses of that version through the IP address key,
+     * "unknown" selects records without an IP address or with an unparseable one.
+     * Records whose key has not been derived yet are classified by the shape of the stored
+     * address: a colon means IPv6, otherwise a dot means IPv4.
+     * @param ipType IP type filter ("ipv4", "ipv6", "unknown")
+     * @return Specification, or null if the filter value is not recognised
+     */
+    public static Specification<EntryExitRecord> ipTypeMatches(String ipType) {
+        switch (ipType.toLowerCase()) {
+            case "ipv4":
+                return (root, query, cb) -> {
+                    Expression<String> key = root.get("ipAddressKey");
+                    return cb.or(
+                            cb.between(key, IpAddressUtil.IPV4_KEY_RANGE.lowKey(), IpAddressUtil.IPV4_KEY_RANGE.highKey()),
+                            cb.and(cb.isNull(key), looksLikeIpv4(cb, root.get("ipAddress"))));
+                };
+            case "ipv6":
+                return (root, query, cb) -> {
+                    Expression<String> key = root.get("ipAddressKey");
+                    return cb.or(
+                            cb.and(cb.isNotNull(key),
+                                    cb.not(cb.between(key, IpAddressUtil.IPV4_KEY_RANGE.lowKey(), IpAddressUtil.IPV4_KEY_RANGE.highKey()))),
+                            cb.and(cb.isNull(key), looksLikeIpv6(cb, root.get("ipAddress"))));
+                };
+            case "unknown":
+                return (root, query, cb) -> {
+                    Expression<String> recordIp = root.get("ipAddress");
+                    return cb.and(cb.isNull(root.get("ipAddressKey")),
+                            cb.or(cb.isNull(recordIp),
+                                    cb.not(cb.or(looksLikeIpv4(cb, recordIp), looksLikeIpv6(cb, recordIp)))));
+                };
+            default:
+                return null;
+        }
+    }
+
+    private static Predicate looksLikeIpv4(CriteriaBuilder cb, Expression<String> ipAddress) {
+        return cb.and(cb.like(ipAddress, "%.%"), cb.notLike(ipAddress, "%:%"));
+    }
+
+    private static Predicate looksLikeIpv6(CriteriaBuilder cb, Expression<String> ipAddress) {
+        return cb.like(ipAddress, "%:%");
+    }
+
+    /**
+     * Records matching an IP compliance filter, using the status persisted with each record.
+     * "match" and "mismatch" select MATCH and MISMATCH records,
+     * "unknown" covers records without an assignment, without a known IP, or without an owner.
+     * Records not evaluated yet (null status) are matched against the owner's assigned IP
+     * addresses, mirroring IpComplianceService.getIpComplianceStatus.
+     * @param ipMismatch Filter value ("mismatch", "match", "unknown")
+     * @return Specification, or null if the filter value is not recognised
+     */
+    public static Specification<EntryExitRecord> ipComplianceMatches(String ipMismatch) {
+        String filter = ipMismatch.toLowerCase();
+        List<IpComplianceStatus> statuses;
+        switch (filter) {
+            case "mismatch":
+                statuses = List.of(IpComplianceStatus.MISMATCH);
+                break;
+            case "match":
+                statuses = List.of(IpComplianceStatus.MATCH);
+                break;
+            case "unknown":
+                statuses = List.of(IpComplianceStatus.NO_ASSIGNMENT, IpComplianceStatus.UNKNOWN_IP);
+                break;
+            default:
+                return null;
+        }
+
+        Specification<EntryExitRecord> stored = hasIpComplianceStatus(statuses);
+        return (root, query, cb) -> cb.or(
+                stored.toPredicate(root, query, cb),
+                cb.and(cb.isNull(root.get("ipComplianceStatus")), computedIpCompliance(filter, root, query, cb)));
+    }
+
+    /**
+     * Evaluate an IP compliance filter against the owner's assigned IP addresses:
+     * "match" and "mismatch" require an assignment and a known record IP.
+     */
+    private static Predicate computedIpCompliance(String filter, Root<EntryExitRecord> root,
+                                                  CriteriaQuery<?> query,
+                                                  CriteriaBuilder cb) {
+        Subquery<Long> owner = query.subquery(Long.class);
+        Root<User> user = owner.from(User.class);
+
+        Expression<String> assigned = user.get("assignedIpAddresses");
+        Expression<String> recordIp = root.get("ipAddress");
+
+        Predicate hasAssignment = cb.and(cb.isNotNull(assigned), cb.notEqual(cb.trim(assigned), ""));
+        Predicate ipKnown = cb.and(cb.isNotNull(recordIp), cb.notEqual(recordIp, UNKNOWN_IP));
+        Predicate ipAssigned = cb.greaterThan(
+                cb.locate(normalizedAssignmentList(cb, assigned), cb.concat(cb.concat(",", cb.lower(cb.trim(recordIp))), ",")),
+                0);
+
+        Predicate status;
+        switch (filter) {
+            case "mismatch":
+                status = cb.and(hasAssignment, ipKnown, cb.not(ipAssigned));
+                break;
+            case "match":
+                status = cb.and(hasAssignment, ipKnown, ipAssigned);
+                break;
+            default:
+                status = cb.or(cb.not(hasAssignment), cb.not(ipKnown));
+                break;
+        }
+
+        owner.select(user.get("id"))
+                .where(cb.equal(user.get("id"), root.get("userId")), status);
+
+        if (!filter.equals("unknown")) {
+            return cb.exists(owner);
+        }
+
+        // Records whose owner no longer exists are reported as unknown
+        Subquery<Long> anyOwner = query.subquery(Long.class);
+        Root<User> anyUser = anyOwner.from(User.class);
+        anyOwner.select(anyUser.get("id"))
+                .where(cb.equal(anyUser.get("id"), root.get("userId")));
+        return cb.or(cb.exists(owner), cb.not(cb.exists(anyOwner)));
+    }
+
+    /**
+     * Build ",ip1,ip2,...," from the assigned IP column so that a single LOCATE call
+     * can test list membership. Whitespace is removed and semicolons are treated as commas,
+     * matching IpComplianceService.parseAssignedIpAddresses.
+     */
+    private static Expression<String> normalizedAssignmentList(CriteriaBuilder cb, Expression<String> assigned) {
+        Expression<String> withoutSpaces = cb.function("replace", String.class, assigned, cb.literal(" "), cb.literal(""));
+        Expression<String> commaSeparated = cb.function("replace", String.class, withoutSpaces, cb.literal(";"), cb.literal(","));
+        return cb.lower(cb.concat(cb.concat(",", commaSeparated), ","));
+    }
+
+    /**
+     * Records whose persisted IP compliance status is one of the given statuses
+     * @param statuses IP compliance statuses
+     * @return Specification
+     */
+    public static Specification<EntryExitRecord> hasIpComplianceStatus(Collection<IpComplianceStatus> statuses) {
+        return (root, query, cb) -> root.get("ipComplianceStatus").in(statuses);
+    }
+
+    /**
+     * Escape LIKE wildcards in user supplied input
+     */
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
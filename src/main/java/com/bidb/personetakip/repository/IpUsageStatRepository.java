@@ -0,0 +1,145 @@
+package com.bidb.personetakip.repository;
+
+import com.bidb.personetakip.model.IpUsageStat;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repository interface for IpUsageStat entity operations.
+ */
+@Repository
+public interface IpUsageStatRepository extends JpaRepository<IpUsageStat, Long> {
+    
+    /**
+     * Add to the counters of a department/IP pair, creating the row if it does not exist.
+     * @param departmentCode Department code (empty if none)
+     * @param ipAddress IP address (empty if none)
+     * @param ipVersion IP version (4, 6, or 0)
+     * @param recordCount Records to add
+     * @param matchCount Matching records to add
+     * @param mismatchCount Mismatching records to add
+     * @param otherCount Other records to add
+     * @param updatedAt Update timestamp
+     * @return Number of affected rows
+     */
+    @Modifying
+    @Query(value = "INSERT INTO ip_usage_stats " +
+                   "(department_code, ip_address, ip_version, record_count, match_count, mismatch_count, other_count, updated_at) " +
+                   "VALUES (:departmentCode, :ipAddress, :ipVersion, :recordCount, :matchCount, :mismatchCount, :otherCount, :updatedAt) " +
+                   "ON DUPLICATE KEY UPDATE " +
+                   "record_count = record_count + :recordCount, " +
+                   "match_count = match_count + :matchCount, " +
+                   "mismatch_count = mismatch_count + :mismatchCount, " +
+                   "other_count = other_count + :otherCount, " +
+                   "updated_at = :updatedAt",
+           nativeQuery = true)
+    int addCounts(@Param("departmentCode") String departmentCode,
+                  @Param("ipAddress") String ipAddress,
+                  @Param("ipVersion") int ipVersion,
+                  @Param("recordCount") long recordCount,
+                  @Param("matchCount") long matchCount,
+                  @Param("mismatchCount") long mismatchCount,
+                  @Param("otherCount") long otherCount,
+                  @Param("updatedAt") LocalDateTime updatedAt);
+    
+    /**
+     * Move records of an existing department/IP pair between compliance counters.
+     * The record count is unchanged; pairs without a row are left alone.
+     * @param departmentCode Department code (empty if none)
+     * @param ipAddress IP address (empty if none)
+     * @param matchDelta Change of the match counter
+     * @param mismatchDelta Change of the mismatch counter
+     * @param otherDelta Change of the other counter
+     * @param updatedAt Update timestamp
+     * @return Number of affected rows
+     */
+    @Modifying
+    @Query("UPDATE IpUsageStat s SET s.matchCount = s.matchCount + :matchDelta, " +
+           "s.mismatchCount = s.mismatchCount + :mismatchDelta, " +
+           "s.otherCount = s.otherCount + :otherDelta, s.updatedAt = :updatedAt " +
+           "WHERE s.departmentCode = :departmentCode AND s.ipAddress = :ipAddress")
+    int moveComplianceCounts(@Param("departmentCode") String departmentCode,
+                             @Param("ipAddress") String ipAddress,
+                             @Param("matchDelta") long matchDelta,
+                             @Param("mismatchDelta") long mismatchDelta,
+                             @Param("otherDelta") long otherDelta,
+                             @Param("updatedAt") LocalDateTime updatedAt);
+    
+    /**
+     * Sum all counters
+     * @return Totals
+     */
+    @Query("SELECT COALESCE(SUM(s.recordCount), 0) AS totalRecords, " +
+           "COALESCE(SUM(CASE WHEN s.ipAddress <> '' THEN s.recordCount ELSE 0 END), 0) AS totalWithIp, " +
+           "COALESCE(SUM(CASE WHEN s.ipVersion = 4 THEN s.recordCount ELSE 0 END), 0) AS ipv4Count, " +
+           "COALESCE(SUM(CASE WHEN s.ipVersion = 6 THEN s.recordCount ELSE 0 END), 0) AS ipv6Count, " +
+           "COALESCE(SUM(s.matchCount), 0) AS matchCount, " +
+           "COALESCE(SUM(s.mismatchCount), 0) AS mismatchCount, " +
+           "COALESCE(SUM(s.otherCount), 0) AS otherCount " +
+           "FROM IpUsageStat s")
+    IpUsageTotals sumAll();
+    
+    /**
+     * Sum counters of the specified departments
+     * @param departmentCodes List of department codes
+     * @return Totals
+     */
+    @Query("SELECT COALESCE(SUM(s.recordCount), 0) AS totalRecords, " +
+           "COALESCE(SUM(CASE WHEN s.ipAddress <> '' THEN s.recordCount ELSE 0 END), 0) AS totalWithIp, " +
+           "COALESCE(SUM(CASE WHEN s.ipVersion = 4 THEN s.recordCount ELSE 0 END), 0) AS ipv4Count, " +
+           "COALESCE(SUM(CASE WHEN s.ipVersion = 6 THEN s.recordCount ELSE 0 END), 0) AS ipv6Count, " +
+           "COALESCE(SUM(s.matchCount), 0) AS matchCount, " +
+           "COALESCE(SUM(s.mismatchCount), 0) AS mismatchCount, " +
+           "COALESCE(SUM(s.otherCount), 0) AS otherCount " +
+           "FROM IpUsageStat s WHERE s.departmentCode IN :departmentCodes")
+    IpUsageTotals sumByDepartmentCodes(@Param("departmentCodes") List<String> departmentCodes);
+    
+    /**
+     * Find the most used IP addresses
+     * @param pageable Limits the number of results
+     * @return IP addresses with their record counts, most used first
+     */
+    @Query("SELECT s.ipAddress AS ipAddress, SUM(s.recordCount) AS recordCount FROM IpUsageStat s " +
+           "WHERE s.ipAddress <> '' GROUP BY s.ipAddress ORDER BY SUM(s.recordCount) DESC")
+    List<IpUsageCount> findTopIpAddresses(Pageable pageable);
+    
+    /**
+     * Find the most used IP addresses within the specified departments
+     * @param departmentCodes List of department codes
+     * @param pageable Limits the number of results
+     * @return IP addresses with their record counts, most used first
+     */
+    @Query("SELECT s.ipAddress AS ipAddress, SUM(s.recordCount) AS recordCount FROM IpUsageStat s " +
+           "WHERE s.ipAddress <> '' AND s.departmentCode IN :departmentCodes " +
+           "GROUP BY s.ipAddress ORDER BY SUM(s.recordCount) DESC")
+    List<IpUsageCount> findTopIpAddressesByDepartmentCodes(@Param("departmentCodes") List<String> departmentCodes,
+                                                          Pageable pageable);
+    
+    /**
+     * Summed IP usage counters
+     */
+    interface IpUsageTotals {
+        long getTotalRecords();
+        long getTotalWithIp();
+        long getIpv4Count();
+        long getIpv6Count();
+        long getMatchCount();
+        long getMismatchCount();
+        long getOtherCount();
+    }
+    
+    /**
+     * Record count of a single IP address
+     */
+    interface IpUsageCount {
+        String getIpAddress();
+        long getRecordCount();
+    }
+}
@@ -2,11 +2,14 @@ package com.bidb.personetakip.repository;
 
 import com.bidb.personetakip.model.QrCode;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -31,6 +34,21 @@ public interface QrCodeRepository extends JpaRepository<QrCode, Long> {
      */
     Optional<QrCode> findByQrCodeValue(String qrCodeValue);
     
+    /**
+     * Find QR codes by their values
+     * @param qrCodeValues QR code values
+     * @return QR codes found
+     */
+    List<QrCode> findByQrCodeValueIn(Collection<String> qrCodeValues);
+    
+    /**
+     * Find the QR codes of several users for a date
+     * @param userIds User IDs
+     * @param validDate Valid date
+     * @return QR codes found
+     */
+    List<QrCode> findByUserIdInAndValidDate(Collection<Long> userIds, LocalDate validDate);
+    
     /**
      * Find all QR codes for a user
      * @param userId User ID
@@ -61,4 +79,31 @@ public interface QrCodeRepository extends JpaRepository<QrCode, Long> {
      * @return List of QR codes
      */
     List<QrCode> findByUserIdAndUsageCount(Long userId, Integer usageCount);
+    
+    /**
+     * Increment the usage count of a QR code in a single conditional statement,
+     * only if it is still below the limit. The version is increased as well so
+     * concurrent entity updates detect the change.
+     * @param id QR code ID
+     * @param maxUsage Maximum allowed usage count
+     * @return 1 if the usage was counted, 0 if the QR code is at its limit or does not exist
+     */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Transactional
+    @Query("UPDATE QrCode q SET q.usageCount = q.usageCount + 1, q.version = COALESCE(q.version, 0) + 1 " +
+           "WHERE q.id = :id AND q.usageCount < :maxUsage")
+    int incrementUsageCountIfBelow(@Param("id") Long id, @Param("maxUsage") int maxUsage);
+    
+    /**
+     * Atomically add several uses to a QR code, only if the total stays within the limit
+     * @param id QR code ID
+     * @param count Number of uses to add
+     * @param maxUsage Maximum allowed usage count
+     * @return 1 if the usages were counted, 0 if they would exceed the limit or the QR code does not exist
+     */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Transactional
+    @Query("UPDATE QrCode q SET q.usageCount = q.usageCount + :count, q.version = COALESCE(q.version, 0) + 1 " +
+           "WHERE q.id = :id AND q.usageCount + :count <= :maxUsage")
+    int addUsageCountIfWithin(@Param("id") Long id, @Param("count") int count, @Param("maxUsage") int maxUsage);
 }
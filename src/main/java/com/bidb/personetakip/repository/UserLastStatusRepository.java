@@ -0,0 +1,106 @@
+package com.bidb.personetakip.repository;
+
+import com.bidb.personetakip.model.EntryExitType;
+import com.bidb.personetakip.model.UserLastStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository interface for UserLastStatus entity operations.
+ */
+@Repository
+public interface UserLastStatusRepository extends JpaRepository<UserLastStatus, Long> {
+
+    /**
+     * Read the stored last event of a user by primary key.
+     * Returns a projection rather than the entity so a row changed by {@link #upsertIfLater}
+     * earlier in the same transaction is read as stored.
+     * @param userId User ID
+     * @return Last event, or empty if nothing is stored for the user
+     */
+    @Query("SELECT s.lastType AS lastType, s.lastTimestamp AS lastTimestamp " +
+           "FROM UserLastStatus s WHERE s.userId = :userId")
+    Optional<LastEvent> findLastEventByUserId(@Param("userId") Long userId);
+
+    /**
+     * Find the stored last events of existing users after a user ID, in ascending user ID order.
+     * Used to read all statuses in batches when building the presence registry.
+     * @param afterUserId ID of the last user already read
+     * @param pageable Pagination information (limit)
+     * @return Stored last events after the given user
+     */
+    @Query("SELECT s FROM UserLastStatus s WHERE s.userId > :afterUserId " +
+           "AND EXISTS (SELECT 1 FROM User u WHERE u.id = s.userId) ORDER BY s.userId ASC")
+    List<UserLastStatus> findExistingUsersAfter(@Param("afterUserId") Long afterUserId, Pageable pageable);
+
+    /**
+     * Store an event as the user's last event, creating the row if it does not exist.
+     * An existing row is only replaced by a later event (by timestamp, then record ID).
+     * The timestamp is assigned last because MySQL evaluates assignments in order.
+     * @param userId User ID
+     * @param type Event type (ENTRY or EXIT)
+     * @param timestamp Event time
+     * @param recordId Entry/exit record ID
+     * @param updatedAt Update timestamp
+     * @return Number of affected rows
+     */
+    @Modifying
+    @Query(value = "INSERT INTO user_last_status (user_id, last_type, last_timestamp, last_record_id, updated_at) " +
+                   "VALUES (:userId, :type, :timestamp, :recordId, :updatedAt) " +
+                   "ON DUPLICATE KEY UPDATE " +
+                   "last_type = CASE WHEN :timestamp > last_timestamp " +
+                   "OR (:timestamp = last_timestamp AND :recordId > last_record_id) THEN :type ELSE last_type END, " +
+                   "updated_at = CASE WHEN :timestamp > last_timestamp " +
+                   "OR (:timestamp = last_timestamp AND :recordId > last_record_id) THEN :updatedAt ELSE updated_at END, " +
+                   "last_record_id = CASE WHEN :timestamp > last_timestamp " +
+                   "OR (:timestamp = last_timestamp AND :recordId > last_record_id) THEN :recordId ELSE last_record_id END, " +
+                   "last_timestamp = CASE WHEN :timestamp > last_timestamp THEN :timestamp ELSE last_timestamp END",
+           nativeQuery = true)
+    int upsertIfLater(@Param("userId") Long userId,
+                      @Param("type") String type,
+                      @Param("timestamp") LocalDateTime timestamp,
+                      @Param("recordId") Long recordId,
+                      @Param("updatedAt") LocalDateTime updatedAt);
+
+    /**
+     * Fill in the last event of every user with entry/exit records but no stored status.
+     * Reads each user's latest record through the (user_id, timestamp) index.
+     * @param updatedAt Update timestamp
+     * @return Number of inserted rows
+     */
+    @Modifying
+    @Query(value = "INSERT INTO user_last_status (user_id, last_type, last_timestamp, last_record_id, updated_at) " +
+                   "SELECT e.user_id, e.type, e.timestamp, e.id, :updatedAt FROM entry_exit_records e " +
+                   "WHERE NOT EXISTS (SELECT 1 FROM entry_exit_records n WHERE n.user_id = e.user_id " +
+                   "AND (n.timestamp > e.timestamp OR (n.timestamp = e.timestamp AND n.id > e.id))) " +
+                   "AND NOT EXISTS (SELECT 1 FROM user_last_status s WHERE s.user_id = e.user_id)",
+           nativeQuery = true)
+    int insertMissingFromRecords(@Param("updatedAt") LocalDateTime updatedAt);
+
+    /**
+     * Delete the stored last event of a user
+     * @param userId User ID
+     * @return Number of deleted rows
+     */
+    @Modifying
+    @Query("DELETE FROM UserLastStatus s WHERE s.userId = :userId")
+    int deleteByUserId(@Param("userId") Long userId);
+
+    /**
+     * Minimal view of a stored last event
+     */
+    interface LastEvent {
+
+        EntryExitType getLastType();
+
+        LocalDateTime getLastTimestamp();
+    }
+}
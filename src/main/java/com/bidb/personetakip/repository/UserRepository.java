@@ -9,6 +9,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
@@ -54,6 +55,27 @@ public interface UserRepository extends JpaRepository<User, Long> {
      */
     Page<User> findByRole(UserRole role, Pageable pageable);
     
+    /**
+     * Find all users of a department ordered by name
+     * @param departmentCode Department code
+     * @return Users of the department
+     */
+    List<User> findByDepartmentCodeOrderByLastNameAscFirstNameAsc(String departmentCode);
+    
+    /**
+     * Find IDs of users without a QR code for a date, in ID order after a cursor
+     * @param afterId Last user ID already read
+     * @param validDate QR code date
+     * @param pageable Pagination information (limit)
+     * @return User IDs
+     */
+    @Query("SELECT u.id FROM User u WHERE u.id > :afterId AND NOT EXISTS " +
+           "(SELECT q.id FROM QrCode q WHERE q.userId = u.id AND q.validDate = :validDate) " +
+           "ORDER BY u.id ASC")
+    List<Long> findIdsWithoutQrCode(@Param("afterId") Long afterId,
+                                    @Param("validDate") LocalDate validDate,
+                                    Pageable pageable);
+    
     /**
      * Search users by TC number, name, or personnel number
      * @param searchTerm Search term
@@ -131,6 +153,15 @@ public interface UserRepository extends JpaRepository<User, Long> {
            "ORDER BY u.departmentName")
     List<Object[]> findDistinctDepartments();
     
+    /**
+     * Find the department codes used by users of a department, looked up by department name
+     * @param departmentName Department name
+     * @return Distinct non-empty department codes
+     */
+    @Query("SELECT DISTINCT u.departmentCode FROM User u " +
+           "WHERE u.departmentName = :departmentName AND u.departmentCode IS NOT NULL AND u.departmentCode != ''")
+    List<String> findDepartmentCodesByDepartmentName(@Param("departmentName") String departmentName);
+    
     /**
      * Find users who have never made any entry/exit records
      * @param pageable Pagination information
@@ -141,7 +172,8 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Page<User> findUsersWithNoEntryExitRecords(Pageable pageable);
     
     /**
-     * Find users who are currently inside (last record is ENTRY)
+     * Find users who are currently inside (last record is ENTRY).
+     * Scans all entry/exit records; prefer {@link com.bidb.personetakip.service.PresenceRegistry}
      * @param pageable Pagination information
      * @return Page of users currently inside
      */
@@ -152,7 +184,8 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Page<User> findUsersCurrentlyInside(Pageable pageable);
     
     /**
-     * Find users who are currently outside (last record is EXIT or no records)
+     * Find users who are currently outside (last record is EXIT or no records).
+     * Scans all entry/exit records; prefer {@link com.bidb.personetakip.service.PresenceRegistry}
      * @param pageable Pagination information
      * @return Page of users currently outside
      */
@@ -162,6 +195,38 @@ public interface UserRepository extends JpaRepository<User, Long> {
            "AND e1.type = 'ENTRY')")
     Page<User> findUsersCurrentlyOutside(Pageable pageable);
 
+    /**
+     * Find users whose stored last event is an ENTRY, with pagination.
+     * Joins the one-row-per-user last status table instead of scanning entry/exit records.
+     * @param pageable Pagination information
+     * @return Page of users currently inside
+     */
+    @Query(value = "SELECT u FROM User u JOIN UserLastStatus s ON s.userId = u.id " +
+                   "WHERE s.lastType = com.bidb.personetakip.model.EntryExitType.ENTRY",
+           countQuery = "SELECT COUNT(u) FROM User u JOIN UserLastStatus s ON s.userId = u.id " +
+                        "WHERE s.lastType = com.bidb.personetakip.model.EntryExitType.ENTRY")
+    Page<User> findUsersWithLastStatusInside(Pageable pageable);
+    
+    /**
+     * Find users whose stored last event is not an ENTRY (EXIT or no events), with pagination.
+     * @param pageable Pagination information
+     * @return Page of users currently outside
+     */
+    @Query(value = "SELECT u FROM User u WHERE NOT EXISTS (SELECT 1 FROM UserLastStatus s " +
+                   "WHERE s.userId = u.id AND s.lastType = com.bidb.personetakip.model.EntryExitType.ENTRY)",
+           countQuery = "SELECT COUNT(u) FROM User u WHERE NOT EXISTS (SELECT 1 FROM UserLastStatus s " +
+                        "WHERE s.userId = u.id AND s.lastType = com.bidb.personetakip.model.EntryExitType.ENTRY)")
+    Page<User> findUsersWithLastStatusOutside(Pageable pageable);
+    
+    /**
+     * Count users in the specified departments whose stored last event is an ENTRY
+     * @param departmentCodes List of department codes
+     * @return Number of users currently inside
+     */
+    @Query("SELECT COUNT(u) FROM User u JOIN UserLastStatus s ON s.userId = u.id " +
+           "WHERE s.lastType = com.bidb.personetakip.model.EntryExitType.ENTRY AND u.departmentCode IN :departmentCodes")
+    long countUsersWithLastStatusInsideByDepartmentCodes(@Param("departmentCodes") List<String> departmentCodes);
+
     /**
      * Count users by department codes
      * @param departmentCodes List of department codes
@@ -192,5 +257,29 @@ public interface UserRepository extends JpaRepository<User, Long> {
            "LOWER(u.lastName) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
            "LOWER(CONCAT(u.firstName, ' ', u.lastName)) LIKE LOWER(CONCAT('%', :searchTerm, '%')))")
     Page<User> findBySearchTermAndDepartmentCodeIn(@Param("searchTerm") String searchTerm, @Param("departmentCodes") List<String> departmentCodes, Pageable pageable);
-
+    
+    /**
+     * Find the department code of every user
+     * @return One row per user
+     */
+    @Query("SELECT u.id AS id, u.departmentCode AS departmentCode FROM User u")
+    List<UserDepartment> findAllUserDepartments();
+    
+    /**
+     * Find the department code of a user
+     * @param id User ID
+     * @return Department code, empty if the user does not exist or has no department
+     */
+    @Query("SELECT u.departmentCode FROM User u WHERE u.id = :id")
+    Optional<String> findDepartmentCodeById(@Param("id") Long id);
+    
+    /**
+     * User ID with department code
+     */
+    interface UserDepartment {
+        
+        Long getId();
+        
+        String getDepartmentCode();
+    }
 }
@@ -0,0 +1,193 @@
+package com.bidb.personetakip.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Signs and verifies daily QR code tokens.
+ * A token carries the owner's user ID, the date it is valid for and the ID of the key
+ * that signed it, followed by an HMAC-SHA256 signature:
+ * {@code QR1.<userId>.<yyyyMMdd>.<keyId>.<signature>}.
+ * Ownership and date can therefore be checked without reading qr_codes.
+ *
+ * Keys are configured as {@code qr.token.keys=keyId:secret,keyId:secret}. New tokens are
+ * signed with {@code qr.token.active-key-id}; every configured key is accepted for
+ * verification, so a key can be rotated by adding a new active key and removing the old
+ * one after its tokens have expired. With no keys configured signing is disabled, unless
+ * {@code qr.token.required} is set (as in production), in which case startup fails.
+ */
+@Component
+public class QrTokenSigner {
+
+    private static final Logger logger = LoggerFactory.getLogger(QrTokenSigner.class);
+
+    private static final String PREFIX = "QR1.";
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.BASIC_ISO_DATE;
+    private static final int MIN_SECRET_LENGTH = 32;
+
+    private final Map<String, SecretKeySpec> keys;
+    private final String activeKeyId;
+
+    public QrTokenSigner(
+            @Value("${qr.token.keys:}") String keys,
+            @Value("${qr.token.active-key-id:}") String activeKeyId,
+            @Value("${qr.token.required:false}") boolean required) {
+        this.keys = parseKeys(keys);
+        if (this.keys.isEmpty()) {
+            if (required) {
+                throw new IllegalStateException("No QR token key configured, set QR_TOKEN_KEYS");
+            }
+            this.activeKeyId = null;
+        } else if (activeKeyId == null || activeKeyId.isBlank()) {
+            this.activeKeyId = this.keys.keySet().iterator().next();
+        } else if (this.keys.containsKey(activeKeyId.trim())) {
+            this.activeKeyId = activeKeyId.trim();
+        } else {
+            throw new IllegalArgumentException("Active QR token key is not configured: " + activeKeyId);
+        }
+    }
+
+    /**
+     * Claims carried by a verified token
+     *
+     * @param userId Owner of the QR code
+     * @param validDate Date the QR code is valid for
+     * @param keyId ID of the key that signed the token
+     */
+    public record QrTokenClaims(Long userId, LocalDate validDate, String keyId) {
+    }
+
+    /**
+     * @return true if a signing key is configured
+     */
+    public boolean isEnabled() {
+        return activeKeyId != null;
+    }
+
+    /**
+     * Check whether a value has the signed token format (legacy QR values never contain dots).
+     *
+     * @param value QR code value
+     * @return true if the value is a signed token
+     */
+    public static boolean isSignedToken(String value) {
+        return value != null && value.startsWith(PREFIX);
+    }
+
+    /**
+     * Create a signed token with the active key.
+     *
+     * @param userId Owner of the QR code
+     * @param validDate Date the QR code is valid for
+     * @return Signed token
+     */
+    public String sign(Long userId, LocalDate validDate) {
+        if (!isEnabled()) {
+            throw new IllegalStateException("No QR token key configured");
+        }
+        String payload = PREFIX + userId + "." + validDate.format(DATE_FORMAT) + "." + activeKeyId;
+        return payload + "." + encode(mac(keys.get(activeKeyId), payload));
+    }
+
+    /**
+     * Verify a token's signature and read its claims.
+     *
+     * @param token QR code value
+     * @return Claims, or empty if the token is malformed, signed with an unknown key or forged
+     */
+    public Optional<QrTokenClaims> verify(String token) {
+        if (!isSignedToken(token)) {
+            return Optional.empty();
+        }
+
+        int signatureStart = token.lastIndexOf('.');
+        if (signatureStart < PREFIX.length()) {
+            return Optional.empty();
+        }
+        String payload = token.substring(0, signatureStart);
+        String[] parts = payload.substring(PREFIX.length()).split("\\.", -1);
+        if (parts.length != 3) {
+            return Optional.empty();
+        }
+
+        SecretKeySpec key = keys.get(parts[2]);
+        if (key == null) {
+            return Optional.empty();
+        }
+
+        byte[] signature;
+        try {
+            signature = Base64.getUrlDecoder().decode(token.substring(signatureStart + 1));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+        if (!MessageDigest.isEqual(mac(key, payload), signature)) {
+            return Optional.empty();
+        }
+
+        try {
+            return Optional.of(new QrTokenClaims(
+                    Long.valueOf(parts[0]), LocalDate.parse(parts[1], DATE_FORMAT), parts[2]));
+        } catch (NumberFormatException | DateTimeParseException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static byte[] mac(SecretKeySpec key, String payload) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(payload.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+            throw new IllegalStateException("HMAC-SHA256 not available", e);
+        }
+    }
+
+    private static String encode(byte[] signature) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(signature);
+    }
+
+    /**
+     * Parse "keyId:secret" pairs separated by commas, keeping their order
+     */
+    private static Map<String, SecretKeySpec> parseKeys(String value) {
+        Map<String, SecretKeySpec> parsed = new LinkedHashMap<>();
+        if (value == null || value.isBlank()) {
+            return Collections.emptyMap();
+        }
+        for (String entry : value.split(",")) {
+            int separator = entry.indexOf(':');
+            if (separator <= 0 || separator == entry.length() - 1) {
+                throw new IllegalArgumentException("QR token keys must be given as keyId:secret");
+            }
+            String keyId = entry.substring(0, separator).trim();
+            if (!keyId.matches("[A-Za-z0-9_-]+")) {
+                throw new IllegalArgumentException("Invalid QR token key ID: " + keyId);
+            }
+            byte[] secret = entry.substring(separator + 1).trim().getBytes(StandardCharsets.UTF_8);
+            if (secret.length < MIN_SECRET_LENGTH) {
+                logger.warn("QR token key {} is shorter than {} bytes", keyId, MIN_SECRET_LENGTH);
+            }
+            parsed.put(keyId, new SecretKeySpec(secret, ALGORITHM));
+        }
+        return Collections.unmodifiableMap(parsed);
+    }
+}
@@ -1,25 +1,29 @@
 package com.bidb.personetakip.service;
 
+import com.bidb.personetakip.config.CacheConfig;
 import com.bidb.personetakip.dto.DashboardStatsDto;
 import com.bidb.personetakip.model.AdminAuditLog;
 import com.bidb.personetakip.model.EntryExitRecord;
 import com.bidb.personetakip.model.EntryExitType;
-import com.bidb.personetakip.model.User;
 import com.bidb.personetakip.model.UserRole;
 import com.bidb.personetakip.repository.AdminAuditLogRepository;
+import com.bidb.personetakip.repository.DailyAttendanceRepository;
 import com.bidb.personetakip.repository.EntryExitRecordRepository;
 import com.bidb.personetakip.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.List;
-import java.util.Optional;
+import java.util.TreeSet;
 
 /**
  * Service for admin dashboard operations.
@@ -30,6 +34,13 @@ import java.util.Optional;
 @Service
 public class AdminDashboardService {
     
+    private static final Logger logger = LoggerFactory.getLogger(AdminDashboardService.class);
+    
+    /**
+     * Number of items in the dashboard's recent-activity lists
+     */
+    private static final int RECENT_ACTIVITY_LIMIT = 10;
+    
     @Autowired
     private UserRepository userRepository;
     
@@ -39,13 +50,33 @@ public class AdminDashboardService {
     @Autowired
     private AdminAuditLogRepository adminAuditLogRepository;
     
+    @Autowired
+    private DepartmentAccessResolver departmentAccessResolver;
+    
+    @Autowired
+    private PresenceRegistry presenceRegistry;
+    
+    @Autowired
+    private DailyActivityCounters dailyActivityCounters;
+    
+    @Autowired
+    private RecentActivityBuffer recentActivityBuffer;
+    
+    @Autowired
+    private DailyAttendanceRepository dailyAttendanceRepository;
+    
+    @Autowired
+    private DailyAttendanceRollupService dailyAttendanceRollupService;
+    
+    @Autowired
+    private CacheManager cacheManager;
+    
     /**
-     * Get dashboard statistics with caching (30 seconds).
+     * Get dashboard statistics for all departments.
      * 
      * @return Dashboard statistics DTO
      * Requirements: 1.2 - Display total user count, today's entry/exit count, and recent activity summary
      */
-    @Cacheable(value = "dashboardStats", unless = "#result == null")
     public DashboardStatsDto getDashboardStats() {
         return getDashboardStatsForDepartments(null);
     }
@@ -58,124 +89,33 @@ public class AdminDashboardService {
      * Requirements: 1.2 - Display total user count, today's entry/exit count, and recent activity summary with department filtering
      */
     public DashboardStatsDto getDashboardStats(Authentication authentication) {
-        List<String> accessibleDepartments = getAccessibleDepartmentCodes(authentication);
+        List<String> accessibleDepartments = departmentAccessResolver.getAccessibleDepartmentCodes(authentication);
         return getDashboardStatsForDepartments(accessibleDepartments);
     }
     
-    /**
-     * Get accessible department codes for the authenticated user.
-     * SUPER_ADMIN and ADMIN can access all departments.
-     * DEPARTMENT_ADMIN can only access their own department.
-     * 
-     * @param authentication Authentication object
-     * @return List of accessible department codes (null means all departments)
-     */
-    private List<String> getAccessibleDepartmentCodes(Authentication authentication) {
-        if (authentication == null) {
-            return null; // Allow all departments if no authentication
-        }
-        
-        // Check if user has SUPER_ADMIN or ADMIN role
-        boolean isSuperAdminOrAdmin = authentication.getAuthorities().stream()
-                .map(authority -> authority.getAuthority())
-                .anyMatch(role -> role.equals("ROLE_SUPER_ADMIN") || role.equals("ROLE_ADMIN"));
-        
-        if (isSuperAdminOrAdmin) {
-            return null; // Can access all departments
-        }
-        
-        // Check if user has DEPARTMENT_ADMIN role
-        boolean isDepartmentAdmin = authentication.getAuthorities().stream()
-                .map(authority -> authority.getAuthority())
-                .anyMatch(role -> role.equals("ROLE_DEPARTMENT_ADMIN"));
-        
-        if (isDepartmentAdmin) {
-            // Get user's department from database
-            String username = authentication.getName();
-            Optional<User> userOpt = userRepository.findByTcNo(username);
-            if (userOpt.isPresent()) {
-                String departmentCode = userOpt.get().getDepartmentCode();
-                if (departmentCode != null && !departmentCode.isEmpty()) {
-                    return List.of(departmentCode);
-                }
-            }
-        }
-        
-        return List.of(); // No accessible departments
-    }
-    
     /**
      * Get dashboard statistics for specific departments (for department admins).
+     * Statistics are cached per department set for the "dashboardStats" cache TTL (30 seconds by default),
+     * so admins with the same access share one computation.
      * 
      * @param departmentCodes List of department codes to filter by (null for all departments)
      * @return Dashboard statistics DTO
      */
     public DashboardStatsDto getDashboardStatsForDepartments(List<String> departmentCodes) {
+        Cache cache = cacheManager.getCache(CacheConfig.DASHBOARD_STATS_CACHE);
+        String cacheKey = cacheKey(departmentCodes);
+        DashboardStatsDto cached = cache.get(cacheKey, DashboardStatsDto.class);
+        if (cached != null) {
+            return cached;
+        }
+        
         try {
-            // Get total user count
-            long totalUsers;
-            if (departmentCodes != null && !departmentCodes.isEmpty()) {
-                totalUsers = userRepository.countByDepartmentCodeIn(departmentCodes);
-            } else {
-                totalUsers = userRepository.count();
-            }
-            
-            // Get today's entry/exit activity count
-            LocalDateTime startOfDay = LocalDate.now().atStartOfDay();
-            LocalDateTime endOfDay = LocalDate.now().atTime(LocalTime.MAX);
-            
-            long todayEntryCount = 0;
-            long todayExitCount = 0;
-            List<EntryExitRecord> recentRecords = List.of();
-            List<AdminAuditLog> recentAuditLogs = List.of();
-            
-            try {
-                if (departmentCodes != null && !departmentCodes.isEmpty()) {
-                    todayEntryCount = entryExitRecordRepository.countByTypeAndTimestampBetweenAndUserDepartmentCodes(
-                        EntryExitType.ENTRY, startOfDay, endOfDay, departmentCodes);
-                    todayExitCount = entryExitRecordRepository.countByTypeAndTimestampBetweenAndUserDepartmentCodes(
-                        EntryExitType.EXIT, startOfDay, endOfDay, departmentCodes);
-                    
-                    // Get recent activity (last 24 hours) for specific departments
-                    LocalDateTime last24Hours = LocalDateTime.now().minusHours(24);
-                    recentRecords = entryExitRecordRepository.findTop10ByTimestampAfterAndUserDepartmentCodesOrderByTimestampDesc(
-                        last24Hours, departmentCodes);
-                } else {
-                    todayEntryCount = entryExitRecordRepository.countByTypeAndTimestampBetween(EntryExitType.ENTRY, startOfDay, endOfDay);
-                    todayExitCount = entryExitRecordRepository.countByTypeAndTimestampBetween(EntryExitType.EXIT, startOfDay, endOfDay);
-                    
-                    // Get recent activity (last 24 hours)
-                    LocalDateTime last24Hours = LocalDateTime.now().minusHours(24);
-                    recentRecords = entryExitRecordRepository.findTop10ByTimestampAfterOrderByTimestampDesc(last24Hours);
-                }
-            } catch (Exception e) {
-                // Log error but continue with empty data
-                System.err.println("Error fetching entry/exit records: " + e.getMessage());
-            }
-            
-            try {
-                // Get recent admin actions (last 24 hours)
-                LocalDateTime last24Hours = LocalDateTime.now().minusHours(24);
-                recentAuditLogs = adminAuditLogRepository.findRecentLogs(last24Hours);
-            } catch (Exception e) {
-                // Log error but continue with empty data
-                System.err.println("Error fetching audit logs: " + e.getMessage());
-            }
-            
-            long todayTotalActivity = todayEntryCount + todayExitCount;
-            
-            return DashboardStatsDto.builder()
-                    .totalUsers(totalUsers)
-                    .todayEntryCount(todayEntryCount)
-                    .todayExitCount(todayExitCount)
-                    .todayTotalActivity(todayTotalActivity)
-                    .recentRecords(recentRecords)
-                    .recentAuditLogs(recentAuditLogs)
-                    .lastUpdated(LocalDateTime.now())
-                    .build();
+            DashboardStatsDto stats = loadDashboardStats(departmentCodes);
+            cache.put(cacheKey, stats);
+            return stats;
         } catch (Exception e) {
-            // Return empty stats if everything fails
-            System.err.println("Error in getDashboardStats: " + e.getMessage());
+            // Return empty stats if everything fails; they are not cached
+            logger.error("Failed to load dashboard statistics for departments {}", cacheKey, e);
             return DashboardStatsDto.builder()
                     .totalUsers(0)
                     .todayEntryCount(0)
@@ -188,6 +128,121 @@ public class AdminDashboardService {
         }
     }
     
+    /**
+     * Cache key of a department set: "*" for all departments, otherwise the sorted codes.
+     * An empty list selects all departments, like a null one.
+     */
+    private static String cacheKey(List<String> departmentCodes) {
+        if (departmentCodes == null || departmentCodes.isEmpty()) {
+            return "*";
+        }
+        return String.join(",", new TreeSet<>(departmentCodes));
+    }
+    
+    /**
+     * Compute dashboard statistics from the in-memory counters and feeds, or the database.
+     * Query failures are propagated, so incomplete statistics are never cached.
+     */
+    private DashboardStatsDto loadDashboardStats(List<String> departmentCodes) {
+        // Get total user count
+        long totalUsers;
+        if (departmentCodes != null && !departmentCodes.isEmpty()) {
+            totalUsers = userRepository.countByDepartmentCodeIn(departmentCodes);
+        } else {
+            totalUsers = userRepository.count();
+        }
+        
+        // Get today's entry/exit activity count
+        LocalDate today = LocalDate.now();
+        LocalDateTime startOfDay = today.atStartOfDay();
+        LocalDateTime endOfDay = today.atTime(LocalTime.MAX);
+        
+        long todayEntryCount = 0;
+        long todayExitCount = 0;
+        List<EntryExitRecord> recentRecords = List.of();
+        List<AdminAuditLog> recentAuditLogs = List.of();
+        
+        // Today's counts come from the in-memory counters once they are loaded
+        boolean filtered = departmentCodes != null && !departmentCodes.isEmpty();
+        DailyActivityCounters.Counts counts = dailyActivityCounters.isLoaded()
+            ? dailyActivityCounters.getCounts(filtered ? departmentCodes : null)
+            : null;
+        
+        LocalDateTime last24Hours = LocalDateTime.now().minusHours(24);
+        if (counts != null) {
+            todayEntryCount = counts.entryCount();
+            todayExitCount = counts.exitCount();
+        }
+        if (filtered) {
+            if (counts == null && dailyAttendanceRollupService.isReady()) {
+                DailyAttendanceRepository.ActivityTotals totals = dailyAttendanceRepository
+                    .sumActivityByUserDepartmentCodes(today, today, departmentCodes);
+                todayEntryCount = totals.getEntryCount();
+                todayExitCount = totals.getExitCount();
+            } else if (counts == null) {
+                todayEntryCount = entryExitRecordRepository.countByTypeAndTimestampBetweenAndUserDepartmentCodes(
+                    EntryExitType.ENTRY, startOfDay, endOfDay, departmentCodes);
+                todayExitCount = entryExitRecordRepository.countByTypeAndTimestampBetweenAndUserDepartmentCodes(
+                    EntryExitType.EXIT, startOfDay, endOfDay, departmentCodes);
+            }
+            
+            // Get recent activity (last 24 hours) for specific departments
+            recentRecords = recentActivityBuffer.isLoaded()
+                ? recentActivityBuffer.getRecentRecords(last24Hours, departmentCodes, RECENT_ACTIVITY_LIMIT)
+                : entryExitRecordRepository.findRecentRecordsByUserDepartmentCodes(
+                    last24Hours, departmentCodes, PageRequest.of(0, RECENT_ACTIVITY_LIMIT));
+        } else {
+            if (counts == null && dailyAttendanceRollupService.isReady()) {
+                DailyAttendanceRepository.ActivityTotals totals = dailyAttendanceRepository.sumActivity(today, today);
+                todayEntryCount = totals.getEntryCount();
+                todayExitCount = totals.getExitCount();
+            } else if (counts == null) {
+                todayEntryCount = entryExitRecordRepository.countByTypeAndTimestampBetween(EntryExitType.ENTRY, startOfDay, endOfDay);
+                todayExitCount = entryExitRecordRepository.countByTypeAndTimestampBetween(EntryExitType.EXIT, startOfDay, endOfDay);
+            }
+            
+            // Get recent activity (last 24 hours)
+            recentRecords = recentActivityBuffer.isLoaded()
+                ? recentActivityBuffer.getRecentRecords(last24Hours, null, RECENT_ACTIVITY_LIMIT)
+                : entryExitRecordRepository.findRecentRecords(last24Hours, PageRequest.of(0, RECENT_ACTIVITY_LIMIT));
+        }
+        
+        // Get recent admin actions (last 24 hours)
+        recentAuditLogs = recentActivityBuffer.isLoaded()
+            ? recentActivityBuffer.getRecentAuditLogs(last24Hours, RECENT_ACTIVITY_LIMIT)
+            : adminAuditLogRepository.findRecentLogs(last24Hours, PageRequest.of(0, RECENT_ACTIVITY_LIMIT));
+        
+        long todayTotalActivity = todayEntryCount + todayExitCount;
+        long currentlyInsideCount = counts != null ? counts.insideCount() : countUsersInside(departmentCodes);
+        
+        return DashboardStatsDto.builder()
+                .totalUsers(totalUsers)
+                .todayEntryCount(todayEntryCount)
+                .todayExitCount(todayExitCount)
+                .todayTotalActivity(todayTotalActivity)
+                .currentlyInsideCount(currentlyInsideCount)
+                .recentRecords(recentRecords)
+                .recentAuditLogs(recentAuditLogs)
+                .lastUpdated(LocalDateTime.now())
+                .build();
+    }
+    
+    /**
+     * Count users currently inside using the presence registry.
+     * 
+     * @param departmentCodes Department codes to count (null or empty for all departments)
+     * @return Number of users whose last action was ENTRY (0 until the registry is loaded)
+     */
+    private long countUsersInside(List<String> departmentCodes) {
+        if (!presenceRegistry.isLoaded()) {
+            return 0;
+        }
+        if (departmentCodes == null || departmentCodes.isEmpty()) {
+            return presenceRegistry.countInside();
+        }
+        return userRepository.countUsersWithLastStatusInsideByDepartmentCodes(departmentCodes);
+    }
+    
     /**
      * Get user count by role.
      * 
@@ -201,12 +256,20 @@ public class AdminDashboardService {
     
     /**
      * Get entry/exit activity count for a specific date range.
+     * Ranges of whole days are summed from the daily attendance rollup once it is ready.
      * 
      * @param startDate Start date
      * @param endDate End date
      * @return Total activity count
      */
     public long getActivityCountBetween(LocalDateTime startDate, LocalDateTime endDate) {
+        boolean wholeDays = startDate.toLocalTime().equals(LocalTime.MIDNIGHT)
+            && !endDate.toLocalTime().isBefore(LocalTime.of(23, 59, 59));
+        if (wholeDays && dailyAttendanceRollupService.isReady()) {
+            DailyAttendanceRepository.ActivityTotals totals = dailyAttendanceRepository.sumActivity(
+                startDate.toLocalDate(), endDate.toLocalDate());
+            return totals.getEntryCount() + totals.getExitCount();
+        }
         return entryExitRecordRepository.countByTimestampBetween(startDate, endDate);
     }
 }
\ No newline at end of file
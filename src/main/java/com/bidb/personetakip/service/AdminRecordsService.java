@@ -1,28 +1,46 @@
 package com.bidb.personetakip.service;
 
+import com.bidb.personetakip.config.CacheConfig;
 import com.bidb.personetakip.dto.AdminRecordDto;
+import com.bidb.personetakip.dto.AdminRecordSliceDto;
+import com.bidb.personetakip.exception.ValidationException;
 import com.bidb.personetakip.model.EntryExitRecord;
 import com.bidb.personetakip.model.EntryExitType;
+import com.bidb.personetakip.model.IpComplianceStatus;
 import com.bidb.personetakip.model.User;
 import com.bidb.personetakip.model.UserRole;
 import com.bidb.personetakip.repository.EntryExitRecordRepository;
+import com.bidb.personetakip.repository.EntryExitRecordSpecifications;
 import com.bidb.personetakip.repository.UserRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -39,6 +57,22 @@ public class AdminRecordsService {
     
     private static final Logger logger = LoggerFactory.getLogger(AdminRecordsService.class);
     
+    /**
+     * Newest first; id breaks ties between records with the same timestamp
+     */
+    private static final Sort RECORD_ORDER = Sort.by(Sort.Direction.DESC, "timestamp", "id");
+    
+    /**
+     * Number of records fetched per database round trip during CSV export
+     */
+    private static final int CSV_EXPORT_CHUNK_SIZE = 500;
+    
+    private static final String CSV_HEADER = "Tarih,Saat,TC Kimlik No,Ad Soyad,Sicil No,Departman,Tür,QR Kod,IP Adresi,IP Uyumluluk,IP Mismatch,Atanmış IP'ler,Enlem,Boylam\n";
+    
+    private static final DateTimeFormatter CSV_DATE_FORMATTER = DateTimeFormatter.ofPattern("dd.MM.yyyy");
+    
+    private static final DateTimeFormatter CSV_TIME_FORMATTER = DateTimeFormatter.ofPattern("HH:mm:ss");
+    
     @Autowired
     private EntryExitRecordRepository entryExitRecordRepository;
     
@@ -52,128 +86,20 @@ public class AdminRecordsService {
     private IpPrivacyService ipPrivacyService;
     
     @Autowired
-    private com.bidb.personetakip.repository.DepartmentPermissionRepository departmentPermissionRepository;
+    private DepartmentAccessResolver departmentAccessResolver;
+    
+    @Autowired
+    private UserBatchLoader userBatchLoader;
+    
+    @Autowired
+    private IpComplianceStatusService ipComplianceStatusService;
+    
+    @Autowired
+    private IpUsageStatisticsService ipUsageStatisticsService;
+    
+    @Autowired
+    private CacheManager cacheManager;
     
-    /**
-     * Get accessible department codes for the authenticated user.
-     * SUPER_ADMIN and ADMIN can access all departments.
-     * DEPARTMENT_ADMIN can access departments they have permissions for.
-     * 
-     * @param authentication Authentication object
-     * @return List of accessible department codes (null means all departments)
-     */
-    private List<String> getAccessibleDepartmentCodes(Authentication authentication) {
-        if (authentication == null) {
-            return null; // Allow all departments if no authentication
-        }
-        
-        // Check if user has SUPER_ADMIN or ADMIN role
-        boolean isSuperAdminOrAdmin = authentication.getAuthorities().stream()
-                .map(GrantedAuthority::getAuthority)
-                .anyMatch(role -> role.equals("ROLE_SUPER_ADMIN") || role.equals("ROLE_ADMIN"));
-        
-        if (isSuperAdminOrAdmin) {
-            logger.info("User is SUPER_ADMIN or ADMIN - returning null (all departments)");
-            return null; // Can access all departments
-        }
-        
-        // Check if user has DEPARTMENT_ADMIN role
-        boolean isDepartmentAdmin = authentication.getAuthorities().stream()
-                .map(GrantedAuthority::getAuthority)
-                .anyMatch(role -> role.equals("ROLE_DEPARTMENT_ADMIN"));
-        
-        if (isDepartmentAdmin) {
-            // Get user's ID directly from authentication principal (which is the user ID as Long)
-            Long userId = null;
-            Object principal = authentication.getPrincipal();
-            
-            if (principal instanceof Long) {
-                userId = (Long) principal;
-            } else if (principal instanceof String) {
-                try {
-                    userId = Long.parseLong((String) principal);
-                } catch (NumberFormatException e) {
-                    logger.warn("Could not parse principal as Long: {}", principal);
-                }
-            } else if (principal != null) {
-                try {
-                    userId = Long.parseLong(principal.toString());
-                } catch (NumberFormatException e) {
-                    logger.warn("Could not parse principal.toString() as Long: {}", principal);
-                }
-            }
-            
-            logger.info("DEPARTMENT_ADMIN - principal: {}, userId: {}", principal, userId);
-            
-            if (userId != null) {
-                Optional<User> userOpt = userRepository.findById(userId);
-                
-                if (userOpt.isPresent()) {
-                    User user = userOpt.get();
-                    logger.info("Found user with ID: {}, departmentCode: {}, departmentName: {}", 
-                        user.getId(), user.getDepartmentCode(), user.getDepartmentName());
-                    
-                    List<String> permittedDepartments = departmentPermissionRepository.findDepartmentCodesByUserId(user.getId());
-                    logger.info("Permitted departments from DB: {}", permittedDepartments);
-                    
-                    // If permissions found, return them
-                    if (!permittedDepartments.isEmpty()) {
-                        return permittedDepartments;
-                    }
-                    
-                    // Fallback: try user's own department code
-                    String departmentCode = user.getDepartmentCode();
-                    if (departmentCode != null && !departmentCode.isEmpty()) {
-                        logger.info("Falling back to user's departmentCode: {}", departmentCode);
-                        return List.of(departmentCode);
-                    }
-                    
-                    // Fallback: try to find department code by department name
-                    String departmentName = user.getDepartmentName();
-                    if (departmentName != null && !departmentName.isEmpty()) {
-                        logger.info("Trying to find department code by name: {}", departmentName);
-                        // Find department code from other users with same department name
-                        List<User> usersWithSameDept = userRepository.findAll().stream()
-                                .filter(u -> departmentName.equals(u.getDepartmentName()) && 
-                                            u.getDepartmentCode() != null && !u.getDepartmentCode().isEmpty())
-                                .toList();
-                        if (!usersWithSameDept.isEmpty()) {
-                            String foundCode = usersWithSameDept.get(0).getDepartmentCode();
-                            logger.info("Found department code by name: {}", foundCode);
-                            return List.of(foundCode);
-                        }
-                        
-                        // If no code found, use department name as code (for filtering)
-                        logger.info("Using department name as code: {}", departmentName);
-                        return List.of(departmentName);
-                    }
-                    
-                    logger.warn("No department code or name found for user ID: {}", userId);
-                } else {
-                    logger.warn("User not found for ID: {}", userId);
-                }
-            } else {
-                // Fallback: try to find by TC number from authentication name
-                String userIdStr = authentication.getName();
-                logger.info("Trying TC lookup with authentication name: {}", userIdStr);
-                Optional<User> userOpt = userRepository.findByTcNo(userIdStr);
-                if (userOpt.isPresent()) {
-                    User user = userOpt.get();
-                    List<String> permittedDepartments = departmentPermissionRepository.findDepartmentCodesByUserId(user.getId());
-                    if (!permittedDepartments.isEmpty()) {
-                        return permittedDepartments;
-                    }
-                    String departmentCode = user.getDepartmentCode();
-                    if (departmentCode != null && !departmentCode.isEmpty()) {
-                        return List.of(departmentCode);
-                    }
-                }
-                logger.warn("User not found for TC: {}", userIdStr);
-            }
-        }
-        
-        return List.of(); // No accessible departments
-    }
     
     /**
      * Get paginated list of all entry/exit records.
@@ -197,7 +123,7 @@ public class AdminRecordsService {
      * Requirements: 3.1 - Paginated record listing with department filtering
      */
     public Page<AdminRecordDto> getAllRecords(int page, int size, Authentication authentication) {
-        List<String> accessibleDepartments = getAccessibleDepartmentCodes(authentication);
+        List<String> accessibleDepartments = departmentAccessResolver.getAccessibleDepartmentCodes(authentication);
         
         Pageable pageable = PageRequest.of(page, size);
         Page<EntryExitRecord> records;
@@ -213,7 +139,7 @@ public class AdminRecordsService {
             records = entryExitRecordRepository.findByUserDepartmentCodesOrderByTimestampDesc(accessibleDepartments, pageable);
         }
         
-        return records.map(this::convertToAdminRecordDto);
+        return toAdminRecordPage(records);
     }
     
     /**
@@ -245,7 +171,7 @@ public class AdminRecordsService {
         LocalDateTime startDateTime = startDate.atStartOfDay();
         LocalDateTime endDateTime = endDate.atTime(23, 59, 59);
         
-        List<String> accessibleDepartments = getAccessibleDepartmentCodes(authentication);
+        List<String> accessibleDepartments = departmentAccessResolver.getAccessibleDepartmentCodes(authentication);
         
         Pageable pageable = PageRequest.of(page, size);
         Page<EntryExitRecord> records;
@@ -263,7 +189,7 @@ public class AdminRecordsService {
                     startDateTime, endDateTime, accessibleDepartments, pageable);
         }
         
-        return records.map(this::convertToAdminRecordDto);
+        return toAdminRecordPage(records);
     }
     
     /**
@@ -290,7 +216,7 @@ public class AdminRecordsService {
      * Requirements: 3.4 - User-specific record filtering with department filtering
      */
     public Page<AdminRecordDto> getRecordsByUser(Long userId, int page, int size, Authentication authentication) {
-        List<String> accessibleDepartments = getAccessibleDepartmentCodes(authentication);
+        List<String> accessibleDepartments = departmentAccessResolver.getAccessibleDepartmentCodes(authentication);
         
         // Check if the user is in an accessible department
         if (accessibleDepartments != null && !accessibleDepartments.isEmpty()) {
@@ -304,7 +230,7 @@ public class AdminRecordsService {
         
         Pageable pageable = PageRequest.of(page, size);
         Page<EntryExitRecord> records = entryExitRecordRepository.findByUserIdOrderByTimestampDesc(userId, pageable);
-        return records.map(this::convertToAdminRecordDto);
+        return toAdminRecordPage(records);
     }
     
     /**
@@ -341,119 +267,185 @@ public class AdminRecordsService {
      */
     public Page<AdminRecordDto> getRecordsWithFilters(LocalDate startDate, LocalDate endDate, 
                                                      Long userId, String departmentCode, String ipAddress, String ipMismatch, int page, int size, Authentication authentication) {
-        List<String> accessibleDepartments = getAccessibleDepartmentCodes(authentication);
+        List<String> accessibleDepartments = departmentAccessResolver.getAccessibleDepartmentCodes(authentication);
         
-        List<EntryExitRecord> allRecords;
-        if (accessibleDepartments == null) {
-            // Can access all departments
-            allRecords = entryExitRecordRepository.findAll();
-        } else if (accessibleDepartments.isEmpty()) {
+        if (accessibleDepartments != null && accessibleDepartments.isEmpty()) {
             // No accessible departments - return empty page
             Pageable pageable = PageRequest.of(page, size);
             return new PageImpl<>(List.of(), pageable, 0);
-        } else {
-            // Get records for accessible departments only
-            allRecords = entryExitRecordRepository.findByUserDepartmentCodesOrderByTimestampDesc(accessibleDepartments, PageRequest.of(0, Integer.MAX_VALUE)).getContent();
         }
         
-        // Apply filters
-        List<EntryExitRecord> filteredRecords = allRecords.stream()
-                .filter(record -> {
-                    // Date range filter
-                    if (startDate != null && endDate != null) {
-                        LocalDateTime startDateTime = startDate.atStartOfDay();
-                        LocalDateTime endDateTime = endDate.atTime(23, 59, 59);
-                        if (record.getTimestamp().isBefore(startDateTime) || 
-                            record.getTimestamp().isAfter(endDateTime)) {
-                            return false;
-                        }
-                    }
-                    
-                    // User filter
-                    if (userId != null && !record.getUserId().equals(userId)) {
-                        return false;
-                    }
-                    
-                    // Department filter (additional filter on top of accessible departments)
-                    if (departmentCode != null && !departmentCode.isEmpty()) {
-                        Optional<User> userOpt = userRepository.findById(record.getUserId());
-                        if (userOpt.isEmpty() || !departmentCode.equals(userOpt.get().getDepartmentCode())) {
-                            return false;
-                        }
-                    }
-                    
-                    // IP address filter
-                    if (ipAddress != null && !ipAddress.isEmpty()) {
-                        if ("unknown".equalsIgnoreCase(ipAddress) || "null".equalsIgnoreCase(ipAddress)) {
-                            // Filter for unknown/null IP addresses
-                            if (record.getIpAddress() != null) {
-                                return false;
-                            }
-                        } else {
-                            // Filter for specific IP address or IP range
-                            if (record.getIpAddress() == null) {
-                                return false;
-                            }
-                            
-                            // Support IP range filtering (e.g., "192.168.1." matches "192.168.1.100")
-                            if (ipAddress.endsWith(".")) {
-                                if (!record.getIpAddress().startsWith(ipAddress)) {
-                                    return false;
-                                }
-                            } else {
-                                // Exact IP match
-                                if (!ipAddress.equals(record.getIpAddress())) {
-                                    return false;
-                                }
-                            }
-                        }
-                    }
-                    
-                    // IP mismatch filter
-                    if (ipMismatch != null && !ipMismatch.isEmpty()) {
-                        Optional<User> userOpt = userRepository.findById(record.getUserId());
-                        if (userOpt.isPresent()) {
-                            IpComplianceService.IpComplianceStatus status = ipComplianceService.getIpComplianceStatus(record, userOpt.get());
-                            
-                            switch (ipMismatch.toLowerCase()) {
-                                case "mismatch":
-                                    if (status != IpComplianceService.IpComplianceStatus.MISMATCH) {
-                                        return false;
-                                    }
-                                    break;
-                                case "match":
-                                    if (status != IpComplianceService.IpComplianceStatus.MATCH) {
-                                        return false;
-                                    }
-                                    break;
-                                case "unknown":
-                                    if (status != IpComplianceService.IpComplianceStatus.UNKNOWN_IP && 
-                                        status != IpComplianceService.IpComplianceStatus.NO_ASSIGNMENT) {
-                                        return false;
-                                    }
-                                    break;
-                            }
-                        } else if (!"unknown".equalsIgnoreCase(ipMismatch)) {
-                            // If user not found and not filtering for unknown, exclude this record
-                            return false;
-                        }
-                    }
-                    
-                    return true;
-                })
-                .sorted((r1, r2) -> r2.getTimestamp().compareTo(r1.getTimestamp()))
-                .collect(Collectors.toList());
+        // All filters and paging are executed by the database
+        Specification<EntryExitRecord> specification = buildRecordSpecification(
+                startDate, endDate, userId, departmentCode, ipAddress, ipMismatch, accessibleDepartments);
+        Pageable pageable = PageRequest.of(page, size, RECORD_ORDER);
         
-        Pageable pageable = PageRequest.of(page, size);
-        int start = page * size;
-        int end = Math.min(start + size, filteredRecords.size());
+        return toAdminRecordPage(entryExitRecordRepository.findAll(specification, pageable));
+    }
+    
+    /**
+     * Get a cursor-paginated slice of entry/exit records with filters.
+     * Seeks on (timestamp, id) instead of skipping an offset, so every slice costs the same
+     * regardless of how deep the caller has scrolled, and no COUNT query is executed unless
+     * the total is requested. Requested totals are cached for a short time per filter combination.
+     * 
+     * @param startDate Start date (optional)
+     * @param endDate End date (optional)
+     * @param userId User ID (optional)
+     * @param departmentCode Department code (optional)
+     * @param ipAddress IP address filter (optional)
+     * @param ipMismatch IP mismatch filter (optional: "mismatch", "match", "unknown")
+     * @param cursor Cursor returned with the previous slice (null for the first slice)
+     * @param size Slice size
+     * @param includeTotal Whether to include the total number of matching records
+     * @param authentication Authentication object for department filtering
+     * @return Slice of AdminRecordDto objects matching filters
+     * @throws ValidationException if the cursor is malformed
+     * Requirements: 3.1, 3.2, 3.3, 3.4 - Paginated and filtered record listing
+     */
+    public AdminRecordSliceDto getRecordsSlice(LocalDate startDate, LocalDate endDate,
+                                               Long userId, String departmentCode, String ipAddress, String ipMismatch,
+                                               String cursor, int size, boolean includeTotal, Authentication authentication) {
+        ScrollPosition position = decodeRecordCursor(cursor);
+        List<String> accessibleDepartments = departmentAccessResolver.getAccessibleDepartmentCodes(authentication);
+        
+        if (accessibleDepartments != null && accessibleDepartments.isEmpty()) {
+            // No accessible departments - return empty slice
+            return AdminRecordSliceDto.builder()
+                    .content(List.of())
+                    .size(size)
+                    .hasNext(false)
+                    .totalElements(includeTotal ? 0L : null)
+                    .build();
+        }
+        
+        Specification<EntryExitRecord> specification = buildRecordSpecification(
+                startDate, endDate, userId, departmentCode, ipAddress, ipMismatch, accessibleDepartments);
+        Window<EntryExitRecord> window = findRecordWindow(specification, position, size);
         
-        List<AdminRecordDto> pageContent = filteredRecords.subList(start, end)
-                .stream()
-                .map(this::convertToAdminRecordDto)
+        Map<Long, User> users = userBatchLoader.loadOwners(window.getContent());
+        List<AdminRecordDto> content = window.stream()
+                .map(record -> convertToAdminRecordDto(record, users.get(record.getUserId())))
                 .collect(Collectors.toList());
         
-        return new PageImpl<>(pageContent, pageable, filteredRecords.size());
+        String nextCursor = null;
+        if (window.hasNext() && !window.isEmpty()) {
+            nextCursor = encodeRecordCursor(window.getContent().get(window.size() - 1));
+        }
+        
+        AdminRecordSliceDto.AdminRecordSliceDtoBuilder slice = AdminRecordSliceDto.builder()
+                .content(content)
+                .size(size)
+                .hasNext(nextCursor != null)
+                .nextCursor(nextCursor);
+        
+        if (includeTotal) {
+            String cacheKey = String.join("|", String.valueOf(startDate), String.valueOf(endDate),
+                    String.valueOf(userId), String.valueOf(departmentCode), String.valueOf(ipAddress),
+                    String.valueOf(ipMismatch), String.valueOf(accessibleDepartments));
+            Cache cache = cacheManager.getCache(CacheConfig.RECORD_COUNTS_CACHE);
+            Long cached = cache.get(cacheKey, Long.class);
+            
+            if (cached != null) {
+                slice.totalElements(cached).totalCached(true);
+            } else {
+                long count = entryExitRecordRepository.count(specification);
+                cache.put(cacheKey, count);
+                slice.totalElements(count);
+            }
+        }
+        
+        return slice.build();
+    }
+    
+    /**
+     * Encode the keyset position after the given record as an opaque cursor.
+     * 
+     * @param record Last record of a slice
+     * @return URL-safe cursor string
+     */
+    private String encodeRecordCursor(EntryExitRecord record) {
+        String keys = record.getTimestamp() + "|" + record.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(keys.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * Decode a cursor produced by encodeRecordCursor into a keyset scroll position.
+     * 
+     * @param cursor Cursor string (null or empty for the first slice)
+     * @return Keyset scroll position
+     * @throws ValidationException if the cursor is malformed
+     */
+    private ScrollPosition decodeRecordCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return ScrollPosition.keyset();
+        }
+        
+        try {
+            String keys = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = keys.lastIndexOf('|');
+            if (separator < 0) {
+                throw new ValidationException("Invalid cursor");
+            }
+            
+            // Key order must match RECORD_ORDER
+            Map<String, Object> position = new LinkedHashMap<>();
+            position.put("timestamp", LocalDateTime.parse(keys.substring(0, separator)));
+            position.put("id", Long.parseLong(keys.substring(separator + 1)));
+            return ScrollPosition.forward(position);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new ValidationException("Invalid cursor", e);
+        }
+    }
+    
+    /**
+     * Build a database-side specification for the combined record filters.
+     * 
+     * @param startDate Start date (optional, applied together with endDate)
+     * @param endDate End date (optional, applied together with startDate)
+     * @param userId User ID (optional)
+     * @param departmentCode Department code (optional)
+     * @param ipAddress IP address filter (optional)
+     * @param ipMismatch IP mismatch filter (optional: "mismatch", "match", "unknown")
+     * @param accessibleDepartments Accessible department codes (null means all departments)
+     * @return Specification combining all given filters
+     */
+    private Specification<EntryExitRecord> buildRecordSpecification(LocalDate startDate, LocalDate endDate,
+                                                                    Long userId, String departmentCode, String ipAddress, String ipMismatch,
+                                                                    List<String> accessibleDepartments) {
+        List<Specification<EntryExitRecord>> specifications = new ArrayList<>();
+        
+        if (accessibleDepartments != null) {
+            specifications.add(EntryExitRecordSpecifications.userInDepartments(accessibleDepartments));
+        }
+        
+        // Date range filter
+        if (startDate != null && endDate != null) {
+            specifications.add(EntryExitRecordSpecifications.timestampBetween(
+                    startDate.atStartOfDay(), endDate.atTime(23, 59, 59)));
+        }
+        
+        // User filter
+        if (userId != null) {
+            specifications.add(EntryExitRecordSpecifications.hasUserId(userId));
+        }
+        
+        // Department filter (additional filter on top of accessible departments)
+        if (departmentCode != null && !departmentCode.isEmpty()) {
+            specifications.add(EntryExitRecordSpecifications.userInDepartments(List.of(departmentCode)));
+        }
+        
+        // IP address filter
+        if (ipAddress != null && !ipAddress.isEmpty()) {
+            specifications.add(EntryExitRecordSpecifications.ipAddressMatches(ipAddress));
+        }
+        
+        // IP mismatch filter
+        if (ipMismatch != null && !ipMismatch.isEmpty()) {
+            specifications.add(EntryExitRecordSpecifications.ipComplianceMatches(ipMismatch));
+        }
+        
+        return EntryExitRecordSpecifications.allOf(specifications);
     }
     
     /**
@@ -478,40 +470,8 @@ public class AdminRecordsService {
      * Requirements: 4.4 - IP mismatch filtering with department filtering
      */
     public Page<AdminRecordDto> getRecordsWithIpMismatch(int page, int size, Authentication authentication) {
-        List<String> accessibleDepartments = getAccessibleDepartmentCodes(authentication);
-        
-        List<EntryExitRecord> allRecords;
-        if (accessibleDepartments == null) {
-            // Can access all departments
-            allRecords = entryExitRecordRepository.findAll();
-        } else if (accessibleDepartments.isEmpty()) {
-            // No accessible departments - return empty page
-            Pageable pageable = PageRequest.of(page, size);
-            return new PageImpl<>(List.of(), pageable, 0);
-        } else {
-            // Get records for accessible departments only
-            allRecords = entryExitRecordRepository.findByUserDepartmentCodesOrderByTimestampDesc(accessibleDepartments, PageRequest.of(0, Integer.MAX_VALUE)).getContent();
-        }
-        
-        // Filter for IP mismatches
-        List<EntryExitRecord> mismatchRecords = allRecords.stream()
-                .filter(record -> {
-                    Optional<User> userOpt = userRepository.findById(record.getUserId());
-                    return userOpt.isPresent() && ipComplianceService.hasIpMismatch(record, userOpt.get());
-                })
-                .sorted((r1, r2) -> r2.getTimestamp().compareTo(r1.getTimestamp()))
-                .collect(Collectors.toList());
-        
-        Pageable pageable = PageRequest.of(page, size);
-        int start = page * size;
-        int end = Math.min(start + size, mismatchRecords.size());
-        
-        List<AdminRecordDto> pageContent = mismatchRecords.subList(start, end)
-                .stream()
-                .map(this::convertToAdminRecordDto)
-                .collect(Collectors.toList());
-        
-        return new PageImpl<>(pageContent, pageable, mismatchRecords.size());
+        // Uses the persisted compliance status, so this is an indexed query like any other filter
+        return getRecordsWithFilters(null, null, null, null, null, "mismatch", page, size, authentication);
     }
     
     /**
@@ -544,194 +504,167 @@ public class AdminRecordsService {
      * Requirements: 3.5 - CSV export functionality with department filtering
      */
     public String generateCsvExport(LocalDate startDate, LocalDate endDate, Long userId, String departmentCode, String ipAddress, String ipMismatch, Authentication authentication) {
-        List<String> accessibleDepartments = getAccessibleDepartmentCodes(authentication);
-        
-        List<EntryExitRecord> records;
-        if (accessibleDepartments == null) {
-            // Can access all departments
-            records = entryExitRecordRepository.findAll();
-        } else if (accessibleDepartments.isEmpty()) {
-            // No accessible departments - return empty CSV
-            return "Tarih,Saat,TC Kimlik No,Ad Soyad,Sicil No,Departman,Tür,QR Kod,IP Adresi,IP Uyumluluk,IP Mismatch,Atanmış IP'ler,Enlem,Boylam\n";
-        } else {
-            // Get records for accessible departments only
-            records = entryExitRecordRepository.findByUserDepartmentCodesOrderByTimestampDesc(accessibleDepartments, PageRequest.of(0, Integer.MAX_VALUE)).getContent();
+        StringWriter csv = new StringWriter();
+        try {
+            writeCsvExport(startDate, endDate, userId, departmentCode, ipAddress, ipMismatch, authentication, csv);
+        } catch (IOException e) {
+            // StringWriter does not throw
+            throw new UncheckedIOException(e);
         }
-        
-        // Apply filters
-        List<EntryExitRecord> filteredRecords = records.stream()
-                .filter(record -> {
-                    // Date range filter
-                    if (startDate != null && endDate != null) {
-                        LocalDateTime startDateTime = startDate.atStartOfDay();
-                        LocalDateTime endDateTime = endDate.atTime(23, 59, 59);
-                        if (record.getTimestamp().isBefore(startDateTime) || 
-                            record.getTimestamp().isAfter(endDateTime)) {
-                            return false;
-                        }
-                    }
-                    
-                    // User filter
-                    if (userId != null && !record.getUserId().equals(userId)) {
-                        return false;
-                    }
-                    
-                    // Department filter (additional filter on top of accessible departments)
-                    if (departmentCode != null && !departmentCode.isEmpty()) {
-                        Optional<User> userOpt = userRepository.findById(record.getUserId());
-                        if (userOpt.isEmpty() || !departmentCode.equals(userOpt.get().getDepartmentCode())) {
-                            return false;
-                        }
-                    }
-                    
-                    // IP address filter
-                    if (ipAddress != null && !ipAddress.isEmpty()) {
-                        if ("unknown".equalsIgnoreCase(ipAddress) || "null".equalsIgnoreCase(ipAddress)) {
-                            // Filter for unknown/null IP addresses
-                            if (record.getIpAddress() != null) {
-                                return false;
-                            }
-                        } else {
-                            // Filter for specific IP address or IP range
-                            if (record.getIpAddress() == null) {
-                                return false;
-                            }
-                            
-                            // Support IP range filtering (e.g., "192.168.1." matches "192.168.1.100")
-                            if (ipAddress.endsWith(".")) {
-                                if (!record.getIpAddress().startsWith(ipAddress)) {
-                                    return false;
-                                }
-                            } else {
-                                // Exact IP match
-                                if (!ipAddress.equals(record.getIpAddress())) {
-                                    return false;
-                                }
-                            }
-                        }
-                    }
-                    
-                    // IP mismatch filter
-                    if (ipMismatch != null && !ipMismatch.isEmpty()) {
-                        Optional<User> userOpt = userRepository.findById(record.getUserId());
-                        if (userOpt.isPresent()) {
-                            IpComplianceService.IpComplianceStatus status = ipComplianceService.getIpComplianceStatus(record, userOpt.get());
-                            
-                            switch (ipMismatch.toLowerCase()) {
-                                case "mismatch":
-                                    if (status != IpComplianceService.IpComplianceStatus.MISMATCH) {
-                                        return false;
-                                    }
-                                    break;
-                                case "match":
-                                    if (status != IpComplianceService.IpComplianceStatus.MATCH) {
-                                        return false;
-                                    }
-                                    break;
-                                case "unknown":
-                                    if (status != IpComplianceService.IpComplianceStatus.UNKNOWN_IP && 
-                                        status != IpComplianceService.IpComplianceStatus.NO_ASSIGNMENT) {
-                                        return false;
-                                    }
-                                    break;
-                            }
-                        } else if (!"unknown".equalsIgnoreCase(ipMismatch)) {
-                            // If user not found and not filtering for unknown, exclude this record
-                            return false;
-                        }
-                    }
-                    
-                    return true;
-                })
-                .sorted((r1, r2) -> r2.getTimestamp().compareTo(r1.getTimestamp()))
-                .collect(Collectors.toList());
-        
-        StringBuilder csv = new StringBuilder();
+        return csv.toString();
+    }
+    
+    /**
+     * Stream CSV export data for records with department filtering.
+     * Records are read from the database in fixed-size keyset chunks and written to the
+     * writer row by row, so memory use does not depend on the number of exported records.
+     * 
+     * @param startDate Start date (optional)
+     * @param endDate End date (optional)
+     * @param userId User ID (optional)
+     * @param departmentCode Department code (optional)
+     * @param ipAddress IP address filter (optional)
+     * @param ipMismatch IP mismatch filter (optional)
+     * @param authentication Authentication object for department filtering
+     * @param writer Writer receiving the CSV content
+     * @throws IOException if writing to the writer fails
+     * Requirements: 3.5 - CSV export functionality with department filtering
+     */
+    public void writeCsvExport(LocalDate startDate, LocalDate endDate, Long userId, String departmentCode, String ipAddress, String ipMismatch,
+                               Authentication authentication, Writer writer) throws IOException {
+        List<String> accessibleDepartments = departmentAccessResolver.getAccessibleDepartmentCodes(authentication);
         
         // CSV Header - Enhanced with IP compliance information
-        csv.append("Tarih,Saat,TC Kimlik No,Ad Soyad,Sicil No,Departman,Tür,QR Kod,IP Adresi,IP Uyumluluk,IP Mismatch,Atanmış IP'ler,Enlem,Boylam\n");
+        writer.write(CSV_HEADER);
+        
+        if (accessibleDepartments != null && accessibleDepartments.isEmpty()) {
+            // No accessible departments - return empty CSV
+            writer.flush();
+            return;
+        }
         
-        // CSV Data
-        DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("dd.MM.yyyy");
-        DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("HH:mm:ss");
+        Specification<EntryExitRecord> specification = buildRecordSpecification(
+                startDate, endDate, userId, departmentCode, ipAddress, ipMismatch, accessibleDepartments);
         
-        for (EntryExitRecord record : filteredRecords) {
-            AdminRecordDto dto = convertToAdminRecordDto(record);
-            Optional<User> userOpt = userRepository.findById(record.getUserId());
+        long written = 0;
+        Window<EntryExitRecord> chunk = findRecordWindow(specification, ScrollPosition.keyset(), CSV_EXPORT_CHUNK_SIZE);
+        while (!chunk.isEmpty()) {
+            // One user query per chunk instead of one per row
+            Map<Long, User> users = userBatchLoader.loadOwners(chunk.getContent());
+            for (EntryExitRecord record : chunk) {
+                writeCsvRow(writer, record, users.get(record.getUserId()));
+            }
+            written += chunk.size();
             
-            // Get IP compliance information
-            String ipComplianceStatus = "Bilinmiyor";
-            String ipMismatchIndicator = "Hayır";
-            String assignedIps = "";
+            // Push each completed chunk to the client
+            writer.flush();
             
-            if (userOpt.isPresent()) {
-                User user = userOpt.get();
-                IpComplianceService.IpComplianceStatus status = ipComplianceService.getIpComplianceStatus(record, user);
-                
-                // Set compliance status in Turkish
-                switch (status) {
-                    case MATCH:
-                        ipComplianceStatus = "Uyumlu";
-                        ipMismatchIndicator = "Hayır";
-                        break;
-                    case MISMATCH:
-                        ipComplianceStatus = "Uyumsuz";
-                        ipMismatchIndicator = "Evet";
-                        break;
-                    case NO_ASSIGNMENT:
-                        ipComplianceStatus = "Atama Yok";
-                        ipMismatchIndicator = "Hayır";
-                        break;
-                    case UNKNOWN_IP:
-                        ipComplianceStatus = "IP Bilinmiyor";
-                        ipMismatchIndicator = "Hayır";
-                        break;
-                }
-                
-                // Get assigned IPs (anonymized if configured)
-                if (user.getAssignedIpAddresses() != null && !user.getAssignedIpAddresses().trim().isEmpty()) {
-                    List<String> assignedIpList = ipComplianceService.parseAssignedIpAddresses(user.getAssignedIpAddresses());
-                    StringBuilder assignedIpsBuilder = new StringBuilder();
-                    for (int i = 0; i < assignedIpList.size(); i++) {
-                        if (i > 0) assignedIpsBuilder.append("; ");
-                        // Apply anonymization if configured
-                        String displayIp = ipPrivacyService.displayIpAddress(assignedIpList.get(i), true);
-                        assignedIpsBuilder.append(displayIp);
-                    }
-                    assignedIps = assignedIpsBuilder.toString();
-                }
+            if (!chunk.hasNext()) {
+                break;
+            }
+            chunk = findRecordWindow(specification, chunk.positionAt(chunk.size() - 1), CSV_EXPORT_CHUNK_SIZE);
+        }
+        
+        logger.debug("CSV export completed: {} records written", written);
+    }
+    
+    /**
+     * Fetch one keyset window of records matching the specification, newest first.
+     * 
+     * @param specification Record filters
+     * @param position Scroll position to continue from
+     * @param size Maximum number of records in the window
+     * @return Window of records
+     */
+    private Window<EntryExitRecord> findRecordWindow(Specification<EntryExitRecord> specification, ScrollPosition position, int size) {
+        return entryExitRecordRepository.findBy(specification,
+                query -> query.sortBy(RECORD_ORDER).limit(size).scroll(position));
+    }
+    
+    /**
+     * Write a single record as a CSV row.
+     * 
+     * @param writer Writer receiving the row
+     * @param record Entry/exit record
+     * @param owner User who performed the entry/exit (null if not found)
+     * @throws IOException if writing fails
+     */
+    private void writeCsvRow(Writer writer, EntryExitRecord record, User owner) throws IOException {
+        AdminRecordDto dto = convertToAdminRecordDto(record, owner);
+        Optional<User> userOpt = Optional.ofNullable(owner);
+        
+        // Get IP compliance information
+        String ipComplianceStatus = "Bilinmiyor";
+        String ipMismatchIndicator = "Hayır";
+        String assignedIps = "";
+        
+        if (userOpt.isPresent()) {
+            User user = userOpt.get();
+            IpComplianceStatus status = ipComplianceStatusService.resolve(record, user);
+            
+            // Set compliance status in Turkish
+            switch (status) {
+                case MATCH:
+                    ipComplianceStatus = "Uyumlu";
+                    ipMismatchIndicator = "Hayır";
+                    break;
+                case MISMATCH:
+                    ipComplianceStatus = "Uyumsuz";
+                    ipMismatchIndicator = "Evet";
+                    break;
+                case NO_ASSIGNMENT:
+                    ipComplianceStatus = "Atama Yok";
+                    ipMismatchIndicator = "Hayır";
+                    break;
+                case UNKNOWN_IP:
+                    ipComplianceStatus = "IP Bilinmiyor";
+                    ipMismatchIndicator = "Hayır";
+                    break;
             }
             
-            // Get IP address for export (anonymized if configured)
-            String exportIpAddress = "Bilinmiyor";
-            if (record.getIpAddress() != null) {
-                exportIpAddress = ipPrivacyService.displayIpAddress(record.getIpAddress(), true);
-                
-                // Log IP address access for audit purposes
-                try {
-                    ipPrivacyService.logIpAddressAccess(record.getIpAddress(), record.getUserId(), null, "ACCESS");
-                } catch (Exception e) {
-                    logger.warn("Failed to log IP address access for export: {}", e.getMessage());
+            // Get assigned IPs (anonymized if configured)
+            if (user.getAssignedIpAddresses() != null && !user.getAssignedIpAddresses().trim().isEmpty()) {
+                List<String> assignedIpList = ipComplianceService.parseAssignedIpAddresses(user.getAssignedIpAddresses());
+                StringBuilder assignedIpsBuilder = new StringBuilder();
+                for (int i = 0; i < assignedIpList.size(); i++) {
+                    if (i > 0) assignedIpsBuilder.append("; ");
+                    // Apply anonymization if configured
+                    String displayIp = ipPrivacyService.displayIpAddress(assignedIpList.get(i), true);
+                    assignedIpsBuilder.append(displayIp);
                 }
+                assignedIps = assignedIpsBuilder.toString();
             }
+        }
+        
+        // Get IP address for export (anonymized if configured)
+        String exportIpAddress = "Bilinmiyor";
+        if (record.getIpAddress() != null) {
+            exportIpAddress = ipPrivacyService.displayIpAddress(record.getIpAddress(), true);
             
-            csv.append(record.getTimestamp().format(dateFormatter)).append(",");
-            csv.append(record.getTimestamp().format(timeFormatter)).append(",");
-            csv.append(dto.getUserTcNo() != null ? dto.getUserTcNo() : "").append(",");
-            csv.append(dto.getUserFullName() != null ? "\"" + dto.getUserFullName() + "\"" : "").append(",");
-            csv.append(dto.getUserPersonnelNo() != null ? dto.getUserPersonnelNo() : "").append(",");
-            csv.append(dto.getUserDepartmentName() != null ? "\"" + dto.getUserDepartmentName() + "\"" : "").append(",");
-            csv.append(getTypeDisplayName(record.getType().name())).append(",");
-            csv.append(record.getQrCodeValue()).append(",");
-            csv.append(exportIpAddress).append(",");
-            csv.append(ipComplianceStatus).append(",");
-            csv.append(ipMismatchIndicator).append(",");
-            csv.append(assignedIps.isEmpty() ? "Yok" : "\"" + assignedIps + "\"").append(",");
-            csv.append(record.getLatitude() != null ? record.getLatitude().toString() : "").append(",");
-            csv.append(record.getLongitude() != null ? record.getLongitude().toString() : "").append("\n");
+            // Log IP address access for audit purposes
+            try {
+                ipPrivacyService.logIpAddressAccess(record.getIpAddress(), record.getUserId(), null, "ACCESS");
+            } catch (Exception e) {
+                logger.warn("Failed to log IP address access for export: {}", e.getMessage());
+            }
         }
         
-        return csv.toString();
+        StringBuilder csv = new StringBuilder(256);
+        csv.append(record.getTimestamp().format(CSV_DATE_FORMATTER)).append(",");
+        csv.append(record.getTimestamp().format(CSV_TIME_FORMATTER)).append(",");
+        csv.append(dto.getUserTcNo() != null ? dto.getUserTcNo() : "").append(",");
+        csv.append(dto.getUserFullName() != null ? "\"" + dto.getUserFullName() + "\"" : "").append(",");
+        csv.append(dto.getUserPersonnelNo() != null ? dto.getUserPersonnelNo() : "").append(",");
+        csv.append(dto.getUserDepartmentName() != null ? "\"" + dto.getUserDepartmentName() + "\"" : "").append(",");
+        csv.append(getTypeDisplayName(record.getType().name())).append(",");
+        csv.append(record.getQrCodeValue()).append(",");
+        csv.append(exportIpAddress).append(",");
+        csv.append(ipComplianceStatus).append(",");
+        csv.append(ipMismatchIndicator).append(",");
+        csv.append(assignedIps.isEmpty() ? "Yok" : "\"" + assignedIps + "\"").append(",");
+        csv.append(record.getLatitude() != null ? record.getLatitude().toString() : "").append(",");
+        csv.append(record.getLongitude() != null ? record.getLongitude().toString() : "").append("\n");
+        writer.write(csv.toString());
     }
     
     /**
@@ -757,53 +690,24 @@ public class AdminRecordsService {
         LocalDateTime startOfDay = date.atStartOfDay();
         LocalDateTime endOfDay = date.atTime(23, 59, 59);
         
-        List<String> accessibleDepartments = getAccessibleDepartmentCodes(authentication);
+        List<String> accessibleDepartments = departmentAccessResolver.getAccessibleDepartmentCodes(authentication);
         
-        long totalRecords = 0;
-        long entryCount = 0;
-        long exitCount = 0;
-        long uniqueUsers = 0;
-        
-        if (accessibleDepartments == null) {
-            // Can access all departments
-            totalRecords = entryExitRecordRepository.countByTimestampBetween(startOfDay, endOfDay);
-            entryCount = entryExitRecordRepository.countByTypeAndTimestampBetween(EntryExitType.ENTRY, startOfDay, endOfDay);
-            exitCount = entryExitRecordRepository.countByTypeAndTimestampBetween(EntryExitType.EXIT, startOfDay, endOfDay);
-            
-            // Get unique users count
-            List<EntryExitRecord> dayRecords = entryExitRecordRepository.findAll()
-                    .stream()
-                    .filter(record -> !record.getTimestamp().isBefore(startOfDay) && 
-                                    !record.getTimestamp().isAfter(endOfDay))
-                    .collect(Collectors.toList());
-            
-            uniqueUsers = dayRecords.stream()
-                    .map(EntryExitRecord::getUserId)
-                    .distinct()
-                    .count();
-        } else if (!accessibleDepartments.isEmpty()) {
-            // Filter by accessible departments
-            totalRecords = entryExitRecordRepository.countByTimestampBetweenAndUserDepartmentCodes(startOfDay, endOfDay, accessibleDepartments);
-            entryCount = entryExitRecordRepository.countByTypeAndTimestampBetweenAndUserDepartmentCodes(EntryExitType.ENTRY, startOfDay, endOfDay, accessibleDepartments);
-            exitCount = entryExitRecordRepository.countByTypeAndTimestampBetweenAndUserDepartmentCodes(EntryExitType.EXIT, startOfDay, endOfDay, accessibleDepartments);
-            
-            // Get unique users count for accessible departments
-            List<EntryExitRecord> dayRecords = entryExitRecordRepository.findByTimestampBetweenAndUserDepartmentCodesOrderByTimestampDesc(
-                    startOfDay, endOfDay, accessibleDepartments, PageRequest.of(0, Integer.MAX_VALUE)).getContent();
-            
-            uniqueUsers = dayRecords.stream()
-                    .map(EntryExitRecord::getUserId)
-                    .distinct()
-                    .count();
+        if (accessibleDepartments != null && accessibleDepartments.isEmpty()) {
+            // No accessible departments - all counts are 0
+            return DailySummaryStats.builder().date(date).build();
         }
-        // If accessibleDepartments is empty, all counts remain 0
+        
+        // Totals, type counts and unique users in a single aggregate query
+        EntryExitRecordRepository.ActivitySummary summary = accessibleDepartments == null
+                ? entryExitRecordRepository.summarizeByTimestampBetween(startOfDay, endOfDay)
+                : entryExitRecordRepository.summarizeByTimestampBetweenAndUserDepartmentCodes(startOfDay, endOfDay, accessibleDepartments);
         
         return DailySummaryStats.builder()
                 .date(date)
-                .totalRecords(totalRecords)
-                .entryCount(entryCount)
-                .exitCount(exitCount)
-                .uniqueUsers(uniqueUsers)
+                .totalRecords(summary.getTotalRecords())
+                .entryCount(summary.getEntryCount())
+                .exitCount(summary.getExitCount())
+                .uniqueUsers(summary.getUniqueUsers())
                 .build();
     }
     
@@ -823,7 +727,7 @@ public class AdminRecordsService {
      * @return List of department codes and names
      */
     public List<Map<String, String>> getDepartments(Authentication authentication) {
-        List<String> accessibleDepartments = getAccessibleDepartmentCodes(authentication);
+        List<String> accessibleDepartments = departmentAccessResolver.getAccessibleDepartmentCodes(authentication);
         
         logger.info("getDepartments - accessibleDepartments: {}", accessibleDepartments);
         
@@ -891,98 +795,25 @@ public class AdminRecordsService {
     
     /**
      * Get IP address statistics for advanced filtering with department filtering.
+     * Reads the incrementally maintained per-department IP counters instead of loading records.
      * 
      * @param authentication Authentication object for department filtering
      * @return Map containing IP statistics and common IP addresses
      * Requirements: 2.4 - IP address filtering functionality with department filtering
      */
     public Map<String, Object> getIpStatistics(Authentication authentication) {
-        List<String> accessibleDepartments = getAccessibleDepartmentCodes(authentication);
-        
-        List<EntryExitRecord> allRecords;
-        if (accessibleDepartments == null) {
-            // Can access all departments
-            allRecords = entryExitRecordRepository.findAll();
-        } else if (accessibleDepartments.isEmpty()) {
-            // No accessible departments - return empty statistics
-            allRecords = List.of();
-        } else {
-            // Get records for accessible departments only
-            allRecords = entryExitRecordRepository.findByUserDepartmentCodesOrderByTimestampDesc(accessibleDepartments, PageRequest.of(0, Integer.MAX_VALUE)).getContent();
-        }
-        
-        Map<String, Object> statistics = new HashMap<>();
-        
-        // Count total records with IP addresses
-        long totalWithIp = allRecords.stream()
-                .filter(record -> record.getIpAddress() != null && !record.getIpAddress().isEmpty())
-                .count();
-        
-        long totalWithoutIp = allRecords.size() - totalWithIp;
-        
-        // Count IPv4 vs IPv6
-        long ipv4Count = allRecords.stream()
-                .filter(record -> record.getIpAddress() != null && isIPv4(record.getIpAddress()))
-                .count();
-        
-        long ipv6Count = allRecords.stream()
-                .filter(record -> record.getIpAddress() != null && isIPv6(record.getIpAddress()))
-                .count();
-        
-        // Get most common IP addresses
-        Map<String, Long> ipFrequency = allRecords.stream()
-                .filter(record -> record.getIpAddress() != null && !record.getIpAddress().isEmpty())
-                .collect(Collectors.groupingBy(EntryExitRecord::getIpAddress, Collectors.counting()));
-        
-        List<Map<String, Object>> commonIps = ipFrequency.entrySet().stream()
-                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
-                .limit(10)
-                .map(entry -> {
-                    Map<String, Object> ipInfo = new HashMap<>();
-                    ipInfo.put("ipAddress", entry.getKey());
-                    ipInfo.put("count", entry.getValue());
-                    ipInfo.put("type", isIPv4(entry.getKey()) ? "IPv4" : (isIPv6(entry.getKey()) ? "IPv6" : "Unknown"));
-                    return ipInfo;
-                })
-                .collect(Collectors.toList());
-        
-        // Get IP compliance statistics
-        long mismatchCount = 0;
-        long matchCount = 0;
-        long noAssignmentCount = 0;
-        
-        for (EntryExitRecord record : allRecords) {
-            Optional<User> userOpt = userRepository.findById(record.getUserId());
-            if (userOpt.isPresent()) {
-                IpComplianceService.IpComplianceStatus status = ipComplianceService.getIpComplianceStatus(record, userOpt.get());
-                switch (status) {
-                    case MATCH:
-                        matchCount++;
-                        break;
-                    case MISMATCH:
-                        mismatchCount++;
-                        break;
-                    case NO_ASSIGNMENT:
-                    case UNKNOWN_IP:
-                        noAssignmentCount++;
-                        break;
-                }
-            } else {
-                noAssignmentCount++;
-            }
-        }
-        
-        statistics.put("totalRecords", allRecords.size());
-        statistics.put("totalWithIp", totalWithIp);
-        statistics.put("totalWithoutIp", totalWithoutIp);
-        statistics.put("ipv4Count", ipv4Count);
-        statistics.put("ipv6Count", ipv6Count);
-        statistics.put("commonIps", commonIps);
-        statistics.put("mismatchCount", mismatchCount);
-        statistics.put("matchCount", matchCount);
-        statistics.put("noAssignmentCount", noAssignmentCount);
-        
-        return statistics;
+        List<String> accessibleDepartments = departmentAccessResolver.getAccessibleDepartmentCodes(authentication);
+        return ipUsageStatisticsService.getStatistics(accessibleDepartments);
+    }
+    
+    /**
+     * Rebuild the IP usage statistics from all entry/exit records.
+     * 
+     * @return Number of department/IP counter rows written
+     * Requirements: 2.4 - IP address filtering functionality
+     */
+    public int rebuildIpStatistics() {
+        return ipUsageStatisticsService.rebuild();
     }
     
     /**
@@ -1013,222 +844,81 @@ public class AdminRecordsService {
      * Requirements: 2.4 - IP address filtering functionality with department filtering
      */
     public Page<AdminRecordDto> searchRecordsByIp(String ipQuery, String ipType, String complianceStatus, int page, int size, Authentication authentication) {
-        List<String> accessibleDepartments = getAccessibleDepartmentCodes(authentication);
+        List<String> accessibleDepartments = departmentAccessResolver.getAccessibleDepartmentCodes(authentication);
         
-        List<EntryExitRecord> allRecords;
-        if (accessibleDepartments == null) {
-            // Can access all departments
-            allRecords = entryExitRecordRepository.findAll();
-        } else if (accessibleDepartments.isEmpty()) {
+        if (accessibleDepartments != null && accessibleDepartments.isEmpty()) {
             // No accessible departments - return empty page
             Pageable pageable = PageRequest.of(page, size);
             return new PageImpl<>(List.of(), pageable, 0);
-        } else {
-            // Get records for accessible departments only
-            allRecords = entryExitRecordRepository.findByUserDepartmentCodesOrderByTimestampDesc(accessibleDepartments, PageRequest.of(0, Integer.MAX_VALUE)).getContent();
-        }
-        
-        List<EntryExitRecord> filteredRecords = allRecords.stream()
-                .filter(record -> {
-                    // IP query filter
-                    if (ipQuery != null && !ipQuery.isEmpty()) {
-                        if (!matchesIpQuery(record.getIpAddress(), ipQuery)) {
-                            return false;
-                        }
-                    }
-                    
-                    // IP type filter
-                    if (ipType != null && !ipType.isEmpty()) {
-                        if (!matchesIpType(record.getIpAddress(), ipType)) {
-                            return false;
-                        }
-                    }
-                    
-                    // Compliance status filter
-                    if (complianceStatus != null && !complianceStatus.isEmpty()) {
-                        Optional<User> userOpt = userRepository.findById(record.getUserId());
-                        if (userOpt.isPresent()) {
-                            IpComplianceService.IpComplianceStatus status = ipComplianceService.getIpComplianceStatus(record, userOpt.get());
-                            
-                            switch (complianceStatus.toLowerCase()) {
-                                case "compliant":
-                                    if (status != IpComplianceService.IpComplianceStatus.MATCH) {
-                                        return false;
-                                    }
-                                    break;
-                                case "non-compliant":
-                                    if (status != IpComplianceService.IpComplianceStatus.MISMATCH) {
-                                        return false;
-                                    }
-                                    break;
-                                case "no-assignment":
-                                    if (status != IpComplianceService.IpComplianceStatus.NO_ASSIGNMENT && 
-                                        status != IpComplianceService.IpComplianceStatus.UNKNOWN_IP) {
-                                        return false;
-                                    }
-                                    break;
-                            }
-                        } else if (!"no-assignment".equalsIgnoreCase(complianceStatus)) {
-                            return false;
-                        }
-                    }
-                    
-                    return true;
-                })
-                .sorted((r1, r2) -> r2.getTimestamp().compareTo(r1.getTimestamp()))
-                .collect(Collectors.toList());
-        
-        Pageable pageable = PageRequest.of(page, size);
-        int start = page * size;
-        int end = Math.min(start + size, filteredRecords.size());
-        
-        List<AdminRecordDto> pageContent = filteredRecords.subList(start, end)
-                .stream()
-                .map(this::convertToAdminRecordDto)
-                .collect(Collectors.toList());
-        
-        return new PageImpl<>(pageContent, pageable, filteredRecords.size());
-    }
-    
-    /**
-     * Check if IP address matches the given query.
-     * Supports exact match, range, CIDR notation, and contains.
-     */
-    private boolean matchesIpQuery(String ipAddress, String query) {
-        if (ipAddress == null) {
-            return "unknown".equalsIgnoreCase(query) || "null".equalsIgnoreCase(query);
-        }
-        
-        query = query.trim();
-        
-        // Handle special queries
-        if ("unknown".equalsIgnoreCase(query) || "null".equalsIgnoreCase(query)) {
-            return false; // IP address exists, so it's not unknown
         }
         
-        // Handle range queries (e.g., "range:192.168.1.1-192.168.1.255")
-        if (query.startsWith("range:")) {
-            String rangeSpec = query.substring(6);
-            String[] parts = rangeSpec.split("-");
-            if (parts.length == 2) {
-                return isIpInRange(ipAddress, parts[0].trim(), parts[1].trim());
-            }
+        List<Specification<EntryExitRecord>> specifications = new ArrayList<>();
+        if (accessibleDepartments != null) {
+            specifications.add(EntryExitRecordSpecifications.userInDepartments(accessibleDepartments));
         }
         
-        // Handle subnet queries (e.g., "subnet:192.168.1.0/24")
-        if (query.startsWith("subnet:")) {
-            String subnet = query.substring(7);
-            return isIpInSubnet(ipAddress, subnet);
+        // IP query filter (exact, prefix, CIDR and range queries use the indexed IP address key)
+        if (ipQuery != null && !ipQuery.isEmpty()) {
+            specifications.add(EntryExitRecordSpecifications.ipAddressMatches(ipQuery));
         }
         
-        // Handle prefix matching (e.g., "192.168.1.")
-        if (query.endsWith(".")) {
-            return ipAddress.startsWith(query);
+        // IP type filter
+        if (ipType != null && !ipType.isEmpty()) {
+            specifications.add(EntryExitRecordSpecifications.ipTypeMatches(ipType));
         }
         
-        // Handle CIDR notation
-        if (query.contains("/")) {
-            return isIpInSubnet(ipAddress, query);
+        // Compliance status filter
+        if (complianceStatus != null && !complianceStatus.isEmpty()) {
+            specifications.add(complianceStatusMatches(complianceStatus));
         }
         
-        // Handle contains matching
-        if (query.startsWith("*") && query.endsWith("*")) {
-            String searchTerm = query.substring(1, query.length() - 1);
-            return ipAddress.contains(searchTerm);
-        }
-        
-        // Exact match
-        return query.equals(ipAddress);
+        Pageable pageable = PageRequest.of(page, size, RECORD_ORDER);
+        return toAdminRecordPage(entryExitRecordRepository.findAll(
+                EntryExitRecordSpecifications.allOf(specifications), pageable));
     }
     
     /**
-     * Check if IP address matches the given type.
+     * Translate a compliance status filter of the IP search into a specification.
+     * 
+     * @param complianceStatus Filter value ("compliant", "non-compliant", "no-assignment")
+     * @return Specification, or null if the filter value is not recognised
      */
-    private boolean matchesIpType(String ipAddress, String type) {
-        if (ipAddress == null) {
-            return "unknown".equalsIgnoreCase(type);
-        }
-        
-        switch (type.toLowerCase()) {
-            case "ipv4":
-                return isIPv4(ipAddress);
-            case "ipv6":
-                return isIPv6(ipAddress);
-            case "unknown":
-                return !isIPv4(ipAddress) && !isIPv6(ipAddress);
+    private Specification<EntryExitRecord> complianceStatusMatches(String complianceStatus) {
+        switch (complianceStatus.toLowerCase()) {
+            case "compliant":
+                return EntryExitRecordSpecifications.ipComplianceMatches("match");
+            case "non-compliant":
+                return EntryExitRecordSpecifications.ipComplianceMatches("mismatch");
+            case "no-assignment":
+                return EntryExitRecordSpecifications.ipComplianceMatches("unknown");
             default:
-                return true;
-        }
-    }
-    
-    /**
-     * Check if IP address is in the specified range.
-     */
-    private boolean isIpInRange(String ipAddress, String startIp, String endIp) {
-        try {
-            // Simple IPv4 range check (this could be enhanced for IPv6)
-            if (isIPv4(ipAddress) && isIPv4(startIp) && isIPv4(endIp)) {
-                long ip = ipToLong(ipAddress);
-                long start = ipToLong(startIp);
-                long end = ipToLong(endIp);
-                return ip >= start && ip <= end;
-            }
-        } catch (Exception e) {
-            // If parsing fails, fall back to string comparison
-        }
-        return false;
-    }
-    
-    /**
-     * Check if IP address is in the specified subnet (CIDR notation).
-     */
-    private boolean isIpInSubnet(String ipAddress, String subnet) {
-        try {
-            if (!isIPv4(ipAddress) || !subnet.contains("/")) {
-                return false;
-            }
-            
-            String[] parts = subnet.split("/");
-            String networkIp = parts[0];
-            int prefixLength = Integer.parseInt(parts[1]);
-            
-            long ip = ipToLong(ipAddress);
-            long network = ipToLong(networkIp);
-            long mask = (-1L << (32 - prefixLength));
-            
-            return (ip & mask) == (network & mask);
-        } catch (Exception e) {
-            return false;
+                return null;
         }
     }
     
     /**
-     * Convert IPv4 address to long for range calculations.
+     * Convert a page of records to AdminRecordDto, loading all referenced users with one query.
+     * 
+     * @param records Page of EntryExitRecord entities
+     * @return Page of AdminRecordDto
      */
-    private long ipToLong(String ipAddress) {
-        String[] parts = ipAddress.split("\\.");
-        long result = 0;
-        for (int i = 0; i < 4; i++) {
-            result = (result << 8) + Integer.parseInt(parts[i]);
-        }
-        return result;
+    private Page<AdminRecordDto> toAdminRecordPage(Page<EntryExitRecord> records) {
+        Map<Long, User> users = userBatchLoader.loadOwners(records.getContent());
+        return records.map(record -> convertToAdminRecordDto(record, users.get(record.getUserId())));
     }
     
     /**
      * Convert EntryExitRecord entity to AdminRecordDto.
      * 
      * @param record EntryExitRecord entity
+     * @param user User who performed the entry/exit (null if not found)
      * @return AdminRecordDto
      */
-    private AdminRecordDto convertToAdminRecordDto(EntryExitRecord record) {
-        // Get user information
-        Optional<User> userOpt = userRepository.findById(record.getUserId());
-        User user = userOpt.orElse(null);
-        
+    private AdminRecordDto convertToAdminRecordDto(EntryExitRecord record, User user) {
         // Determine IP mismatch status
         Boolean ipMismatch = null;
         if (user != null) {
-            IpComplianceService.IpComplianceStatus status = ipComplianceService.getIpComplianceStatus(record, user);
+            IpComplianceStatus status = ipComplianceStatusService.resolve(record, user);
             switch (status) {
                 case MATCH:
                     ipMismatch = false;
@@ -1283,24 +973,6 @@ public class AdminRecordsService {
         }
     }
     
-    /**
-     * Check if IP address is IPv4 format.
-     */
-    private boolean isIPv4(String ip) {
-        if (ip == null || ip.isEmpty()) return false;
-        String ipv4Pattern = "^((25[0-5]|2[0-4][0-9]|[01]?[0-9][0-9]?)\\.){3}(25[0-5]|2[0-4][0-9]|[01]?[0-9][0-9]?)$";
-        return ip.matches(ipv4Pattern);
-    }
-    
-    /**
-     * Check if IP address is IPv6 format.
-     */
-    private boolean isIPv6(String ip) {
-        if (ip == null || ip.isEmpty()) return false;
-        // Simple IPv6 check - contains colons and valid hex characters
-        return ip.contains(":") && ip.matches("^[0-9a-fA-F:]+$");
-    }
-    
     /**
      * DTO for daily summary statistics.
      */
@@ -2,10 +2,12 @@ package com.bidb.personetakip.service;
 
 import com.bidb.personetakip.dto.IpComplianceReportDto;
 import com.bidb.personetakip.model.EntryExitRecord;
+import com.bidb.personetakip.model.IpComplianceStatus;
 import com.bidb.personetakip.model.User;
+import com.bidb.personetakip.repository.DailyAttendanceRepository;
 import com.bidb.personetakip.repository.EntryExitRecordRepository;
-import com.bidb.personetakip.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
@@ -22,17 +24,29 @@ import java.util.stream.Collectors;
 @Service
 public class AdminReportsService {
     
+    private static final int TOP_IP_ADDRESS_LIMIT = 10;
+    
+    private static final int MAX_IDS_PER_QUERY = 1000;
+    
     @Autowired
     private EntryExitRecordRepository entryExitRecordRepository;
     
     @Autowired
-    private UserRepository userRepository;
+    private DailyAttendanceRepository dailyAttendanceRepository;
+    
+    @Autowired
+    private DailyAttendanceRollupService dailyAttendanceRollupService;
     
     @Autowired
-    private IpComplianceService ipComplianceService;
+    private UserBatchLoader userBatchLoader;
+    
+    @Autowired
+    private IpComplianceStatusService ipComplianceStatusService;
     
     /**
      * Generate IP compliance report for a date range.
+     * Closed days are read from the daily attendance rollup (one row per person and day);
+     * today, and the whole range until the rollup is ready, is evaluated from the records.
      * 
      * @param startDate Start date (inclusive)
      * @param endDate End date (inclusive)
@@ -43,76 +57,95 @@ public class AdminReportsService {
         LocalDateTime startDateTime = startDate.atStartOfDay();
         LocalDateTime endDateTime = endDate.atTime(23, 59, 59);
         
-        // Get all records in the date range
-        List<EntryExitRecord> records = entryExitRecordRepository.findByTimestampBetween(startDateTime, endDateTime);
-        
-        // Calculate compliance statistics
-        long totalRecords = records.size();
-        long matchingRecords = 0;
-        long mismatchRecords = 0;
-        long noAssignmentRecords = 0;
-        long unknownIpRecords = 0;
+        LocalDate lastClosedDay = dailyAttendanceRollupService.getLastClosedDay();
+        LocalDate rollupEnd = null;
+        if (lastClosedDay != null && !startDate.isAfter(lastClosedDay)) {
+            rollupEnd = endDate.isAfter(lastClosedDay) ? lastClosedDay : endDate;
+        }
         
-        Map<Long, User> userCache = new HashMap<>();
-        Map<Long, List<String>> userMismatchIps = new HashMap<>();
+        long totalRecords = 0;
+        Map<Long, UserComplianceStats> userStatsMap = new HashMap<>();
         Map<String, IpUsageStats> ipUsageMap = new HashMap<>();
-        Map<String, DepartmentStats> departmentStatsMap = new HashMap<>();
+        
+        // Closed days: per-user counts from the rollup, mismatching IPs from the stored statuses
+        if (rollupEnd != null) {
+            for (DailyAttendanceRepository.UserIpCompliance row
+                    : dailyAttendanceRepository.summarizeIpComplianceByUser(startDate, rollupEnd)) {
+                UserComplianceStats stats = userStatsMap.computeIfAbsent(row.getUserId(), k -> new UserComplianceStats());
+                stats.matchingRecords += row.getMatchCount();
+                stats.mismatchRecords += row.getMismatchCount();
+                stats.noAssignmentRecords += row.getNoAssignmentCount();
+                stats.unknownIpRecords += row.getUnknownIpCount();
+                totalRecords += row.getMatchCount() + row.getMismatchCount()
+                        + row.getNoAssignmentCount() + row.getUnknownIpCount();
+            }
+            addStoredMismatchIps(userStatsMap, startDateTime, rollupEnd.atTime(23, 59, 59));
+        }
+        
+        // Remaining days: evaluate the records
+        LocalDateTime recordsFrom = rollupEnd != null ? rollupEnd.plusDays(1).atStartOfDay() : startDateTime;
+        List<EntryExitRecord> records = recordsFrom.isAfter(endDateTime)
+                ? List.of()
+                : entryExitRecordRepository.findByTimestampBetween(recordsFrom, endDateTime);
+        totalRecords += records.size();
+        
+        Map<Long, User> userCache = new HashMap<>(userBatchLoader.loadOwners(records));
         
         for (EntryExitRecord record : records) {
-            User user = userCache.computeIfAbsent(record.getUserId(), 
-                    id -> userRepository.findById(id).orElse(null));
+            User user = userCache.get(record.getUserId());
             
             if (user == null) {
                 continue;
             }
             
-            IpComplianceService.IpComplianceStatus status = ipComplianceService.getIpComplianceStatus(record, user);
+            IpComplianceStatus status = ipComplianceStatusService.resolve(record, user);
+            userStatsMap.computeIfAbsent(user.getId(), k -> new UserComplianceStats())
+                    .add(status, record.getIpAddress());
             
-            switch (status) {
-                case MATCH:
-                    matchingRecords++;
-                    break;
-                case MISMATCH:
-                    mismatchRecords++;
-                    userMismatchIps.computeIfAbsent(user.getId(), k -> new ArrayList<>())
-                            .add(record.getIpAddress());
-                    break;
-                case NO_ASSIGNMENT:
-                    noAssignmentRecords++;
-                    break;
-                case UNKNOWN_IP:
-                    unknownIpRecords++;
-                    break;
+            // Track IP usage (the grouped query is used when the rollup covers part of the range)
+            if (rollupEnd == null) {
+                String ipAddress = record.getIpAddress() != null ? record.getIpAddress() : "Unknown";
+                IpUsageStats ipStats = ipUsageMap.computeIfAbsent(ipAddress, k -> new IpUsageStats());
+                ipStats.usageCount++;
+                ipStats.userIds.add(user.getId());
+                ipStats.userNames.add(user.getFirstName() + " " + user.getLastName());
             }
-            
-            // Track IP usage
-            String ipAddress = record.getIpAddress() != null ? record.getIpAddress() : "Unknown";
-            IpUsageStats ipStats = ipUsageMap.computeIfAbsent(ipAddress, k -> new IpUsageStats());
-            ipStats.usageCount++;
-            ipStats.userIds.add(user.getId());
-            ipStats.userNames.add(user.getFirstName() + " " + user.getLastName());
+        }
+        
+        List<Long> rollupOnlyUserIds = userStatsMap.keySet().stream()
+                .filter(userId -> !userCache.containsKey(userId))
+                .collect(Collectors.toList());
+        userCache.putAll(userBatchLoader.loadUsers(rollupOnlyUserIds));
+        
+        // Calculate compliance statistics
+        long matchingRecords = 0;
+        long mismatchRecords = 0;
+        long noAssignmentRecords = 0;
+        long unknownIpRecords = 0;
+        Map<String, DepartmentStats> departmentStatsMap = new HashMap<>();
+        
+        for (Map.Entry<Long, UserComplianceStats> entry : userStatsMap.entrySet()) {
+            User user = userCache.get(entry.getKey());
+            if (user == null) {
+                continue;
+            }
+            UserComplianceStats stats = entry.getValue();
+            matchingRecords += stats.matchingRecords;
+            mismatchRecords += stats.mismatchRecords;
+            noAssignmentRecords += stats.noAssignmentRecords;
+            unknownIpRecords += stats.unknownIpRecords;
             
             // Track department statistics
             String deptKey = user.getDepartmentCode() != null ? user.getDepartmentCode() : "UNKNOWN";
             DepartmentStats deptStats = departmentStatsMap.computeIfAbsent(deptKey, k -> new DepartmentStats());
             deptStats.departmentCode = user.getDepartmentCode();
             deptStats.departmentName = user.getDepartmentName();
-            deptStats.totalRecords++;
-            
-            switch (status) {
-                case MATCH:
-                    deptStats.matchingRecords++;
-                    break;
-                case MISMATCH:
-                    deptStats.mismatchRecords++;
-                    break;
-                case NO_ASSIGNMENT:
-                    deptStats.noAssignmentRecords++;
-                    break;
-                case UNKNOWN_IP:
-                    deptStats.unknownIpRecords++;
-                    break;
-            }
+            deptStats.totalRecords += stats.matchingRecords + stats.mismatchRecords
+                    + stats.noAssignmentRecords + stats.unknownIpRecords;
+            deptStats.matchingRecords += stats.matchingRecords;
+            deptStats.mismatchRecords += stats.mismatchRecords;
+            deptStats.noAssignmentRecords += stats.noAssignmentRecords;
+            deptStats.unknownIpRecords += stats.unknownIpRecords;
         }
         
         // Calculate compliance percentage
@@ -121,7 +154,8 @@ public class AdminReportsService {
                 (double) matchingRecords / recordsWithAssignments * 100.0 : 0.0;
         
         // Build user mismatch list
-        List<IpComplianceReportDto.UserIpMismatchDto> userMismatches = userMismatchIps.entrySet().stream()
+        List<IpComplianceReportDto.UserIpMismatchDto> userMismatches = userStatsMap.entrySet().stream()
+                .filter(entry -> entry.getValue().mismatchRecords > 0)
                 .map(entry -> {
                     User user = userCache.get(entry.getKey());
                     if (user == null) return null;
@@ -132,8 +166,8 @@ public class AdminReportsService {
                             .userPersonnelNo(user.getPersonnelNo())
                             .userDepartmentName(user.getDepartmentName())
                             .assignedIpAddresses(user.getAssignedIpAddresses())
-                            .mismatchCount(entry.getValue().size())
-                            .actualIpAddresses(entry.getValue().stream().distinct().collect(Collectors.toList()))
+                            .mismatchCount(entry.getValue().mismatchRecords)
+                            .actualIpAddresses(new ArrayList<>(entry.getValue().mismatchIps))
                             .build();
                 })
                 .filter(Objects::nonNull)
@@ -141,17 +175,19 @@ public class AdminReportsService {
                 .collect(Collectors.toList());
         
         // Build top IP addresses list
-        List<IpComplianceReportDto.IpUsageDto> topIpAddresses = ipUsageMap.entrySet().stream()
-                .map(entry -> IpComplianceReportDto.IpUsageDto.builder()
-                        .ipAddress(entry.getKey())
-                        .usageCount(entry.getValue().usageCount)
-                        .uniqueUsers(entry.getValue().userIds.size())
-                        .userNames(entry.getValue().userNames.stream().distinct()
-                                .limit(5).collect(Collectors.toList()))
-                        .build())
-                .sorted((a, b) -> Long.compare(b.getUsageCount(), a.getUsageCount()))
-                .limit(10)
-                .collect(Collectors.toList());
+        List<IpComplianceReportDto.IpUsageDto> topIpAddresses = rollupEnd != null
+                ? findTopIpAddresses(startDateTime, endDateTime)
+                : ipUsageMap.entrySet().stream()
+                        .map(entry -> IpComplianceReportDto.IpUsageDto.builder()
+                                .ipAddress(entry.getKey())
+                                .usageCount(entry.getValue().usageCount)
+                                .uniqueUsers(entry.getValue().userIds.size())
+                                .userNames(entry.getValue().userNames.stream().distinct()
+                                        .limit(5).collect(Collectors.toList()))
+                                .build())
+                        .sorted((a, b) -> Long.compare(b.getUsageCount(), a.getUsageCount()))
+                        .limit(TOP_IP_ADDRESS_LIMIT)
+                        .collect(Collectors.toList());
         
         // Build department statistics
         List<IpComplianceReportDto.DepartmentIpComplianceDto> departmentStats = departmentStatsMap.values().stream()
@@ -190,6 +226,75 @@ public class AdminReportsService {
                 .build();
     }
     
+    /**
+     * Add the distinct mismatching IP addresses of users with mismatches, read from the
+     * stored compliance statuses of their records
+     */
+    private void addStoredMismatchIps(Map<Long, UserComplianceStats> userStatsMap,
+                                      LocalDateTime startDateTime, LocalDateTime endDateTime) {
+        List<Long> userIds = userStatsMap.entrySet().stream()
+                .filter(entry -> entry.getValue().mismatchRecords > 0)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+        for (int from = 0; from < userIds.size(); from += MAX_IDS_PER_QUERY) {
+            List<Long> chunk = userIds.subList(from, Math.min(from + MAX_IDS_PER_QUERY, userIds.size()));
+            for (Object[] row : entryExitRecordRepository.findUserIpAddressesByComplianceStatus(
+                    startDateTime, endDateTime, chunk, IpComplianceStatus.MISMATCH)) {
+                userStatsMap.get((Long) row[0]).mismatchIps.add((String) row[1]);
+            }
+        }
+    }
+    
+    /**
+     * Find the most used IP addresses with a grouped query, and up to five user names of each
+     */
+    private List<IpComplianceReportDto.IpUsageDto> findTopIpAddresses(LocalDateTime startDateTime,
+                                                                      LocalDateTime endDateTime) {
+        List<EntryExitRecordRepository.IpAddressUsage> usages = entryExitRecordRepository.countByIpAddressBetween(
+                startDateTime, endDateTime, PageRequest.of(0, TOP_IP_ADDRESS_LIMIT));
+        if (usages.isEmpty()) {
+            return new ArrayList<>();
+        }
+        
+        List<String> ipAddresses = usages.stream()
+                .map(EntryExitRecordRepository.IpAddressUsage::getIpAddress)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        boolean includeUnknown = ipAddresses.size() < usages.size();
+        if (ipAddresses.isEmpty()) {
+            ipAddresses.add("Unknown");
+        }
+        
+        Map<String, List<Long>> userIdsByIp = new HashMap<>();
+        for (Object[] row : entryExitRecordRepository.findIpAddressUsers(
+                startDateTime, endDateTime, ipAddresses, includeUnknown)) {
+            String ipAddress = row[0] != null ? (String) row[0] : "Unknown";
+            userIdsByIp.computeIfAbsent(ipAddress, k -> new ArrayList<>()).add((Long) row[1]);
+        }
+        Map<Long, User> users = userBatchLoader.loadUsers(userIdsByIp.values().stream()
+                .flatMap(List::stream)
+                .collect(Collectors.toSet()));
+        
+        return usages.stream()
+                .map(usage -> {
+                    String ipAddress = usage.getIpAddress() != null ? usage.getIpAddress() : "Unknown";
+                    List<String> userNames = userIdsByIp.getOrDefault(ipAddress, List.of()).stream()
+                            .map(users::get)
+                            .filter(Objects::nonNull)
+                            .map(user -> user.getFirstName() + " " + user.getLastName())
+                            .distinct()
+                            .limit(5)
+                            .collect(Collectors.toList());
+                    return IpComplianceReportDto.IpUsageDto.builder()
+                            .ipAddress(ipAddress)
+                            .usageCount(usage.getRecordCount())
+                            .uniqueUsers(usage.getUserCount())
+                            .userNames(userNames)
+                            .build();
+                })
+                .collect(Collectors.toList());
+    }
+    
     /**
      * Get IP compliance dashboard statistics for today.
      * 
@@ -225,6 +330,35 @@ public class AdminReportsService {
         return generateIpComplianceReport(startOfMonth, today);
     }
     
+    /**
+     * Helper class for tracking the IP compliance counts of one user
+     */
+    private static class UserComplianceStats {
+        long matchingRecords = 0;
+        long mismatchRecords = 0;
+        long noAssignmentRecords = 0;
+        long unknownIpRecords = 0;
+        Set<String> mismatchIps = new LinkedHashSet<>();
+        
+        void add(IpComplianceStatus status, String ipAddress) {
+            switch (status) {
+                case MATCH:
+                    matchingRecords++;
+                    break;
+                case MISMATCH:
+                    mismatchRecords++;
+                    mismatchIps.add(ipAddress);
+                    break;
+                case NO_ASSIGNMENT:
+                    noAssignmentRecords++;
+                    break;
+                case UNKNOWN_IP:
+                    unknownIpRecords++;
+                    break;
+            }
+        }
+    }
+    
     /**
      * Helper class for tracking IP usage statistics
      */
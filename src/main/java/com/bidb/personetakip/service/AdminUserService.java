@@ -50,52 +50,29 @@ public class AdminUserService {
     @Autowired
     private IpPrivacyService ipPrivacyService;
     
+    @Autowired
+    private IpComplianceStatusService ipComplianceStatusService;
+    
     @Autowired
     private PasswordEncoder passwordEncoder;
     
     @Autowired
-    private com.bidb.personetakip.repository.DepartmentPermissionRepository departmentPermissionRepository;
+    private DepartmentAccessResolver departmentAccessResolver;
     
-    /**
-     * Get accessible department codes for the authenticated user.
-     * SUPER_ADMIN and ADMIN can access all departments.
-     * DEPARTMENT_ADMIN can access departments they have permissions for.
-     * 
-     * @param adminUserId ID of the admin making the request
-     * @param adminRole Role of the admin making the request
-     * @return List of accessible department codes (null means all departments)
-     */
-    private List<String> getAccessibleDepartmentCodes(Long adminUserId, String adminRole) {
-        logger.info("getAccessibleDepartmentCodes - adminUserId: {}, adminRole: {}", adminUserId, adminRole);
-        
-        if ("SUPER_ADMIN".equals(adminRole) || "ADMIN".equals(adminRole)) {
-            logger.info("User is SUPER_ADMIN or ADMIN - returning null (all departments)");
-            return null; // Can access all departments
-        }
-        
-        if ("DEPARTMENT_ADMIN".equals(adminRole) && adminUserId != null) {
-            // Get departments this admin has permission for
-            List<String> permittedDepartments = departmentPermissionRepository.findDepartmentCodesByUserId(adminUserId);
-            logger.info("DEPARTMENT_ADMIN - permittedDepartments from DB: {}", permittedDepartments);
-            
-            // If no specific permissions found, fall back to user's own department for backward compatibility
-            if (permittedDepartments.isEmpty()) {
-                Optional<User> adminUser = userRepository.findById(adminUserId);
-                if (adminUser.isPresent()) {
-                    String deptCode = adminUser.get().getDepartmentCode();
-                    logger.info("No permissions found, falling back to user's departmentCode: {}", deptCode);
-                    if (deptCode != null) {
-                        return List.of(deptCode);
-                    }
-                }
-            }
-            
-            return permittedDepartments.isEmpty() ? List.of() : permittedDepartments;
-        }
-        
-        logger.info("No accessible departments - returning empty list");
-        return List.of(); // No accessible departments
-    }
+    @Autowired
+    private PresenceRegistry presenceRegistry;
+    
+    @Autowired
+    private RecentActivityBuffer recentActivityBuffer;
+    
+    @Autowired
+    private UserLastStatusService userLastStatusService;
+    
+    @Autowired
+    private DailyAttendanceRollupService dailyAttendanceRollupService;
+    
+    @Autowired
+    private IpUsageStatisticsService ipUsageStatisticsService;
     
     /**
      * Get paginated list of all users with department-based filtering for department admins.
@@ -111,7 +88,7 @@ public class AdminUserService {
     public Page<AdminUserDto> getAllUsersWithDepartmentFilter(int page, int size, Long adminUserId, String adminRole, String adminDepartmentCode) {
         Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
         
-        List<String> accessibleDepartments = getAccessibleDepartmentCodes(adminUserId, adminRole);
+        List<String> accessibleDepartments = departmentAccessResolver.getAccessibleDepartmentCodes(adminUserId, adminRole);
         
         if (accessibleDepartments == null) {
             // For ADMIN and SUPER_ADMIN, show all users
@@ -155,7 +132,7 @@ public class AdminUserService {
     public Page<AdminUserDto> searchUsersWithDepartmentFilter(String searchTerm, int page, int size, Long adminUserId, String adminRole, String adminDepartmentCode) {
         Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
         
-        List<String> accessibleDepartments = getAccessibleDepartmentCodes(adminUserId, adminRole);
+        List<String> accessibleDepartments = departmentAccessResolver.getAccessibleDepartmentCodes(adminUserId, adminRole);
         
         if (accessibleDepartments == null) {
             // For ADMIN and SUPER_ADMIN, search all users
@@ -268,6 +245,7 @@ public class AdminUserService {
         user.setRole(newUserRole);
         user.setUpdatedAt(LocalDateTime.now());
         User updatedUser = userRepository.save(user);
+        departmentAccessResolver.evict(userId);
         
         // Create audit log
         AdminAuditLog auditLog = AdminAuditLog.builder()
@@ -277,7 +255,7 @@ public class AdminUserService {
                 .details(String.format("{\"oldRole\":\"%s\",\"newRole\":\"%s\"}", oldRole.name(), newRole))
                 .timestamp(LocalDateTime.now())
                 .build();
-        adminAuditLogRepository.save(auditLog);
+        recentActivityBuffer.recordAfterCommit(adminAuditLogRepository.save(auditLog));
         
         return convertToAdminUserDto(updatedUser);
     }
@@ -329,7 +307,7 @@ public class AdminUserService {
      */
     public List<DepartmentDto> getAllDepartmentsWithFilter(Long adminUserId, String adminRole, String adminDepartmentCode) {
         List<Object[]> departments = userRepository.findDistinctDepartments();
-        List<String> accessibleDepartments = getAccessibleDepartmentCodes(adminUserId, adminRole);
+        List<String> accessibleDepartments = departmentAccessResolver.getAccessibleDepartmentCodes(adminUserId, adminRole);
         
         return departments.stream()
                 .filter(dept -> {
@@ -351,6 +329,8 @@ public class AdminUserService {
     
     /**
      * Get users by attendance status.
+     * Once the presence registry has loaded (and with it the stored last status of every user),
+     * inside/outside membership is paged in the database from the stored last status.
      * 
      * @param attendanceStatus "NO_RECORDS", "INSIDE", "OUTSIDE"
      * @param page Page number
@@ -368,13 +348,17 @@ public class AdminUserService {
                 
             case "INSIDE":
                 // Users who are currently inside (last record is ENTRY)
-                Page<User> usersInside = userRepository.findUsersCurrentlyInside(pageable);
-                return usersInside.map(this::convertToAdminUserDto);
+                if (!presenceRegistry.isLoaded()) {
+                    return userRepository.findUsersCurrentlyInside(pageable).map(this::convertToAdminUserDto);
+                }
+                return userRepository.findUsersWithLastStatusInside(pageable).map(this::convertToAdminUserDto);
                 
             case "OUTSIDE":
                 // Users who are currently outside (last record is EXIT or no records)
-                Page<User> usersOutside = userRepository.findUsersCurrentlyOutside(pageable);
-                return usersOutside.map(this::convertToAdminUserDto);
+                if (!presenceRegistry.isLoaded()) {
+                    return userRepository.findUsersCurrentlyOutside(pageable).map(this::convertToAdminUserDto);
+                }
+                return userRepository.findUsersWithLastStatusOutside(pageable).map(this::convertToAdminUserDto);
                 
             default:
                 return getAllUsers(page, size);
@@ -412,6 +396,10 @@ public class AdminUserService {
             user.setUpdatedAt(LocalDateTime.now());
             User updatedUser = userRepository.save(user);
             
+            // Re-evaluate the stored compliance status of the user's existing records
+            ipComplianceStatusService.recomputeForUser(userId);
+            dailyAttendanceRollupService.rebuildUser(userId);
+            
             // Log IP address modification for audit purposes
             try {
                 ipPrivacyService.logIpAddressModification(
@@ -436,7 +424,7 @@ public class AdminUserService {
                             ipAddresses != null ? ipAddresses : ""))
                     .timestamp(LocalDateTime.now())
                     .build();
-            adminAuditLogRepository.save(auditLog);
+            recentActivityBuffer.recordAfterCommit(adminAuditLogRepository.save(auditLog));
             
             return convertToAdminUserDto(updatedUser);
             
@@ -578,7 +566,7 @@ public class AdminUserService {
                         createDto.getFirstName(), createDto.getLastName()))
                 .timestamp(java.time.LocalDateTime.now())
                 .build();
-        adminAuditLogRepository.save(auditLog);
+        recentActivityBuffer.recordAfterCommit(adminAuditLogRepository.save(auditLog));
         
         logger.info("Manual user created: {} by admin {}", savedUser.getTcNo(), adminUserId);
         
@@ -632,12 +620,17 @@ public class AdminUserService {
         
         if (updateDto.getDepartmentCode() != null) {
             changes.append("departmentCode: ").append(user.getDepartmentCode()).append(" -> ").append(updateDto.getDepartmentCode()).append("; ");
-            user.setDepartmentCode(updateDto.getDepartmentCode().isEmpty() ? null : updateDto.getDepartmentCode());
+            String departmentCode = updateDto.getDepartmentCode().isEmpty() ? null : updateDto.getDepartmentCode();
+            ipUsageStatisticsService.moveUserRecords(userId, user.getDepartmentCode(), departmentCode);
+            user.setDepartmentCode(departmentCode);
+            departmentAccessResolver.evict(userId);
+            recentActivityBuffer.evictUserDepartmentAfterCommit(userId);
         }
         
         if (updateDto.getDepartmentName() != null) {
             changes.append("departmentName: ").append(user.getDepartmentName()).append(" -> ").append(updateDto.getDepartmentName()).append("; ");
             user.setDepartmentName(updateDto.getDepartmentName().isEmpty() ? null : updateDto.getDepartmentName());
+            departmentAccessResolver.evict(userId);
         }
         
         if (updateDto.getTitleCode() != null) {
@@ -664,7 +657,7 @@ public class AdminUserService {
                 .details(changes.toString())
                 .timestamp(LocalDateTime.now())
                 .build();
-        adminAuditLogRepository.save(auditLog);
+        recentActivityBuffer.recordAfterCommit(adminAuditLogRepository.save(auditLog));
         
         logger.info("User {} updated by admin {}", userId, adminUserId);
         
@@ -700,8 +693,13 @@ public class AdminUserService {
         String userInfo = String.format("{\"tcNo\":\"%s\",\"personnelNo\":\"%s\",\"fullName\":\"%s %s\"}", 
                 user.getTcNo(), user.getPersonnelNo(), user.getFirstName(), user.getLastName());
         
-        // Delete user
+        // Delete user; the database deletes the user's records with it
+        ipUsageStatisticsService.removeUserRecords(userId);
         userRepository.delete(user);
+        departmentAccessResolver.evict(userId);
+        presenceRegistry.removeAfterCommit(userId);
+        userLastStatusService.remove(userId);
+        recentActivityBuffer.removeUserAfterCommit(userId);
         
         // Create audit log
         AdminAuditLog auditLog = AdminAuditLog.builder()
@@ -711,7 +709,7 @@ public class AdminUserService {
                 .details(userInfo)
                 .timestamp(LocalDateTime.now())
                 .build();
-        adminAuditLogRepository.save(auditLog);
+        recentActivityBuffer.recordAfterCommit(adminAuditLogRepository.save(auditLog));
         
         logger.info("User {} deleted by admin {}", userId, adminUserId);
     }
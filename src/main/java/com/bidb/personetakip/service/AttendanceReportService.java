@@ -2,9 +2,8 @@ package com.bidb.personetakip.service;
 
 import com.bidb.personetakip.dto.AttendanceReportDto;
 import com.bidb.personetakip.dto.AttendanceReportDto.PersonnelAttendanceDto;
-import com.bidb.personetakip.model.EntryExitRecord;
-import com.bidb.personetakip.model.EntryExitType;
 import com.bidb.personetakip.model.User;
+import com.bidb.personetakip.repository.DailyAttendanceRepository;
 import com.bidb.personetakip.repository.EntryExitRecordRepository;
 import com.bidb.personetakip.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Value;
@@ -24,6 +23,8 @@ public class AttendanceReportService {
     
     private final EntryExitRecordRepository entryExitRecordRepository;
     private final UserRepository userRepository;
+    private final DailyAttendanceRepository dailyAttendanceRepository;
+    private final DailyAttendanceRollupService dailyAttendanceRollupService;
     
     @Value("${attendance.late-entry-time:09:00}")
     private String lateEntryTime;
@@ -32,9 +33,13 @@ public class AttendanceReportService {
     private String earlyExitTime;
     
     public AttendanceReportService(EntryExitRecordRepository entryExitRecordRepository,
-                                   UserRepository userRepository) {
+                                   UserRepository userRepository,
+                                   DailyAttendanceRepository dailyAttendanceRepository,
+                                   DailyAttendanceRollupService dailyAttendanceRollupService) {
         this.entryExitRecordRepository = entryExitRecordRepository;
         this.userRepository = userRepository;
+        this.dailyAttendanceRepository = dailyAttendanceRepository;
+        this.dailyAttendanceRollupService = dailyAttendanceRollupService;
     }
     
     public AttendanceReportDto generateReport(String period, String departmentCode) {
@@ -56,31 +61,14 @@ public class AttendanceReportService {
             allUsers = userRepository.findAll();
         }
         
-        // Get all records in date range
-        List<EntryExitRecord> records = entryExitRecordRepository
-                .findByTimestampBetween(startDate, endDate);
-        
-        // Filter by department if specified
-        if (departmentCode != null && !departmentCode.isEmpty()) {
-            Set<Long> departmentUserIds = allUsers.stream()
-                    .map(User::getId)
-                    .collect(Collectors.toSet());
-            records = records.stream()
-                    .filter(r -> departmentUserIds.contains(r.getUserId()))
-                    .collect(Collectors.toList());
-        }
-        
-        // Group records by user
-        Map<Long, List<EntryExitRecord>> recordsByUser = records.stream()
-                .collect(Collectors.groupingBy(EntryExitRecord::getUserId));
-        
         // Parse time thresholds
         LocalTime lateThreshold = LocalTime.parse(lateEntryTime);
         LocalTime earlyThreshold = LocalTime.parse(earlyExitTime);
         
-        // Build user map for quick lookup
-        Map<Long, User> userMap = allUsers.stream()
-                .collect(Collectors.toMap(User::getId, u -> u));
+        // Per-user counts are aggregated by the database; only one row per person is held
+        String departmentFilter = departmentCode != null && !departmentCode.isEmpty() ? departmentCode : null;
+        Map<Long, AttendanceTotals> summariesByUser = summarizeAttendance(startDate, endDate, departmentFilter,
+                lateThreshold, earlyThreshold);
         
         // Calculate statistics
         List<PersonnelAttendanceDto> withEntries = new ArrayList<>();
@@ -89,12 +77,12 @@ public class AttendanceReportService {
         List<PersonnelAttendanceDto> earlyExits = new ArrayList<>();
         
         for (User user : allUsers) {
-            List<EntryExitRecord> userRecords = recordsByUser.getOrDefault(user.getId(), Collections.emptyList());
+            AttendanceTotals summary = summariesByUser.get(user.getId());
             
-            if (userRecords.isEmpty()) {
-                withoutEntries.add(buildPersonnelDto(user, userRecords, lateThreshold, earlyThreshold));
+            if (summary == null) {
+                withoutEntries.add(buildPersonnelDto(user, null));
             } else {
-                PersonnelAttendanceDto dto = buildPersonnelDto(user, userRecords, lateThreshold, earlyThreshold);
+                PersonnelAttendanceDto dto = buildPersonnelDto(user, summary);
                 withEntries.add(dto);
                 
                 if (dto.getLateEntryCount() > 0) {
@@ -134,52 +122,89 @@ public class AttendanceReportService {
                 .build();
     }
     
-    private PersonnelAttendanceDto buildPersonnelDto(User user, List<EntryExitRecord> records,
-                                                      LocalTime lateThreshold, LocalTime earlyThreshold) {
-        int entryCount = 0;
-        int exitCount = 0;
-        int lateEntryCount = 0;
-        int earlyExitCount = 0;
-        LocalDateTime lastEntry = null;
-        LocalDateTime lastExit = null;
+    /**
+     * Sum each user's attendance in a period. Whole closed days are read from the daily
+     * attendance rollup (one row per person and day); the rest of the period, i.e. today,
+     * partial days or everything before the rollup is ready, is aggregated from the records.
+     */
+    private Map<Long, AttendanceTotals> summarizeAttendance(LocalDateTime startDate, LocalDateTime endDate,
+                                                            String departmentCode,
+                                                            LocalTime lateThreshold, LocalTime earlyThreshold) {
+        Map<Long, AttendanceTotals> totalsByUser = new HashMap<>();
+        LocalDateTime recordsFrom = startDate;
         
-        for (EntryExitRecord record : records) {
-            if (record.getType() == EntryExitType.ENTRY) {
-                entryCount++;
-                if (lastEntry == null || record.getTimestamp().isAfter(lastEntry)) {
-                    lastEntry = record.getTimestamp();
-                }
-                // Check if late (after threshold time)
-                if (record.getTimestamp().toLocalTime().isAfter(lateThreshold)) {
-                    lateEntryCount++;
-                }
-            } else {
-                exitCount++;
-                if (lastExit == null || record.getTimestamp().isAfter(lastExit)) {
-                    lastExit = record.getTimestamp();
-                }
-                // Check if early exit (before threshold time)
-                if (record.getTimestamp().toLocalTime().isBefore(earlyThreshold)) {
-                    earlyExitCount++;
-                }
+        LocalDate lastClosedDay = dailyAttendanceRollupService.getLastClosedDay();
+        if (lastClosedDay != null && startDate.toLocalTime().equals(LocalTime.MIDNIGHT)) {
+            LocalDate rollupStart = startDate.toLocalDate();
+            LocalDate rollupEnd = endDate.toLocalTime().isBefore(LocalTime.of(23, 59, 59))
+                    ? endDate.toLocalDate().minusDays(1)
+                    : endDate.toLocalDate();
+            if (rollupEnd.isAfter(lastClosedDay)) {
+                rollupEnd = lastClosedDay;
+            }
+            if (!rollupEnd.isBefore(rollupStart)) {
+                dailyAttendanceRepository.summarizeAttendanceByUser(rollupStart, rollupEnd, departmentCode)
+                        .forEach(summary -> totalsByUser
+                                .computeIfAbsent(summary.getUserId(), id -> new AttendanceTotals())
+                                .add(summary));
+                recordsFrom = rollupEnd.plusDays(1).atStartOfDay();
             }
         }
         
+        if (!recordsFrom.isAfter(endDate)) {
+            entryExitRecordRepository.summarizeAttendanceByUser(recordsFrom, endDate, departmentCode,
+                            lateThreshold, earlyThreshold)
+                    .forEach(summary -> totalsByUser
+                            .computeIfAbsent(summary.getUserId(), id -> new AttendanceTotals())
+                            .add(summary));
+        }
+        return totalsByUser;
+    }
+    
+    private PersonnelAttendanceDto buildPersonnelDto(User user, AttendanceTotals summary) {
         return PersonnelAttendanceDto.builder()
                 .userId(user.getId())
                 .tcNo(user.getTcNo())
                 .fullName(user.getFirstName() + " " + user.getLastName())
                 .personnelNo(user.getPersonnelNo())
                 .departmentName(user.getDepartmentName())
-                .entryCount(entryCount)
-                .exitCount(exitCount)
-                .lateEntryCount(lateEntryCount)
-                .earlyExitCount(earlyExitCount)
-                .lastEntryTime(lastEntry)
-                .lastExitTime(lastExit)
+                .entryCount(summary != null ? summary.entryCount : 0)
+                .exitCount(summary != null ? summary.exitCount : 0)
+                .lateEntryCount(summary != null ? summary.lateEntryCount : 0)
+                .earlyExitCount(summary != null ? summary.earlyExitCount : 0)
+                .lastEntryTime(summary != null ? summary.lastEntryTime : null)
+                .lastExitTime(summary != null ? summary.lastExitTime : null)
                 .build();
     }
     
+    /**
+     * Attendance of one user summed over the rollup and record parts of a period
+     */
+    private static final class AttendanceTotals {
+        private int entryCount;
+        private int exitCount;
+        private int lateEntryCount;
+        private int earlyExitCount;
+        private LocalDateTime lastEntryTime;
+        private LocalDateTime lastExitTime;
+        
+        void add(EntryExitRecordRepository.UserAttendanceSummary summary) {
+            entryCount += (int) summary.getEntryCount();
+            exitCount += (int) summary.getExitCount();
+            lateEntryCount += (int) summary.getLateEntryCount();
+            earlyExitCount += (int) summary.getEarlyExitCount();
+            lastEntryTime = latest(lastEntryTime, summary.getLastEntryTime());
+            lastExitTime = latest(lastExitTime, summary.getLastExitTime());
+        }
+        
+        private static LocalDateTime latest(LocalDateTime a, LocalDateTime b) {
+            if (a == null) {
+                return b;
+            }
+            return b != null && b.isAfter(a) ? b : a;
+        }
+    }
+    
     private LocalDateTime[] getDateRange(String period) {
         LocalDate today = LocalDate.now();
         LocalDateTime endDate = today.atTime(23, 59, 59);
@@ -0,0 +1,262 @@
+package com.bidb.personetakip.service;
+
+import com.bidb.personetakip.model.EntryExitRecord;
+import com.bidb.personetakip.model.EntryExitType;
+import com.bidb.personetakip.repository.EntryExitRecordRepository;
+import com.bidb.personetakip.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory entry and exit counters of the current day, per user department.
+ * Loaded from the database on startup and re-synchronized periodically; in between every
+ * committed scan increments its department's counter, so dashboard figures are read without
+ * COUNT queries and departments with new activity can be pushed to live viewers.
+ *
+ * Until the initial load has finished {@link #isLoaded()} returns false and callers
+ * must fall back to the database.
+ * Requirements: 1.2 - Dashboard statistics and summary data
+ */
+@Service
+public class DailyActivityCounters {
+
+    private static final Logger logger = LoggerFactory.getLogger(DailyActivityCounters.class);
+
+    private final EntryExitRecordRepository entryExitRecordRepository;
+    private final UserRepository userRepository;
+    private final PresenceRegistry presenceRegistry;
+
+    /**
+     * Department code per user ID ("" for users without a department)
+     */
+    private final Map<Long, String> userDepartments = new ConcurrentHashMap<>();
+
+    /**
+     * Departments whose counters changed since the last {@link #drainChangedDepartments()}
+     */
+    private final Set<String> changedDepartments = ConcurrentHashMap.newKeySet();
+
+    private volatile DayCounts today;
+
+    public DailyActivityCounters(EntryExitRecordRepository entryExitRecordRepository,
+                                 UserRepository userRepository,
+                                 PresenceRegistry presenceRegistry) {
+        this.entryExitRecordRepository = entryExitRecordRepository;
+        this.userRepository = userRepository;
+        this.presenceRegistry = presenceRegistry;
+    }
+
+    /**
+     * Today's activity of a set of departments
+     *
+     * @param entryCount Entry records today
+     * @param exitCount Exit records today
+     * @param insideCount Users currently inside (0 until the presence registry is loaded)
+     */
+    public record Counts(long entryCount, long exitCount, long insideCount) {
+
+        public long totalActivity() {
+            return entryCount + exitCount;
+        }
+    }
+
+    /**
+     * Load the counters on startup.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        try {
+            load();
+        } catch (Exception e) {
+            logger.error("Failed to load daily activity counters, falling back to database queries", e);
+        }
+    }
+
+    /**
+     * Re-synchronize with the database, correcting drift from deleted records or users
+     * who changed department.
+     */
+    @Scheduled(fixedDelayString = "${dashboard.counters.resync-interval-ms:600000}",
+               initialDelayString = "${dashboard.counters.resync-interval-ms:600000}")
+    public void resync() {
+        try {
+            load();
+        } catch (Exception e) {
+            logger.warn("Failed to re-synchronize daily activity counters: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * (Re)build the counters from today's records and the users' departments.
+     * Scans committed while the counts are read may be missed or counted twice until the next run.
+     */
+    public void load() {
+        LocalDate date = LocalDate.now();
+        DayCounts counts = new DayCounts(date);
+        for (EntryExitRecordRepository.DepartmentTypeCount row : entryExitRecordRepository
+                .countByDepartmentAndTypeBetween(date.atStartOfDay(), date.atTime(LocalTime.MAX))) {
+            counts.add(departmentKey(row.getDepartmentCode()), row.getType(), row.getRecordCount());
+        }
+
+        for (UserRepository.UserDepartment user : userRepository.findAllUserDepartments()) {
+            userDepartments.put(user.getId(), departmentKey(user.getDepartmentCode()));
+        }
+
+        DayCounts previous = today;
+        today = counts;
+        changedDepartments.addAll(counts.departments());
+        if (previous != null) {
+            changedDepartments.addAll(previous.departments());
+        }
+    }
+
+    /**
+     * @return true once the initial load has finished
+     */
+    public boolean isLoaded() {
+        return today != null;
+    }
+
+    /**
+     * Count a newly committed entry/exit record of the current day.
+     *
+     * @param event Recorded event
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntryExitRecorded(EntryExitRecordedEvent event) {
+        EntryExitRecord record = event.record();
+        DayCounts counts = current();
+        if (counts == null || record.getTimestamp() == null
+                || !record.getTimestamp().toLocalDate().equals(counts.date)) {
+            // Scans uploaded late for an earlier day do not change today's figures
+            return;
+        }
+        String department = departmentOf(record.getUserId());
+        counts.add(department, record.getType(), 1);
+        changedDepartments.add(department);
+    }
+
+    /**
+     * Get today's counts of a set of departments.
+     *
+     * @param departmentCodes Department codes (null for all departments)
+     * @return Counts (all zero before the initial load)
+     */
+    public Counts getCounts(Collection<String> departmentCodes) {
+        DayCounts counts = current();
+        if (counts == null) {
+            return new Counts(0, 0, 0);
+        }
+
+        Set<String> departments = departmentCodes != null ? new HashSet<>(departmentCodes) : null;
+        long entries = 0;
+        long exits = 0;
+        for (Map.Entry<String, AtomicLong[]> department : counts.departments.entrySet()) {
+            if (departments == null || departments.contains(department.getKey())) {
+                entries += department.getValue()[0].get();
+                exits += department.getValue()[1].get();
+            }
+        }
+        return new Counts(entries, exits, countInside(departments));
+    }
+
+    /**
+     * Take the departments whose counters changed since the previous call.
+     *
+     * @return Department codes ("" for users without a department)
+     */
+    public Set<String> drainChangedDepartments() {
+        current();
+        Set<String> drained = new HashSet<>();
+        for (String department : changedDepartments) {
+            if (changedDepartments.remove(department)) {
+                drained.add(department);
+            }
+        }
+        return drained;
+    }
+
+    private long countInside(Set<String> departments) {
+        if (!presenceRegistry.isLoaded()) {
+            return 0;
+        }
+        if (departments == null) {
+            return presenceRegistry.countInside();
+        }
+        long inside = 0;
+        for (Long userId : presenceRegistry.getUsersInside()) {
+            if (departments.contains(departmentOf(userId))) {
+                inside++;
+            }
+        }
+        return inside;
+    }
+
+    /**
+     * Get today's counters, starting empty ones once the day has changed
+     */
+    private DayCounts current() {
+        DayCounts counts = today;
+        if (counts != null && !counts.date.equals(LocalDate.now())) {
+            synchronized (this) {
+                counts = today;
+                if (!counts.date.equals(LocalDate.now())) {
+                    changedDepartments.addAll(counts.departments());
+                    counts = new DayCounts(LocalDate.now());
+                    today = counts;
+                }
+            }
+        }
+        return counts;
+    }
+
+    private String departmentOf(Long userId) {
+        String department = userDepartments.get(userId);
+        if (department == null) {
+            department = departmentKey(userRepository.findDepartmentCodeById(userId).orElse(null));
+            userDepartments.put(userId, department);
+        }
+        return department;
+    }
+
+    private static String departmentKey(String departmentCode) {
+        return departmentCode != null ? departmentCode : "";
+    }
+
+    /**
+     * Entry and exit counters of one day, per department
+     */
+    private static final class DayCounts {
+
+        private final LocalDate date;
+        private final Map<String, AtomicLong[]> departments = new ConcurrentHashMap<>();
+
+        DayCounts(LocalDate date) {
+            this.date = date;
+        }
+
+        void add(String department, EntryExitType type, long count) {
+            AtomicLong[] counters = departments.computeIfAbsent(department,
+                    key -> new AtomicLong[] {new AtomicLong(), new AtomicLong()});
+            counters[type == EntryExitType.ENTRY ? 0 : 1].addAndGet(count);
+        }
+
+        Set<String> departments() {
+            return departments.keySet();
+        }
+    }
+}
@@ -0,0 +1,329 @@
+package com.bidb.personetakip.service;
+
+import com.bidb.personetakip.model.EntryExitRecord;
+import com.bidb.personetakip.model.EntryExitType;
+import com.bidb.personetakip.model.User;
+import com.bidb.personetakip.repository.DailyAttendanceRepository;
+import com.bidb.personetakip.repository.EntryExitRecordRepository;
+import com.bidb.personetakip.repository.UserRepository;
+import com.bidb.personetakip.model.IpComplianceStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Service maintaining the per-user, per-day attendance rollup (daily_attendance).
+ * Each committed scan recomputes its user's row for the scan's day from that day's records;
+ * a nightly job rebuilds closed days from all of their records and marks them finalized.
+ * Attendance and IP compliance reports then read one row per person and day.
+ *
+ * Late and early counts use the attendance.late-entry-time and attendance.early-exit-time
+ * in effect when a row was computed; call {@link #rebuild()} after changing them.
+ * Requirements: 4.3 - Attendance and IP compliance statistics in reports
+ */
+@Service
+public class DailyAttendanceRollupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DailyAttendanceRollupService.class);
+
+    private final DailyAttendanceRepository dailyAttendanceRepository;
+    private final EntryExitRecordRepository entryExitRecordRepository;
+    private final UserRepository userRepository;
+    private final UserBatchLoader userBatchLoader;
+    private final IpComplianceStatusService ipComplianceStatusService;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate newTransactionTemplate;
+
+    @Value("${attendance.late-entry-time:09:00}")
+    private String lateEntryTime;
+
+    @Value("${attendance.early-exit-time:17:00}")
+    private String earlyExitTime;
+
+    private volatile boolean ready = false;
+
+    public DailyAttendanceRollupService(DailyAttendanceRepository dailyAttendanceRepository,
+                                        EntryExitRecordRepository entryExitRecordRepository,
+                                        UserRepository userRepository,
+                                        UserBatchLoader userBatchLoader,
+                                        IpComplianceStatusService ipComplianceStatusService,
+                                        PlatformTransactionManager transactionManager) {
+        this.dailyAttendanceRepository = dailyAttendanceRepository;
+        this.entryExitRecordRepository = entryExitRecordRepository;
+        this.userRepository = userRepository;
+        this.userBatchLoader = userBatchLoader;
+        this.ipComplianceStatusService = ipComplianceStatusService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.newTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.newTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Load the rollup on startup in the background; reports read entry/exit records until it is ready.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        Thread loader = new Thread(this::load, "daily-attendance-rollup");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    /**
+     * Build the rollup if it has never been built, otherwise finalize the days that closed
+     * while the application was down.
+     */
+    public void load() {
+        try {
+            if (dailyAttendanceRepository.count() == 0 && entryExitRecordRepository.count() > 0) {
+                logger.info("Daily attendance rollup is empty, rebuilding from entry/exit records");
+                rebuild();
+            } else {
+                finalizeClosedDays();
+            }
+            ready = true;
+        } catch (Exception e) {
+            logger.error("Failed to build daily attendance rollup, reports fall back to entry/exit records", e);
+        }
+    }
+
+    /**
+     * @return true once the rollup covers all records; until then callers must read entry/exit records
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Last day that reports read from the rollup. Later days (today, or future days of a period)
+     * are still open and read from the entry/exit records.
+     *
+     * @return Yesterday, or null until the rollup is ready
+     */
+    public LocalDate getLastClosedDay() {
+        return ready ? LocalDate.now().minusDays(1) : null;
+    }
+
+    /**
+     * Recompute the row of a newly committed record's user and day.
+     * Runs in its own transaction after the scan has committed; a failure here never affects the scan
+     * and is corrected by the nightly rebuild.
+     *
+     * @param event Recorded event
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onEntryExitRecorded(EntryExitRecordedEvent event) {
+        EntryExitRecord record = event.record();
+        try {
+            refreshDay(record.getUserId(), record.getTimestamp().toLocalDate());
+        } catch (Exception e) {
+            logger.warn("Failed to update daily attendance of user {}: {}", record.getUserId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Nightly job rebuilding every closed day that still has rows which were not finalized.
+     *
+     * @return Number of days finalized
+     */
+    @Scheduled(cron = "${attendance.rollup.finalize-cron:0 15 0 * * ?}")
+    public int finalizeClosedDays() {
+        List<LocalDate> dates = dailyAttendanceRepository.findUnfinalizedDatesBefore(LocalDate.now());
+        for (LocalDate date : dates) {
+            transactionTemplate.execute(status -> rebuildDay(date));
+        }
+        if (!dates.isEmpty()) {
+            logger.info("Daily attendance finalized for {} days", dates.size());
+        }
+        return dates.size();
+    }
+
+    /**
+     * Rebuild the rollup of every day from the earliest record until today.
+     * Reads the records one day at a time; each day is rebuilt in its own transaction.
+     *
+     * @return Number of user/day rows written
+     */
+    public int rebuild() {
+        LocalDateTime earliest = entryExitRecordRepository.findEarliestTimestamp();
+        if (earliest == null) {
+            return 0;
+        }
+        int rows = 0;
+        for (LocalDate date = earliest.toLocalDate(); !date.isAfter(LocalDate.now()); date = date.plusDays(1)) {
+            LocalDate day = date;
+            rows += transactionTemplate.execute(status -> rebuildDay(day));
+        }
+        logger.info("Daily attendance rollup rebuilt: {} user/day rows since {}", rows, earliest.toLocalDate());
+        return rows;
+    }
+
+    /**
+     * Rebuild the rows of all users for one day from the day's records.
+     * The deletes and upserts of the day commit together.
+     *
+     * @param date Day
+     * @return Number of user rows written
+     */
+    @Transactional
+    public int rebuildDay(LocalDate date) {
+        List<EntryExitRecord> records = entryExitRecordRepository.findByTimestampBetween(
+                date.atStartOfDay(), date.atTime(LocalTime.MAX));
+        Map<Long, User> users = userBatchLoader.loadOwners(records);
+        Map<Long, List<EntryExitRecord>> recordsByUser = records.stream()
+                .filter(record -> users.containsKey(record.getUserId()))
+                .collect(Collectors.groupingBy(EntryExitRecord::getUserId));
+
+        if (recordsByUser.isEmpty()) {
+            dailyAttendanceRepository.deleteByAttendanceDate(date);
+            return 0;
+        }
+        dailyAttendanceRepository.deleteByAttendanceDateAndUserIdNotIn(date, recordsByUser.keySet());
+        for (Map.Entry<Long, List<EntryExitRecord>> userRecords : recordsByUser.entrySet()) {
+            write(users.get(userRecords.getKey()), date, userRecords.getValue());
+        }
+        return recordsByUser.size();
+    }
+
+    /**
+     * Rebuild all rows of one user, e.g. after the user's IP assignment changed.
+     *
+     * @param userId User ID
+     */
+    @Transactional
+    public void rebuildUser(Long userId) {
+        User user = userRepository.findById(userId).orElse(null);
+        dailyAttendanceRepository.deleteByUserId(userId);
+        if (user == null) {
+            return;
+        }
+        entryExitRecordRepository.findByUserId(userId).stream()
+                .collect(Collectors.groupingBy(record -> record.getTimestamp().toLocalDate()))
+                .forEach((date, records) -> write(user, date, records));
+    }
+
+    /**
+     * Delete all rows of a user whose records were deleted.
+     * When called inside a transaction the rows are deleted after it commits, in a transaction
+     * of their own, so a rolled back reset keeps them.
+     *
+     * @param userId User ID
+     */
+    public void removeUserAfterCommit(Long userId) {
+        Runnable delete = () -> {
+            try {
+                newTransactionTemplate.executeWithoutResult(status -> dailyAttendanceRepository.deleteByUserId(userId));
+            } catch (Exception e) {
+                logger.warn("Failed to delete daily attendance of user {}: {}", userId, e.getMessage());
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    delete.run();
+                }
+            });
+        } else {
+            delete.run();
+        }
+    }
+
+    /**
+     * Recompute the row of one user and day from that user's records of the day.
+     *
+     * @param userId User ID
+     * @param date Day
+     */
+    public void refreshDay(Long userId, LocalDate date) {
+        User user = userRepository.findById(userId).orElse(null);
+        List<EntryExitRecord> records = entryExitRecordRepository.findByUserIdAndTimestampBetween(
+                userId, date.atStartOfDay(), date.atTime(LocalTime.MAX));
+        if (user == null || records.isEmpty()) {
+            dailyAttendanceRepository.deleteByUserIdAndAttendanceDate(userId, date);
+            return;
+        }
+        write(user, date, records);
+    }
+
+    /**
+     * Compute and store the row of a user and day
+     */
+    private void write(User user, LocalDate date, List<EntryExitRecord> records) {
+        LocalTime lateThreshold = LocalTime.parse(lateEntryTime);
+        LocalTime earlyThreshold = LocalTime.parse(earlyExitTime);
+
+        List<EntryExitRecord> ordered = new ArrayList<>(records);
+        ordered.sort(Comparator.comparing(EntryExitRecord::getTimestamp)
+                .thenComparing(record -> record.getId() != null ? record.getId() : 0L));
+
+        LocalDateTime firstEntry = null;
+        LocalDateTime lastEntry = null;
+        LocalDateTime lastExit = null;
+        LocalDateTime openEntry = null;
+        int entryCount = 0;
+        int exitCount = 0;
+        int lateEntryCount = 0;
+        int earlyExitCount = 0;
+        long workedMinutes = 0;
+        int[] compliance = new int[IpComplianceStatus.values().length];
+
+        for (EntryExitRecord record : ordered) {
+            LocalDateTime timestamp = record.getTimestamp();
+            if (record.getType() == EntryExitType.ENTRY) {
+                entryCount++;
+                if (firstEntry == null) {
+                    firstEntry = timestamp;
+                }
+                lastEntry = timestamp;
+                if (openEntry == null) {
+                    openEntry = timestamp;
+                }
+                if (timestamp.toLocalTime().isAfter(lateThreshold)) {
+                    lateEntryCount++;
+                }
+            } else {
+                exitCount++;
+                lastExit = timestamp;
+                if (openEntry != null) {
+                    workedMinutes += Duration.between(openEntry, timestamp).toMinutes();
+                    openEntry = null;
+                }
+                if (timestamp.toLocalTime().isBefore(earlyThreshold)) {
+                    earlyExitCount++;
+                }
+            }
+            compliance[ipComplianceStatusService.resolve(record, user).ordinal()]++;
+        }
+
+        dailyAttendanceRepository.upsert(user.getId(), date, firstEntry, lastEntry, lastExit,
+                entryCount, exitCount, lateEntryCount, earlyExitCount, (int) workedMinutes,
+                compliance[IpComplianceStatus.MATCH.ordinal()],
+                compliance[IpComplianceStatus.MISMATCH.ordinal()],
+                compliance[IpComplianceStatus.NO_ASSIGNMENT.ordinal()],
+                compliance[IpComplianceStatus.UNKNOWN_IP.ordinal()],
+                date.isBefore(LocalDate.now()), LocalDateTime.now());
+    }
+}
@@ -0,0 +1,179 @@
+package com.bidb.personetakip.service;
+
+import com.bidb.personetakip.dto.DashboardCountersDto;
+import com.bidb.personetakip.dto.DashboardStatsDto;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pushes dashboard counter changes to admins over Server-Sent Events.
+ *
+ * Each subscriber receives the full statistics once, then a "counters" event whenever the
+ * counters of one of its departments changed. Changes are collected from
+ * {@link DailyActivityCounters} and pushed at most once per interval, so the cost of a scan
+ * does not depend on the number of viewers and viewers cause no database queries.
+ * Pushes and heartbeats run on a dedicated thread, so slow connections never hold up the
+ * application's scheduled jobs.
+ * Requirements: 1.2 - Dashboard statistics and summary data
+ */
+@Service
+public class DashboardStreamService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DashboardStreamService.class);
+
+    private final DailyActivityCounters dailyActivityCounters;
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    private final ScheduledExecutorService streamThread;
+
+    @Value("${dashboard.stream.timeout-ms:1800000}")
+    private long timeoutMs = 1_800_000;
+
+    @Value("${dashboard.stream.push-interval-ms:1000}")
+    private long pushIntervalMs = 1000;
+
+    @Value("${dashboard.stream.heartbeat-interval-ms:25000}")
+    private long heartbeatIntervalMs = 25_000;
+
+    public DashboardStreamService(DailyActivityCounters dailyActivityCounters) {
+        this.dailyActivityCounters = dailyActivityCounters;
+        this.streamThread = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "dashboard-stream");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    public void start() {
+        streamThread.scheduleWithFixedDelay(this::pushChangesSafely, pushIntervalMs, pushIntervalMs, TimeUnit.MILLISECONDS);
+        streamThread.scheduleWithFixedDelay(this::sendHeartbeatSafely, heartbeatIntervalMs, heartbeatIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        streamThread.shutdownNow();
+    }
+
+    /**
+     * A connected dashboard
+     *
+     * @param emitter Event stream of the connection
+     * @param departmentCodes Departments the admin may see (null for all departments)
+     */
+    private record Subscriber(SseEmitter emitter, Set<String> departmentCodes) {
+
+        boolean isInterestedIn(Set<String> changedDepartments) {
+            if (departmentCodes == null) {
+                return true;
+            }
+            for (String department : changedDepartments) {
+                if (departmentCodes.contains(department)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Open a dashboard event stream.
+     * The client reconnects by itself when the stream times out.
+     *
+     * @param departmentCodes Departments the admin may see (null for all departments)
+     * @param initialStats Full statistics sent as the first "stats" event
+     * @return Event stream
+     */
+    public SseEmitter subscribe(List<String> departmentCodes, DashboardStatsDto initialStats) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscriber subscriber = new Subscriber(emitter, departmentCodes != null ? Set.copyOf(departmentCodes) : null);
+        subscribers.add(subscriber);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+
+        send(subscriber, SseEmitter.event().name("stats").data(initialStats));
+        return emitter;
+    }
+
+    /**
+     * @return Number of connected dashboards
+     */
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * Push the counters of changed departments to the dashboards that show them.
+     */
+    public void pushChanges() {
+        Set<String> changedDepartments = dailyActivityCounters.drainChangedDepartments();
+        if (changedDepartments.isEmpty() || subscribers.isEmpty()) {
+            return;
+        }
+
+        for (Subscriber subscriber : subscribers) {
+            if (!subscriber.isInterestedIn(changedDepartments)) {
+                continue;
+            }
+            DailyActivityCounters.Counts counts = dailyActivityCounters.getCounts(subscriber.departmentCodes());
+            DashboardCountersDto counters = new DashboardCountersDto(
+                    counts.entryCount(),
+                    counts.exitCount(),
+                    counts.totalActivity(),
+                    counts.insideCount(),
+                    LocalDateTime.now());
+            send(subscriber, SseEmitter.event().name("counters").data(counters));
+        }
+    }
+
+    /**
+     * Keep idle connections open through proxies.
+     */
+    public void sendHeartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            send(subscriber, SseEmitter.event().comment("heartbeat"));
+        }
+    }
+
+    // A task of a scheduled executor that throws is never run again
+    private void pushChangesSafely() {
+        try {
+            pushChanges();
+        } catch (RuntimeException e) {
+            logger.warn("Could not push dashboard counters: {}", e.getMessage());
+        }
+    }
+
+    private void sendHeartbeatSafely() {
+        try {
+            sendHeartbeat();
+        } catch (RuntimeException e) {
+            logger.warn("Could not send dashboard heartbeat: {}", e.getMessage());
+        }
+    }
+
+    private void send(Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        try {
+            subscriber.emitter().send(event);
+        } catch (IOException | IllegalStateException e) {
+            // Client went away; the emitter callbacks may not fire for a broken connection
+            subscribers.remove(subscriber);
+            logger.debug("Dropped dashboard subscriber: {}", e.getMessage());
+        }
+    }
+}
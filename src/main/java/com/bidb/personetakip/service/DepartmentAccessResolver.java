@@ -0,0 +1,193 @@
+package com.bidb.personetakip.service;
+
+import com.bidb.personetakip.model.User;
+import com.bidb.personetakip.repository.DepartmentPermissionRepository;
+import com.bidb.personetakip.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Resolves the departments an admin user may access.
+ * SUPER_ADMIN and ADMIN can access all departments.
+ * DEPARTMENT_ADMIN can access the departments they have permissions for,
+ * falling back to their own department when no permissions are defined.
+ *
+ * Effective department sets of department admins are cached per user ID in the
+ * "departmentAccess" cache; callers that change permissions, roles or departments
+ * must call {@link #evict(Long)}.
+ *
+ * Requirements: 2.1, 3.1 - Department-based access control
+ */
+@Service
+public class DepartmentAccessResolver {
+
+    private static final Logger logger = LoggerFactory.getLogger(DepartmentAccessResolver.class);
+
+    /**
+     * Name of the cache holding effective department sets per user ID
+     */
+    public static final String CACHE_NAME = "departmentAccess";
+
+    private final UserRepository userRepository;
+    private final DepartmentPermissionRepository departmentPermissionRepository;
+    private final Cache cache;
+
+    public DepartmentAccessResolver(UserRepository userRepository,
+                                    DepartmentPermissionRepository departmentPermissionRepository,
+                                    CacheManager cacheManager) {
+        this.userRepository = userRepository;
+        this.departmentPermissionRepository = departmentPermissionRepository;
+        this.cache = cacheManager.getCache(CACHE_NAME);
+    }
+
+    /**
+     * Get accessible department codes for the authenticated user.
+     *
+     * @param authentication Authentication object (principal is the user ID)
+     * @return List of accessible department codes (null means all departments)
+     */
+    public List<String> getAccessibleDepartmentCodes(Authentication authentication) {
+        if (authentication == null) {
+            return null; // Allow all departments if no authentication
+        }
+
+        boolean isSuperAdminOrAdmin = hasAuthority(authentication, "ROLE_SUPER_ADMIN")
+                || hasAuthority(authentication, "ROLE_ADMIN");
+        if (isSuperAdminOrAdmin) {
+            return null; // Can access all departments
+        }
+
+        if (!hasAuthority(authentication, "ROLE_DEPARTMENT_ADMIN")) {
+            return List.of(); // No accessible departments
+        }
+
+        Long userId = extractUserId(authentication.getPrincipal());
+        if (userId == null) {
+            // Fallback: authentication name may be the TC number
+            Optional<User> userOpt = userRepository.findByTcNo(authentication.getName());
+            if (userOpt.isEmpty()) {
+                logger.warn("Department admin could not be resolved for principal: {}", authentication.getName());
+                return List.of();
+            }
+            userId = userOpt.get().getId();
+        }
+
+        return getDepartmentAdminDepartments(userId);
+    }
+
+    /**
+     * Get accessible department codes for an admin identified by user ID and role name.
+     *
+     * @param adminUserId Admin user ID
+     * @param adminRole Role name (SUPER_ADMIN, ADMIN, DEPARTMENT_ADMIN, ...)
+     * @return List of accessible department codes (null means all departments)
+     */
+    public List<String> getAccessibleDepartmentCodes(Long adminUserId, String adminRole) {
+        if ("SUPER_ADMIN".equals(adminRole) || "ADMIN".equals(adminRole)) {
+            return null; // Can access all departments
+        }
+
+        if ("DEPARTMENT_ADMIN".equals(adminRole) && adminUserId != null) {
+            return getDepartmentAdminDepartments(adminUserId);
+        }
+
+        return List.of(); // No accessible departments
+    }
+
+    /**
+     * Drop the cached department set of a user.
+     * When called inside a transaction the entry is dropped again after commit,
+     * so a concurrent request cannot re-cache the pre-commit state.
+     *
+     * @param userId User ID
+     */
+    public void evict(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        cache.evict(userId);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.evict(userId);
+                }
+            });
+        }
+    }
+
+    /**
+     * Get the cached department set of a department admin, loading it on a cache miss.
+     */
+    private List<String> getDepartmentAdminDepartments(Long userId) {
+        return cache.get(userId, () -> loadDepartmentAdminDepartments(userId));
+    }
+
+    /**
+     * Load the effective department set of a department admin.
+     * Uses explicit permissions, then the user's own department code, then the code used by
+     * other users of the same department name, then the department name itself.
+     */
+    private List<String> loadDepartmentAdminDepartments(Long userId) {
+        List<String> permittedDepartments = departmentPermissionRepository.findDepartmentCodesByUserId(userId);
+        if (!permittedDepartments.isEmpty()) {
+            return List.copyOf(permittedDepartments);
+        }
+
+        Optional<User> userOpt = userRepository.findById(userId);
+        if (userOpt.isEmpty()) {
+            logger.warn("User not found for ID: {}", userId);
+            return List.of();
+        }
+
+        User user = userOpt.get();
+        String departmentCode = user.getDepartmentCode();
+        if (departmentCode != null && !departmentCode.isEmpty()) {
+            return List.of(departmentCode);
+        }
+
+        String departmentName = user.getDepartmentName();
+        if (departmentName != null && !departmentName.isEmpty()) {
+            List<String> codesByName = userRepository.findDepartmentCodesByDepartmentName(departmentName);
+            if (!codesByName.isEmpty()) {
+                return List.of(codesByName.get(0));
+            }
+            // If no code found, use department name as code (for filtering)
+            return List.of(departmentName);
+        }
+
+        logger.warn("No department code or name found for user ID: {}", userId);
+        return List.of();
+    }
+
+    private static boolean hasAuthority(Authentication authentication, String authority) {
+        return authentication.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .anyMatch(authority::equals);
+    }
+
+    private static Long extractUserId(Object principal) {
+        if (principal instanceof Long) {
+            return (Long) principal;
+        }
+        if (principal == null) {
+            return null;
+        }
+        try {
+            return Long.parseLong(principal.toString());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
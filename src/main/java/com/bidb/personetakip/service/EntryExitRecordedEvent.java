@@ -0,0 +1,13 @@
+package com.bidb.personetakip.service;
+
+import com.bidb.personetakip.model.EntryExitRecord;
+
+/**
+ * Application event published when an entry/exit record has been written.
+ * Listeners that maintain derived state (statistics, caches) should use
+ * {@code @TransactionalEventListener} so they only see committed records.
+ *
+ * @param record The saved entry/exit record
+ */
+public record EntryExitRecordedEvent(EntryExitRecord record) {
+}
@@ -1,10 +1,13 @@
 package com.bidb.personetakip.service;
 
+import com.bidb.personetakip.dto.EntryExitBatchResultDto;
 import com.bidb.personetakip.dto.EntryExitRecordDto;
+import com.bidb.personetakip.dto.EntryExitRequestDto;
 import com.bidb.personetakip.dto.UserStatusDto;
 import com.bidb.personetakip.model.EntryExitType;
 import jakarta.servlet.http.HttpServletRequest;
 import java.time.LocalDateTime;
+import java.util.List;
 
 public interface EntryExitService {
     /**
@@ -31,6 +34,19 @@ public interface EntryExitService {
         HttpServletRequest request
     );
     
+    /**
+     * Records a user's scans uploaded in one batch (e.g. made while offline), in time order,
+     * in a single transaction. Each scan is validated like a single scan against the QR code
+     * of its own day; scans already recorded by an earlier upload are reported as duplicates,
+     * and future scans or scans older than the last recorded entry/exit are rejected
+     * @return One result per scan, in list order
+     */
+    List<EntryExitBatchResultDto> recordEntryExitBatch(
+        Long userId,
+        List<EntryExitRequestDto> scans,
+        HttpServletRequest request
+    );
+    
     /**
      * Records entry/exit with excuse (no QR code required)
      * GPS coordinates are optional
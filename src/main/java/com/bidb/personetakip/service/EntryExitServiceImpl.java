@@ -1,42 +1,116 @@
 package com.bidb.personetakip.service;
 
+import com.bidb.personetakip.dto.EntryExitBatchResultDto;
 import com.bidb.personetakip.dto.EntryExitRecordDto;
+import com.bidb.personetakip.dto.EntryExitRequestDto;
 import com.bidb.personetakip.dto.QrCodeValidationDto;
 import com.bidb.personetakip.dto.UserStatusDto;
 import com.bidb.personetakip.exception.ValidationException;
 import com.bidb.personetakip.model.EntryExitRecord;
 import com.bidb.personetakip.model.EntryExitType;
+import com.bidb.personetakip.model.IpComplianceStatus;
 import com.bidb.personetakip.model.QrCode;
 import com.bidb.personetakip.repository.EntryExitRecordRepository;
 import com.bidb.personetakip.repository.QrCodeRepository;
 import com.bidb.personetakip.config.IpTrackingConfig;
+import com.bidb.personetakip.util.IpAddressUtil;
 import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.stream.Collectors;
 
 @Service
 public class EntryExitServiceImpl implements EntryExitService {
     
+    /**
+     * Maximum number of scans accepted in one batch upload
+     */
+    public static final int MAX_BATCH_SIZE = 500;
+    
+    /**
+     * Tolerated clock difference between a device and the server before a scan counts as future
+     */
+    private static final long MAX_CLOCK_SKEW_SECONDS = 60;
+    
+    private static final Logger logger = LoggerFactory.getLogger(EntryExitServiceImpl.class);
+    
+    private static final String INSERT_RECORD_SQL =
+        "INSERT INTO entry_exit_records (user_id, type, timestamp, latitude, longitude, qr_code_value, " +
+        "ip_address, ip_address_key, ip_compliance_status, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    
     private final EntryExitRecordRepository entryExitRecordRepository;
     private final QrCodeRepository qrCodeRepository;
     private final QrCodeService qrCodeService;
     private final IpAddressService ipAddressService;
     private final IpTrackingConfig ipTrackingConfig;
+    private final IpComplianceStatusService ipComplianceStatusService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PresenceRegistry presenceRegistry;
+    private final UserLastStatusService userLastStatusService;
+    private final JdbcTemplate jdbcTemplate;
+    private final RecentActivityBuffer recentActivityBuffer;
+    private final DailyAttendanceRollupService dailyAttendanceRollupService;
+    private final IpUsageStatisticsService ipUsageStatisticsService;
+    
+    /**
+     * Time zone Hibernate stores timestamps in, applied to the JDBC batch insert as well
+     */
+    @Value("${spring.jpa.properties.hibernate.jdbc.time_zone:}")
+    private String jdbcTimeZone;
     
     public EntryExitServiceImpl(
             EntryExitRecordRepository entryExitRecordRepository,
             QrCodeRepository qrCodeRepository,
             QrCodeService qrCodeService,
             IpAddressService ipAddressService,
-            IpTrackingConfig ipTrackingConfig) {
+            IpTrackingConfig ipTrackingConfig,
+            IpComplianceStatusService ipComplianceStatusService,
+            ApplicationEventPublisher eventPublisher,
+            PresenceRegistry presenceRegistry,
+            UserLastStatusService userLastStatusService,
+            JdbcTemplate jdbcTemplate,
+            RecentActivityBuffer recentActivityBuffer,
+            DailyAttendanceRollupService dailyAttendanceRollupService,
+            IpUsageStatisticsService ipUsageStatisticsService) {
         this.entryExitRecordRepository = entryExitRecordRepository;
         this.qrCodeRepository = qrCodeRepository;
         this.qrCodeService = qrCodeService;
         this.ipAddressService = ipAddressService;
         this.ipTrackingConfig = ipTrackingConfig;
+        this.ipComplianceStatusService = ipComplianceStatusService;
+        this.eventPublisher = eventPublisher;
+        this.presenceRegistry = presenceRegistry;
+        this.userLastStatusService = userLastStatusService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.recentActivityBuffer = recentActivityBuffer;
+        this.dailyAttendanceRollupService = dailyAttendanceRollupService;
+        this.ipUsageStatisticsService = ipUsageStatisticsService;
     }
     
     @Override
@@ -65,14 +139,23 @@ public class EntryExitServiceImpl implements EntryExitService {
         // Validate GPS coordinates
         validateGpsCoordinates(latitude, longitude);
         
+        // Reject forged, stale or foreign signed QR codes before touching the database
+        Optional<QrCodeValidationDto> rejection = qrCodeService.precheckQrCode(qrCodeValue, userId);
+        if (rejection.isPresent()) {
+            throw new ValidationException(rejection.get().message());
+        }
+        
+        // Load the QR code once; validation, type determination and the usage increment share it
+        QrCode qrCode = qrCodeRepository.findByQrCodeValue(qrCodeValue).orElse(null);
+        
         // Validate QR code ownership and validity
-        QrCodeValidationDto validation = qrCodeService.validateQrCode(qrCodeValue, userId);
+        QrCodeValidationDto validation = qrCodeService.validateQrCode(qrCode, userId);
         if (!validation.valid()) {
             throw new ValidationException(validation.message());
         }
         
         // Determine entry/exit type
-        EntryExitType type = determineEntryExitType(qrCodeValue);
+        EntryExitType type = determineEntryExitType(qrCode);
         
         // Capture IP address gracefully - Requirements: 1.1, 6.2, 6.5
         String ipAddress = null;
@@ -96,11 +179,13 @@ public class EntryExitServiceImpl implements EntryExitService {
         record.setLongitude(longitude);
         record.setQrCodeValue(qrCodeValue);
         record.setIpAddress(ipAddress); // IP tracking integration - Requirements: 1.1
+        record.setIpComplianceStatus(evaluateIpComplianceStatus(record));
         
         EntryExitRecord savedRecord = entryExitRecordRepository.save(record);
+        publishRecorded(savedRecord);
         
         // Increment QR code usage count after successful recording - Requirements: 6.3
-        qrCodeService.incrementUsageCount(qrCodeValue);
+        qrCodeService.incrementUsageCount(qrCode);
         
         return new EntryExitRecordDto(
             savedRecord.getId(),
@@ -112,11 +197,188 @@ public class EntryExitServiceImpl implements EntryExitService {
         );
     }
     
+    @Override
+    @Transactional
+    public List<EntryExitBatchResultDto> recordEntryExitBatch(
+            Long userId,
+            List<EntryExitRequestDto> scans,
+            HttpServletRequest request) {
+        
+        if (scans == null || scans.isEmpty()) {
+            return List.of();
+        }
+        if (scans.size() > MAX_BATCH_SIZE) {
+            throw new ValidationException(
+                String.format("A batch may contain at most %d scans, got: %d", MAX_BATCH_SIZE, scans.size())
+            );
+        }
+        
+        // Load every QR code of the batch in one query; validation works on copies so that
+        // the usage counted so far is not written back by dirty checking
+        Set<String> qrCodeValues = scans.stream()
+            .filter(Objects::nonNull)
+            .map(EntryExitRequestDto::qrCodeValue)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toSet());
+        Map<String, QrCode> qrCodes = new HashMap<>();
+        Map<String, QrCode> workingCopies = new HashMap<>();
+        for (QrCode qrCode : qrCodeRepository.findByQrCodeValueIn(qrCodeValues)) {
+            qrCodes.put(qrCode.getQrCodeValue(), qrCode);
+            workingCopies.put(qrCode.getQrCodeValue(), copyOf(qrCode));
+        }
+        
+        // Scans of an earlier upload of the same backlog are already stored. The timestamp column
+        // keeps whole seconds, so scan times are truncated to seconds before matching and storing
+        Set<LocalDateTime> timestamps = scans.stream()
+            .filter(scan -> scan != null && scan.timestamp() != null)
+            .map(scan -> scan.timestamp().truncatedTo(ChronoUnit.SECONDS))
+            .collect(Collectors.toSet());
+        Map<String, EntryExitRecord> recorded = new HashMap<>();
+        for (EntryExitRecord existing : entryExitRecordRepository.findByUserIdAndTimestampIn(userId, timestamps)) {
+            recorded.putIfAbsent(scanKey(existing.getQrCodeValue(), existing.getTimestamp()), existing);
+        }
+        
+        // Capture IP address gracefully - Requirements: 1.1, 6.2, 6.5
+        String ipAddress = null;
+        try {
+            if (ipTrackingConfig.isEnabled() && request != null) {
+                ipAddress = ipAddressService.extractClientIpAddress(request);
+            }
+        } catch (Exception e) {
+            // IP address will remain null, which is acceptable
+        }
+        
+        // Replay the scans in time order from the stored last event, whatever the upload order
+        UserStatusDto status = getCurrentUserStatus(userId);
+        boolean inside = status.isInside();
+        LocalDateTime lastEventTime = status.lastActionTime();
+        LocalDateTime latestAccepted = LocalDateTime.now().plusSeconds(MAX_CLOCK_SKEW_SECONDS);
+        boolean complianceEvaluated = false;
+        IpComplianceStatus complianceStatus = null;
+        
+        List<EntryExitRecord> newRecords = new ArrayList<>();
+        EntryExitRecord[] recordByIndex = new EntryExitRecord[scans.size()];
+        boolean[] duplicate = new boolean[scans.size()];
+        Map<String, Integer> usageByQrCode = new LinkedHashMap<>();
+        EntryExitBatchResultDto[] results = new EntryExitBatchResultDto[scans.size()];
+        
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < scans.size(); i++) {
+            EntryExitRequestDto scan = scans.get(i);
+            if (scan == null || scan.timestamp() == null) {
+                results[i] = EntryExitBatchResultDto.rejected(i, "Timestamp is required");
+            } else {
+                order.add(i);
+            }
+        }
+        order.sort(Comparator.comparing(i -> scans.get(i).timestamp()));
+        
+        for (int i : order) {
+            EntryExitRequestDto scan = scans.get(i);
+            LocalDateTime timestamp = scan.timestamp().truncatedTo(ChronoUnit.SECONDS);
+            
+            EntryExitRecord earlier = recorded.get(scanKey(scan.qrCodeValue(), timestamp));
+            if (earlier != null) {
+                recordByIndex[i] = earlier;
+                duplicate[i] = true;
+                continue;
+            }
+            
+            if (timestamp.isAfter(latestAccepted)) {
+                results[i] = EntryExitBatchResultDto.rejected(i, "Scan time is in the future");
+                continue;
+            }
+            // A scan before the last recorded event would flip the status out of order
+            if (lastEventTime != null && !timestamp.isAfter(lastEventTime)) {
+                results[i] = EntryExitBatchResultDto.rejected(i, "Scan is older than the last recorded entry/exit");
+                continue;
+            }
+            
+            try {
+                validateGpsCoordinates(scan.latitude(), scan.longitude());
+            } catch (ValidationException e) {
+                results[i] = EntryExitBatchResultDto.rejected(i, e.getMessage());
+                continue;
+            }
+            
+            Optional<QrCodeValidationDto> rejection = qrCodeService.precheckQrCode(scan.qrCodeValue(), userId, timestamp);
+            if (rejection.isPresent()) {
+                results[i] = EntryExitBatchResultDto.rejected(i, rejection.get().message());
+                continue;
+            }
+            
+            QrCode qrCode = workingCopies.get(scan.qrCodeValue());
+            QrCodeValidationDto validation = qrCodeService.validateQrCode(qrCode, userId, timestamp);
+            if (!validation.valid()) {
+                results[i] = EntryExitBatchResultDto.rejected(i, validation.message());
+                continue;
+            }
+            qrCode.setUsageCount(qrCode.getUsageCount() + 1);
+            usageByQrCode.merge(qrCode.getQrCodeValue(), 1, Integer::sum);
+            
+            EntryExitRecord record = new EntryExitRecord();
+            record.setUserId(userId);
+            record.setType(inside ? EntryExitType.EXIT : EntryExitType.ENTRY);
+            record.setTimestamp(timestamp);
+            record.setLatitude(scan.latitude());
+            record.setLongitude(scan.longitude());
+            record.setQrCodeValue(scan.qrCodeValue());
+            record.setIpAddress(ipAddress);
+            // Every scan of the batch has the same user and IP address, so one evaluation serves all
+            if (!complianceEvaluated) {
+                complianceStatus = evaluateIpComplianceStatus(record);
+                complianceEvaluated = true;
+            }
+            record.setIpComplianceStatus(complianceStatus);
+            inside = !inside;
+            lastEventTime = timestamp;
+            
+            newRecords.add(record);
+            recordByIndex[i] = record;
+            recorded.put(scanKey(scan.qrCodeValue(), timestamp), record);
+        }
+        
+        if (!newRecords.isEmpty()) {
+            insertRecords(newRecords);
+            
+            // One conditional update per QR code; exceeding the limit rolls back the whole batch
+            for (Map.Entry<String, Integer> usage : usageByQrCode.entrySet()) {
+                qrCodeService.incrementUsageCount(qrCodes.get(usage.getKey()), usage.getValue());
+            }
+            publishRecorded(newRecords);
+        }
+        
+        for (int i = 0; i < scans.size(); i++) {
+            EntryExitRecord record = recordByIndex[i];
+            if (record == null) {
+                continue;
+            }
+            EntryExitRecordDto dto = new EntryExitRecordDto(
+                record.getId(),
+                record.getUserId(),
+                record.getType(),
+                record.getTimestamp(),
+                record.getLatitude(),
+                record.getLongitude()
+            );
+            results[i] = duplicate[i]
+                ? EntryExitBatchResultDto.duplicate(i, dto)
+                : EntryExitBatchResultDto.recorded(i, dto);
+        }
+        return List.of(results);
+    }
+    
     @Override
     public EntryExitType determineEntryExitType(String qrCodeValue) {
         QrCode qrCode = qrCodeRepository.findByQrCodeValue(qrCodeValue)
             .orElseThrow(() -> new ValidationException("QR code not found"));
-        
+        return determineEntryExitType(qrCode);
+    }
+    
+    /**
+     * Determine the next entry/exit type for the owner of an already loaded QR code
+     */
+    private EntryExitType determineEntryExitType(QrCode qrCode) {
         // Get user's current status to determine next action
         UserStatusDto currentStatus = getCurrentUserStatus(qrCode.getUserId());
         
@@ -127,22 +389,32 @@ public class EntryExitServiceImpl implements EntryExitService {
     
     @Override
     public UserStatusDto getCurrentUserStatus(Long userId) {
-        // Get the most recent entry/exit record for the user
-        List<EntryExitRecord> latestRecords = entryExitRecordRepository.findLatestByUserId(userId);
+        // Answer from the in-memory registry once it has been loaded
+        if (presenceRegistry.isLoaded()) {
+            return presenceRegistry.getStatus(userId);
+        }
         
-        if (latestRecords.isEmpty()) {
+        // Then from the stored last status
+        Optional<UserStatusDto> storedStatus = userLastStatusService.getStatus(userId);
+        if (storedStatus.isPresent()) {
+            return storedStatus.get();
+        }
+        
+        // Get the most recent entry/exit record for the user (a single row)
+        Optional<EntryExitRecord> latestRecord = entryExitRecordRepository
+            .findFirstByUserIdOrderByTimestampDescIdDesc(userId);
+        
+        if (latestRecord.isEmpty()) {
             // No records found - user is assumed to be outside
             return UserStatusDto.noRecords();
         }
         
-        EntryExitRecord latestRecord = latestRecords.get(0);
-        
-        if (latestRecord.getType() == EntryExitType.ENTRY) {
+        if (latestRecord.get().getType() == EntryExitType.ENTRY) {
             // Last action was entry - user is inside
-            return UserStatusDto.inside(latestRecord.getTimestamp());
+            return UserStatusDto.inside(latestRecord.get().getTimestamp());
         } else {
             // Last action was exit - user is outside
-            return UserStatusDto.outside(latestRecord.getTimestamp());
+            return UserStatusDto.outside(latestRecord.get().getTimestamp());
         }
     }
     
@@ -150,7 +422,12 @@ public class EntryExitServiceImpl implements EntryExitService {
     @Transactional
     public void resetUserRecords(Long userId) {
         // Delete all entry/exit records for the user
+        ipUsageStatisticsService.removeUserRecords(userId);
         entryExitRecordRepository.deleteByUserId(userId);
+        userLastStatusService.remove(userId);
+        presenceRegistry.removeAfterCommit(userId);
+        recentActivityBuffer.removeUserAfterCommit(userId);
+        dailyAttendanceRollupService.removeUserAfterCommit(userId);
     }
     
     @Override
@@ -189,8 +466,10 @@ public class EntryExitServiceImpl implements EntryExitService {
         record.setQrCodeValue("EXCUSE-" + System.currentTimeMillis()); // Placeholder QR value
         record.setIpAddress(ipAddress);
         record.setExcuse(excuse);
+        record.setIpComplianceStatus(evaluateIpComplianceStatus(record));
         
         EntryExitRecord savedRecord = entryExitRecordRepository.save(record);
+        publishRecorded(savedRecord);
         
         return new EntryExitRecordDto(
             savedRecord.getId(),
@@ -203,6 +482,115 @@ public class EntryExitServiceImpl implements EntryExitService {
         );
     }
     
+    /**
+     * Store the user's last status with the record, then update the presence registry and
+     * the recent-activity feed and notify listeners that a record was written; these take
+     * effect after the transaction commits.
+     */
+    private void publishRecorded(EntryExitRecord record) {
+        userLastStatusService.record(record);
+        presenceRegistry.recordAfterCommit(record);
+        recentActivityBuffer.recordAfterCommit(record);
+        eventPublisher.publishEvent(new EntryExitRecordedEvent(record));
+    }
+    
+    /**
+     * Publish the records of a batch. Only the latest record can change the stored last status,
+     * so it is the only one written there.
+     */
+    private void publishRecorded(List<EntryExitRecord> records) {
+        records.stream()
+            .max(Comparator.comparing(EntryExitRecord::getTimestamp))
+            .ifPresent(userLastStatusService::record);
+        for (EntryExitRecord record : records) {
+            presenceRegistry.recordAfterCommit(record);
+            recentActivityBuffer.recordAfterCommit(record);
+            eventPublisher.publishEvent(new EntryExitRecordedEvent(record));
+        }
+    }
+    
+    /**
+     * Insert new records with one JDBC batch (rewritten into multi-row inserts on MySQL)
+     * and set their generated IDs.
+     */
+    private void insertRecords(List<EntryExitRecord> records) {
+        LocalDateTime createdAt = LocalDateTime.now();
+        Calendar calendar = jdbcTimeZone == null || jdbcTimeZone.isBlank()
+            ? null
+            : Calendar.getInstance(TimeZone.getTimeZone(jdbcTimeZone));
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+            connection -> connection.prepareStatement(INSERT_RECORD_SQL, new String[] {"id"}),
+            new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    EntryExitRecord record = records.get(i);
+                    ps.setLong(1, record.getUserId());
+                    ps.setString(2, record.getType().name());
+                    setTimestamp(ps, 3, record.getTimestamp(), calendar);
+                    ps.setObject(4, record.getLatitude(), Types.DOUBLE);
+                    ps.setObject(5, record.getLongitude(), Types.DOUBLE);
+                    ps.setString(6, record.getQrCodeValue());
+                    ps.setString(7, record.getIpAddress());
+                    ps.setString(8, IpAddressUtil.toKey(record.getIpAddress()));
+                    ps.setString(9, record.getIpComplianceStatus() != null ? record.getIpComplianceStatus().name() : null);
+                    setTimestamp(ps, 10, createdAt, calendar);
+                }
+                
+                @Override
+                public int getBatchSize() {
+                    return records.size();
+                }
+            },
+            keyHolder);
+        
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < records.size(); i++) {
+            EntryExitRecord record = records.get(i);
+            record.setId(((Number) keys.get(i).values().iterator().next()).longValue());
+            record.setIpAddressKey(IpAddressUtil.toKey(record.getIpAddress()));
+            record.setCreatedAt(createdAt);
+        }
+    }
+    
+    private static void setTimestamp(PreparedStatement ps, int index, LocalDateTime value, Calendar calendar)
+            throws SQLException {
+        if (calendar != null) {
+            ps.setTimestamp(index, Timestamp.valueOf(value), calendar);
+        } else {
+            ps.setTimestamp(index, Timestamp.valueOf(value));
+        }
+    }
+    
+    private static String scanKey(String qrCodeValue, LocalDateTime timestamp) {
+        return qrCodeValue + "|" + timestamp;
+    }
+    
+    private static QrCode copyOf(QrCode qrCode) {
+        return QrCode.builder()
+            .id(qrCode.getId())
+            .userId(qrCode.getUserId())
+            .qrCodeValue(qrCode.getQrCodeValue())
+            .validDate(qrCode.getValidDate())
+            .usageCount(qrCode.getUsageCount())
+            .version(qrCode.getVersion())
+            .build();
+    }
+    
+    /**
+     * Evaluate the IP compliance status stored with a new record.
+     * Left null if evaluation fails; the background backfill fills it in later.
+     */
+    private IpComplianceStatus evaluateIpComplianceStatus(EntryExitRecord record) {
+        try {
+            return ipComplianceStatusService.evaluate(record);
+        } catch (Exception e) {
+            logger.warn("Could not evaluate IP compliance for a record of user {}, leaving it to the backfill: {}",
+                record.getUserId(), e.getMessage());
+            return null;
+        }
+    }
+    
     private void validateGpsCoordinates(Double latitude, Double longitude) {
         if (latitude == null || longitude == null) {
             throw new ValidationException("GPS coordinates are required");
@@ -0,0 +1,79 @@
+package com.bidb.personetakip.service;
+
+import com.bidb.personetakip.repository.EntryExitRecordRepository;
+import com.bidb.personetakip.util.IpAddressUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Service filling in the IP address key of entry/exit records written before the key existed.
+ * New records get their key on write; this runs once on startup and updates old records in bulk,
+ * one statement per distinct IP address.
+ * Requirements: 2.4
+ */
+@Service
+public class IpAddressKeyBackfillService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IpAddressKeyBackfillService.class);
+
+    /**
+     * Number of distinct IP addresses loaded per batch
+     */
+    private static final int IP_ADDRESSES_PER_BATCH = 500;
+
+    private final EntryExitRecordRepository entryExitRecordRepository;
+
+    public IpAddressKeyBackfillService(EntryExitRecordRepository entryExitRecordRepository) {
+        this.entryExitRecordRepository = entryExitRecordRepository;
+    }
+
+    /**
+     * Compute missing IP address keys on startup.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        try {
+            backfillMissingKeys();
+        } catch (Exception e) {
+            logger.error("Failed to backfill IP address keys", e);
+        }
+    }
+
+    /**
+     * Compute the IP address key of all records that do not have one.
+     * Values that are not valid IP addresses keep a null key.
+     *
+     * @return Number of updated records
+     */
+    public int backfillMissingKeys() {
+        int updated = 0;
+        String lastIpAddress = "";
+
+        while (true) {
+            List<String> ipAddresses = entryExitRecordRepository.findIpAddressesWithoutKey(
+                    lastIpAddress, PageRequest.of(0, IP_ADDRESSES_PER_BATCH));
+            if (ipAddresses.isEmpty()) {
+                break;
+            }
+
+            for (String ipAddress : ipAddresses) {
+                String key = IpAddressUtil.toKey(ipAddress);
+                if (key != null) {
+                    updated += entryExitRecordRepository.updateIpAddressKey(ipAddress, key);
+                }
+            }
+            lastIpAddress = ipAddresses.get(ipAddresses.size() - 1);
+        }
+
+        if (updated > 0) {
+            logger.info("IP address key backfill updated {} records", updated);
+        }
+        return updated;
+    }
+}
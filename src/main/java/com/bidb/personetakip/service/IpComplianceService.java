@@ -2,6 +2,7 @@ package com.bidb.personetakip.service;
 
 import com.bidb.personetakip.exception.IpAssignmentException;
 import com.bidb.personetakip.model.EntryExitRecord;
+import com.bidb.personetakip.model.IpComplianceStatus;
 import com.bidb.personetakip.model.User;
 
 import java.util.List;
@@ -84,14 +85,4 @@ public interface IpComplianceService {
      * Requirements: 3.5 - IP assignment removal safety
      */
     void validateIpAssignmentRemoval(String currentAssignment, String ipToRemove, String userId) throws IpAssignmentException;
-    
-    /**
-     * Enum representing IP compliance status
-     */
-    enum IpComplianceStatus {
-        MATCH,          // IP matches assigned IP
-        MISMATCH,       // IP doesn't match assigned IP
-        NO_ASSIGNMENT,  // User has no assigned IP addresses
-        UNKNOWN_IP      // Entry/exit IP is unknown
-    }
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package com.bidb.personetakip.service;
 
 import com.bidb.personetakip.exception.IpAssignmentException;
 import com.bidb.personetakip.model.EntryExitRecord;
+import com.bidb.personetakip.model.IpComplianceStatus;
 import com.bidb.personetakip.model.User;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -0,0 +1,21 @@
+package com.bidb.personetakip.service;
+
+import com.bidb.personetakip.model.IpComplianceStatus;
+
+/**
+ * Application event published when stored IP compliance statuses of existing records are rewritten.
+ * Published inside the transaction that rewrites them, so listeners keeping derived counters
+ * can adjust them atomically with the change.
+ *
+ * @param departmentCode Department code of the records' owner (empty if none)
+ * @param ipAddress IP address of the records (null if none)
+ * @param previousStatus Status the records had (null if not yet evaluated)
+ * @param newStatus Status the records have now
+ * @param count Number of records that changed
+ */
+public record IpComplianceStatusChangedEvent(String departmentCode,
+                                             String ipAddress,
+                                             IpComplianceStatus previousStatus,
+                                             IpComplianceStatus newStatus,
+                                             long count) {
+}
@@ -0,0 +1,155 @@
+package com.bidb.personetakip.service;
+
+import com.bidb.personetakip.model.EntryExitRecord;
+import com.bidb.personetakip.model.User;
+import com.bidb.personetakip.repository.EntryExitRecordRepository;
+import com.bidb.personetakip.repository.UserRepository;
+import com.bidb.personetakip.model.IpComplianceStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Service maintaining the persisted IP compliance status of entry/exit records.
+ * The status is evaluated when a record is written, recomputed when a user's IP assignment
+ * changes, and filled in by a background job for records written before the column existed.
+ * Every rewrite of existing statuses publishes {@link IpComplianceStatusChangedEvent}s so the
+ * precomputed IP usage counters follow it.
+ * Requirements: 4.1, 4.3, 4.4
+ */
+@Service
+public class IpComplianceStatusService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IpComplianceStatusService.class);
+
+    /**
+     * Number of users whose records are backfilled per scheduled run
+     */
+    private static final int BACKFILL_USERS_PER_RUN = 200;
+
+    private final EntryExitRecordRepository entryExitRecordRepository;
+    private final UserRepository userRepository;
+    private final IpComplianceService ipComplianceService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public IpComplianceStatusService(EntryExitRecordRepository entryExitRecordRepository,
+                                     UserRepository userRepository,
+                                     IpComplianceService ipComplianceService,
+                                     ApplicationEventPublisher eventPublisher) {
+        this.entryExitRecordRepository = entryExitRecordRepository;
+        this.userRepository = userRepository;
+        this.ipComplianceService = ipComplianceService;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Evaluate the IP compliance status of a record that is about to be written.
+     *
+     * @param record Entry/exit record with user ID and IP address set
+     * @return IP compliance status
+     */
+    public IpComplianceStatus evaluate(EntryExitRecord record) {
+        User user = userRepository.findById(record.getUserId()).orElse(null);
+        return ipComplianceService.getIpComplianceStatus(record, user);
+    }
+
+    /**
+     * Get the IP compliance status of a record, preferring the persisted value.
+     * Falls back to evaluating the record if it has not been evaluated yet.
+     *
+     * @param record Entry/exit record
+     * @param user User who performed the entry/exit (null if not found)
+     * @return IP compliance status
+     */
+    public IpComplianceStatus resolve(EntryExitRecord record, User user) {
+        if (record != null && record.getIpComplianceStatus() != null) {
+            return record.getIpComplianceStatus();
+        }
+        return ipComplianceService.getIpComplianceStatus(record, user);
+    }
+
+    /**
+     * Recompute the IP compliance status of all records of a user.
+     * Records are updated in bulk, one statement per distinct IP address the user has used,
+     * so the cost does not depend on the number of records. Records whose status changes are
+     * reported per IP address and previous status.
+     *
+     * @param userId User ID
+     * @return Number of updated records
+     */
+    @Transactional
+    public int recomputeForUser(Long userId) {
+        User user = userRepository.findById(userId).orElse(null);
+        String departmentCode = user != null && user.getDepartmentCode() != null ? user.getDepartmentCode() : "";
+
+        Map<String, Map<IpComplianceStatus, Long>> countsByIpAddress = new HashMap<>();
+        for (Object[] row : entryExitRecordRepository.countByIpAddressAndComplianceStatusForUser(userId)) {
+            countsByIpAddress.computeIfAbsent((String) row[0], ip -> new HashMap<>())
+                    .put((IpComplianceStatus) row[1], ((Number) row[2]).longValue());
+        }
+
+        int updated = 0;
+        for (Map.Entry<String, Map<IpComplianceStatus, Long>> entry : countsByIpAddress.entrySet()) {
+            String ipAddress = entry.getKey();
+            EntryExitRecord probe = EntryExitRecord.builder()
+                    .userId(userId)
+                    .ipAddress(ipAddress)
+                    .build();
+            IpComplianceStatus status = ipComplianceService.getIpComplianceStatus(probe, user);
+
+            if (ipAddress == null) {
+                updated += entryExitRecordRepository.updateIpComplianceStatusWithoutIp(userId, status);
+            } else {
+                updated += entryExitRecordRepository.updateIpComplianceStatus(userId, ipAddress, status);
+            }
+
+            for (Map.Entry<IpComplianceStatus, Long> previous : entry.getValue().entrySet()) {
+                if (previous.getKey() != status) {
+                    eventPublisher.publishEvent(new IpComplianceStatusChangedEvent(
+                            departmentCode, ipAddress, previous.getKey(), status, previous.getValue()));
+                }
+            }
+        }
+
+        logger.debug("Recomputed IP compliance status of {} records for user {}", updated, userId);
+        return updated;
+    }
+
+    /**
+     * Scheduled task that evaluates records without an IP compliance status.
+     * Processes a bounded number of users per run until no unevaluated records remain.
+     *
+     * @return Number of users whose records were evaluated
+     */
+    @Scheduled(initialDelayString = "${ip.compliance.backfill-initial-delay-ms:60000}",
+               fixedDelayString = "${ip.compliance.backfill-interval-ms:300000}")
+    @Transactional
+    public int backfillMissingStatuses() {
+        try {
+            List<Long> userIds = entryExitRecordRepository.findUserIdsWithoutIpComplianceStatus(
+                    PageRequest.of(0, BACKFILL_USERS_PER_RUN));
+            if (userIds.isEmpty()) {
+                return 0;
+            }
+
+            int updated = 0;
+            for (Long userId : userIds) {
+                updated += recomputeForUser(userId);
+            }
+
+            logger.info("IP compliance backfill evaluated {} records of {} users", updated, userIds.size());
+            return userIds.size();
+        } catch (Exception e) {
+            logger.error("Failed to backfill IP compliance status", e);
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package com.bidb.personetakip.service;
+
+import com.bidb.personetakip.model.EntryExitRecord;
+import com.bidb.personetakip.repository.EntryExitRecordRepository;
+import com.bidb.personetakip.repository.IpUsageStatRepository;
+import com.bidb.personetakip.repository.UserRepository;
+import com.bidb.personetakip.model.IpComplianceStatus;
+import com.bidb.personetakip.util.IpAddressUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Service maintaining precomputed IP usage statistics.
+ * Counters per department and IP address are incremented as each entry/exit record is committed,
+ * so the IP statistics screen reads a handful of aggregate rows instead of every record.
+ * Requirements: 2.4, 4.3
+ */
+@Service
+public class IpUsageStatisticsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IpUsageStatisticsService.class);
+
+    /**
+     * Number of most used IP addresses returned with the statistics
+     */
+    private static final int COMMON_IP_LIMIT = 10;
+
+    /**
+     * Upper bound on compliance backfill runs before a rebuild; records still unevaluated
+     * afterwards are counted as "other"
+     */
+    private static final int MAX_BACKFILL_RUNS_PER_REBUILD = 1000;
+
+    private final IpUsageStatRepository ipUsageStatRepository;
+    private final EntryExitRecordRepository entryExitRecordRepository;
+    private final UserRepository userRepository;
+    private final IpComplianceStatusService ipComplianceStatusService;
+    private final TransactionTemplate transactionTemplate;
+
+    public IpUsageStatisticsService(IpUsageStatRepository ipUsageStatRepository,
+                                    EntryExitRecordRepository entryExitRecordRepository,
+                                    UserRepository userRepository,
+                                    IpComplianceStatusService ipComplianceStatusService,
+                                    PlatformTransactionManager transactionManager) {
+        this.ipUsageStatRepository = ipUsageStatRepository;
+        this.entryExitRecordRepository = entryExitRecordRepository;
+        this.userRepository = userRepository;
+        this.ipComplianceStatusService = ipComplianceStatusService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Count a newly committed entry/exit record under the compliance status stored with it.
+     * A record stored without a status is counted as "other" until the backfill evaluates it
+     * and moves it. Runs in its own transaction after the scan has committed; a failure here
+     * never affects the scan.
+     *
+     * @param event Recorded event
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onEntryExitRecorded(EntryExitRecordedEvent event) {
+        try {
+            EntryExitRecord record = event.record();
+            String departmentCode = userRepository.findDepartmentCodeById(record.getUserId()).orElse(null);
+            addRecords(departmentCode != null ? departmentCode : "", record.getIpAddress(),
+                    record.getIpComplianceStatus(), 1);
+        } catch (Exception e) {
+            logger.warn("Failed to update IP usage statistics for record {}: {}", event.record().getId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Move rewritten records between the compliance counters of their department/IP pair.
+     * Runs in the transaction that rewrites the statuses, so counters and records change together.
+     *
+     * @param event Status change event
+     */
+    @EventListener
+    public void onIpComplianceStatusChanged(IpComplianceStatusChangedEvent event) {
+        long matchDelta = bucketCount(event.newStatus(), IpComplianceStatus.MATCH, event.count())
+                - bucketCount(event.previousStatus(), IpComplianceStatus.MATCH, event.count());
+        long mismatchDelta = bucketCount(event.newStatus(), IpComplianceStatus.MISMATCH, event.count())
+                - bucketCount(event.previousStatus(), IpComplianceStatus.MISMATCH, event.count());
+        ipUsageStatRepository.moveComplianceCounts(event.departmentCode(), ipKey(event.ipAddress()),
+                matchDelta, mismatchDelta, -matchDelta - mismatchDelta, LocalDateTime.now());
+    }
+
+    /**
+     * Take a user's records out of the counters of their department.
+     * Call in the transaction that deletes the records, before they are deleted, so counters and
+     * records change together.
+     *
+     * @param userId User whose records are about to be deleted
+     */
+    @Transactional
+    public void removeUserRecords(Long userId) {
+        String departmentCode = userRepository.findDepartmentCodeById(userId).orElse("");
+        for (Object[] group : entryExitRecordRepository.countByIpAndComplianceStatusForUser(userId)) {
+            addRecords(departmentCode, (String) group[0], (IpComplianceStatus) group[1],
+                    -((Number) group[2]).longValue());
+        }
+    }
+
+    /**
+     * Move a user's records to the counters of their new department.
+     * Call in the transaction that changes the department.
+     *
+     * @param userId User changing department
+     * @param previousDepartmentCode Department the records are counted under (null if none)
+     * @param newDepartmentCode Department the records move to (null if none)
+     */
+    @Transactional
+    public void moveUserRecords(Long userId, String previousDepartmentCode, String newDepartmentCode) {
+        String from = previousDepartmentCode != null ? previousDepartmentCode : "";
+        String to = newDepartmentCode != null ? newDepartmentCode : "";
+        if (from.equals(to)) {
+            return;
+        }
+        for (Object[] group : entryExitRecordRepository.countByIpAndComplianceStatusForUser(userId)) {
+            String ipAddress = (String) group[0];
+            IpComplianceStatus status = (IpComplianceStatus) group[1];
+            long count = ((Number) group[2]).longValue();
+            addRecords(from, ipAddress, status, -count);
+            addRecords(to, ipAddress, status, count);
+        }
+    }
+
+    /**
+     * Get IP usage statistics.
+     *
+     * @param accessibleDepartments Accessible department codes (null means all departments)
+     * @return Statistics map (totals, IPv4/IPv6 counts, most common IPs, compliance counts)
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> getStatistics(List<String> accessibleDepartments) {
+        Map<String, Object> statistics = new HashMap<>();
+
+        if (accessibleDepartments != null && accessibleDepartments.isEmpty()) {
+            // No accessible departments - return empty statistics
+            statistics.put("totalRecords", 0L);
+            statistics.put("totalWithIp", 0L);
+            statistics.put("totalWithoutIp", 0L);
+            statistics.put("ipv4Count", 0L);
+            statistics.put("ipv6Count", 0L);
+            statistics.put("commonIps", List.of());
+            statistics.put("mismatchCount", 0L);
+            statistics.put("matchCount", 0L);
+            statistics.put("noAssignmentCount", 0L);
+            return statistics;
+        }
+
+        PageRequest topIps = PageRequest.of(0, COMMON_IP_LIMIT);
+        IpUsageStatRepository.IpUsageTotals totals;
+        List<IpUsageStatRepository.IpUsageCount> commonIpCounts;
+        if (accessibleDepartments == null) {
+            totals = ipUsageStatRepository.sumAll();
+            commonIpCounts = ipUsageStatRepository.findTopIpAddresses(topIps);
+        } else {
+            totals = ipUsageStatRepository.sumByDepartmentCodes(accessibleDepartments);
+            commonIpCounts = ipUsageStatRepository.findTopIpAddressesByDepartmentCodes(accessibleDepartments, topIps);
+        }
+
+        List<Map<String, Object>> commonIps = commonIpCounts.stream()
+                .map(count -> {
+                    Map<String, Object> ipInfo = new HashMap<>();
+                    ipInfo.put("ipAddress", count.getIpAddress());
+                    ipInfo.put("count", count.getRecordCount());
+                    ipInfo.put("type", IpAddressUtil.isIPv4(count.getIpAddress()) ? "IPv4"
+                            : (IpAddressUtil.isIPv6(count.getIpAddress()) ? "IPv6" : "Unknown"));
+                    return ipInfo;
+                })
+                .collect(Collectors.toList());
+
+        statistics.put("totalRecords", totals.getTotalRecords());
+        statistics.put("totalWithIp", totals.getTotalWithIp());
+        statistics.put("totalWithoutIp", totals.getTotalRecords() - totals.getTotalWithIp());
+        statistics.put("ipv4Count", totals.getIpv4Count());
+        statistics.put("ipv6Count", totals.getIpv6Count());
+        statistics.put("commonIps", commonIps);
+        statistics.put("mismatchCount", totals.getMismatchCount());
+        statistics.put("matchCount", totals.getMatchCount());
+        statistics.put("noAssignmentCount", totals.getOtherCount());
+        return statistics;
+    }
+
+    /**
+     * Rebuild all counters from the entry/exit records.
+     * Evaluates records without a stored compliance status first, committing each backfill pass
+     * on its own, then recounts with one grouped query in a single short transaction.
+     * Scans committed while the rebuild runs may be counted twice or not at all; run it when the
+     * system is quiet or follow it with another rebuild.
+     *
+     * @return Number of department/IP rows written
+     */
+    public int rebuild() {
+        for (int run = 0; run < MAX_BACKFILL_RUNS_PER_REBUILD; run++) {
+            if (ipComplianceStatusService.backfillMissingStatuses() == 0) {
+                break;
+            }
+        }
+
+        Integer rows = transactionTemplate.execute(status -> recount());
+        logger.info("IP usage statistics rebuilt: {} department/IP rows", rows);
+        return rows != null ? rows : 0;
+    }
+
+    /**
+     * Replace all counters with counts grouped by department, IP address and stored status.
+     *
+     * @return Number of department/IP rows written
+     */
+    private int recount() {
+        ipUsageStatRepository.deleteAllInBatch();
+
+        List<Object[]> groups = entryExitRecordRepository.countByDepartmentIpAndComplianceStatus();
+        int rows = 0;
+        Map<String, Boolean> seenKeys = new HashMap<>();
+        for (Object[] group : groups) {
+            String departmentCode = group[0] != null ? (String) group[0] : "";
+            String ipAddress = (String) group[1];
+            IpComplianceStatus status = (IpComplianceStatus) group[2];
+            long count = ((Number) group[3]).longValue();
+
+            addRecords(departmentCode, ipAddress, status, count);
+            if (seenKeys.put(departmentCode + "|" + ipKey(ipAddress), Boolean.TRUE) == null) {
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Rebuild the counters on startup if they have never been built but records exist.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfEmpty() {
+        try {
+            if (ipUsageStatRepository.count() == 0 && entryExitRecordRepository.count() > 0) {
+                logger.info("IP usage statistics are empty, rebuilding from entry/exit records");
+                rebuild();
+            }
+        } catch (Exception e) {
+            logger.error("Failed to build IP usage statistics on startup", e);
+        }
+    }
+
+    private void addRecords(String departmentCode, String ipAddress, IpComplianceStatus status, long count) {
+        String ip = ipKey(ipAddress);
+        long matchCount = status == IpComplianceStatus.MATCH ? count : 0;
+        long mismatchCount = status == IpComplianceStatus.MISMATCH ? count : 0;
+        long otherCount = count - matchCount - mismatchCount;
+
+        ipUsageStatRepository.addCounts(departmentCode, ip, IpAddressUtil.ipVersion(ip),
+                count, matchCount, mismatchCount, otherCount, LocalDateTime.now());
+    }
+
+    private static long bucketCount(IpComplianceStatus status, IpComplianceStatus bucket, long count) {
+        return status == bucket ? count : 0;
+    }
+
+    private static String ipKey(String ipAddress) {
+        return ipAddress != null ? ipAddress : "";
+    }
+}
@@ -0,0 +1,239 @@
+package com.bidb.personetakip.service;
+
+import com.bidb.personetakip.dto.UserStatusDto;
+import com.bidb.personetakip.model.EntryExitRecord;
+import com.bidb.personetakip.model.EntryExitType;
+import com.bidb.personetakip.model.UserLastStatus;
+import com.bidb.personetakip.repository.UserLastStatusRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory registry of each user's last entry/exit event.
+ * Built once on startup from the stored last status of each user (user_last_status, the
+ * source of truth written with every record) and updated after every committed scan,
+ * so "who is inside" questions are answered without scanning entry_exit_records.
+ *
+ * Until the initial load has finished {@link #isLoaded()} returns false and callers
+ * must fall back to the database.
+ *
+ * Requirements: 6.5, 8.4 - Entry/exit type determination
+ */
+@Service
+public class PresenceRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(PresenceRegistry.class);
+
+    /**
+     * Number of stored statuses read per batch while loading
+     */
+    private static final int LOAD_BATCH_SIZE = 5000;
+
+    private final UserLastStatusRepository userLastStatusRepository;
+    private final UserLastStatusService userLastStatusService;
+
+    /**
+     * Last event per user ID
+     */
+    private final Map<Long, Presence> lastEvents = new ConcurrentHashMap<>();
+
+    /**
+     * IDs of users whose last event is an ENTRY; kept in step with lastEvents
+     */
+    private final Set<Long> usersInside = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean loaded = false;
+
+    public PresenceRegistry(UserLastStatusRepository userLastStatusRepository,
+                            UserLastStatusService userLastStatusService) {
+        this.userLastStatusRepository = userLastStatusRepository;
+        this.userLastStatusService = userLastStatusService;
+    }
+
+    /**
+     * Last entry/exit event of a user
+     *
+     * @param type Event type
+     * @param timestamp Event time
+     * @param recordId Record ID, used to order events with the same timestamp
+     */
+    public record Presence(EntryExitType type, LocalDateTime timestamp, long recordId) {
+
+        boolean isAfter(Presence other) {
+            int byTime = timestamp.compareTo(other.timestamp);
+            return byTime > 0 || (byTime == 0 && recordId > other.recordId);
+        }
+    }
+
+    /**
+     * Load the registry on startup.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        try {
+            load();
+        } catch (Exception e) {
+            logger.error("Failed to load presence registry, falling back to database queries", e);
+        }
+    }
+
+    /**
+     * (Re)build the registry from the stored last status of all existing users.
+     * Users whose records predate the store are backfilled first; the statuses are then read
+     * in user ID order in batches. Events recorded concurrently are merged and never replaced
+     * by older ones.
+     *
+     * @return Number of users with at least one event
+     */
+    public int load() {
+        loaded = false;
+        lastEvents.clear();
+        usersInside.clear();
+
+        userLastStatusService.backfillMissing();
+
+        long afterUserId = 0;
+        while (true) {
+            List<UserLastStatus> statuses = userLastStatusRepository.findExistingUsersAfter(
+                    afterUserId, PageRequest.of(0, LOAD_BATCH_SIZE));
+            if (statuses.isEmpty()) {
+                break;
+            }
+
+            for (UserLastStatus status : statuses) {
+                update(status.getUserId(),
+                        new Presence(status.getLastType(), status.getLastTimestamp(), status.getLastRecordId()));
+            }
+
+            afterUserId = statuses.get(statuses.size() - 1).getUserId();
+        }
+
+        loaded = true;
+        logger.info("Presence registry loaded: {} users, {} inside", lastEvents.size(), usersInside.size());
+        return lastEvents.size();
+    }
+
+    /**
+     * @return true once the initial load has finished
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Record a new entry/exit event.
+     * When called inside a transaction the event is applied after commit, so a rolled back
+     * scan never changes the registry.
+     *
+     * @param record Saved entry/exit record
+     */
+    public void recordAfterCommit(EntryExitRecord record) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    record(record);
+                }
+            });
+        } else {
+            record(record);
+        }
+    }
+
+    /**
+     * Apply an entry/exit event immediately, unless the user already has a later one.
+     *
+     * @param record Saved entry/exit record
+     */
+    public void record(EntryExitRecord record) {
+        update(record.getUserId(), new Presence(record.getType(), record.getTimestamp(),
+                record.getId() != null ? record.getId() : 0L));
+    }
+
+    /**
+     * Forget a user's events (after their records or the user were deleted).
+     * When called inside a transaction the user is removed after commit.
+     *
+     * @param userId User ID
+     */
+    public void removeAfterCommit(Long userId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    remove(userId);
+                }
+            });
+        } else {
+            remove(userId);
+        }
+    }
+
+    /**
+     * Get a user's current status.
+     *
+     * @param userId User ID
+     * @return Inside, outside or no-records status
+     */
+    public UserStatusDto getStatus(Long userId) {
+        Presence presence = lastEvents.get(userId);
+        if (presence == null) {
+            return UserStatusDto.noRecords();
+        }
+        return presence.type() == EntryExitType.ENTRY
+                ? UserStatusDto.inside(presence.timestamp())
+                : UserStatusDto.outside(presence.timestamp());
+    }
+
+    /**
+     * @return Unmodifiable live view of the IDs of users currently inside
+     */
+    public Set<Long> getUsersInside() {
+        return Collections.unmodifiableSet(usersInside);
+    }
+
+    /**
+     * @return Number of users currently inside
+     */
+    public int countInside() {
+        return usersInside.size();
+    }
+
+    /**
+     * Apply an event unless the user already has a later one.
+     * The inside set is updated within the same per-key atomic operation.
+     */
+    private void update(Long userId, Presence presence) {
+        lastEvents.compute(userId, (id, current) -> {
+            if (current != null && !presence.isAfter(current)) {
+                return current;
+            }
+            if (presence.type() == EntryExitType.ENTRY) {
+                usersInside.add(id);
+            } else {
+                usersInside.remove(id);
+            }
+            return presence;
+        });
+    }
+
+    private void remove(Long userId) {
+        lastEvents.computeIfPresent(userId, (id, current) -> {
+            usersInside.remove(id);
+            return null;
+        });
+    }
+}
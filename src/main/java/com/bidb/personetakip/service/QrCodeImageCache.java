@@ -0,0 +1,130 @@
+package com.bidb.personetakip.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache of rendered QR code images, keyed by QR value, size and format.
+ * A QR value never changes its image, so repeated app refreshes are served from memory and
+ * clients can revalidate with the ETag, which is derived from the key without rendering.
+ * Least recently used images are dropped once the cache is full.
+ * Requirements: 5.5 - Render QR code as scannable image
+ */
+@Service
+public class QrCodeImageCache {
+
+    /**
+     * Changed whenever the rendering output changes, so clients do not keep old images
+     */
+    private static final String RENDER_VERSION = "2";
+
+    private final QrCodeService qrCodeService;
+    private final Map<String, RenderedImage> images;
+
+    public QrCodeImageCache(QrCodeService qrCodeService,
+                            @Value("${qr.code.image-cache-size:1000}") int maxEntries) {
+        this.qrCodeService = qrCodeService;
+        this.images = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, RenderedImage> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Output formats of the QR image
+     */
+    public enum Format {
+        PNG(MediaType.IMAGE_PNG),
+        SVG(MediaType.valueOf("image/svg+xml"));
+
+        private final MediaType mediaType;
+
+        Format(MediaType mediaType) {
+            this.mediaType = mediaType;
+        }
+
+        public MediaType getMediaType() {
+            return mediaType;
+        }
+    }
+
+    /**
+     * A rendered QR code image
+     *
+     * @param bytes Image content
+     * @param mediaType Content type
+     * @param etag Quoted entity tag
+     */
+    public record RenderedImage(byte[] bytes, MediaType mediaType, String etag) {
+    }
+
+    /**
+     * Compute the ETag of an image without rendering it.
+     *
+     * @param qrCodeValue QR code value
+     * @param size Image size in pixels
+     * @param format Output format
+     * @return Quoted entity tag
+     */
+    public String etag(String qrCodeValue, int size, Format format) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(key(qrCodeValue, size, format).getBytes(StandardCharsets.UTF_8));
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(hash).substring(0, 22) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-256 algorithm not available", e);
+        }
+    }
+
+    /**
+     * Get a rendered image, rendering and caching it on a miss.
+     *
+     * @param qrCodeValue QR code value
+     * @param size Image size in pixels
+     * @param format Output format
+     * @return Rendered image
+     */
+    public RenderedImage get(String qrCodeValue, int size, Format format) {
+        String key = key(qrCodeValue, size, format);
+        synchronized (images) {
+            RenderedImage cached = images.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        // Render outside the lock; concurrent misses for the same key render the same bytes
+        byte[] bytes = format == Format.SVG
+            ? qrCodeService.generateQrCodeSvg(qrCodeValue, size).getBytes(StandardCharsets.UTF_8)
+            : qrCodeService.generateQrCodeImage(qrCodeValue, size);
+        RenderedImage rendered = new RenderedImage(bytes, format.getMediaType(), etag(qrCodeValue, size, format));
+
+        synchronized (images) {
+            images.put(key, rendered);
+        }
+        return rendered;
+    }
+
+    /**
+     * @return Number of cached images
+     */
+    public int size() {
+        synchronized (images) {
+            return images.size();
+        }
+    }
+
+    private static String key(String qrCodeValue, int size, Format format) {
+        return RENDER_VERSION + ":" + format + ":" + size + ":" + qrCodeValue;
+    }
+}
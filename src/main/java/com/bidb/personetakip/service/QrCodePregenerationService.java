@@ -0,0 +1,121 @@
+package com.bidb.personetakip.service;
+
+import com.bidb.personetakip.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Service creating the next day's QR codes for all users during off-hours.
+ * Codes are inserted in JDBC batches, so the morning /api/qrcode/daily calls only read
+ * the existing row instead of all creating one at the same time.
+ * Requirements: 5.1 - Daily QR code generation
+ */
+@Service
+public class QrCodePregenerationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(QrCodePregenerationService.class);
+
+    /**
+     * Rows colliding with an existing code of the same user and date (uk_user_valid_date),
+     * e.g. from a concurrent run or an early request, or with an existing value are skipped.
+     */
+    private static final String INSERT_SQL =
+            "INSERT IGNORE INTO qr_codes (user_id, qr_code_value, valid_date, usage_count, created_at, version) " +
+            "VALUES (?, ?, ?, 0, ?, 0)";
+
+    private final UserRepository userRepository;
+    private final QrCodeService qrCodeService;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${qr.code.pregeneration-batch-size:500}")
+    private int batchSize = 500;
+
+    public QrCodePregenerationService(UserRepository userRepository,
+                                      QrCodeService qrCodeService,
+                                      JdbcTemplate jdbcTemplate) {
+        this.userRepository = userRepository;
+        this.qrCodeService = qrCodeService;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Outcome of a pre-generation run
+     *
+     * @param validDate Date the codes were created for
+     * @param created Number of QR codes inserted
+     * @param durationMs Run duration in milliseconds
+     */
+    public record PregenerationResult(LocalDate validDate, int created, long durationMs) {
+
+        /**
+         * @return Inserted QR codes per second
+         */
+        public double codesPerSecond() {
+            return durationMs > 0 ? created * 1000.0 / durationMs : created;
+        }
+    }
+
+    /**
+     * Scheduled task creating tomorrow's QR codes.
+     * Runs daily at 23:30 by default.
+     */
+    @Scheduled(cron = "${qr.code.pregeneration-cron:0 30 23 * * ?}")
+    public void pregenerateTomorrow() {
+        try {
+            pregenerate(LocalDate.now().plusDays(1));
+        } catch (Exception e) {
+            logger.error("Failed to pre-generate QR codes", e);
+        }
+    }
+
+    /**
+     * Create the QR codes of all users that do not have one for a date yet.
+     * Users are read in ID order, one batch per insert; every batch commits on its own.
+     *
+     * @param validDate Date to create the QR codes for
+     * @return Number of created codes and run duration
+     */
+    public PregenerationResult pregenerate(LocalDate validDate) {
+        long start = System.nanoTime();
+        Date sqlDate = Date.valueOf(validDate);
+        int created = 0;
+        long afterId = 0;
+
+        while (true) {
+            List<Long> userIds = userRepository.findIdsWithoutQrCode(
+                    afterId, validDate, PageRequest.of(0, batchSize));
+            if (userIds.isEmpty()) {
+                break;
+            }
+
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            List<Object[]> rows = new ArrayList<>(userIds.size());
+            for (Long userId : userIds) {
+                rows.add(new Object[] {userId, qrCodeService.generateQrCodeValue(userId, validDate), sqlDate, now});
+            }
+            for (int count : jdbcTemplate.batchUpdate(INSERT_SQL, rows)) {
+                // Drivers may report SUCCESS_NO_INFO (-2) for rewritten batches
+                created += count == 0 ? 0 : 1;
+            }
+            afterId = userIds.get(userIds.size() - 1);
+        }
+
+        PregenerationResult result = new PregenerationResult(
+                validDate, created, (System.nanoTime() - start) / 1_000_000);
+        logger.info("Pre-generated {} QR codes for {} in {} ms ({} codes/s)",
+                result.created(), validDate, result.durationMs(), String.format("%.1f", result.codesPerSecond()));
+        return result;
+    }
+}
@@ -2,6 +2,11 @@ package com.bidb.personetakip.service;
 
 import com.bidb.personetakip.dto.QrCodeDto;
 import com.bidb.personetakip.dto.QrCodeValidationDto;
+import com.bidb.personetakip.model.QrCode;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Optional;
 
 public interface QrCodeService {
     /**
@@ -9,21 +14,71 @@ public interface QrCodeService {
      */
     QrCodeDto getDailyQrCode(Long userId);
     
+    /**
+     * Generates a new QR code value for a user and date (not stored)
+     */
+    String generateQrCodeValue(Long userId, LocalDate validDate);
+    
     /**
      * Validates QR code for usage
      */
     QrCodeValidationDto validateQrCode(String qrCodeValue, Long userId);
     
+    /**
+     * Checks a signed QR code token in memory, before any database lookup.
+     * Returns the rejection for forged, stale or foreign tokens; empty if the code may
+     * be valid (legacy values are always left to the database check)
+     */
+    Optional<QrCodeValidationDto> precheckQrCode(String qrCodeValue, Long userId);
+    
+    /**
+     * Checks a signed QR code token in memory for a scan made at the given time (e.g. an
+     * offline scan uploaded later): the token must be valid for the day of the scan, and
+     * that day must lie within the accepted upload window
+     */
+    Optional<QrCodeValidationDto> precheckQrCode(String qrCodeValue, Long userId, LocalDateTime scannedAt);
+    
+    /**
+     * Validates an already loaded QR code for usage (null means not found)
+     */
+    QrCodeValidationDto validateQrCode(QrCode qrCode, Long userId);
+    
+    /**
+     * Validates an already loaded QR code for a scan made at the given time: the code must be
+     * valid for the day of the scan, and that day must lie within the accepted upload window
+     */
+    QrCodeValidationDto validateQrCode(QrCode qrCode, Long userId, LocalDateTime scannedAt);
+    
     /**
      * Increments usage count
      */
     void incrementUsageCount(String qrCodeValue);
     
+    /**
+     * Increments usage count of an already loaded QR code
+     */
+    void incrementUsageCount(QrCode qrCode);
+    
+    /**
+     * Adds several uses to an already loaded QR code in one update
+     */
+    void incrementUsageCount(QrCode qrCode, int count);
+    
     /**
      * Generates QR code image
      */
     byte[] generateQrCodeImage(String qrCodeValue);
     
+    /**
+     * Generates QR code PNG image of the given size in pixels
+     */
+    byte[] generateQrCodeImage(String qrCodeValue, int size);
+    
+    /**
+     * Generates QR code SVG image of the given size in pixels
+     */
+    String generateQrCodeSvg(String qrCodeValue, int size);
+    
     /**
      * Resets QR code usage count for development (development mode only)
      */
@@ -6,21 +6,23 @@ import com.bidb.personetakip.exception.ValidationException;
 import com.bidb.personetakip.model.EntryExitType;
 import com.bidb.personetakip.model.QrCode;
 import com.bidb.personetakip.repository.QrCodeRepository;
+import com.bidb.personetakip.security.QrTokenSigner;
+import com.bidb.personetakip.util.QrCodePngEncoder;
 import com.google.zxing.BarcodeFormat;
 import com.google.zxing.WriterException;
-import com.google.zxing.client.j2se.MatrixToImageWriter;
 import com.google.zxing.common.BitMatrix;
 import com.google.zxing.qrcode.QRCodeWriter;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.Base64;
 import java.util.Optional;
 
@@ -29,6 +31,7 @@ public class QrCodeServiceImpl implements QrCodeService {
     
     private static final int QR_CODE_SIZE = 300;
     private final QrCodeRepository qrCodeRepository;
+    private final QrTokenSigner qrTokenSigner;
     private final SecureRandom secureRandom;
     
     @Value("${qr.code.max-usage-per-day:2}")
@@ -37,13 +40,28 @@ public class QrCodeServiceImpl implements QrCodeService {
     @Value("${qr.code.development-mode:false}")
     private boolean developmentMode;
     
+    /**
+     * Number of past days whose scans are still accepted when uploaded late (offline batches)
+     */
+    @Value("${qr.code.late-upload-days:3}")
+    private int lateUploadDays = 3;
+    
     public QrCodeServiceImpl(QrCodeRepository qrCodeRepository) {
+        this(qrCodeRepository, null);
+    }
+    
+    @Autowired
+    public QrCodeServiceImpl(QrCodeRepository qrCodeRepository, QrTokenSigner qrTokenSigner) {
         this.qrCodeRepository = qrCodeRepository;
+        this.qrTokenSigner = qrTokenSigner;
         this.secureRandom = new SecureRandom();
     }
     
+    /**
+     * Not transactional: the insert commits on its own, so a request that loses the race for
+     * today's code (a double tap or the nightly pre-generation) can read the winner's row.
+     */
     @Override
-    @Transactional
     public QrCodeDto getDailyQrCode(Long userId) {
         LocalDate today = LocalDate.now();
         
@@ -60,8 +78,8 @@ public class QrCodeServiceImpl implements QrCodeService {
             );
         }
         
-        // Generate new QR code
-        String qrCodeValue = generateUniqueQrCodeValue(userId, today);
+        // Generate new QR code (normally created the night before by QrCodePregenerationService)
+        String qrCodeValue = generateQrCodeValue(userId, today);
         
         QrCode qrCode = new QrCode();
         qrCode.setUserId(userId);
@@ -69,7 +87,12 @@ public class QrCodeServiceImpl implements QrCodeService {
         qrCode.setValidDate(today);
         qrCode.setUsageCount(0);
         
-        qrCode = qrCodeRepository.save(qrCode);
+        try {
+            qrCode = qrCodeRepository.save(qrCode);
+        } catch (DataIntegrityViolationException e) {
+            // Another request stored today's code first (unique user and date)
+            qrCode = qrCodeRepository.findByUserIdAndValidDate(userId, today).orElseThrow(() -> e);
+        }
         
         return new QrCodeDto(
             qrCode.getQrCodeValue(),
@@ -82,23 +105,55 @@ public class QrCodeServiceImpl implements QrCodeService {
     @Override
     @Transactional(readOnly = true)
     public QrCodeValidationDto validateQrCode(String qrCodeValue, Long userId) {
-        Optional<QrCode> qrCodeOpt = qrCodeRepository.findByQrCodeValue(qrCodeValue);
+        Optional<QrCodeValidationDto> rejection = precheckQrCode(qrCodeValue, userId);
+        if (rejection.isPresent()) {
+            return rejection.get();
+        }
+        return validateQrCode(qrCodeRepository.findByQrCodeValue(qrCodeValue).orElse(null), userId);
+    }
+    
+    @Override
+    public Optional<QrCodeValidationDto> precheckQrCode(String qrCodeValue, Long userId) {
+        return precheckQrCode(qrCodeValue, userId, LocalDateTime.now());
+    }
+    
+    @Override
+    public Optional<QrCodeValidationDto> precheckQrCode(String qrCodeValue, Long userId, LocalDateTime scannedAt) {
+        // Legacy random values carry no claims and can only be checked against the database
+        if (qrTokenSigner == null || !QrTokenSigner.isSignedToken(qrCodeValue)) {
+            return Optional.empty();
+        }
         
-        if (qrCodeOpt.isEmpty()) {
+        Optional<QrTokenSigner.QrTokenClaims> claims = qrTokenSigner.verify(qrCodeValue);
+        if (claims.isEmpty()) {
+            return Optional.of(new QrCodeValidationDto(false, "QR code not found", null));
+        }
+        if (!claims.get().userId().equals(userId)) {
+            return Optional.of(new QrCodeValidationDto(false, "QR code does not belong to user", null));
+        }
+        return checkValidDate(claims.get().validDate(), scannedAt);
+    }
+    
+    @Override
+    public QrCodeValidationDto validateQrCode(QrCode qrCode, Long userId) {
+        return validateQrCode(qrCode, userId, LocalDateTime.now());
+    }
+    
+    @Override
+    public QrCodeValidationDto validateQrCode(QrCode qrCode, Long userId, LocalDateTime scannedAt) {
+        if (qrCode == null) {
             return new QrCodeValidationDto(false, "QR code not found", null);
         }
         
-        QrCode qrCode = qrCodeOpt.get();
-        
         // Check ownership
         if (!qrCode.getUserId().equals(userId)) {
             return new QrCodeValidationDto(false, "QR code does not belong to user", null);
         }
         
         // Check date validity
-        LocalDate today = LocalDate.now();
-        if (!qrCode.getValidDate().equals(today)) {
-            return new QrCodeValidationDto(false, "QR code is not valid for today", null);
+        Optional<QrCodeValidationDto> dateRejection = checkValidDate(qrCode.getValidDate(), scannedAt);
+        if (dateRejection.isPresent()) {
+            return dateRejection.get();
         }
         
         // Check usage count (skip in development mode)
@@ -119,45 +174,119 @@ public class QrCodeServiceImpl implements QrCodeService {
         return new QrCodeValidationDto(true, "QR code is valid", nextType);
     }
     
+    /**
+     * Check that a QR code was scanned on the day it is valid for, and that the scan is
+     * recent enough to be accepted
+     */
+    private Optional<QrCodeValidationDto> checkValidDate(LocalDate validDate, LocalDateTime scannedAt) {
+        LocalDate scanDate = scannedAt.toLocalDate();
+        LocalDate today = LocalDate.now();
+        if (!validDate.equals(scanDate)) {
+            String message = scanDate.equals(today)
+                ? "QR code is not valid for today"
+                : "QR code is not valid for the scan date";
+            return Optional.of(new QrCodeValidationDto(false, message, null));
+        }
+        if (scanDate.isBefore(today.minusDays(lateUploadDays))) {
+            return Optional.of(new QrCodeValidationDto(false, "Scan is too old to be uploaded", null));
+        }
+        return Optional.empty();
+    }
+    
     @Override
     @Transactional
     public void incrementUsageCount(String qrCodeValue) {
         QrCode qrCode = qrCodeRepository.findByQrCodeValue(qrCodeValue)
             .orElseThrow(() -> new ValidationException("QR code not found"));
-        
-        // Skip usage limit check in development mode
-        if (!developmentMode && qrCode.getUsageCount() >= maxUsagePerDay) {
+        incrementUsageCount(qrCode);
+    }
+    
+    @Override
+    @Transactional
+    public void incrementUsageCount(QrCode qrCode) {
+        // Check and increment in one conditional UPDATE so parallel scans can never
+        // exceed the limit (no usage limit in development mode)
+        int maxUsage = developmentMode ? Integer.MAX_VALUE : maxUsagePerDay;
+        if (qrCodeRepository.incrementUsageCountIfBelow(qrCode.getId(), maxUsage) == 0) {
             throw new ValidationException("QR code usage limit exceeded");
         }
         
+        // Keep the loaded instance in step with the database row
         qrCode.setUsageCount(qrCode.getUsageCount() + 1);
-        qrCodeRepository.save(qrCode);
+        qrCode.setVersion(qrCode.getVersion() != null ? qrCode.getVersion() + 1 : 1L);
+    }
+    
+    @Override
+    @Transactional
+    public void incrementUsageCount(QrCode qrCode, int count) {
+        int maxUsage = developmentMode ? Integer.MAX_VALUE : maxUsagePerDay;
+        if (qrCodeRepository.addUsageCountIfWithin(qrCode.getId(), count, maxUsage) == 0) {
+            throw new ValidationException("QR code usage limit exceeded");
+        }
+        
+        qrCode.setUsageCount(qrCode.getUsageCount() + count);
+        qrCode.setVersion(qrCode.getVersion() != null ? qrCode.getVersion() + 1 : 1L);
     }
     
     @Override
     public byte[] generateQrCodeImage(String qrCodeValue) {
+        return generateQrCodeImage(qrCodeValue, QR_CODE_SIZE);
+    }
+    
+    @Override
+    public byte[] generateQrCodeImage(String qrCodeValue, int size) {
         try {
-            QRCodeWriter qrCodeWriter = new QRCodeWriter();
-            BitMatrix bitMatrix = qrCodeWriter.encode(
-                qrCodeValue,
-                BarcodeFormat.QR_CODE,
-                QR_CODE_SIZE,
-                QR_CODE_SIZE
-            );
+            // 1-bit PNG written straight from the module matrix with per-thread buffers
+            return QrCodePngEncoder.encode(qrCodeValue, size);
+        } catch (WriterException e) {
+            throw new RuntimeException("Failed to generate QR code image", e);
+        }
+    }
+    
+    @Override
+    public String generateQrCodeSvg(String qrCodeValue, int size) {
+        try {
+            // Encode at one pixel per module (including the quiet zone) and let the viewBox scale it
+            BitMatrix bitMatrix = new QRCodeWriter().encode(qrCodeValue, BarcodeFormat.QR_CODE, 0, 0);
+            int modules = bitMatrix.getWidth();
             
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            MatrixToImageWriter.writeToStream(bitMatrix, "PNG", outputStream);
-            return outputStream.toByteArray();
+            // One horizontal run of dark modules per path segment
+            StringBuilder path = new StringBuilder(modules * modules / 2);
+            for (int y = 0; y < modules; y++) {
+                int x = 0;
+                while (x < modules) {
+                    if (!bitMatrix.get(x, y)) {
+                        x++;
+                        continue;
+                    }
+                    int start = x;
+                    while (x < modules && bitMatrix.get(x, y)) {
+                        x++;
+                    }
+                    path.append('M').append(start).append(' ').append(y)
+                        .append('h').append(x - start).append("v1h-").append(x - start).append('z');
+                }
+            }
             
-        } catch (WriterException | IOException e) {
+            return "<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"" + size + "\" height=\"" + size
+                + "\" viewBox=\"0 0 " + modules + " " + modules + "\" shape-rendering=\"crispEdges\">"
+                + "<rect width=\"100%\" height=\"100%\" fill=\"#fff\"/>"
+                + "<path fill=\"#000\" d=\"" + path + "\"/></svg>";
+            
+        } catch (WriterException e) {
             throw new RuntimeException("Failed to generate QR code image", e);
         }
     }
     
     /**
-     * Generates a unique QR code value using userId, date, and random salt
+     * Generates a unique QR code value: a signed token when a signing key is configured,
+     * otherwise a hash of userId, date, and random salt
      */
-    private String generateUniqueQrCodeValue(Long userId, LocalDate date) {
+    @Override
+    public String generateQrCodeValue(Long userId, LocalDate date) {
+        if (qrTokenSigner != null && qrTokenSigner.isEnabled()) {
+            return qrTokenSigner.sign(userId, date);
+        }
         try {
             // Generate random salt
             byte[] salt = new byte[16];
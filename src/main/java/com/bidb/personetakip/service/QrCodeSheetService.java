@@ -0,0 +1,294 @@
+package com.bidb.personetakip.service;
+
+import com.bidb.personetakip.exception.ResourceNotFoundException;
+import com.bidb.personetakip.model.QrCode;
+import com.bidb.personetakip.model.User;
+import com.bidb.personetakip.repository.QrCodeRepository;
+import com.bidb.personetakip.repository.UserRepository;
+import com.bidb.personetakip.util.SimplePdfWriter;
+import com.google.zxing.WriterException;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.google.zxing.qrcode.encoder.ByteMatrix;
+import com.google.zxing.qrcode.encoder.Encoder;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.text.Normalizer;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Service producing printable daily QR code badges for a whole department,
+ * as a multi-page PDF or a ZIP of PNG images.
+ *
+ * Images are rendered on a bounded worker pool and written to the output in user order
+ * as they complete. At most {@link #RENDER_WINDOW} images are held at a time, so a
+ * department of any size is streamed in constant memory.
+ * Requirements: 5.1, 5.5 - Daily QR code generation and rendering
+ */
+@Service
+public class QrCodeSheetService {
+
+    /**
+     * Maximum number of rendered badges waiting to be written
+     */
+    private static final int RENDER_WINDOW = 64;
+
+    private static final int QUIET_ZONE = 4;
+    private static final int MARGIN = 36;
+    private static final int COLUMNS = 3;
+    private static final int ROWS = 4;
+    private static final int BADGE_QR_SIZE = 140;
+
+    private final UserRepository userRepository;
+    private final QrCodeRepository qrCodeRepository;
+    private final QrCodeService qrCodeService;
+    private final DepartmentAccessResolver departmentAccessResolver;
+    private final ExecutorService renderPool;
+
+    public QrCodeSheetService(UserRepository userRepository,
+                              QrCodeRepository qrCodeRepository,
+                              QrCodeService qrCodeService,
+                              DepartmentAccessResolver departmentAccessResolver,
+                              @Value("${qr.code.sheet-render-threads:4}") int renderThreads) {
+        this.userRepository = userRepository;
+        this.qrCodeRepository = qrCodeRepository;
+        this.qrCodeService = qrCodeService;
+        this.departmentAccessResolver = departmentAccessResolver;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.renderPool = Executors.newFixedThreadPool(Math.max(1, renderThreads), runnable -> {
+            Thread thread = new Thread(runnable, "qr-sheet-render-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * A badge on the sheet
+     *
+     * @param userId User ID
+     * @param fullName First and last name
+     * @param personnelNo Personnel number
+     * @param qrCodeValue Today's QR code value
+     */
+    public record SheetEntry(Long userId, String fullName, String personnelNo, String qrCodeValue) {
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        renderPool.shutdownNow();
+    }
+
+    /**
+     * Collect today's QR codes of all users of a department, creating missing ones.
+     *
+     * @param departmentCode Department code
+     * @param authentication Authentication object for department filtering
+     * @return Badges in name order
+     * @throws ResourceNotFoundException if the department has no users or is not accessible
+     */
+    @Transactional
+    public List<SheetEntry> prepareDepartmentSheet(String departmentCode, Authentication authentication) {
+        List<String> accessibleDepartments = departmentAccessResolver.getAccessibleDepartmentCodes(authentication);
+        if (accessibleDepartments != null && !accessibleDepartments.contains(departmentCode)) {
+            throw new ResourceNotFoundException("Department not found: " + departmentCode);
+        }
+
+        List<User> users = userRepository.findByDepartmentCodeOrderByLastNameAscFirstNameAsc(departmentCode);
+        if (users.isEmpty()) {
+            throw new ResourceNotFoundException("Department not found: " + departmentCode);
+        }
+
+        LocalDate today = LocalDate.now();
+        Map<Long, String> qrCodeValues = qrCodeRepository
+                .findByUserIdInAndValidDate(users.stream().map(User::getId).toList(), today).stream()
+                .collect(Collectors.toMap(QrCode::getUserId, QrCode::getQrCodeValue, (first, second) -> first));
+
+        List<SheetEntry> entries = new ArrayList<>(users.size());
+        for (User user : users) {
+            String qrCodeValue = qrCodeValues.get(user.getId());
+            if (qrCodeValue == null) {
+                qrCodeValue = qrCodeService.getDailyQrCode(user.getId()).qrCodeValue();
+            }
+            entries.add(new SheetEntry(user.getId(), user.getFirstName() + " " + user.getLastName(),
+                    user.getPersonnelNo(), qrCodeValue));
+        }
+        return entries;
+    }
+
+    /**
+     * Write the badges as a ZIP of PNG images, one file per user.
+     *
+     * @param entries Badges
+     * @param size Image size in pixels
+     * @param out Output stream (finished but not closed)
+     * @throws IOException if writing or rendering fails
+     */
+    public void writeZip(List<SheetEntry> entries, int size, OutputStream out) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(out);
+        CRC32 crc = new CRC32();
+
+        renderInOrder(entries, entry -> qrCodeService.generateQrCodeImage(entry.qrCodeValue(), size), (entry, png) -> {
+            // PNG data is already compressed, so entries are stored
+            crc.reset();
+            crc.update(png);
+            ZipEntry zipEntry = new ZipEntry(fileName(entry));
+            zipEntry.setMethod(ZipEntry.STORED);
+            zipEntry.setSize(png.length);
+            zipEntry.setCompressedSize(png.length);
+            zipEntry.setCrc(crc.getValue());
+            zip.putNextEntry(zipEntry);
+            zip.write(png);
+            zip.closeEntry();
+        });
+        zip.finish();
+    }
+
+    /**
+     * Write the badges as an A4 PDF with a grid of vector QR codes, name and personnel number.
+     *
+     * @param entries Badges
+     * @param out Output stream (not closed)
+     * @throws IOException if writing or rendering fails
+     */
+    public void writePdf(List<SheetEntry> entries, OutputStream out) throws IOException {
+        SimplePdfWriter pdf = new SimplePdfWriter(out);
+        float cellWidth = (SimplePdfWriter.PAGE_WIDTH - 2f * MARGIN) / COLUMNS;
+        float cellHeight = (SimplePdfWriter.PAGE_HEIGHT - 2f * MARGIN) / ROWS;
+        int perPage = COLUMNS * ROWS;
+        StringBuilder page = new StringBuilder();
+        int[] onPage = {0};
+
+        renderInOrder(entries, entry -> qrCodeDrawing(entry.qrCodeValue()), (entry, drawing) -> {
+            int column = onPage[0] % COLUMNS;
+            int row = onPage[0] / COLUMNS;
+            float left = MARGIN + column * cellWidth + (cellWidth - BADGE_QR_SIZE) / 2;
+            float top = SimplePdfWriter.PAGE_HEIGHT - MARGIN - row * cellHeight;
+            float qrBottom = top - BADGE_QR_SIZE;
+
+            page.append(String.format(Locale.ROOT, "q 1 0 0 1 %.2f %.2f cm ", left, qrBottom))
+                .append(drawing).append(" Q\n");
+            page.append(String.format(Locale.ROOT, "BT /F1 9 Tf %.2f %.2f Td ", left, qrBottom - 12))
+                .append(SimplePdfWriter.literal(entry.fullName())).append(" Tj ET\n");
+            if (entry.personnelNo() != null) {
+                page.append(String.format(Locale.ROOT, "BT /F1 8 Tf %.2f %.2f Td ", left, qrBottom - 23))
+                    .append(SimplePdfWriter.literal(entry.personnelNo())).append(" Tj ET\n");
+            }
+
+            if (++onPage[0] == perPage) {
+                pdf.addPage(page.toString());
+                page.setLength(0);
+                onPage[0] = 0;
+            }
+        });
+
+        if (onPage[0] > 0 || entries.isEmpty()) {
+            pdf.addPage(page.toString());
+        }
+        pdf.finish();
+    }
+
+    /**
+     * Build the drawing operators of a QR code filling a BADGE_QR_SIZE square at the origin.
+     * Each horizontal run of dark modules becomes one rectangle.
+     */
+    private String qrCodeDrawing(String qrCodeValue) {
+        ByteMatrix matrix;
+        try {
+            matrix = Encoder.encode(qrCodeValue, ErrorCorrectionLevel.L).getMatrix();
+        } catch (WriterException e) {
+            throw new IllegalStateException("Failed to encode QR code", e);
+        }
+        int modules = matrix.getWidth();
+        float scale = (float) BADGE_QR_SIZE / (modules + QUIET_ZONE * 2);
+
+        StringBuilder drawing = new StringBuilder(modules * modules * 2);
+        drawing.append(String.format(Locale.ROOT, "%.4f 0 0 %.4f %.4f %.4f cm 0 g ",
+                scale, scale, QUIET_ZONE * scale, QUIET_ZONE * scale));
+        for (int y = 0; y < modules; y++) {
+            int pdfY = modules - 1 - y;
+            int x = 0;
+            while (x < modules) {
+                if (matrix.get(x, y) != 1) {
+                    x++;
+                    continue;
+                }
+                int start = x;
+                while (x < modules && matrix.get(x, y) == 1) {
+                    x++;
+                }
+                drawing.append(start).append(' ').append(pdfY).append(' ')
+                        .append(x - start).append(" 1 re ");
+            }
+        }
+        return drawing.append('f').toString();
+    }
+
+    /**
+     * Render entries on the worker pool, keeping at most RENDER_WINDOW in flight,
+     * and hand the results to the writer in entry order.
+     */
+    private <T> void renderInOrder(List<SheetEntry> entries, Function<SheetEntry, T> renderer,
+                                   SheetWriter<T> writer) throws IOException {
+        Deque<Future<T>> pending = new ArrayDeque<>();
+        int next = 0;
+        try {
+            for (SheetEntry entry : entries) {
+                while (next < entries.size() && pending.size() < RENDER_WINDOW) {
+                    SheetEntry toRender = entries.get(next++);
+                    pending.add(renderPool.submit(() -> renderer.apply(toRender)));
+                }
+                writer.write(entry, await(pending.poll()));
+            }
+        } finally {
+            pending.forEach(future -> future.cancel(true));
+        }
+    }
+
+    private static <T> T await(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("QR sheet rendering interrupted");
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to render QR code", e.getCause());
+        }
+    }
+
+    private static String fileName(SheetEntry entry) {
+        String id = entry.personnelNo() != null ? entry.personnelNo() : "user-" + entry.userId();
+        String name = Normalizer.normalize(entry.fullName().replace('ı', 'i'), Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "");
+        return (id + "_" + name).replaceAll("[^A-Za-z0-9_-]+", "_") + ".png";
+    }
+
+    /**
+     * Writes one rendered badge to the output
+     */
+    @FunctionalInterface
+    private interface SheetWriter<T> {
+        void write(SheetEntry entry, T rendered) throws IOException;
+    }
+}
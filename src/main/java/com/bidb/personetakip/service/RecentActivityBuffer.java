@@ -0,0 +1,308 @@
+package com.bidb.personetakip.service;
+
+import com.bidb.personetakip.model.AdminAuditLog;
+import com.bidb.personetakip.model.EntryExitRecord;
+import com.bidb.personetakip.repository.AdminAuditLogRepository;
+import com.bidb.personetakip.repository.EntryExitRecordRepository;
+import com.bidb.personetakip.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Bounded in-memory buffers of the most recent entry/exit records and admin actions.
+ * Scans are kept in one global buffer and one buffer per user department; admin actions in a
+ * global buffer. Each buffer holds at most {@code dashboard.recent-activity.capacity} items,
+ * so the dashboard's recent-activity lists are read in O(capacity) instead of loading a full
+ * day's rows.
+ *
+ * Loaded on startup with one bounded query per buffer and updated after every committed
+ * scan or admin action. Until the load has finished {@link #isLoaded()} returns false and
+ * callers must fall back to the database.
+ * Requirements: 1.2 - Dashboard statistics and summary data
+ */
+@Service
+public class RecentActivityBuffer {
+
+    private static final Logger logger = LoggerFactory.getLogger(RecentActivityBuffer.class);
+
+    private static final Comparator<EntryExitRecord> RECORD_ORDER = Comparator
+            .comparing(EntryExitRecord::getTimestamp)
+            .thenComparing(record -> record.getId() != null ? record.getId() : 0L);
+
+    private static final Comparator<AdminAuditLog> AUDIT_LOG_ORDER = Comparator
+            .comparing(AdminAuditLog::getTimestamp)
+            .thenComparing(auditLog -> auditLog.getId() != null ? auditLog.getId() : 0L);
+
+    private final EntryExitRecordRepository entryExitRecordRepository;
+    private final AdminAuditLogRepository adminAuditLogRepository;
+    private final UserRepository userRepository;
+    private final int capacity;
+
+    private final Ring<EntryExitRecord> recentRecords;
+    private final Ring<AdminAuditLog> recentAuditLogs;
+
+    /**
+     * Recent records per department code ("" for users without a department)
+     */
+    private final Map<String, Ring<EntryExitRecord>> recentRecordsByDepartment = new ConcurrentHashMap<>();
+
+    /**
+     * Department code per user ID ("" for users without a department)
+     */
+    private final Map<Long, String> userDepartments = new ConcurrentHashMap<>();
+
+    private volatile boolean loaded = false;
+
+    public RecentActivityBuffer(EntryExitRecordRepository entryExitRecordRepository,
+                                AdminAuditLogRepository adminAuditLogRepository,
+                                UserRepository userRepository,
+                                @Value("${dashboard.recent-activity.capacity:50}") int capacity) {
+        this.entryExitRecordRepository = entryExitRecordRepository;
+        this.adminAuditLogRepository = adminAuditLogRepository;
+        this.userRepository = userRepository;
+        this.capacity = Math.max(1, capacity);
+        this.recentRecords = new Ring<>(this.capacity, RECORD_ORDER);
+        this.recentAuditLogs = new Ring<>(this.capacity, AUDIT_LOG_ORDER);
+    }
+
+    /**
+     * Load the buffers on startup.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        try {
+            load();
+        } catch (Exception e) {
+            logger.error("Failed to load recent activity buffers, falling back to database queries", e);
+        }
+    }
+
+    /**
+     * (Re)build the buffers from the latest records and admin actions.
+     * Reads at most {@code capacity} rows per buffer.
+     */
+    public void load() {
+        loaded = false;
+        PageRequest page = PageRequest.of(0, capacity);
+        LocalDateTime since = LocalDateTime.now().minusHours(24);
+
+        userDepartments.clear();
+        for (UserRepository.UserDepartment user : userRepository.findAllUserDepartments()) {
+            userDepartments.put(user.getId(), departmentKey(user.getDepartmentCode()));
+        }
+
+        recentRecords.replaceAll(entryExitRecordRepository.findRecentRecords(since, page));
+        recentRecordsByDepartment.clear();
+        for (String department : new HashSet<>(userDepartments.values())) {
+            if (department.isEmpty()) {
+                continue;
+            }
+            List<EntryExitRecord> records = entryExitRecordRepository.findRecentRecordsByUserDepartmentCodes(
+                    since, List.of(department), page);
+            if (!records.isEmpty()) {
+                departmentRing(department).replaceAll(records);
+            }
+        }
+        recentAuditLogs.replaceAll(adminAuditLogRepository.findRecentLogs(since, page));
+
+        loaded = true;
+        logger.info("Recent activity buffers loaded: {} departments, capacity {}",
+                recentRecordsByDepartment.size(), capacity);
+    }
+
+    /**
+     * @return true once the initial load has finished
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Add a saved entry/exit record. When called inside a transaction the record is added
+     * after commit, so a rolled back scan never appears in the feed.
+     *
+     * @param record Saved entry/exit record
+     */
+    public void recordAfterCommit(EntryExitRecord record) {
+        afterCommit(() -> record(record));
+    }
+
+    /**
+     * Add a saved admin action. When called inside a transaction the action is added after commit.
+     *
+     * @param auditLog Saved audit log
+     */
+    public void recordAfterCommit(AdminAuditLog auditLog) {
+        afterCommit(() -> recentAuditLogs.add(auditLog));
+    }
+
+    /**
+     * Drop a user's records (after they were deleted).
+     * When called inside a transaction the records are dropped after commit.
+     *
+     * @param userId User ID
+     */
+    public void removeUserAfterCommit(Long userId) {
+        afterCommit(() -> {
+            Predicate<EntryExitRecord> ofUser = record -> userId.equals(record.getUserId());
+            recentRecords.removeIf(ofUser);
+            recentRecordsByDepartment.values().forEach(ring -> ring.removeIf(ofUser));
+            userDepartments.remove(userId);
+        });
+    }
+
+    /**
+     * Forget a user's department (after it was changed), so the user's next records are
+     * filed under the new department. When called inside a transaction this happens after commit.
+     *
+     * @param userId User ID
+     */
+    public void evictUserDepartmentAfterCommit(Long userId) {
+        afterCommit(() -> userDepartments.remove(userId));
+    }
+
+    /**
+     * Get the most recent entry/exit records.
+     *
+     * @param since Only records after this time
+     * @param departmentCodes Department codes (null for all departments)
+     * @param limit Maximum number of records
+     * @return Records, newest first
+     */
+    public List<EntryExitRecord> getRecentRecords(LocalDateTime since, Collection<String> departmentCodes, int limit) {
+        if (departmentCodes == null) {
+            return recentRecords.newest(since, EntryExitRecord::getTimestamp, limit);
+        }
+        List<EntryExitRecord> records = new ArrayList<>();
+        for (String department : new HashSet<>(departmentCodes)) {
+            Ring<EntryExitRecord> ring = recentRecordsByDepartment.get(department);
+            if (ring != null) {
+                records.addAll(ring.newest(since, EntryExitRecord::getTimestamp, limit));
+            }
+        }
+        records.sort(RECORD_ORDER.reversed());
+        return records.size() > limit ? new ArrayList<>(records.subList(0, limit)) : records;
+    }
+
+    /**
+     * Get the most recent admin actions.
+     *
+     * @param since Only actions after this time
+     * @param limit Maximum number of actions
+     * @return Audit logs, newest first
+     */
+    public List<AdminAuditLog> getRecentAuditLogs(LocalDateTime since, int limit) {
+        return recentAuditLogs.newest(since, AdminAuditLog::getTimestamp, limit);
+    }
+
+    private void record(EntryExitRecord record) {
+        recentRecords.add(record);
+        String department = departmentOf(record.getUserId());
+        if (!department.isEmpty()) {
+            departmentRing(department).add(record);
+        }
+    }
+
+    private Ring<EntryExitRecord> departmentRing(String department) {
+        return recentRecordsByDepartment.computeIfAbsent(department, key -> new Ring<>(capacity, RECORD_ORDER));
+    }
+
+    private String departmentOf(Long userId) {
+        String department = userDepartments.get(userId);
+        if (department == null) {
+            department = departmentKey(userRepository.findDepartmentCodeById(userId).orElse(null));
+            userDepartments.put(userId, department);
+        }
+        return department;
+    }
+
+    private static String departmentKey(String departmentCode) {
+        return departmentCode != null ? departmentCode : "";
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Fixed-capacity buffer ordered newest first. Adding to a full buffer drops the oldest item,
+     * or ignores the new one when it is older than everything held (e.g. late offline uploads).
+     */
+    private static final class Ring<T> {
+
+        private final int capacity;
+        private final Comparator<T> order;
+        private final LinkedList<T> items = new LinkedList<>();
+
+        Ring(int capacity, Comparator<T> order) {
+            this.capacity = capacity;
+            this.order = order;
+        }
+
+        synchronized void add(T item) {
+            ListIterator<T> iterator = items.listIterator();
+            while (iterator.hasNext()) {
+                if (order.compare(item, iterator.next()) >= 0) {
+                    iterator.previous();
+                    break;
+                }
+            }
+            if (!iterator.hasNext() && items.size() >= capacity) {
+                return;
+            }
+            iterator.add(item);
+            if (items.size() > capacity) {
+                items.removeLast();
+            }
+        }
+
+        synchronized void replaceAll(List<T> newestFirst) {
+            items.clear();
+            newestFirst.stream().limit(capacity).forEach(items::addLast);
+        }
+
+        synchronized void removeIf(Predicate<T> filter) {
+            items.removeIf(filter);
+        }
+
+        synchronized List<T> newest(LocalDateTime since, Function<T, LocalDateTime> timestamp, int limit) {
+            List<T> result = new ArrayList<>(Math.min(limit, items.size()));
+            for (T item : items) {
+                if (result.size() >= limit || !timestamp.apply(item).isAfter(since)) {
+                    break;
+                }
+                result.add(item);
+            }
+            return result;
+        }
+    }
+}
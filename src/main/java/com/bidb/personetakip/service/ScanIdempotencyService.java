@@ -0,0 +1,212 @@
+package com.bidb.personetakip.service;
+
+import com.bidb.personetakip.dto.EntryExitRecordDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Collapses retried entry/exit scan submissions into the first one.
+ *
+ * A scan is a duplicate when it carries an idempotency key already seen for the user, or when
+ * the same user submits the same QR code value and client timestamp again within the dedup
+ * window. Duplicates get the original response without touching the database; a duplicate of
+ * a scan that is still being processed waits briefly for its result.
+ *
+ * Only scans that were recorded are remembered, and both key sets are bounded in size and
+ * expire after a fixed time.
+ * Requirements: 8.5 - Store entry/exit record with all required fields
+ */
+@Service
+public class ScanIdempotencyService {
+
+    /**
+     * How long a duplicate waits for the scan it repeats
+     */
+    private static final long IN_FLIGHT_WAIT_MS = 5_000;
+
+    private final ExpiringKeys idempotencyKeys;
+    private final ExpiringKeys recentScans;
+
+    public ScanIdempotencyService(@Value("${scan.idempotency.ttl-seconds:600}") long idempotencyTtlSeconds,
+                                  @Value("${scan.dedup.window-seconds:30}") long dedupWindowSeconds,
+                                  @Value("${scan.dedup.max-entries:10000}") int maxEntries) {
+        this.idempotencyKeys = new ExpiringKeys(TimeUnit.SECONDS.toMillis(idempotencyTtlSeconds), maxEntries);
+        this.recentScans = new ExpiringKeys(TimeUnit.SECONDS.toMillis(dedupWindowSeconds), maxEntries);
+    }
+
+    /**
+     * Claim a scan submission.
+     * The caller processes the scan only if the claim is not a duplicate and not in progress,
+     * reports the recorded result with {@link Claim#complete}, and closes the claim.
+     *
+     * @param userId Authenticated user ID
+     * @param idempotencyKey Client-supplied idempotency key (may be null)
+     * @param qrCodeValue Scanned QR code value
+     * @param timestamp Client scan timestamp
+     * @return Claim of the submission
+     */
+    public Claim claim(Long userId, String idempotencyKey, String qrCodeValue, LocalDateTime timestamp) {
+        String idempotencyEntry = idempotencyKey != null && !idempotencyKey.isBlank()
+                ? userId + ":" + idempotencyKey.trim()
+                : null;
+        String scanEntry = userId + ":" + qrCodeValue + ":" + timestamp;
+
+        while (true) {
+            CompletableFuture<EntryExitRecordDto> existing;
+            synchronized (this) {
+                long now = System.currentTimeMillis();
+                idempotencyKeys.purge(now);
+                recentScans.purge(now);
+
+                existing = idempotencyEntry != null ? idempotencyKeys.get(idempotencyEntry) : null;
+                if (existing == null) {
+                    existing = recentScans.get(scanEntry);
+                }
+                if (existing == null) {
+                    CompletableFuture<EntryExitRecordDto> result = new CompletableFuture<>();
+                    if (idempotencyEntry != null) {
+                        idempotencyKeys.put(idempotencyEntry, result, now);
+                    }
+                    recentScans.put(scanEntry, result, now);
+                    return new Claim(idempotencyEntry, scanEntry, result, null);
+                }
+            }
+
+            EntryExitRecordDto original;
+            try {
+                original = existing.get(IN_FLIGHT_WAIT_MS, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException | ExecutionException e) {
+                return new Claim(null, null, null, null);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return new Claim(null, null, null, null);
+            }
+            if (original != null) {
+                return new Claim(null, null, null, original);
+            }
+            // The earlier submission recorded nothing and has been forgotten, so try again
+        }
+    }
+
+    private synchronized void forget(Claim claim) {
+        if (claim.idempotencyEntry != null) {
+            idempotencyKeys.remove(claim.idempotencyEntry, claim.result);
+        }
+        recentScans.remove(claim.scanEntry, claim.result);
+    }
+
+    /**
+     * A claimed scan submission
+     */
+    public final class Claim implements AutoCloseable {
+
+        private final String idempotencyEntry;
+        private final String scanEntry;
+        private final CompletableFuture<EntryExitRecordDto> result;
+        private final EntryExitRecordDto originalResponse;
+
+        private Claim(String idempotencyEntry, String scanEntry,
+                      CompletableFuture<EntryExitRecordDto> result, EntryExitRecordDto originalResponse) {
+            this.idempotencyEntry = idempotencyEntry;
+            this.scanEntry = scanEntry;
+            this.result = result;
+            this.originalResponse = originalResponse;
+        }
+
+        /**
+         * @return true if the scan was already recorded; the response is {@link #getOriginalResponse()}
+         */
+        public boolean isDuplicate() {
+            return originalResponse != null;
+        }
+
+        /**
+         * @return true if the same scan is still being processed by another request
+         */
+        public boolean isInProgress() {
+            return result == null && originalResponse == null;
+        }
+
+        public EntryExitRecordDto getOriginalResponse() {
+            return originalResponse;
+        }
+
+        /**
+         * Remember the recorded scan so that duplicates receive it.
+         *
+         * @param record Recorded entry/exit event
+         */
+        public void complete(EntryExitRecordDto record) {
+            if (result != null) {
+                result.complete(record);
+            }
+        }
+
+        /**
+         * Forget the submission if it was not completed, releasing waiting duplicates.
+         */
+        @Override
+        public void close() {
+            if (result != null && !result.isDone()) {
+                forget(this);
+                result.complete(null);
+            }
+        }
+    }
+
+    /**
+     * Keys with a fixed time to live, in insertion order so the oldest expire first
+     */
+    private static final class ExpiringKeys {
+
+        private final Map<String, Entry> entries = new LinkedHashMap<>();
+        private final long ttlMillis;
+        private final int maxEntries;
+
+        ExpiringKeys(long ttlMillis, int maxEntries) {
+            this.ttlMillis = ttlMillis;
+            this.maxEntries = Math.max(1, maxEntries);
+        }
+
+        CompletableFuture<EntryExitRecordDto> get(String key) {
+            Entry entry = entries.get(key);
+            return entry != null ? entry.result() : null;
+        }
+
+        void put(String key, CompletableFuture<EntryExitRecordDto> result, long now) {
+            entries.remove(key);
+            entries.put(key, new Entry(result, now + ttlMillis));
+            Iterator<Entry> oldest = entries.values().iterator();
+            while (entries.size() > maxEntries) {
+                oldest.next();
+                oldest.remove();
+            }
+        }
+
+        void remove(String key, CompletableFuture<EntryExitRecordDto> result) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.result() == result) {
+                entries.remove(key);
+            }
+        }
+
+        void purge(long now) {
+            Iterator<Entry> oldest = entries.values().iterator();
+            while (oldest.hasNext() && oldest.next().expiresAt() <= now) {
+                oldest.remove();
+            }
+        }
+
+        private record Entry(CompletableFuture<EntryExitRecordDto> result, long expiresAt) {
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.bidb.personetakip.service;
+
+import com.bidb.personetakip.model.EntryExitRecord;
+import com.bidb.personetakip.model.User;
+import com.bidb.personetakip.repository.UserRepository;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Loads the users referenced by a batch of entry/exit records with IN queries
+ * instead of one lookup per record.
+ * Used by the admin record, report and export paths to enrich records with user information.
+ */
+@Service
+public class UserBatchLoader {
+
+    /**
+     * Maximum number of IDs bound into a single IN query
+     */
+    private static final int MAX_IDS_PER_QUERY = 1000;
+
+    private final UserRepository userRepository;
+
+    public UserBatchLoader(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    /**
+     * Load the owners of the given records.
+     *
+     * @param records Entry/exit records
+     * @return Map of user ID to user; users that no longer exist are absent
+     */
+    public Map<Long, User> loadOwners(Collection<EntryExitRecord> records) {
+        Set<Long> userIds = new LinkedHashSet<>();
+        for (EntryExitRecord record : records) {
+            userIds.add(record.getUserId());
+        }
+        return loadUsers(userIds);
+    }
+
+    /**
+     * Load users by ID.
+     *
+     * @param userIds User IDs (duplicates and nulls are ignored)
+     * @return Map of user ID to user; users that do not exist are absent
+     */
+    public Map<Long, User> loadUsers(Collection<Long> userIds) {
+        List<Long> distinctIds = userIds.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+
+        Map<Long, User> users = new HashMap<>(Math.max(16, distinctIds.size() * 2));
+        for (int from = 0; from < distinctIds.size(); from += MAX_IDS_PER_QUERY) {
+            List<Long> chunk = new ArrayList<>(distinctIds.subList(from, Math.min(from + MAX_IDS_PER_QUERY, distinctIds.size())));
+            for (User user : userRepository.findAllById(chunk)) {
+                users.put(user.getId(), user);
+            }
+        }
+        return users;
+    }
+}
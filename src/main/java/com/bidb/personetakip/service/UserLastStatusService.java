@@ -0,0 +1,82 @@
+package com.bidb.personetakip.service;
+
+import com.bidb.personetakip.dto.UserStatusDto;
+import com.bidb.personetakip.model.EntryExitRecord;
+import com.bidb.personetakip.model.EntryExitType;
+import com.bidb.personetakip.repository.UserLastStatusRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Service maintaining the stored last entry/exit event of each user.
+ * The row is written in the same transaction as the entry/exit record, so a user's
+ * current status is a single-row lookup that survives restarts. It is the source the
+ * in-memory {@link PresenceRegistry} is built from.
+ * Requirements: 6.5, 8.4 - Entry/exit type determination
+ */
+@Service
+public class UserLastStatusService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserLastStatusService.class);
+
+    private final UserLastStatusRepository userLastStatusRepository;
+
+    public UserLastStatusService(UserLastStatusRepository userLastStatusRepository) {
+        this.userLastStatusRepository = userLastStatusRepository;
+    }
+
+    /**
+     * Store the status of every user with records but no stored status.
+     * Run by the presence registry before it loads from the store.
+     *
+     * @return Number of users added
+     */
+    @Transactional
+    public int backfillMissing() {
+        int inserted = userLastStatusRepository.insertMissingFromRecords(LocalDateTime.now());
+        if (inserted > 0) {
+            logger.info("User last status backfill added {} users", inserted);
+        }
+        return inserted;
+    }
+
+    /**
+     * Store a saved entry/exit record as its user's last event, unless a later one is already stored.
+     *
+     * @param record Saved entry/exit record
+     */
+    @Transactional
+    public void record(EntryExitRecord record) {
+        userLastStatusRepository.upsertIfLater(record.getUserId(), record.getType().name(),
+                record.getTimestamp(), record.getId(), LocalDateTime.now());
+    }
+
+    /**
+     * Get a user's stored status.
+     *
+     * @param userId User ID
+     * @return Inside or outside status, or empty if nothing is stored for the user
+     */
+    @Transactional(readOnly = true)
+    public Optional<UserStatusDto> getStatus(Long userId) {
+        return userLastStatusRepository.findLastEventByUserId(userId)
+                .map(status -> status.getLastType() == EntryExitType.ENTRY
+                        ? UserStatusDto.inside(status.getLastTimestamp())
+                        : UserStatusDto.outside(status.getLastTimestamp()));
+    }
+
+    /**
+     * Forget a user's stored status (after their records or the user were deleted).
+     *
+     * @param userId User ID
+     */
+    @Transactional
+    public void remove(Long userId) {
+        userLastStatusRepository.deleteByUserId(userId);
+    }
+}
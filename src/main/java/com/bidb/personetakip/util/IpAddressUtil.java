@@ -0,0 +1,243 @@
+package com.bidb.personetakip.util;
+
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+
+/**
+ * Utility class for classifying IP address strings and converting them to a sortable key.
+ *
+ * The key of an address is the 32 character lowercase hex form of its 128-bit value, with
+ * IPv4 addresses stored in IPv4-mapped form (::ffff:a.b.c.d). Keys sort in address order,
+ * so exact addresses, prefixes and CIDR blocks all become a range between two keys.
+ * Requirements: 2.4
+ */
+public class IpAddressUtil {
+
+    private static final Pattern IPV4_PATTERN = Pattern.compile(
+            "^((25[0-5]|2[0-4][0-9]|[01]?[0-9][0-9]?)\\.){3}(25[0-5]|2[0-4][0-9]|[01]?[0-9][0-9]?)$");
+
+    private static final Pattern IPV6_PATTERN = Pattern.compile("^[0-9a-fA-F:]+$");
+
+    /**
+     * Characters allowed in an IPv6 literal, including an embedded IPv4 tail
+     */
+    private static final Pattern IPV6_LITERAL_PATTERN = Pattern.compile("^[0-9a-fA-F:.]+$");
+
+    /**
+     * Partial IPv4 address used as a prefix, e.g. "10.", "10.20." or "10.20.*"
+     */
+    private static final Pattern IPV4_PREFIX_PATTERN = Pattern.compile(
+            "^((25[0-5]|2[0-4][0-9]|[01]?[0-9][0-9]?)\\.){1,3}\\*?$");
+
+    private static final HexFormat HEX = HexFormat.of();
+
+    private static final int ADDRESS_BYTES = 16;
+
+    private static final int IPV4_MAPPED_OFFSET = 96;
+
+    /**
+     * Lowest and highest key of the IPv4-mapped range
+     */
+    public static final KeyRange IPV4_KEY_RANGE = new KeyRange(
+            "00000000000000000000ffff00000000", "00000000000000000000ffffffffffff");
+
+    private IpAddressUtil() {
+        // Utility class - prevent instantiation
+    }
+
+    /**
+     * Inclusive range of address keys
+     */
+    public record KeyRange(String lowKey, String highKey) {
+    }
+
+    /**
+     * Check if IP address is IPv4 format.
+     */
+    public static boolean isIPv4(String ip) {
+        if (ip == null || ip.isEmpty()) return false;
+        return IPV4_PATTERN.matcher(ip).matches();
+    }
+
+    /**
+     * Check if IP address is IPv6 format.
+     */
+    public static boolean isIPv6(String ip) {
+        if (ip == null || ip.isEmpty()) return false;
+        // Simple IPv6 check - contains colons and valid hex characters
+        return ip.contains(":") && IPV6_PATTERN.matcher(ip).matches();
+    }
+
+    /**
+     * Get the IP version of an address.
+     * @return 4 for IPv4, 6 for IPv6, 0 if empty or unrecognised
+     */
+    public static int ipVersion(String ip) {
+        if (isIPv4(ip)) return 4;
+        if (isIPv6(ip)) return 6;
+        return 0;
+    }
+
+    /**
+     * Get the sortable key of an IP address.
+     * @param ip IPv4 or IPv6 address
+     * @return 32 character hex key, or null if the value is not an IP address
+     */
+    public static String toKey(String ip) {
+        byte[] address = toBytes(ip);
+        return address != null ? HEX.formatHex(address) : null;
+    }
+
+    /**
+     * Translate an IP search query into a range of address keys.
+     * Supported forms:
+     * - exact address: "10.20.1.5", "2001:db8::1"
+     * - CIDR block: "10.20.0.0/16", "2001:db8::/32", optionally prefixed with "subnet:"
+     * - IPv4 prefix: "10.20." or "10.20.*"
+     * - IPv6 prefix of whole groups: "2001:db8:"
+     * - explicit range: "range:10.0.0.1-10.0.0.255"
+     *
+     * @param query Search query
+     * @return Key range, or null if the query is not an address, prefix or range
+     */
+    public static KeyRange parseKeyRange(String query) {
+        if (query == null) {
+            return null;
+        }
+        String value = query.trim();
+
+        if (value.startsWith("range:")) {
+            String[] parts = value.substring(6).split("-");
+            if (parts.length != 2) {
+                return null;
+            }
+            String low = toKey(parts[0].trim());
+            String high = toKey(parts[1].trim());
+            if (low == null || high == null || low.compareTo(high) > 0) {
+                return null;
+            }
+            return new KeyRange(low, high);
+        }
+
+        if (value.startsWith("subnet:")) {
+            value = value.substring(7).trim();
+        }
+
+        if (value.contains("/")) {
+            return parseCidr(value);
+        }
+
+        if (IPV4_PREFIX_PATTERN.matcher(value).matches()) {
+            String[] octets = value.replace("*", "").split("\\.");
+            StringBuilder network = new StringBuilder();
+            for (int i = 0; i < 4; i++) {
+                network.append(i < octets.length ? octets[i] : "0");
+                if (i < 3) {
+                    network.append('.');
+                }
+            }
+            return blockRange(toBytes(network.toString()), IPV4_MAPPED_OFFSET + octets.length * 8);
+        }
+
+        if (value.endsWith(":") && !value.endsWith("::")) {
+            int groups = value.split(":").length;
+            if (groups >= 1 && groups < 8) {
+                return blockRange(toBytes(value + ":"), groups * 16);
+            }
+            return null;
+        }
+
+        String key = toKey(value);
+        return key != null ? new KeyRange(key, key) : null;
+    }
+
+    /**
+     * Parse a CIDR block such as "10.20.0.0/16" or "2001:db8::/32".
+     */
+    private static KeyRange parseCidr(String cidr) {
+        String[] parts = cidr.split("/");
+        if (parts.length != 2) {
+            return null;
+        }
+
+        int prefixLength;
+        try {
+            prefixLength = Integer.parseInt(parts[1].trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+
+        String network = parts[0].trim();
+        int maxPrefix = isIPv4(network) ? 32 : 128;
+        if (prefixLength < 0 || prefixLength > maxPrefix) {
+            return null;
+        }
+        if (maxPrefix == 32) {
+            prefixLength += IPV4_MAPPED_OFFSET;
+        }
+        return blockRange(toBytes(network), prefixLength);
+    }
+
+    /**
+     * Get the key range of the block with the given 128-bit prefix length.
+     */
+    private static KeyRange blockRange(byte[] network, int prefixLength) {
+        if (network == null) {
+            return null;
+        }
+        byte[] low = network.clone();
+        byte[] high = network.clone();
+        for (int bit = prefixLength; bit < ADDRESS_BYTES * 8; bit++) {
+            int mask = 0x80 >>> (bit % 8);
+            low[bit / 8] &= (byte) ~mask;
+            high[bit / 8] |= (byte) mask;
+        }
+        return new KeyRange(HEX.formatHex(low), HEX.formatHex(high));
+    }
+
+    /**
+     * Convert an IP address to its 16 byte form, mapping IPv4 addresses into ::ffff:0:0/96.
+     * @return Address bytes, or null if the value is not an IP address
+     */
+    private static byte[] toBytes(String ip) {
+        if (ip == null || ip.isEmpty()) {
+            return null;
+        }
+
+        if (isIPv4(ip)) {
+            String[] octets = ip.split("\\.");
+            byte[] address = ipv4MappedPrefix();
+            for (int i = 0; i < 4; i++) {
+                address[12 + i] = (byte) Integer.parseInt(octets[i]);
+            }
+            return address;
+        }
+
+        // Only literals reach InetAddress, so no name lookup can happen
+        if (!ip.contains(":") || !IPV6_LITERAL_PATTERN.matcher(ip).matches()) {
+            return null;
+        }
+        try {
+            InetAddress address = InetAddress.getByName(ip);
+            if (address instanceof Inet4Address) {
+                // IPv4-mapped IPv6 literal
+                byte[] mapped = ipv4MappedPrefix();
+                System.arraycopy(address.getAddress(), 0, mapped, 12, 4);
+                return mapped;
+            }
+            return address.getAddress();
+        } catch (UnknownHostException e) {
+            return null;
+        }
+    }
+
+    private static byte[] ipv4MappedPrefix() {
+        byte[] address = new byte[ADDRESS_BYTES];
+        address[10] = (byte) 0xff;
+        address[11] = (byte) 0xff;
+        return address;
+    }
+}
@@ -0,0 +1,192 @@
+package com.bidb.personetakip.util;
+
+import com.google.zxing.WriterException;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.google.zxing.qrcode.encoder.ByteMatrix;
+import com.google.zxing.qrcode.encoder.Encoder;
+
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Utility class rendering QR codes straight into 1-bit grayscale PNG images.
+ *
+ * The module matrix is written row by row into a reused deflater, without a scaled BitMatrix,
+ * a BufferedImage or an ImageIO round trip. Pixels match ZXing's QRCodeWriter output for the
+ * same size (error correction level L, four module quiet zone). Row buffers, the deflater and
+ * the output buffer are kept per thread, so a render only allocates the encoder's module
+ * matrix and the returned byte array.
+ * Requirements: 5.5 - Render QR code as scannable image
+ */
+public final class QrCodePngEncoder {
+
+    private static final int QUIET_ZONE = 4;
+
+    private static final byte[] PNG_SIGNATURE = {(byte) 137, 'P', 'N', 'G', '\r', '\n', 26, '\n'};
+    private static final byte[] IHDR = {'I', 'H', 'D', 'R'};
+    private static final byte[] IDAT = {'I', 'D', 'A', 'T'};
+    private static final byte[] IEND = {'I', 'E', 'N', 'D'};
+
+    /**
+     * Bytes reserved in the output buffer for each deflate call
+     */
+    private static final int DEFLATE_CHUNK = 4096;
+
+    private static final ThreadLocal<RenderState> STATE = ThreadLocal.withInitial(RenderState::new);
+
+    private QrCodePngEncoder() {
+    }
+
+    /**
+     * Render a QR code as a PNG image.
+     *
+     * @param contents Text to encode
+     * @param size Image width and height in pixels (grown to fit the code if too small)
+     * @return PNG bytes
+     * @throws WriterException if the contents cannot be encoded
+     */
+    public static byte[] encode(String contents, int size) throws WriterException {
+        ByteMatrix matrix = Encoder.encode(contents, ErrorCorrectionLevel.L).getMatrix();
+        return STATE.get().render(matrix, size);
+    }
+
+    /**
+     * Per-thread buffers reused across renders
+     */
+    private static final class RenderState {
+
+        private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        private final CRC32 crc = new CRC32();
+        private byte[] row = new byte[0];
+        private byte[] out = new byte[8192];
+        private int pos;
+
+        byte[] render(ByteMatrix matrix, int size) {
+            int inputSize = matrix.getWidth();
+            int outputSize = Math.max(size, inputSize + QUIET_ZONE * 2);
+            int multiple = outputSize / (inputSize + QUIET_ZONE * 2);
+            int padding = (outputSize - inputSize * multiple) / 2;
+            int rowLength = 1 + (outputSize + 7) / 8;
+            if (row.length < rowLength) {
+                row = new byte[rowLength];
+            }
+
+            pos = 0;
+            put(PNG_SIGNATURE);
+            writeHeader(outputSize);
+
+            // IDAT: length is filled in once the data is compressed
+            int idatStart = pos;
+            ensure(8);
+            pos += 4;
+            put(IDAT);
+            deflater.reset();
+
+            // Top quiet zone, module rows (each repeated "multiple" times), bottom quiet zone
+            fillWhite(rowLength);
+            for (int y = 0; y < padding; y++) {
+                deflate(rowLength);
+            }
+            for (int moduleY = 0; moduleY < inputSize; moduleY++) {
+                fillWhite(rowLength);
+                for (int moduleX = 0; moduleX < inputSize; moduleX++) {
+                    if (matrix.get(moduleX, moduleY) == 1) {
+                        int start = padding + moduleX * multiple;
+                        for (int x = start; x < start + multiple; x++) {
+                            row[1 + (x >> 3)] &= (byte) ~(0x80 >>> (x & 7));
+                        }
+                    }
+                }
+                for (int i = 0; i < multiple; i++) {
+                    deflate(rowLength);
+                }
+            }
+            fillWhite(rowLength);
+            for (int y = padding + inputSize * multiple; y < outputSize; y++) {
+                deflate(rowLength);
+            }
+
+            deflater.finish();
+            while (!deflater.finished()) {
+                drain();
+            }
+            writeInt(idatStart, pos - idatStart - 8);
+            writeCrc(idatStart + 4);
+
+            writeChunkStart(0, IEND);
+            writeCrc(pos - 4);
+
+            return Arrays.copyOf(out, pos);
+        }
+
+        private void writeHeader(int size) {
+            int start = pos;
+            writeChunkStart(13, IHDR);
+            ensure(13);
+            writeInt(pos, size);
+            writeInt(pos + 4, size);
+            out[pos + 8] = 1;  // bit depth
+            out[pos + 9] = 0;  // grayscale
+            out[pos + 10] = 0; // deflate
+            out[pos + 11] = 0; // no filtering beyond per-row filter byte
+            out[pos + 12] = 0; // no interlace
+            pos += 13;
+            writeCrc(start + 4);
+        }
+
+        private void fillWhite(int rowLength) {
+            row[0] = 0; // filter type: none
+            Arrays.fill(row, 1, rowLength, (byte) 0xFF);
+        }
+
+        private void deflate(int rowLength) {
+            deflater.setInput(row, 0, rowLength);
+            while (!deflater.needsInput()) {
+                drain();
+            }
+        }
+
+        private void drain() {
+            ensure(DEFLATE_CHUNK);
+            pos += deflater.deflate(out, pos, out.length - pos);
+        }
+
+        private void writeChunkStart(int length, byte[] type) {
+            ensure(8);
+            writeInt(pos, length);
+            pos += 4;
+            put(type);
+        }
+
+        /**
+         * Append the CRC of the chunk type and data starting at typeStart
+         */
+        private void writeCrc(int typeStart) {
+            crc.reset();
+            crc.update(out, typeStart, pos - typeStart);
+            ensure(4);
+            writeInt(pos, (int) crc.getValue());
+            pos += 4;
+        }
+
+        private void put(byte[] bytes) {
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, out, pos, bytes.length);
+            pos += bytes.length;
+        }
+
+        private void writeInt(int at, int value) {
+            out[at] = (byte) (value >>> 24);
+            out[at + 1] = (byte) (value >>> 16);
+            out[at + 2] = (byte) (value >>> 8);
+            out[at + 3] = (byte) value;
+        }
+
+        private void ensure(int bytes) {
+            if (out.length - pos < bytes) {
+                out = Arrays.copyOf(out, Math.max(out.length * 2, pos + bytes));
+            }
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.bidb.personetakip.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Minimal streaming PDF writer for A4 pages drawn with vector operators and the standard
+ * Helvetica font (font resource /F1, WinAnsi encoding).
+ *
+ * Each page is written to the output as soon as it is added; only the object offsets are kept
+ * until {@link #finish()} writes the page tree and cross-reference table, so documents of any
+ * length are produced in constant memory.
+ */
+public class SimplePdfWriter {
+
+    public static final int PAGE_WIDTH = 595;
+    public static final int PAGE_HEIGHT = 842;
+
+    private static final Charset WIN_ANSI = Charset.forName("windows-1252");
+
+    private static final int CATALOG = 1;
+    private static final int PAGES = 2;
+    private static final int FONT = 3;
+
+    private final OutputStream out;
+    private final List<Long> offsets = new ArrayList<>();
+    private final List<Integer> pageObjects = new ArrayList<>();
+    private long position;
+
+    /**
+     * Start a document: writes the header, catalog and font.
+     *
+     * @param out Stream receiving the document (not closed by this writer)
+     * @throws IOException if writing fails
+     */
+    public SimplePdfWriter(OutputStream out) throws IOException {
+        this.out = out;
+        // Object 0 heads the free list; the page tree (object 2) is written by finish()
+        for (int i = 0; i <= FONT; i++) {
+            offsets.add(0L);
+        }
+        write("%PDF-1.4\n%\u00e2\u00e3\u00cf\u00d3\n".getBytes(StandardCharsets.ISO_8859_1));
+        writeObject(CATALOG, "<< /Type /Catalog /Pages " + PAGES + " 0 R >>");
+        writeObject(FONT, "<< /Type /Font /Subtype /Type1 /BaseFont /Helvetica /Encoding /WinAnsiEncoding >>");
+    }
+
+    /**
+     * Add a page with the given content stream (PDF operators, ASCII only).
+     *
+     * @param content Page content stream
+     * @throws IOException if writing fails
+     */
+    public void addPage(String content) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(content.length() / 4 + 64);
+        try (DeflaterOutputStream deflater = new DeflaterOutputStream(compressed)) {
+            deflater.write(content.getBytes(StandardCharsets.US_ASCII));
+        }
+
+        int contentObject = offsets.size();
+        offsets.add(position);
+        write((contentObject + " 0 obj\n<< /Length " + compressed.size() + " /Filter /FlateDecode >>\nstream\n")
+                .getBytes(StandardCharsets.US_ASCII));
+        compressed.writeTo(out);
+        position += compressed.size();
+        write("\nendstream\nendobj\n".getBytes(StandardCharsets.US_ASCII));
+
+        int pageObject = offsets.size();
+        offsets.add(0L);
+        writeObject(pageObject, "<< /Type /Page /Parent " + PAGES + " 0 R /MediaBox [0 0 " + PAGE_WIDTH + " "
+                + PAGE_HEIGHT + "] /Resources << /Font << /F1 " + FONT + " 0 R >> >> /Contents "
+                + contentObject + " 0 R >>");
+        pageObjects.add(pageObject);
+    }
+
+    /**
+     * Write the page tree, cross-reference table and trailer, and flush the output.
+     *
+     * @throws IOException if writing fails
+     */
+    public void finish() throws IOException {
+        StringBuilder kids = new StringBuilder();
+        for (int pageObject : pageObjects) {
+            kids.append(pageObject).append(" 0 R ");
+        }
+        writeObject(PAGES, "<< /Type /Pages /Kids [" + kids + "] /Count " + pageObjects.size() + " >>");
+
+        long xrefOffset = position;
+        StringBuilder xref = new StringBuilder("xref\n0 ").append(offsets.size()).append('\n');
+        xref.append("0000000000 65535 f \n");
+        for (int i = 1; i < offsets.size(); i++) {
+            xref.append(String.format("%010d 00000 n \n", offsets.get(i)));
+        }
+        xref.append("trailer\n<< /Size ").append(offsets.size()).append(" /Root ").append(CATALOG)
+                .append(" 0 R >>\nstartxref\n").append(xrefOffset).append("\n%%EOF\n");
+        write(xref.toString().getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+
+    /**
+     * Encode text as a PDF literal string for the WinAnsi-encoded font.
+     * Turkish letters missing from WinAnsi are replaced by their closest Latin letter.
+     *
+     * @param text Text to show
+     * @return Literal string including the parentheses
+     */
+    public static String literal(String text) {
+        String latin = (text != null ? text : "")
+                .replace('ğ', 'g').replace('Ğ', 'G')
+                .replace('ş', 's').replace('Ş', 'S')
+                .replace('ı', 'i').replace('İ', 'I');
+        StringBuilder literal = new StringBuilder(latin.length() + 2).append('(');
+        for (byte b : latin.getBytes(WIN_ANSI)) {
+            int c = b & 0xFF;
+            if (c == '(' || c == ')' || c == '\\') {
+                literal.append('\\').append((char) c);
+            } else if (c < 32 || c > 126) {
+                literal.append('\\').append(String.format("%03o", c));
+            } else {
+                literal.append((char) c);
+            }
+        }
+        return literal.append(')').toString();
+    }
+
+    private void writeObject(int number, String body) throws IOException {
+        offsets.set(number, position);
+        write((number + " 0 obj\n" + body + "\nendobj\n").getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private void write(byte[] bytes) throws IOException {
+        out.write(bytes);
+        position += bytes.length;
+    }
+}
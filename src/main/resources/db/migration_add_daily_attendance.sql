@@ -0,0 +1,35 @@
+-- Migration: Add daily attendance rollup
+-- Date: 2026-10-16
+-- Description: Holds one row per user and day with entry/exit counts, first and last times,
+--              late entries, early exits, worked minutes and IP compliance counts, so
+--              attendance and IP compliance reports over long periods no longer read every
+--              record. Today's rows are recomputed after each scan and finalized by a nightly
+--              job (attendance.rollup.finalize-cron). The application fills the table on
+--              startup when it is empty.
+
+USE personnel_tracking;
+
+CREATE TABLE IF NOT EXISTS daily_attendance (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    attendance_date DATE NOT NULL,
+    first_entry_time DATETIME NULL,
+    last_entry_time DATETIME NULL,
+    last_exit_time DATETIME NULL,
+    entry_count INT NOT NULL DEFAULT 0,
+    exit_count INT NOT NULL DEFAULT 0,
+    late_entry_count INT NOT NULL DEFAULT 0 COMMENT 'Entries after attendance.late-entry-time',
+    early_exit_count INT NOT NULL DEFAULT 0 COMMENT 'Exits before attendance.early-exit-time',
+    worked_minutes INT NOT NULL DEFAULT 0,
+    ip_match_count INT NOT NULL DEFAULT 0,
+    ip_mismatch_count INT NOT NULL DEFAULT 0,
+    ip_no_assignment_count INT NOT NULL DEFAULT 0,
+    ip_unknown_count INT NOT NULL DEFAULT 0,
+    finalized BOOLEAN NOT NULL DEFAULT FALSE COMMENT 'True once the closed day was rebuilt from all of its records',
+    updated_at DATETIME NULL,
+    CONSTRAINT uk_daily_attendance_user_date UNIQUE (user_id, attendance_date),
+    INDEX idx_daily_attendance_date (attendance_date, finalized)
+);
+
+-- Verify the changes
+DESCRIBE daily_attendance;
@@ -0,0 +1,25 @@
+-- Migration: Add sortable IP address key to entry/exit records
+-- Date: 2026-10-16
+-- Description: Stores each record's IP address as the 32 character hex form of its 128-bit
+--              value (IPv4 addresses in IPv4-mapped form ::ffff:a.b.c.d). Exact, prefix and
+--              CIDR searches become range scans on idx_ip_address_key instead of LIKE or
+--              in-memory matching. Values that are not valid IP addresses keep a NULL key.
+--              The application also fills missing keys on startup.
+
+USE personnel_tracking;
+
+ALTER TABLE entry_exit_records
+ADD COLUMN IF NOT EXISTS ip_address_key CHAR(32) NULL COMMENT 'Hex of 128-bit IP address, IPv4-mapped for IPv4';
+
+-- Fill in keys of existing records
+UPDATE entry_exit_records
+SET ip_address_key = CASE
+        WHEN IS_IPV4(ip_address) THEN LOWER(CONCAT('00000000000000000000ffff', HEX(INET6_ATON(ip_address))))
+        WHEN IS_IPV6(ip_address) THEN LOWER(HEX(INET6_ATON(ip_address)))
+    END
+WHERE ip_address IS NOT NULL AND ip_address_key IS NULL;
+
+CREATE INDEX IF NOT EXISTS idx_ip_address_key ON entry_exit_records(ip_address_key, timestamp);
+
+-- Verify the changes
+DESCRIBE entry_exit_records;
@@ -0,0 +1,15 @@
+-- Migration: Persist IP compliance status on entry/exit records
+-- Date: 2026-10-16
+-- Description: Stores the IP compliance status evaluated at scan time so that mismatch
+--              listings and filters are indexed queries. Existing rows stay NULL and are
+--              evaluated by the application's background backfill job.
+
+USE personnel_tracking;
+
+ALTER TABLE entry_exit_records
+ADD COLUMN IF NOT EXISTS ip_compliance_status VARCHAR(20) NULL COMMENT 'MATCH, MISMATCH, NO_ASSIGNMENT or UNKNOWN_IP';
+
+CREATE INDEX IF NOT EXISTS idx_ip_compliance_status ON entry_exit_records(ip_compliance_status, timestamp);
+
+-- Verify the changes
+DESCRIBE entry_exit_records;
@@ -0,0 +1,25 @@
+-- Migration: Add precomputed IP usage statistics
+-- Date: 2026-10-16
+-- Description: Holds entry/exit counters per department and IP address, incremented after
+--              each scan, so the admin IP statistics screen no longer loads every record.
+--              The application fills the table on startup when it is empty; it can be
+--              rebuilt at any time via POST /api/admin/records/ip-statistics/rebuild.
+
+USE personnel_tracking;
+
+CREATE TABLE IF NOT EXISTS ip_usage_stats (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    department_code VARCHAR(10) NOT NULL COMMENT 'Owner department at scan time, empty if none',
+    ip_address VARCHAR(45) NOT NULL COMMENT 'Empty for records without an IP address',
+    ip_version INT NOT NULL COMMENT '4, 6 or 0 if unknown',
+    record_count BIGINT NOT NULL DEFAULT 0,
+    match_count BIGINT NOT NULL DEFAULT 0,
+    mismatch_count BIGINT NOT NULL DEFAULT 0,
+    other_count BIGINT NOT NULL DEFAULT 0,
+    updated_at DATETIME NULL,
+    CONSTRAINT uk_ip_usage_department_ip UNIQUE (department_code, ip_address),
+    INDEX idx_ip_usage_ip_address (ip_address)
+);
+
+-- Verify the changes
+DESCRIBE ip_usage_stats;
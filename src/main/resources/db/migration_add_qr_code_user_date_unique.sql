@@ -0,0 +1,21 @@
+-- Migration: Make daily QR codes unique per user and date
+-- Date: 2026-10-16
+-- Description: Replaces the non-unique (user_id, valid_date) index of qr_codes with a unique
+--              key, so the nightly pre-generation (INSERT IGNORE) and on-demand creation can
+--              never store a second code for the same user and day. Existing duplicates are
+--              removed first, keeping the most used code (then the oldest) of each user and day.
+
+USE personnel_tracking;
+
+DELETE q FROM qr_codes q
+JOIN qr_codes k ON k.user_id = q.user_id
+    AND k.valid_date = q.valid_date
+    AND (k.usage_count > q.usage_count OR (k.usage_count = q.usage_count AND k.id < q.id));
+
+ALTER TABLE qr_codes ADD UNIQUE KEY uk_user_valid_date (user_id, valid_date);
+
+-- The unique key covers the same columns and also backs the user_id foreign key
+ALTER TABLE qr_codes DROP INDEX idx_user_date;
+
+-- Verify the changes
+SHOW INDEX FROM qr_codes;
@@ -0,0 +1,11 @@
+-- Migration: Add keyset pagination index for entry/exit records
+-- Date: 2026-10-16
+-- Description: Adds a composite (timestamp, id) index so cursor-based record listing
+--              can seek directly to the next slice instead of scanning past an offset
+
+USE personnel_tracking;
+
+CREATE INDEX IF NOT EXISTS idx_timestamp_id ON entry_exit_records(timestamp, id);
+
+-- Verify the changes
+SHOW INDEX FROM entry_exit_records;
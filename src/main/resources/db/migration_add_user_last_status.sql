@@ -0,0 +1,33 @@
+-- Migration: Add stored last entry/exit status per user
+-- Date: 2026-10-16
+-- Description: Holds each user's last entry/exit event, written in the same transaction as
+--              the record, so status checks on every scan and /api/mobil/durum read one row
+--              by primary key. A (user_id, timestamp) index backs the latest-record lookup
+--              used for users without a stored status. The application also fills in
+--              missing users on startup.
+
+USE personnel_tracking;
+
+CREATE INDEX IF NOT EXISTS idx_user_timestamp ON entry_exit_records(user_id, timestamp);
+
+CREATE TABLE IF NOT EXISTS user_last_status (
+    user_id BIGINT PRIMARY KEY,
+    last_type VARCHAR(10) NOT NULL COMMENT 'ENTRY or EXIT',
+    last_timestamp DATETIME NOT NULL,
+    last_record_id BIGINT NOT NULL COMMENT 'Orders events with the same timestamp',
+    updated_at DATETIME NULL
+);
+
+-- Fill in the last event of existing users
+INSERT INTO user_last_status (user_id, last_type, last_timestamp, last_record_id, updated_at)
+SELECT e.user_id, e.type, e.timestamp, e.id, NOW()
+FROM entry_exit_records e
+WHERE NOT EXISTS (
+        SELECT 1 FROM entry_exit_records n
+        WHERE n.user_id = e.user_id
+          AND (n.timestamp > e.timestamp OR (n.timestamp = e.timestamp AND n.id > e.id)))
+  AND NOT EXISTS (SELECT 1 FROM user_last_status s WHERE s.user_id = e.user_id);
+
+-- Verify the changes
+DESCRIBE user_last_status;
+SHOW INDEX FROM entry_exit_records;
@@ -43,7 +43,7 @@ CREATE TABLE IF NOT EXISTS qr_codes (
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     version BIGINT DEFAULT 0,
     FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE,
-    INDEX idx_user_date (user_id, valid_date),
+    UNIQUE KEY uk_user_valid_date (user_id, valid_date),
     INDEX idx_qr_value (qr_code_value),
     CONSTRAINT chk_usage_count CHECK (usage_count >= 0)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
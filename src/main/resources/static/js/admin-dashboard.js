@@ -1,18 +1,75 @@
 // Admin Dashboard JavaScript
 
 let dashboardRefreshInterval;
+let recentActivityRefreshInterval;
+let dashboardEventSource;
+
+// Full refresh interval while live updates are connected (counters arrive as events)
+const LIVE_REFRESH_INTERVAL_MS = 300000;
+// Refresh interval of the recent records and audit logs while live updates are connected
+const LIVE_RECENT_ACTIVITY_REFRESH_INTERVAL_MS = 30000;
+// Polling interval when live updates are not available
+const POLL_REFRESH_INTERVAL_MS = 30000;
 
 // Initialize dashboard
 document.addEventListener('DOMContentLoaded', function() {
-    loadDashboardStats();
     loadIpTrackingInfo();
     
-    // Set up auto-refresh every 30 seconds
+    if (!connectDashboardStream()) {
+        loadDashboardStats();
+        startDashboardRefresh(POLL_REFRESH_INTERVAL_MS);
+    }
+});
+
+// Set up auto-refresh of the full statistics
+function startDashboardRefresh(intervalMs) {
+    if (dashboardRefreshInterval) {
+        clearInterval(dashboardRefreshInterval);
+    }
     dashboardRefreshInterval = setInterval(() => {
         loadDashboardStats();
         loadIpTrackingInfo();
-    }, 30000);
-});
+    }, intervalMs);
+}
+
+// Subscribe to live dashboard updates (Server-Sent Events, authenticated by the jwt cookie)
+function connectDashboardStream() {
+    if (typeof EventSource === 'undefined') {
+        return false;
+    }
+    
+    dashboardEventSource = new EventSource('/api/admin/dashboard/stream');
+    
+    dashboardEventSource.addEventListener('stats', event => {
+        updateDashboardStats(JSON.parse(event.data));
+    });
+    
+    dashboardEventSource.addEventListener('counters', event => {
+        updateDashboardCounters(JSON.parse(event.data));
+    });
+    
+    dashboardEventSource.onerror = () => {
+        // The browser reconnects by itself; fall back to polling only if the stream was refused
+        if (dashboardEventSource.readyState === EventSource.CLOSED) {
+            dashboardEventSource = null;
+            clearInterval(recentActivityRefreshInterval);
+            loadDashboardStats();
+            startDashboardRefresh(POLL_REFRESH_INTERVAL_MS);
+        }
+    };
+    
+    startDashboardRefresh(LIVE_REFRESH_INTERVAL_MS);
+    recentActivityRefreshInterval = setInterval(loadRecentActivity, LIVE_RECENT_ACTIVITY_REFRESH_INTERVAL_MS);
+    return true;
+}
+
+// Update the stat cards from a live counters event
+function updateDashboardCounters(counters) {
+    updateElement('todayEntries', counters.todayEntryCount || 0);
+    updateElement('todayExits', counters.todayExitCount || 0);
+    updateElement('todayTotal', counters.todayTotalActivity || 0);
+    updateElement('lastUpdated', formatTime(counters.lastUpdated));
+}
 
 // Load dashboard statistics
 async function loadDashboardStats() {
@@ -34,6 +91,21 @@ async function loadDashboardStats() {
     }
 }
 
+// Refresh only the recent-activity lists; the stat cards are kept current by live events
+async function loadRecentActivity() {
+    try {
+        const response = await makeAuthenticatedRequest('/api/admin/dashboard/stats');
+        
+        if (response && response.ok) {
+            const stats = await response.json();
+            updateRecentRecords(stats.recentRecords || []);
+            updateRecentAuditLogs(stats.recentAuditLogs || []);
+        }
+    } catch (error) {
+        console.error('Recent activity loading failed:', error);
+    }
+}
+
 // Update dashboard statistics in UI
 function updateDashboardStats(stats) {
     // Update stat cards
@@ -354,4 +426,10 @@ window.addEventListener('beforeunload', function() {
     if (dashboardRefreshInterval) {
         clearInterval(dashboardRefreshInterval);
     }
+    if (recentActivityRefreshInterval) {
+        clearInterval(recentActivityRefreshInterval);
+    }
+    if (dashboardEventSource) {
+        dashboardEventSource.close();
+    }
 });
\ No newline at end of file
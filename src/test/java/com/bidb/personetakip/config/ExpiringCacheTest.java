@@ -0,0 +1,75 @@
+package com.bidb.personetakip.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ExpiringCache
+ * Tests Requirements: 1.2
+ */
+class ExpiringCacheTest {
+
+    @Test
+    void testEntriesExpireAfterTtl() throws InterruptedException {
+        ExpiringCache cache = new ExpiringCache("test", Duration.ofMillis(50), 10, ExpiringCache.EvictionPolicy.LRU);
+
+        cache.put("key", "value");
+        assertEquals("value", cache.get("key", String.class));
+
+        Thread.sleep(100);
+        assertNull(cache.get("key"));
+
+        ExpiringCache.Stats stats = cache.getStats();
+        assertEquals(1, stats.hits());
+        assertEquals(1, stats.misses());
+        assertEquals(1, stats.expirations());
+        assertEquals(0, stats.size());
+    }
+
+    @Test
+    void testLruEvictsLeastRecentlyUsedEntry() {
+        ExpiringCache cache = new ExpiringCache("test", Duration.ofMinutes(1), 2, ExpiringCache.EvictionPolicy.LRU);
+
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.get("a");
+        cache.put("c", 3);
+
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+        assertEquals(1, cache.getStats().evictions());
+    }
+
+    @Test
+    void testFifoEvictsOldestInsertedEntry() {
+        ExpiringCache cache = new ExpiringCache("test", Duration.ofMinutes(1), 2, ExpiringCache.EvictionPolicy.FIFO);
+
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.get("a");
+        cache.put("c", 3);
+
+        assertNull(cache.get("a"));
+        assertNotNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+        assertEquals(2, cache.getStats().size());
+    }
+
+    @Test
+    void testValueLoaderRunsOnlyOnMiss() {
+        ExpiringCache cache = new ExpiringCache("test", Duration.ofMinutes(1), 10, ExpiringCache.EvictionPolicy.LRU);
+        int[] loads = {0};
+
+        assertEquals("IT", cache.get(1L, () -> { loads[0]++; return "IT"; }));
+        assertEquals("IT", cache.get(1L, () -> { loads[0]++; return "HR"; }));
+        assertEquals(1, loads[0]);
+
+        cache.evict(1L);
+        assertEquals("HR", cache.get(1L, () -> { loads[0]++; return "HR"; }));
+        assertEquals(1.0 / 3, cache.getStats().hitRatio(), 0.0001);
+    }
+}
@@ -0,0 +1,107 @@
+package com.bidb.personetakip.controller;
+
+import com.bidb.personetakip.model.EntryExitRecord;
+import com.bidb.personetakip.model.EntryExitType;
+import com.bidb.personetakip.model.User;
+import com.bidb.personetakip.model.UserRole;
+import com.bidb.personetakip.repository.EntryExitRecordRepository;
+import com.bidb.personetakip.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test for the streamed CSV export.
+ * Checks that the streamed body starts with the header row and contains exactly one row per
+ * matching record, newest first, when the records span several export chunks.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+public class CsvExportStreamingPropertyTest {
+
+    /**
+     * More than two export chunks of 500 records
+     */
+    private static final int RECORD_COUNT = 1201;
+
+    @Autowired
+    private AdminRecordsController adminRecordsController;
+
+    @Autowired
+    private EntryExitRecordRepository entryExitRecordRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void testStreamedExportHasHeaderAndOneRowPerRecord() throws Exception {
+        LocalDate day = LocalDate.of(2032, 1, 12);
+        User user = userRepository.save(User.builder()
+                .tcNo("12345678971")
+                .firstName("Csv")
+                .lastName("Export")
+                .personnelNo("CSV971")
+                .departmentCode("CSVX")
+                .departmentName("Csv Department")
+                .mobilePhone("05551234971")
+                .passwordHash("$2a$10$dummyHashForTesting")
+                .role(UserRole.NORMAL_USER)
+                .build());
+
+        List<EntryExitRecord> records = new ArrayList<>();
+        for (int i = 0; i < RECORD_COUNT; i++) {
+            records.add(EntryExitRecord.builder()
+                    .userId(user.getId())
+                    .type(i % 2 == 0 ? EntryExitType.ENTRY : EntryExitType.EXIT)
+                    .timestamp(day.atTime(8, 0).plusSeconds(i))
+                    .qrCodeValue("QR-CSV-" + i)
+                    .latitude(41.0082)
+                    .longitude(28.9784)
+                    .build());
+        }
+        entryExitRecordRepository.saveAll(records);
+
+        ResponseEntity<StreamingResponseBody> response = adminRecordsController.exportRecordsCsv(
+                day, day, null, "CSVX", null, null, null);
+        assertTrue(response.getStatusCode().is2xxSuccessful());
+        assertEquals("text/csv;charset=UTF-8", response.getHeaders().getContentType().toString());
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        response.getBody().writeTo(output);
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+
+        // Property: the header row comes first
+        assertTrue(lines[0].startsWith("Tarih,Saat,TC Kimlik No,Ad Soyad"));
+
+        // Property: one row per matching record across all chunks
+        assertEquals(RECORD_COUNT + 1, lines.length);
+        for (int i = 1; i < lines.length; i++) {
+            assertTrue(lines[i].contains("12345678971"), "Row " + i + " should belong to the seeded user");
+        }
+
+        // Property: rows are written newest first and no record is repeated at a chunk boundary
+        LocalDateTime last = day.atTime(8, 0).plusSeconds(RECORD_COUNT - 1);
+        assertTrue(lines[1].contains("QR-CSV-" + (RECORD_COUNT - 1) + ","));
+        assertTrue(lines[1].startsWith("12.01.2032," + last.format(DateTimeFormatter.ofPattern("HH:mm:ss")) + ","));
+        assertTrue(lines[lines.length - 1].contains("QR-CSV-0,"));
+        assertEquals(RECORD_COUNT, Arrays.stream(lines).skip(1).distinct().count());
+    }
+}
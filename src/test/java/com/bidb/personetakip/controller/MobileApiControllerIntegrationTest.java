@@ -1,5 +1,6 @@
 package com.bidb.personetakip.controller;
 
+import com.bidb.personetakip.dto.EntryExitBatchRequestDto;
 import com.bidb.personetakip.dto.EntryExitRequestDto;
 import com.bidb.personetakip.model.*;
 import com.bidb.personetakip.repository.EntryExitRecordRepository;
@@ -21,6 +22,7 @@ import org.springframework.web.context.WebApplicationContext;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
@@ -322,20 +324,11 @@ class MobileApiControllerIntegrationTest {
             28.9784
         );
 
-        // Make 20 requests (should all succeed, but only first 2 will actually record due to QR code limit)
-        // We need to create new QR codes for each request
+        // Make 20 requests (should all succeed); a user has one QR code per day, so all of them use it
         for (int i = 0; i < 20; i++) {
-            // Create a new QR code for each request
-            QrCode qrCode = new QrCode();
-            qrCode.setUserId(testUser.getId());
-            qrCode.setQrCodeValue("TEST-QR-CODE-" + i);
-            qrCode.setValidDate(LocalDate.now());
-            qrCode.setUsageCount(0);
-            qrCodeRepository.save(qrCode);
-
             EntryExitRequestDto req = new EntryExitRequestDto(
-                "TEST-QR-CODE-" + i,
-                LocalDateTime.now(),
+                "TEST-QR-CODE-123",
+                LocalDateTime.now().plusSeconds(i),
                 41.0082,
                 28.9784
             );
@@ -348,16 +341,9 @@ class MobileApiControllerIntegrationTest {
         }
 
         // 21st request should be rate limited
-        QrCode qrCode = new QrCode();
-        qrCode.setUserId(testUser.getId());
-        qrCode.setQrCodeValue("TEST-QR-CODE-21");
-        qrCode.setValidDate(LocalDate.now());
-        qrCode.setUsageCount(0);
-        qrCodeRepository.save(qrCode);
-
         EntryExitRequestDto req = new EntryExitRequestDto(
-            "TEST-QR-CODE-21",
-            LocalDateTime.now(),
+            "TEST-QR-CODE-123",
+            LocalDateTime.now().plusSeconds(20),
             41.0082,
             28.9784
         );
@@ -408,11 +394,122 @@ class MobileApiControllerIntegrationTest {
         assertThat(records.get(0).getType()).isEqualTo(EntryExitType.ENTRY);
         assertThat(records.get(1).getType()).isEqualTo(EntryExitType.EXIT);
 
-        // Step 4: Try to use QR code again (should fail)
+        // Step 4: Try to use QR code again in a new scan (should fail)
+        EntryExitRequestDto thirdRequest = new EntryExitRequestDto(
+            "TEST-QR-CODE-123",
+            LocalDateTime.now().plusSeconds(1),
+            41.0082,
+            28.9784
+        );
+
         mockMvc.perform(post("/api/mobil/giris-cikis-kaydet")
                 .header("Authorization", "Bearer " + jwtToken)
                 .contentType(MediaType.APPLICATION_JSON)
-                .content(objectMapper.writeValueAsString(exitRequest)))
+                .content(objectMapper.writeValueAsString(thirdRequest)))
             .andExpect(status().isBadRequest());
     }
+
+    @Test
+    void testRecordEntryExit_RetryWithIdempotencyKeyReturnsOriginalRecord() throws Exception {
+        EntryExitRequestDto request = new EntryExitRequestDto(
+            "TEST-QR-CODE-123",
+            LocalDateTime.now(),
+            41.0082,
+            28.9784
+        );
+        EntryExitRequestDto retry = new EntryExitRequestDto(
+            "TEST-QR-CODE-123",
+            request.timestamp().plusSeconds(5),
+            41.0082,
+            28.9784
+        );
+
+        String original = mockMvc.perform(post("/api/mobil/giris-cikis-kaydet")
+                .header("Authorization", "Bearer " + jwtToken)
+                .header("Idempotency-Key", "scan-" + testUser.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.type").value("ENTRY"))
+            .andReturn().getResponse().getContentAsString();
+
+        // The retry is rebuilt by the client with a new timestamp but keeps its key
+        String replayed = mockMvc.perform(post("/api/mobil/giris-cikis-kaydet")
+                .header("Authorization", "Bearer " + jwtToken)
+                .header("Idempotency-Key", "scan-" + testUser.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(retry)))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+
+        assertThat(replayed).isEqualTo(original);
+        assertThat(entryExitRecordRepository.findAll()).hasSize(1);
+        assertThat(qrCodeRepository.findByQrCodeValue("TEST-QR-CODE-123").get().getUsageCount()).isEqualTo(1);
+    }
+
+    @Test
+    void testRecordEntryExit_IdenticalSubmissionWithinWindowIsRecordedOnce() throws Exception {
+        EntryExitRequestDto request = new EntryExitRequestDto(
+            "TEST-QR-CODE-123",
+            LocalDateTime.now(),
+            41.0082,
+            28.9784
+        );
+
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(post("/api/mobil/giris-cikis-kaydet")
+                    .header("Authorization", "Bearer " + jwtToken)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.type").value("ENTRY"));
+        }
+
+        assertThat(entryExitRecordRepository.findAll()).hasSize(1);
+        assertThat(qrCodeRepository.findByQrCodeValue("TEST-QR-CODE-123").get().getUsageCount()).isEqualTo(1);
+    }
+
+    @Test
+    void testRecordEntryExitBatch_ResultPerScanAndDuplicatesOnReupload() throws Exception {
+        // Scans of today, so that they use today's QR code even just after midnight
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime start = now.minusSeconds(30).isBefore(now.toLocalDate().atStartOfDay())
+            ? now.toLocalDate().atStartOfDay()
+            : now.minusSeconds(30);
+        EntryExitBatchRequestDto batch = new EntryExitBatchRequestDto(List.of(
+            new EntryExitRequestDto("TEST-QR-CODE-123", start, 41.0082, 28.9784),
+            new EntryExitRequestDto("TEST-QR-CODE-123", start.plusSeconds(5), 91.0, 28.9784),
+            new EntryExitRequestDto("TEST-QR-CODE-123", start.plusSeconds(10), 41.0082, 28.9784)
+        ));
+
+        mockMvc.perform(post("/api/mobil/giris-cikis-toplu-kaydet")
+                .header("Authorization", "Bearer " + jwtToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(batch)))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(3))
+            .andExpect(jsonPath("$[0].status").value("RECORDED"))
+            .andExpect(jsonPath("$[0].record.type").value("ENTRY"))
+            .andExpect(jsonPath("$[1].status").value("REJECTED"))
+            .andExpect(jsonPath("$[1].message").exists())
+            .andExpect(jsonPath("$[2].status").value("RECORDED"))
+            .andExpect(jsonPath("$[2].record.type").value("EXIT"));
+
+        assertThat(entryExitRecordRepository.findAll()).hasSize(2);
+        assertThat(qrCodeRepository.findByQrCodeValue("TEST-QR-CODE-123").get().getUsageCount()).isEqualTo(2);
+
+        // Sending the same backlog again records nothing new
+        mockMvc.perform(post("/api/mobil/giris-cikis-toplu-kaydet")
+                .header("Authorization", "Bearer " + jwtToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(batch)))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$[0].status").value("DUPLICATE"))
+            .andExpect(jsonPath("$[0].record.type").value("ENTRY"))
+            .andExpect(jsonPath("$[2].status").value("DUPLICATE"))
+            .andExpect(jsonPath("$[2].record.type").value("EXIT"));
+
+        assertThat(entryExitRecordRepository.findAll()).hasSize(2);
+        assertThat(qrCodeRepository.findByQrCodeValue("TEST-QR-CODE-123").get().getUsageCount()).isEqualTo(2);
+    }
 }
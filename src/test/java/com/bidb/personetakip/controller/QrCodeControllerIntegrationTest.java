@@ -22,6 +22,8 @@ import org.springframework.web.context.WebApplicationContext;
 import java.time.LocalDate;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.startsWith;
 import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -162,6 +164,51 @@ class QrCodeControllerIntegrationTest {
         assertThat(imageBytes.length).isGreaterThan(100);
     }
 
+    @Test
+    void testGetQrCodeImage_NotModifiedWithETag() throws Exception {
+        String etag = mockMvc.perform(get("/api/qrcode/image")
+                .param("qrCodeValue", "TEST-QR-CODE-123")
+                .header("Authorization", "Bearer " + jwtToken))
+            .andExpect(status().isOk())
+            .andExpect(header().exists("ETag"))
+            .andExpect(header().string("Cache-Control", containsString("max-age=86400")))
+            .andReturn()
+            .getResponse()
+            .getHeader("ETag");
+
+        // Same image revalidated with its ETag
+        mockMvc.perform(get("/api/qrcode/image")
+                .param("qrCodeValue", "TEST-QR-CODE-123")
+                .header("If-None-Match", etag)
+                .header("Authorization", "Bearer " + jwtToken))
+            .andExpect(status().isNotModified());
+
+        // Other formats and sizes have their own ETag
+        mockMvc.perform(get("/api/qrcode/image")
+                .param("qrCodeValue", "TEST-QR-CODE-123")
+                .param("format", "svg")
+                .header("If-None-Match", etag)
+                .header("Authorization", "Bearer " + jwtToken))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType("image/svg+xml"))
+            .andExpect(content().string(startsWith("<svg")));
+    }
+
+    @Test
+    void testGetQrCodeImage_InvalidSizeOrFormat() throws Exception {
+        mockMvc.perform(get("/api/qrcode/image")
+                .param("qrCodeValue", "TEST-QR-CODE-123")
+                .param("size", "5000")
+                .header("Authorization", "Bearer " + jwtToken))
+            .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/api/qrcode/image")
+                .param("qrCodeValue", "TEST-QR-CODE-123")
+                .param("format", "gif")
+                .header("Authorization", "Bearer " + jwtToken))
+            .andExpect(status().isBadRequest());
+    }
+
     @Test
     void testGetQrCodeImage_Unauthorized() throws Exception {
         mockMvc.perform(get("/api/qrcode/image")
@@ -0,0 +1,135 @@
+package com.bidb.personetakip.security;
+
+import com.bidb.personetakip.dto.QrCodeValidationDto;
+import com.bidb.personetakip.repository.QrCodeRepository;
+import com.bidb.personetakip.service.QrCodeServiceImpl;
+import com.bidb.personetakip.service.UserIdGenerator;
+import com.pholser.junit.quickcheck.From;
+import com.pholser.junit.quickcheck.Property;
+import com.pholser.junit.quickcheck.runner.JUnitQuickcheck;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Optional;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Property-based tests for signed daily QR code tokens.
+ *
+ * Property: For any user and date, a signed token verifies to the same user and date under
+ * every configured key, while tampered tokens and tokens of unknown keys are rejected, and
+ * foreign or stale tokens are rejected before the database is queried.
+ */
+@RunWith(JUnitQuickcheck.class)
+public class QrTokenSignerPropertyTest {
+
+    private static final String OLD_KEY = "k1:0123456789abcdef0123456789abcdef";
+    private static final String NEW_KEY = "k2:fedcba9876543210fedcba9876543210";
+
+    private QrTokenSigner signer;
+
+    @Before
+    public void setUp() {
+        signer = new QrTokenSigner(OLD_KEY + "," + NEW_KEY, "k2", false);
+    }
+
+    /**
+     * Property: a signed token verifies to the claims it was created with
+     */
+    @Property(trials = 100)
+    public void signedTokenRoundTrips(@From(UserIdGenerator.class) Long userId) {
+        LocalDate date = LocalDate.now().plusDays(userId % 30);
+
+        String token = signer.sign(userId, date);
+
+        assertTrue(QrTokenSigner.isSignedToken(token));
+        assertEquals(Optional.of(new QrTokenSigner.QrTokenClaims(userId, date, "k2")), signer.verify(token));
+    }
+
+    /**
+     * Property: tokens signed with a rotated-out key stay valid while the key is configured
+     */
+    @Property(trials = 50)
+    public void tokensOfPreviousKeyVerifyAfterRotation(@From(UserIdGenerator.class) Long userId) {
+        LocalDate today = LocalDate.now();
+        String oldToken = new QrTokenSigner(OLD_KEY, "k1", false).sign(userId, today);
+
+        assertEquals(Optional.of(new QrTokenSigner.QrTokenClaims(userId, today, "k1")), signer.verify(oldToken));
+        assertEquals(Optional.empty(), new QrTokenSigner(NEW_KEY, "k2", false).verify(oldToken));
+    }
+
+    /**
+     * Property: changing the user ID or date of a token invalidates its signature
+     */
+    @Property(trials = 100)
+    public void tamperedTokenIsRejected(@From(UserIdGenerator.class) Long userId) {
+        LocalDate today = LocalDate.now();
+        String token = signer.sign(userId, today);
+
+        String otherUser = token.replaceFirst("^QR1\\." + userId + "\\.", "QR1." + (userId + 1) + ".");
+        String otherDate = token.replace(
+                today.format(DateTimeFormatter.BASIC_ISO_DATE),
+                today.plusDays(1).format(DateTimeFormatter.BASIC_ISO_DATE));
+
+        assertEquals(Optional.empty(), signer.verify(otherUser));
+        assertEquals(Optional.empty(), signer.verify(otherDate));
+        assertEquals(Optional.empty(), signer.verify(token.substring(0, token.length() - 2)));
+        assertEquals(Optional.empty(), signer.verify("QR1." + userId));
+    }
+
+    /**
+     * Property: a signer that requires a key refuses to start without one
+     */
+    @Test(expected = IllegalStateException.class)
+    public void requiredSignerWithoutKeysFailsToStart() {
+        new QrTokenSigner("", "", true);
+    }
+
+    /**
+     * Property: foreign and stale tokens are rejected without querying qr_codes
+     */
+    @Property(trials = 50)
+    public void foreignAndStaleTokensAreRejectedWithoutLookup(@From(UserIdGenerator.class) Long userId) {
+        QrCodeRepository qrCodeRepository = mock(QrCodeRepository.class);
+        QrCodeServiceImpl qrCodeService = new QrCodeServiceImpl(qrCodeRepository, signer);
+        LocalDate today = LocalDate.now();
+
+        QrCodeValidationDto foreign = qrCodeService.validateQrCode(signer.sign(userId, today), userId + 1);
+        QrCodeValidationDto stale = qrCodeService.validateQrCode(signer.sign(userId, today.minusDays(1)), userId);
+
+        assertFalse(foreign.valid());
+        assertEquals("QR code does not belong to user", foreign.message());
+        assertFalse(stale.valid());
+        assertEquals("QR code is not valid for today", stale.message());
+        assertTrue(qrCodeService.precheckQrCode(signer.sign(userId, today), userId).isEmpty());
+        verifyNoInteractions(qrCodeRepository);
+    }
+
+    /**
+     * Property: a late uploaded scan is checked against the day it was made, within the upload window
+     */
+    @Property(trials = 50)
+    public void lateScansAreCheckedAgainstTheirScanDate(@From(UserIdGenerator.class) Long userId) {
+        QrCodeServiceImpl qrCodeService = new QrCodeServiceImpl(mock(QrCodeRepository.class), signer);
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        LocalDate longAgo = LocalDate.now().minusDays(10);
+
+        assertTrue(qrCodeService.precheckQrCode(signer.sign(userId, yesterday), userId,
+                yesterday.atTime(8, 30)).isEmpty());
+
+        Optional<QrCodeValidationDto> wrongDay = qrCodeService.precheckQrCode(
+                signer.sign(userId, LocalDate.now()), userId, yesterday.atTime(8, 30));
+        assertTrue(wrongDay.isPresent());
+        assertEquals("QR code is not valid for the scan date", wrongDay.get().message());
+
+        Optional<QrCodeValidationDto> tooOld = qrCodeService.precheckQrCode(
+                signer.sign(userId, longAgo), userId, longAgo.atTime(8, 30));
+        assertTrue(tooOld.isPresent());
+        assertEquals("Scan is too old to be uploaded", tooOld.get().message());
+    }
+}
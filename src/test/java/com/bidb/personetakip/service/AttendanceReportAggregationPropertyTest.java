@@ -0,0 +1,121 @@
+package com.bidb.personetakip.service;
+
+import com.bidb.personetakip.dto.AttendanceReportDto;
+import com.bidb.personetakip.dto.AttendanceReportDto.PersonnelAttendanceDto;
+import com.bidb.personetakip.model.EntryExitRecord;
+import com.bidb.personetakip.model.EntryExitType;
+import com.bidb.personetakip.model.User;
+import com.bidb.personetakip.model.UserRole;
+import com.bidb.personetakip.repository.EntryExitRecordRepository;
+import com.bidb.personetakip.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Property-based test for the attendance report aggregation.
+ * Tests that the grouped query yields the same per-person entry/exit counts, late entries
+ * (after 09:00), early exits (before 17:00) and last times as evaluating the records one by one.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+public class AttendanceReportAggregationPropertyTest {
+
+    @Autowired
+    private AttendanceReportService attendanceReportService;
+
+    @Autowired
+    private EntryExitRecordRepository entryExitRecordRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    public void testReportCountsMatchRecords() {
+        LocalDate day = LocalDate.of(2031, 5, 12);
+        User punctual = userRepository.save(buildUser("12345678991", "Ayse"));
+        User late = userRepository.save(buildUser("12345678992", "Mehmet"));
+        userRepository.save(buildUser("12345678993", "Zeynep"));
+
+        saveRecord(punctual, EntryExitType.ENTRY, day.atTime(8, 45));
+        saveRecord(punctual, EntryExitType.EXIT, day.atTime(17, 30));
+        saveRecord(late, EntryExitType.ENTRY, day.atTime(9, 0, 1));
+        saveRecord(late, EntryExitType.EXIT, day.atTime(12, 0));
+        saveRecord(late, EntryExitType.ENTRY, day.atTime(13, 0));
+        saveRecord(late, EntryExitType.EXIT, day.atTime(16, 59, 59));
+        // Records outside the period must not be counted
+        saveRecord(punctual, EntryExitType.ENTRY, day.plusDays(1).atTime(10, 0));
+
+        AttendanceReportDto report = attendanceReportService.generateReport(
+                day.atStartOfDay(), day.atTime(23, 59, 59), "RPT", "CUSTOM");
+
+        assertEquals(3, report.getTotalPersonnel());
+        assertEquals(2, report.getPersonnelWithEntries());
+        assertEquals(1, report.getPersonnelWithoutEntries());
+        assertEquals(1, report.getLateEntries());
+        assertEquals(1, report.getEarlyExits());
+
+        // Property: punctual person has no late entries or early exits
+        PersonnelAttendanceDto first = find(report, punctual);
+        assertEquals(1, first.getEntryCount());
+        assertEquals(1, first.getExitCount());
+        assertEquals(0, first.getLateEntryCount());
+        assertEquals(0, first.getEarlyExitCount());
+        assertEquals(day.atTime(8, 45), first.getLastEntryTime());
+        assertEquals(day.atTime(17, 30), first.getLastExitTime());
+
+        // Property: thresholds are exclusive and evaluated per record
+        PersonnelAttendanceDto second = find(report, late);
+        assertEquals(2, second.getEntryCount());
+        assertEquals(2, second.getExitCount());
+        assertEquals(2, second.getLateEntryCount());
+        assertEquals(2, second.getEarlyExitCount());
+        assertEquals(day.atTime(13, 0), second.getLastEntryTime());
+        assertEquals(day.atTime(16, 59, 59), second.getLastExitTime());
+
+        // Property: a person without records has zero counts
+        PersonnelAttendanceDto absent = report.getPersonnelWithoutEntriesList().get(0);
+        assertEquals(0, absent.getEntryCount());
+        assertNull(absent.getLastEntryTime());
+    }
+
+    private PersonnelAttendanceDto find(AttendanceReportDto report, User user) {
+        return report.getPersonnelWithEntriesList().stream()
+                .filter(dto -> dto.getUserId().equals(user.getId()))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private User buildUser(String tcNo, String firstName) {
+        return User.builder()
+                .tcNo(tcNo)
+                .firstName(firstName)
+                .lastName("User" + tcNo.substring(9))
+                .personnelNo("P" + tcNo.substring(7))
+                .departmentCode("RPT")
+                .departmentName("Report Department")
+                .mobilePhone("0555123" + tcNo.substring(7))
+                .passwordHash("$2a$10$dummyHashForTesting")
+                .role(UserRole.NORMAL_USER)
+                .build();
+    }
+
+    private void saveRecord(User user, EntryExitType type, LocalDateTime timestamp) {
+        entryExitRecordRepository.save(EntryExitRecord.builder()
+                .userId(user.getId())
+                .type(type)
+                .timestamp(timestamp)
+                .qrCodeValue("QR-" + timestamp)
+                .latitude(41.0082)
+                .longitude(28.9784)
+                .build());
+    }
+}
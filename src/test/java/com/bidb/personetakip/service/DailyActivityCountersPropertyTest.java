@@ -0,0 +1,109 @@
+package com.bidb.personetakip.service;
+
+import com.bidb.personetakip.model.EntryExitRecord;
+import com.bidb.personetakip.model.EntryExitType;
+import com.bidb.personetakip.model.User;
+import com.bidb.personetakip.model.UserRole;
+import com.bidb.personetakip.repository.EntryExitRecordRepository;
+import com.bidb.personetakip.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.transaction.AfterTransaction;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Property-based test for the in-memory daily activity counters.
+ * Tests that the counters loaded from the database plus the scans counted afterwards match
+ * today's records per department, and that changed departments are reported once.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+public class DailyActivityCountersPropertyTest {
+
+    @Autowired
+    private DailyActivityCounters dailyActivityCounters;
+
+    @Autowired
+    private EntryExitRecordRepository entryExitRecordRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    public void testCountersFollowTodaysRecordsPerDepartment() {
+        // Fixed times inside today, so the test does not depend on the time of day it runs at
+        LocalDateTime today = LocalDate.now().atStartOfDay();
+        User first = userRepository.save(buildUser("12345678981", "CNT-A"));
+        User second = userRepository.save(buildUser("12345678982", "CNT-B"));
+        entryExitRecordRepository.save(buildRecord(first, EntryExitType.ENTRY, today));
+
+        dailyActivityCounters.load();
+        dailyActivityCounters.drainChangedDepartments();
+
+        // Property: loaded counters match the stored records of today
+        DailyActivityCounters.Counts loaded = dailyActivityCounters.getCounts(List.of("CNT-A"));
+        assertEquals(1, loaded.entryCount());
+        assertEquals(0, loaded.exitCount());
+
+        // Property: each committed scan of today is counted for its user's department only
+        dailyActivityCounters.onEntryExitRecorded(new EntryExitRecordedEvent(
+                buildRecord(first, EntryExitType.EXIT, today.plusSeconds(1))));
+        dailyActivityCounters.onEntryExitRecorded(new EntryExitRecordedEvent(
+                buildRecord(second, EntryExitType.ENTRY, today.plusSeconds(1))));
+        assertEquals(2, dailyActivityCounters.getCounts(List.of("CNT-A")).totalActivity());
+        assertEquals(1, dailyActivityCounters.getCounts(List.of("CNT-A")).exitCount());
+        assertEquals(1, dailyActivityCounters.getCounts(List.of("CNT-B")).entryCount());
+        assertEquals(3, dailyActivityCounters.getCounts(List.of("CNT-A", "CNT-B")).totalActivity());
+
+        // Property: scans uploaded late for an earlier day are not counted
+        dailyActivityCounters.onEntryExitRecorded(new EntryExitRecordedEvent(
+                buildRecord(second, EntryExitType.EXIT, today.minusSeconds(1))));
+        assertEquals(0, dailyActivityCounters.getCounts(List.of("CNT-B")).exitCount());
+
+        // Property: changed departments are reported once
+        Set<String> changed = dailyActivityCounters.drainChangedDepartments();
+        assertTrue(changed.containsAll(Set.of("CNT-A", "CNT-B")));
+        assertFalse(dailyActivityCounters.drainChangedDepartments().contains("CNT-A"));
+    }
+
+    /**
+     * Reload the shared counters once the test data has been rolled back
+     */
+    @AfterTransaction
+    public void reloadCounters() {
+        dailyActivityCounters.load();
+    }
+
+    private EntryExitRecord buildRecord(User user, EntryExitType type, LocalDateTime timestamp) {
+        EntryExitRecord record = new EntryExitRecord();
+        record.setUserId(user.getId());
+        record.setType(type);
+        record.setTimestamp(timestamp);
+        record.setQrCodeValue("COUNTER-TEST-QR");
+        return record;
+    }
+
+    private User buildUser(String tcNo, String departmentCode) {
+        return User.builder()
+                .tcNo(tcNo)
+                .firstName("Test")
+                .lastName("User" + tcNo.substring(9))
+                .personnelNo("P" + tcNo.substring(7))
+                .departmentCode(departmentCode)
+                .departmentName(departmentCode + " Department")
+                .mobilePhone("0555123" + tcNo.substring(7))
+                .passwordHash("$2a$10$dummyHashForTesting")
+                .role(UserRole.NORMAL_USER)
+                .build();
+    }
+}
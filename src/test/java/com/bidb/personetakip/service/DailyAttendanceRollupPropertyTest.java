@@ -0,0 +1,156 @@
+package com.bidb.personetakip.service;
+
+import com.bidb.personetakip.dto.AttendanceReportDto;
+import com.bidb.personetakip.dto.AttendanceReportDto.PersonnelAttendanceDto;
+import com.bidb.personetakip.model.DailyAttendance;
+import com.bidb.personetakip.model.EntryExitRecord;
+import com.bidb.personetakip.model.EntryExitType;
+import com.bidb.personetakip.model.User;
+import com.bidb.personetakip.model.UserRole;
+import com.bidb.personetakip.repository.DailyAttendanceRepository;
+import com.bidb.personetakip.repository.EntryExitRecordRepository;
+import com.bidb.personetakip.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Property-based test for the daily attendance rollup.
+ * Tests that a user's row holds the day's counts, worked minutes and IP compliance counts,
+ * that closed days are finalized, and that reports over closed days read the rollup.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+public class DailyAttendanceRollupPropertyTest {
+
+    @Autowired
+    private DailyAttendanceRollupService dailyAttendanceRollupService;
+
+    @Autowired
+    private DailyAttendanceRepository dailyAttendanceRepository;
+
+    @Autowired
+    private AttendanceReportService attendanceReportService;
+
+    @Autowired
+    private EntryExitRecordRepository entryExitRecordRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    public void testRollupRowMatchesRecords() {
+        LocalDate day = LocalDate.of(2024, 3, 11);
+        User user = userRepository.save(buildUser("12345678981", "192.168.1.10"));
+
+        saveRecord(user, EntryExitType.ENTRY, day.atTime(9, 15), "192.168.1.10");
+        saveRecord(user, EntryExitType.EXIT, day.atTime(12, 0), "192.168.1.10");
+        saveRecord(user, EntryExitType.ENTRY, day.atTime(13, 0), "10.0.0.5");
+        saveRecord(user, EntryExitType.EXIT, day.atTime(16, 30), null);
+
+        assertEquals(1, dailyAttendanceRollupService.rebuildDay(day));
+        DailyAttendance row = dailyAttendanceRepository.findByUserIdAndAttendanceDate(user.getId(), day)
+                .orElseThrow();
+
+        // Property: counts and times are those of the day's records
+        assertEquals(2, row.getEntryCount());
+        assertEquals(2, row.getExitCount());
+        assertEquals(day.atTime(9, 15), row.getFirstEntryTime());
+        assertEquals(day.atTime(13, 0), row.getLastEntryTime());
+        assertEquals(day.atTime(16, 30), row.getLastExitTime());
+        assertEquals(2, row.getLateEntryCount());
+        assertEquals(2, row.getEarlyExitCount());
+
+        // Property: worked minutes sum each entry to the following exit
+        assertEquals(165 + 210, row.getWorkedMinutes());
+
+        // Property: each record is counted once by its IP compliance status
+        assertEquals(2, row.getIpMatchCount());
+        assertEquals(1, row.getIpMismatchCount());
+        assertEquals(0, row.getIpNoAssignmentCount());
+        assertEquals(1, row.getIpUnknownCount());
+
+        // Property: rows of closed days are finalized
+        assertTrue(row.isFinalized());
+    }
+
+    @Test
+    public void testReportOverClosedDaysReadsRollup() throws InterruptedException {
+        awaitRollupReady();
+        LocalDate day = LocalDate.of(2024, 3, 12);
+        User user = userRepository.save(buildUser("12345678982", null));
+
+        saveRecord(user, EntryExitType.ENTRY, day.atTime(8, 30), null);
+        saveRecord(user, EntryExitType.EXIT, day.atTime(17, 15), null);
+        dailyAttendanceRollupService.rebuildDay(day);
+
+        PersonnelAttendanceDto dto = report(day, user);
+        assertEquals(1, dto.getEntryCount());
+        assertEquals(1, dto.getExitCount());
+        assertEquals(0, dto.getLateEntryCount());
+        assertEquals(day.atTime(17, 15), dto.getLastExitTime());
+
+        // Property: a record of a closed day is reported once its row is refreshed
+        saveRecord(user, EntryExitType.ENTRY, day.atTime(18, 0), null);
+        assertEquals(1, report(day, user).getEntryCount());
+        dailyAttendanceRollupService.refreshDay(user.getId(), day);
+        PersonnelAttendanceDto refreshed = report(day, user);
+        assertEquals(2, refreshed.getEntryCount());
+        assertEquals(1, refreshed.getLateEntryCount());
+        assertEquals(day.atTime(18, 0), refreshed.getLastEntryTime());
+    }
+
+    /**
+     * Wait for the startup load, which runs in the background
+     */
+    private void awaitRollupReady() throws InterruptedException {
+        for (int i = 0; i < 100 && !dailyAttendanceRollupService.isReady(); i++) {
+            Thread.sleep(100);
+        }
+        assertTrue(dailyAttendanceRollupService.isReady(), "Rollup should be loaded after startup");
+    }
+
+    private PersonnelAttendanceDto report(LocalDate day, User user) {
+        AttendanceReportDto report = attendanceReportService.generateReport(
+                day.atStartOfDay(), day.atTime(23, 59, 59), "RLP", "CUSTOM");
+        return report.getPersonnelWithEntriesList().stream()
+                .filter(dto -> dto.getUserId().equals(user.getId()))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private User buildUser(String tcNo, String assignedIpAddresses) {
+        return User.builder()
+                .tcNo(tcNo)
+                .firstName("Rollup")
+                .lastName("User" + tcNo.substring(9))
+                .personnelNo("P" + tcNo.substring(7))
+                .departmentCode("RLP")
+                .departmentName("Rollup Department")
+                .mobilePhone("0555123" + tcNo.substring(7))
+                .passwordHash("$2a$10$dummyHashForTesting")
+                .role(UserRole.NORMAL_USER)
+                .assignedIpAddresses(assignedIpAddresses)
+                .build();
+    }
+
+    private void saveRecord(User user, EntryExitType type, LocalDateTime timestamp, String ipAddress) {
+        entryExitRecordRepository.save(EntryExitRecord.builder()
+                .userId(user.getId())
+                .type(type)
+                .timestamp(timestamp)
+                .qrCodeValue("QR-" + timestamp)
+                .latitude(41.0082)
+                .longitude(28.9784)
+                .ipAddress(ipAddress)
+                .build());
+    }
+}
@@ -0,0 +1,97 @@
+package com.bidb.personetakip.service;
+
+import com.bidb.personetakip.model.EntryExitRecord;
+import com.bidb.personetakip.model.EntryExitType;
+import com.bidb.personetakip.model.User;
+import com.bidb.personetakip.model.UserRole;
+import com.bidb.personetakip.repository.EntryExitRecordRepository;
+import com.bidb.personetakip.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Property-based test for daily summary statistics.
+ * Tests that the aggregate query returns the same totals, type counts and
+ * unique user counts as counting the day's records directly.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+public class DailySummaryStatsPropertyTest {
+
+    @Autowired
+    private AdminRecordsService adminRecordsService;
+
+    @Autowired
+    private EntryExitRecordRepository entryExitRecordRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    public void testDailySummaryMatchesDayRecords() {
+        LocalDate day = LocalDate.of(2031, 3, 14);
+        User first = userRepository.save(buildUser("12345678921"));
+        User second = userRepository.save(buildUser("12345678922"));
+
+        saveRecord(first, EntryExitType.ENTRY, day.atTime(8, 0));
+        saveRecord(first, EntryExitType.EXIT, day.atTime(12, 0));
+        saveRecord(first, EntryExitType.ENTRY, day.atTime(13, 0));
+        saveRecord(second, EntryExitType.ENTRY, day.atTime(9, 0));
+        // Records on neighbouring days must not be counted
+        saveRecord(second, EntryExitType.EXIT, day.minusDays(1).atTime(23, 59, 59));
+        saveRecord(second, EntryExitType.EXIT, day.plusDays(1).atStartOfDay());
+
+        AdminRecordsService.DailySummaryStats stats = adminRecordsService.getDailySummaryStats(day);
+        assertEquals(4, stats.getTotalRecords());
+        assertEquals(3, stats.getEntryCount());
+        assertEquals(1, stats.getExitCount());
+        assertEquals(2, stats.getUniqueUsers());
+
+        // Property: a day without records yields zero counts
+        AdminRecordsService.DailySummaryStats empty = adminRecordsService.getDailySummaryStats(day.plusDays(7));
+        assertEquals(0, empty.getTotalRecords());
+        assertEquals(0, empty.getEntryCount());
+        assertEquals(0, empty.getExitCount());
+        assertEquals(0, empty.getUniqueUsers());
+
+        // Property: department-scoped summary only counts users of those departments
+        EntryExitRecordRepository.ActivitySummary scoped = entryExitRecordRepository
+                .summarizeByTimestampBetweenAndUserDepartmentCodes(day.atStartOfDay(), day.atTime(23, 59, 59), List.of("NOPE"));
+        assertEquals(0, scoped.getTotalRecords());
+    }
+
+    private User buildUser(String tcNo) {
+        return User.builder()
+                .tcNo(tcNo)
+                .firstName("Test")
+                .lastName("User" + tcNo.substring(9))
+                .personnelNo("P" + tcNo.substring(7))
+                .departmentCode("IT")
+                .departmentName("IT Department")
+                .mobilePhone("0555123" + tcNo.substring(7))
+                .passwordHash("$2a$10$dummyHashForTesting")
+                .role(UserRole.NORMAL_USER)
+                .build();
+    }
+
+    private void saveRecord(User user, EntryExitType type, LocalDateTime timestamp) {
+        entryExitRecordRepository.save(EntryExitRecord.builder()
+                .userId(user.getId())
+                .type(type)
+                .timestamp(timestamp)
+                .qrCodeValue("QR-" + timestamp)
+                .latitude(41.0082)
+                .longitude(28.9784)
+                .build());
+    }
+}
@@ -0,0 +1,82 @@
+package com.bidb.personetakip.service;
+
+import com.bidb.personetakip.model.DepartmentPermission;
+import com.bidb.personetakip.model.User;
+import com.bidb.personetakip.model.UserRole;
+import com.bidb.personetakip.repository.DepartmentPermissionRepository;
+import com.bidb.personetakip.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Property-based test for department access resolution.
+ * Tests that department admins see their effective departments, that the result is cached,
+ * and that evicting the cache entry picks up permission changes.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+public class DepartmentAccessResolverPropertyTest {
+
+    @Autowired
+    private DepartmentAccessResolver departmentAccessResolver;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private DepartmentPermissionRepository departmentPermissionRepository;
+
+    @Test
+    public void testDepartmentAccessIsCachedUntilEvicted() {
+        User admin = userRepository.save(User.builder()
+                .tcNo("12345678911")
+                .firstName("Department")
+                .lastName("Admin")
+                .personnelNo("P5678911")
+                .departmentCode("IT")
+                .departmentName("IT Department")
+                .mobilePhone("05551235678")
+                .passwordHash("$2a$10$dummyHashForTesting")
+                .role(UserRole.DEPARTMENT_ADMIN)
+                .build());
+
+        // Property: admins can access all departments
+        assertNull(departmentAccessResolver.getAccessibleDepartmentCodes(authentication(admin.getId(), "ADMIN")));
+        assertNull(departmentAccessResolver.getAccessibleDepartmentCodes(admin.getId(), "SUPER_ADMIN"));
+
+        // Property: department admin without permissions falls back to own department
+        Authentication auth = authentication(admin.getId(), "DEPARTMENT_ADMIN");
+        assertEquals(List.of("IT"), departmentAccessResolver.getAccessibleDepartmentCodes(auth));
+
+        // Property: the resolved set is served from the cache until evicted
+        departmentPermissionRepository.save(DepartmentPermission.builder()
+                .userId(admin.getId())
+                .departmentCode("HR")
+                .createdBy(1L)
+                .build());
+        assertEquals(List.of("IT"), departmentAccessResolver.getAccessibleDepartmentCodes(auth));
+
+        departmentAccessResolver.evict(admin.getId());
+        assertEquals(List.of("HR"), departmentAccessResolver.getAccessibleDepartmentCodes(auth));
+        assertEquals(List.of("HR"), departmentAccessResolver.getAccessibleDepartmentCodes(admin.getId(), "DEPARTMENT_ADMIN"));
+
+        // Property: normal users cannot access any department
+        assertEquals(List.of(), departmentAccessResolver.getAccessibleDepartmentCodes(admin.getId(), "NORMAL_USER"));
+    }
+
+    private Authentication authentication(Long userId, String role) {
+        return new UsernamePasswordAuthenticationToken(userId, null,
+                List.of(new SimpleGrantedAuthority("ROLE_" + role)));
+    }
+}
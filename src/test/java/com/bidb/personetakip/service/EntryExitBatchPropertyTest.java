@@ -0,0 +1,151 @@
+package com.bidb.personetakip.service;
+
+import com.bidb.personetakip.dto.EntryExitBatchResultDto;
+import com.bidb.personetakip.dto.EntryExitRequestDto;
+import com.bidb.personetakip.model.EntryExitRecord;
+import com.bidb.personetakip.model.EntryExitType;
+import com.bidb.personetakip.model.QrCode;
+import com.bidb.personetakip.model.User;
+import com.bidb.personetakip.model.UserRole;
+import com.bidb.personetakip.repository.EntryExitRecordRepository;
+import com.bidb.personetakip.repository.QrCodeRepository;
+import com.bidb.personetakip.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.transaction.AfterTransaction;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Property-based test for batch uploads of offline scans.
+ * Tests that the scans of a batch are recorded in time order whatever the upload order,
+ * each against the QR code of its own day, and that future scans and scans older than the
+ * last recorded event are rejected.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+public class EntryExitBatchPropertyTest {
+
+    @Autowired
+    private EntryExitService entryExitService;
+
+    @Autowired
+    private EntryExitRecordRepository entryExitRecordRepository;
+
+    @Autowired
+    private QrCodeRepository qrCodeRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserLastStatusService userLastStatusService;
+
+    @Autowired
+    private PresenceRegistry presenceRegistry;
+
+    @Test
+    public void testBatchIsRecordedInTimeOrder() {
+        LocalDate firstDay = LocalDate.now().minusDays(2);
+        LocalDate secondDay = LocalDate.now().minusDays(1);
+        User user = userRepository.save(buildUser("12345678942"));
+        String firstDayQr = saveQrCode(user, firstDay);
+        String secondDayQr = saveQrCode(user, secondDay);
+        String todayQr = saveQrCode(user, LocalDate.now());
+
+        // Stored last event: the user entered on the first day
+        EntryExitRecord entry = entryExitRecordRepository.save(EntryExitRecord.builder()
+                .userId(user.getId())
+                .type(EntryExitType.ENTRY)
+                .timestamp(firstDay.atTime(7, 0))
+                .qrCodeValue(firstDayQr)
+                .latitude(41.0082)
+                .longitude(28.9784)
+                .build());
+        userLastStatusService.record(entry);
+        presenceRegistry.record(entry);
+
+        List<EntryExitRequestDto> batch = List.of(
+                scan(secondDayQr, secondDay.atTime(8, 0, 0, 123_456_789)),
+                scan(firstDayQr, firstDay.atTime(17, 0)),
+                scan(firstDayQr, firstDay.atTime(6, 0)),
+                scan(todayQr, LocalDateTime.now().plusHours(1)),
+                scan(secondDayQr, secondDay.atTime(17, 0)));
+
+        List<EntryExitBatchResultDto> results = entryExitService.recordEntryExitBatch(user.getId(), batch, null);
+
+        // Property: results keep the upload order
+        assertEquals(batch.size(), results.size());
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(i, results.get(i).index());
+        }
+
+        // Property: types alternate in time order from the stored last event, each scan using its own day's code
+        assertRecorded(results.get(1), EntryExitType.EXIT);
+        assertRecorded(results.get(0), EntryExitType.ENTRY);
+        assertRecorded(results.get(4), EntryExitType.EXIT);
+
+        // Property: scan times are stored in whole seconds, as the timestamp column keeps them
+        assertEquals(secondDay.atTime(8, 0), results.get(0).record().timestamp());
+
+        // Property: scans before the last recorded event and future scans are rejected
+        assertEquals(EntryExitBatchResultDto.Status.REJECTED, results.get(2).status());
+        assertEquals("Scan is older than the last recorded entry/exit", results.get(2).message());
+        assertEquals(EntryExitBatchResultDto.Status.REJECTED, results.get(3).status());
+        assertEquals("Scan time is in the future", results.get(3).message());
+
+        // Property: uploading the same batch again reports the recorded scans as duplicates
+        List<EntryExitBatchResultDto> again = entryExitService.recordEntryExitBatch(user.getId(), batch, null);
+        assertEquals(EntryExitBatchResultDto.Status.DUPLICATE, again.get(0).status());
+        assertEquals(EntryExitBatchResultDto.Status.DUPLICATE, again.get(1).status());
+        assertEquals(EntryExitBatchResultDto.Status.DUPLICATE, again.get(4).status());
+        assertEquals(4, entryExitRecordRepository.findByUserId(user.getId()).size());
+    }
+
+    /**
+     * Rebuild the shared registry once the test data has been rolled back
+     */
+    @AfterTransaction
+    public void reloadRegistry() {
+        presenceRegistry.load();
+    }
+
+    private void assertRecorded(EntryExitBatchResultDto result, EntryExitType type) {
+        assertEquals(EntryExitBatchResultDto.Status.RECORDED, result.status(), result.message());
+        assertEquals(type, result.record().type());
+    }
+
+    private EntryExitRequestDto scan(String qrCodeValue, LocalDateTime timestamp) {
+        return new EntryExitRequestDto(qrCodeValue, timestamp, 41.0082, 28.9784);
+    }
+
+    private String saveQrCode(User user, LocalDate validDate) {
+        return qrCodeRepository.save(QrCode.builder()
+                .userId(user.getId())
+                .qrCodeValue("QR-BATCH-" + user.getId() + "-" + validDate)
+                .validDate(validDate)
+                .build()).getQrCodeValue();
+    }
+
+    private User buildUser(String tcNo) {
+        return User.builder()
+                .tcNo(tcNo)
+                .firstName("Batch")
+                .lastName("Scanner")
+                .personnelNo("P" + tcNo.substring(7))
+                .departmentCode("IT")
+                .departmentName("IT Department")
+                .mobilePhone("0555123" + tcNo.substring(7))
+                .passwordHash("$2a$10$dummyHashForTesting")
+                .role(UserRole.NORMAL_USER)
+                .build();
+    }
+}
@@ -15,6 +15,8 @@ import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -60,7 +62,15 @@ public class EntryExitRecordCompletenessPropertyTest {
             qrCodeRepository, 
             qrCodeService,
             null,  // IpAddressService not needed for this test
-            mockIpTrackingConfig
+            mockIpTrackingConfig,
+            mock(IpComplianceStatusService.class),
+            mock(ApplicationEventPublisher.class),
+            mock(PresenceRegistry.class),
+            mock(UserLastStatusService.class),
+            mock(JdbcTemplate.class),
+            mock(RecentActivityBuffer.class),
+            mock(DailyAttendanceRollupService.class),
+            mock(IpUsageStatisticsService.class)
         );
     }
     
@@ -79,7 +89,7 @@ public class EntryExitRecordCompletenessPropertyTest {
         QrCode qrCode = createQrCode(userId, today, qrCodeValue, 0);
         when(qrCodeRepository.findByQrCodeValue(qrCodeValue))
             .thenReturn(Optional.of(qrCode));
-        when(qrCodeService.validateQrCode(qrCodeValue, userId))
+        when(qrCodeService.validateQrCode(any(QrCode.class), eq(userId)))
             .thenReturn(new QrCodeValidationDto(true, "Valid", EntryExitType.ENTRY));
         
         ArgumentCaptor<EntryExitRecord> recordCaptor = ArgumentCaptor.forClass(EntryExitRecord.class);
@@ -130,7 +140,7 @@ public class EntryExitRecordCompletenessPropertyTest {
         QrCode qrCode = createQrCode(userId, today, qrCodeValue, 0);
         when(qrCodeRepository.findByQrCodeValue(qrCodeValue))
             .thenReturn(Optional.of(qrCode));
-        when(qrCodeService.validateQrCode(qrCodeValue, userId))
+        when(qrCodeService.validateQrCode(any(QrCode.class), eq(userId)))
             .thenReturn(new QrCodeValidationDto(true, "Valid", EntryExitType.ENTRY));
         when(entryExitRecordRepository.save(any(EntryExitRecord.class)))
             .thenAnswer(invocation -> {
@@ -176,7 +186,7 @@ public class EntryExitRecordCompletenessPropertyTest {
         QrCode qrCodeEntry = createQrCode(userId, today, qrCodeValue, 0);
         when(qrCodeRepository.findByQrCodeValue(qrCodeValue))
             .thenReturn(Optional.of(qrCodeEntry));
-        when(qrCodeService.validateQrCode(qrCodeValue, userId))
+        when(qrCodeService.validateQrCode(any(QrCode.class), eq(userId)))
             .thenReturn(new QrCodeValidationDto(true, "Valid", EntryExitType.ENTRY));
         
         ArgumentCaptor<EntryExitRecord> entryCaptor = ArgumentCaptor.forClass(EntryExitRecord.class);
@@ -201,7 +211,7 @@ public class EntryExitRecordCompletenessPropertyTest {
         QrCode qrCodeExit = createQrCode(userId, today, qrCodeValue, 1);
         when(qrCodeRepository.findByQrCodeValue(qrCodeValue))
             .thenReturn(Optional.of(qrCodeExit));
-        when(qrCodeService.validateQrCode(qrCodeValue, userId))
+        when(qrCodeService.validateQrCode(any(QrCode.class), eq(userId)))
             .thenReturn(new QrCodeValidationDto(true, "Valid", EntryExitType.EXIT));
         
         // Reset and reconfigure mock for second test
@@ -10,6 +10,8 @@ import org.junit.Before;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
 
 import java.time.LocalDate;
 import java.util.Optional;
@@ -43,7 +45,21 @@ public class EntryExitTypeDeterminationPropertyTest {
             mock(com.bidb.personetakip.config.IpTrackingConfig.class);
         when(mockIpTrackingConfig.isEnabled()).thenReturn(true);
         
-        entryExitService = new EntryExitServiceImpl(null, qrCodeRepository, qrCodeService, null, mockIpTrackingConfig);
+        entryExitService = new EntryExitServiceImpl(
+            null,
+            qrCodeRepository,
+            qrCodeService,
+            null,
+            mockIpTrackingConfig,
+            mock(IpComplianceStatusService.class),
+            mock(ApplicationEventPublisher.class),
+            mock(PresenceRegistry.class),
+            mock(UserLastStatusService.class),
+            mock(JdbcTemplate.class),
+            mock(RecentActivityBuffer.class),
+            mock(DailyAttendanceRollupService.class),
+            mock(IpUsageStatisticsService.class)
+        );
     }
     
     /**
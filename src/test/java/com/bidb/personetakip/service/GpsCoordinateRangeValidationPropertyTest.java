@@ -13,6 +13,8 @@ import org.junit.Before;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -57,7 +59,15 @@ public class GpsCoordinateRangeValidationPropertyTest {
             qrCodeRepository, 
             qrCodeService,
             null,  // IpAddressService not needed for this test
-            mockIpTrackingConfig
+            mockIpTrackingConfig,
+            mock(IpComplianceStatusService.class),
+            mock(ApplicationEventPublisher.class),
+            mock(PresenceRegistry.class),
+            mock(UserLastStatusService.class),
+            mock(JdbcTemplate.class),
+            mock(RecentActivityBuffer.class),
+            mock(DailyAttendanceRollupService.class),
+            mock(IpUsageStatisticsService.class)
         );
     }
     
@@ -75,7 +85,7 @@ public class GpsCoordinateRangeValidationPropertyTest {
         QrCode qrCode = createQrCode(userId, today, qrCodeValue, 0);
         when(qrCodeRepository.findByQrCodeValue(qrCodeValue))
             .thenReturn(Optional.of(qrCode));
-        when(qrCodeService.validateQrCode(qrCodeValue, userId))
+        when(qrCodeService.validateQrCode(any(QrCode.class), eq(userId)))
             .thenReturn(new QrCodeValidationDto(true, "Valid", EntryExitType.ENTRY));
         when(entryExitRecordRepository.save(any()))
             .thenAnswer(invocation -> {
@@ -181,7 +191,7 @@ public class GpsCoordinateRangeValidationPropertyTest {
         QrCode qrCode = createQrCode(userId, today, qrCodeValue, 0);
         when(qrCodeRepository.findByQrCodeValue(qrCodeValue))
             .thenReturn(Optional.of(qrCode));
-        when(qrCodeService.validateQrCode(qrCodeValue, userId))
+        when(qrCodeService.validateQrCode(any(QrCode.class), eq(userId)))
             .thenReturn(new QrCodeValidationDto(true, "Valid", EntryExitType.ENTRY));
         when(entryExitRecordRepository.save(any()))
             .thenAnswer(invocation -> invocation.getArgument(0));
@@ -14,6 +14,8 @@ import org.junit.Before;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
 
 import java.time.LocalDateTime;
 import java.util.Optional;
@@ -63,7 +65,15 @@ public class GracefulIpCaptureFailureHandlingPropertyTest {
             qrCodeRepository, 
             qrCodeService,
             ipAddressService,
-            ipTrackingConfig
+            ipTrackingConfig,
+            mock(IpComplianceStatusService.class),
+            mock(ApplicationEventPublisher.class),
+            mock(PresenceRegistry.class),
+            mock(UserLastStatusService.class),
+            mock(JdbcTemplate.class),
+            mock(RecentActivityBuffer.class),
+            mock(DailyAttendanceRollupService.class),
+            mock(IpUsageStatisticsService.class)
         );
     }
     
@@ -82,7 +92,7 @@ public class GracefulIpCaptureFailureHandlingPropertyTest {
         
         // Setup valid QR code validation
         QrCodeValidationDto validValidation = new QrCodeValidationDto(true, "Valid QR code", EntryExitType.ENTRY);
-        when(qrCodeService.validateQrCode(qrCodeValue, userId)).thenReturn(validValidation);
+        when(qrCodeService.validateQrCode(any(QrCode.class), eq(userId))).thenReturn(validValidation);
         
         // Setup QR code for entry/exit type determination
         QrCode qrCode = new QrCode();
@@ -120,7 +130,7 @@ public class GracefulIpCaptureFailureHandlingPropertyTest {
         assertEquals("Longitude should be preserved", longitude, result.longitude());
         
         // Verify that QR code usage was still incremented
-        verify(qrCodeService, times(1)).incrementUsageCount(qrCodeValue);
+        verify(qrCodeService, times(1)).incrementUsageCount(qrCode);
         
         // Verify that the record was saved
         verify(entryExitRecordRepository, times(1)).save(any(EntryExitRecord.class));
@@ -141,7 +151,7 @@ public class GracefulIpCaptureFailureHandlingPropertyTest {
         
         // Setup valid QR code validation
         QrCodeValidationDto validValidation = new QrCodeValidationDto(true, "Valid QR code", EntryExitType.EXIT);
-        when(qrCodeService.validateQrCode(qrCodeValue, userId)).thenReturn(validValidation);
+        when(qrCodeService.validateQrCode(any(QrCode.class), eq(userId))).thenReturn(validValidation);
         
         // Setup QR code for entry/exit type determination
         QrCode qrCode = new QrCode();
@@ -176,7 +186,7 @@ public class GracefulIpCaptureFailureHandlingPropertyTest {
         assertEquals("Longitude should be preserved", longitude, result.longitude());
         
         // Verify that QR code usage was still incremented
-        verify(qrCodeService, times(1)).incrementUsageCount(qrCodeValue);
+        verify(qrCodeService, times(1)).incrementUsageCount(qrCode);
         
         // Verify that the record was saved
         verify(entryExitRecordRepository, times(1)).save(any(EntryExitRecord.class));
@@ -0,0 +1,119 @@
+package com.bidb.personetakip.service;
+
+import com.bidb.personetakip.dto.AdminRecordDto;
+import com.bidb.personetakip.model.EntryExitRecord;
+import com.bidb.personetakip.model.EntryExitType;
+import com.bidb.personetakip.model.User;
+import com.bidb.personetakip.model.UserRole;
+import com.bidb.personetakip.repository.EntryExitRecordRepository;
+import com.bidb.personetakip.repository.UserRepository;
+import com.bidb.personetakip.util.IpAddressUtil;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Property-based test for indexed IP address search.
+ * Tests that exact, prefix, CIDR and range queries on the IP address key return exactly
+ * the records whose address lies in the queried block, for IPv4 and IPv6.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+public class IpAddressSearchPropertyTest {
+
+    private static final List<String> IP_ADDRESSES = List.of(
+            "10.20.0.1", "10.20.255.254", "10.21.0.1", "10.2.0.1",
+            "192.168.1.5", "192.168.10.5", "2001:db8::1", "2001:db9::1", "Bilinmiyor");
+
+    @Autowired
+    private AdminRecordsService adminRecordsService;
+
+    @Autowired
+    private EntryExitRecordRepository entryExitRecordRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    public void testIpQueriesReturnExactlyTheMatchingBlock() {
+        User user = userRepository.save(User.builder()
+                .tcNo("12345678941")
+                .firstName("Test")
+                .lastName("User")
+                .personnelNo("P5678941")
+                .departmentCode("IT")
+                .departmentName("IT Department")
+                .mobilePhone("05551235941")
+                .passwordHash("$2a$10$dummyHashForTesting")
+                .role(UserRole.NORMAL_USER)
+                .build());
+
+        LocalDateTime time = LocalDateTime.of(2031, 5, 1, 8, 0);
+        for (int i = 0; i < IP_ADDRESSES.size(); i++) {
+            saveRecord(user, IP_ADDRESSES.get(i), time.plusMinutes(i));
+        }
+        saveRecord(user, null, time.minusMinutes(1));
+
+        // Property: the key is derived on write, only for valid addresses
+        assertEquals("00000000000000000000ffff0a140001", IpAddressUtil.toKey("10.20.0.1"));
+        assertNull(IpAddressUtil.toKey("Bilinmiyor"));
+
+        // Property: CIDR, prefix and range queries return exactly the addresses in the block
+        assertEquals(Set.of("10.20.0.1", "10.20.255.254"), search("10.20.0.0/16", null));
+        assertEquals(Set.of("10.20.0.1", "10.20.255.254"), search("subnet:10.20.0.0/16", null));
+        assertEquals(Set.of("10.20.0.1", "10.20.255.254"), search("10.20.", null));
+        assertEquals(Set.of("10.20.0.1", "10.20.255.254"), search("10.20.*", null));
+        assertEquals(Set.of("192.168.1.5"), search("192.168.1.", null));
+        assertEquals(Set.of("10.20.0.1", "10.20.255.254", "10.21.0.1"), search("range:10.20.0.0-10.21.0.1", null));
+        assertEquals(Set.of("2001:db8::1"), search("2001:db8::/32", null));
+        assertEquals(Set.of("2001:db8::1"), search("2001:db8:", null));
+
+        // Property: exact queries match the address, also in non-canonical IPv6 form
+        assertEquals(Set.of("10.2.0.1"), search("10.2.0.1", null));
+        assertEquals(Set.of("2001:db8::1"), search("2001:0db8:0:0:0:0:0:1", null));
+
+        // Property: values that are not addresses still match exactly, unknown matches missing IPs
+        assertEquals(Set.of("Bilinmiyor"), search("Bilinmiyor", null));
+        Page<AdminRecordDto> unknown = adminRecordsService.searchRecordsByIp("unknown", null, null, 0, 20);
+        assertEquals(1, unknown.getTotalElements());
+
+        // Property: IP type filters use the key
+        assertEquals(6, adminRecordsService.searchRecordsByIp(null, "ipv4", null, 0, 20).getTotalElements());
+        assertEquals(2, adminRecordsService.searchRecordsByIp(null, "ipv6", null, 0, 20).getTotalElements());
+        assertEquals(2, adminRecordsService.searchRecordsByIp(null, "unknown", null, 0, 20).getTotalElements());
+
+        // Property: the records filter accepts the same queries
+        Page<AdminRecordDto> filtered = adminRecordsService.getRecordsWithFilters(
+                null, null, user.getId(), null, "10.20.0.0/16", null, 0, 20);
+        assertEquals(2, filtered.getTotalElements());
+    }
+
+    private Set<String> search(String ipQuery, String ipType) {
+        return adminRecordsService.searchRecordsByIp(ipQuery, ipType, null, 0, 50).getContent().stream()
+                .map(AdminRecordDto::getIpAddress)
+                .collect(Collectors.toSet());
+    }
+
+    private void saveRecord(User user, String ipAddress, LocalDateTime timestamp) {
+        entryExitRecordRepository.save(EntryExitRecord.builder()
+                .userId(user.getId())
+                .type(EntryExitType.ENTRY)
+                .timestamp(timestamp)
+                .qrCodeValue("QR-" + timestamp)
+                .ipAddress(ipAddress)
+                .latitude(41.0082)
+                .longitude(28.9784)
+                .build());
+    }
+}
@@ -3,6 +3,7 @@ package com.bidb.personetakip.service;
 import com.bidb.personetakip.dto.IpComplianceReportDto;
 import com.bidb.personetakip.model.EntryExitRecord;
 import com.bidb.personetakip.model.EntryExitType;
+import com.bidb.personetakip.model.IpComplianceStatus;
 import com.bidb.personetakip.model.User;
 import com.bidb.personetakip.model.UserRole;
 import com.bidb.personetakip.repository.EntryExitRecordRepository;
@@ -205,7 +206,7 @@ public class IpComplianceStatisticsPropertyTest {
         for (EntryExitRecord record : allRecords) {
             User user = userRepository.findById(record.getUserId()).orElse(null);
             if (user != null) {
-                IpComplianceService.IpComplianceStatus status = ipComplianceService.getIpComplianceStatus(record, user);
+                IpComplianceStatus status = ipComplianceService.getIpComplianceStatus(record, user);
                 switch (status) {
                     case MATCH:
                         expectedMatching++;
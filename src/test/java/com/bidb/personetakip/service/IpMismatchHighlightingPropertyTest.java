@@ -2,6 +2,7 @@ package com.bidb.personetakip.service;
 
 import com.bidb.personetakip.model.EntryExitRecord;
 import com.bidb.personetakip.model.EntryExitType;
+import com.bidb.personetakip.model.IpComplianceStatus;
 import com.bidb.personetakip.model.User;
 import com.bidb.personetakip.model.UserRole;
 import com.pholser.junit.quickcheck.From;
@@ -72,11 +73,11 @@ public class IpMismatchHighlightingPropertyTest {
                 .build();
         
         boolean hasMismatch = ipComplianceService.hasIpMismatch(record, user);
-        IpComplianceService.IpComplianceStatus status = ipComplianceService.getIpComplianceStatus(record, user);
+        IpComplianceStatus status = ipComplianceService.getIpComplianceStatus(record, user);
         
         assertFalse("Matching IP addresses should not show mismatch", hasMismatch);
         assertEquals("Status should be MATCH for matching IPs", 
-                     IpComplianceService.IpComplianceStatus.MATCH, status);
+                     IpComplianceStatus.MATCH, status);
     }
     
     /**
@@ -114,11 +115,11 @@ public class IpMismatchHighlightingPropertyTest {
                 .build();
         
         boolean hasMismatch = ipComplianceService.hasIpMismatch(record, user);
-        IpComplianceService.IpComplianceStatus status = ipComplianceService.getIpComplianceStatus(record, user);
+        IpComplianceStatus status = ipComplianceService.getIpComplianceStatus(record, user);
         
         assertTrue("Non-matching IP addresses should show mismatch", hasMismatch);
         assertEquals("Status should be MISMATCH for non-matching IPs", 
-                     IpComplianceService.IpComplianceStatus.MISMATCH, status);
+                     IpComplianceStatus.MISMATCH, status);
     }
     
     /**
@@ -154,11 +155,11 @@ public class IpMismatchHighlightingPropertyTest {
                 .build();
         
         boolean hasMismatch = ipComplianceService.hasIpMismatch(record, user);
-        IpComplianceService.IpComplianceStatus status = ipComplianceService.getIpComplianceStatus(record, user);
+        IpComplianceStatus status = ipComplianceService.getIpComplianceStatus(record, user);
         
         assertFalse("No assigned IP should not show mismatch", hasMismatch);
         assertEquals("Status should be NO_ASSIGNMENT when user has no assigned IP", 
-                     IpComplianceService.IpComplianceStatus.NO_ASSIGNMENT, status);
+                     IpComplianceStatus.NO_ASSIGNMENT, status);
     }
     
     /**
@@ -194,11 +195,11 @@ public class IpMismatchHighlightingPropertyTest {
                 .build();
         
         boolean hasMismatch = ipComplianceService.hasIpMismatch(record, user);
-        IpComplianceService.IpComplianceStatus status = ipComplianceService.getIpComplianceStatus(record, user);
+        IpComplianceStatus status = ipComplianceService.getIpComplianceStatus(record, user);
         
         assertFalse("Unknown IP should not show mismatch", hasMismatch);
         assertEquals("Status should be UNKNOWN_IP when record IP is unknown", 
-                     IpComplianceService.IpComplianceStatus.UNKNOWN_IP, status);
+                     IpComplianceStatus.UNKNOWN_IP, status);
     }
     
     /**
@@ -210,19 +211,19 @@ public class IpMismatchHighlightingPropertyTest {
         boolean hasMismatch2 = ipComplianceService.hasIpMismatch(null, new User());
         boolean hasMismatch3 = ipComplianceService.hasIpMismatch(new EntryExitRecord(), null);
         
-        IpComplianceService.IpComplianceStatus status1 = ipComplianceService.getIpComplianceStatus(null, null);
-        IpComplianceService.IpComplianceStatus status2 = ipComplianceService.getIpComplianceStatus(null, new User());
-        IpComplianceService.IpComplianceStatus status3 = ipComplianceService.getIpComplianceStatus(new EntryExitRecord(), null);
+        IpComplianceStatus status1 = ipComplianceService.getIpComplianceStatus(null, null);
+        IpComplianceStatus status2 = ipComplianceService.getIpComplianceStatus(null, new User());
+        IpComplianceStatus status3 = ipComplianceService.getIpComplianceStatus(new EntryExitRecord(), null);
         
         assertFalse("Null inputs should not show mismatch", hasMismatch1);
         assertFalse("Null record should not show mismatch", hasMismatch2);
         assertFalse("Null user should not show mismatch", hasMismatch3);
         
         assertEquals("Null inputs should return UNKNOWN_IP status", 
-                     IpComplianceService.IpComplianceStatus.UNKNOWN_IP, status1);
+                     IpComplianceStatus.UNKNOWN_IP, status1);
         assertEquals("Null record should return UNKNOWN_IP status", 
-                     IpComplianceService.IpComplianceStatus.UNKNOWN_IP, status2);
+                     IpComplianceStatus.UNKNOWN_IP, status2);
         assertEquals("Null user should return UNKNOWN_IP status", 
-                     IpComplianceService.IpComplianceStatus.UNKNOWN_IP, status3);
+                     IpComplianceStatus.UNKNOWN_IP, status3);
     }
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package com.bidb.personetakip.service;
 
 import com.bidb.personetakip.model.EntryExitRecord;
 import com.bidb.personetakip.model.EntryExitType;
+import com.bidb.personetakip.model.IpComplianceStatus;
 import com.bidb.personetakip.model.User;
 import com.bidb.personetakip.model.UserRole;
 import com.pholser.junit.quickcheck.From;
@@ -72,12 +73,12 @@ public class IpMismatchWarningIndicatorsPropertyTest {
                 .qrCodeValue("QR123")
                 .build();
         
-        IpComplianceService.IpComplianceStatus status = ipComplianceService.getIpComplianceStatus(record, user);
+        IpComplianceStatus status = ipComplianceService.getIpComplianceStatus(record, user);
         boolean hasMismatch = ipComplianceService.hasIpMismatch(record, user);
         
         assertTrue("User with assigned IP should show warning for different IP", hasMismatch);
         assertEquals("Status should indicate MISMATCH for warning display", 
-                     IpComplianceService.IpComplianceStatus.MISMATCH, status);
+                     IpComplianceStatus.MISMATCH, status);
     }
     
     /**
@@ -113,12 +114,12 @@ public class IpMismatchWarningIndicatorsPropertyTest {
                 .qrCodeValue("QR123")
                 .build();
         
-        IpComplianceService.IpComplianceStatus status = ipComplianceService.getIpComplianceStatus(record, user);
+        IpComplianceStatus status = ipComplianceService.getIpComplianceStatus(record, user);
         boolean hasMismatch = ipComplianceService.hasIpMismatch(record, user);
         
         assertFalse("User with matching IP should not show warning", hasMismatch);
         assertEquals("Status should indicate MATCH for no warning display", 
-                     IpComplianceService.IpComplianceStatus.MATCH, status);
+                     IpComplianceStatus.MATCH, status);
     }
     
     /**
@@ -157,11 +158,11 @@ public class IpMismatchWarningIndicatorsPropertyTest {
                 .build();
         
         boolean hasMismatchForMatching = ipComplianceService.hasIpMismatch(matchingRecord, user);
-        IpComplianceService.IpComplianceStatus statusForMatching = ipComplianceService.getIpComplianceStatus(matchingRecord, user);
+        IpComplianceStatus statusForMatching = ipComplianceService.getIpComplianceStatus(matchingRecord, user);
         
         assertFalse("User should not show warning when IP matches one of assigned IPs", hasMismatchForMatching);
         assertEquals("Status should be MATCH when IP matches one of assigned IPs", 
-                     IpComplianceService.IpComplianceStatus.MATCH, statusForMatching);
+                     IpComplianceStatus.MATCH, statusForMatching);
         
         // Test with non-matching IP - should show warning
         EntryExitRecord nonMatchingRecord = EntryExitRecord.builder()
@@ -174,11 +175,11 @@ public class IpMismatchWarningIndicatorsPropertyTest {
                 .build();
         
         boolean hasMismatchForNonMatching = ipComplianceService.hasIpMismatch(nonMatchingRecord, user);
-        IpComplianceService.IpComplianceStatus statusForNonMatching = ipComplianceService.getIpComplianceStatus(nonMatchingRecord, user);
+        IpComplianceStatus statusForNonMatching = ipComplianceService.getIpComplianceStatus(nonMatchingRecord, user);
         
         assertTrue("User should show warning when IP doesn't match any assigned IP", hasMismatchForNonMatching);
         assertEquals("Status should be MISMATCH when IP doesn't match any assigned IP", 
-                     IpComplianceService.IpComplianceStatus.MISMATCH, statusForNonMatching);
+                     IpComplianceStatus.MISMATCH, statusForNonMatching);
     }
     
     /**
@@ -226,8 +227,8 @@ public class IpMismatchWarningIndicatorsPropertyTest {
         boolean hasMismatch1 = ipComplianceService.hasIpMismatch(record1, user);
         boolean hasMismatch2 = ipComplianceService.hasIpMismatch(record2, user);
         
-        IpComplianceService.IpComplianceStatus status1 = ipComplianceService.getIpComplianceStatus(record1, user);
-        IpComplianceService.IpComplianceStatus status2 = ipComplianceService.getIpComplianceStatus(record2, user);
+        IpComplianceStatus status1 = ipComplianceService.getIpComplianceStatus(record1, user);
+        IpComplianceStatus status2 = ipComplianceService.getIpComplianceStatus(record2, user);
         
         assertEquals("Warning indicators should be consistent for same user and IP", hasMismatch1, hasMismatch2);
         assertEquals("Compliance status should be consistent for same user and IP", status1, status2);
@@ -266,10 +267,10 @@ public class IpMismatchWarningIndicatorsPropertyTest {
                 .build();
         
         boolean hasMismatch = ipComplianceService.hasIpMismatch(record, user);
-        IpComplianceService.IpComplianceStatus status = ipComplianceService.getIpComplianceStatus(record, user);
+        IpComplianceStatus status = ipComplianceService.getIpComplianceStatus(record, user);
         
         assertFalse("Users without assigned IPs should never show warning", hasMismatch);
         assertEquals("Status should be NO_ASSIGNMENT for users without assigned IPs", 
-                     IpComplianceService.IpComplianceStatus.NO_ASSIGNMENT, status);
+                     IpComplianceStatus.NO_ASSIGNMENT, status);
     }
 }
\ No newline at end of file
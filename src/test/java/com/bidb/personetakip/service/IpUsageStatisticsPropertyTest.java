@@ -0,0 +1,132 @@
+package com.bidb.personetakip.service;
+
+import com.bidb.personetakip.model.EntryExitRecord;
+import com.bidb.personetakip.model.EntryExitType;
+import com.bidb.personetakip.model.User;
+import com.bidb.personetakip.model.UserRole;
+import com.bidb.personetakip.repository.EntryExitRecordRepository;
+import com.bidb.personetakip.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Property-based test for precomputed IP usage statistics.
+ * Tests that rebuilt counters match counting the records directly,
+ * both for all departments and for a department-scoped view, and that counters follow
+ * recomputed compliance statuses without a rebuild.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+public class IpUsageStatisticsPropertyTest {
+
+    @Autowired
+    private IpUsageStatisticsService ipUsageStatisticsService;
+
+    @Autowired
+    private EntryExitRecordRepository entryExitRecordRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private IpComplianceStatusService ipComplianceStatusService;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testRebuiltStatisticsMatchRecords() {
+        User itUser = userRepository.save(buildUser("12345678931", "IT", "192.168.1.10"));
+        User hrUser = userRepository.save(buildUser("12345678932", "HR", null));
+
+        LocalDateTime time = LocalDateTime.of(2031, 4, 1, 8, 0);
+        saveRecord(itUser, "192.168.1.10", time);
+        saveRecord(itUser, "192.168.1.10", time.plusHours(1));
+        saveRecord(itUser, "10.0.0.5", time.plusHours(2));
+        saveRecord(itUser, "2001:db8::1", time.plusHours(3));
+        saveRecord(hrUser, "192.168.1.10", time.plusHours(4));
+        saveRecord(hrUser, null, time.plusHours(5));
+
+        ipUsageStatisticsService.rebuild();
+
+        // Property: totals over all departments match the records
+        Map<String, Object> all = ipUsageStatisticsService.getStatistics(null);
+        assertEquals(6L, all.get("totalRecords"));
+        assertEquals(5L, all.get("totalWithIp"));
+        assertEquals(1L, all.get("totalWithoutIp"));
+        assertEquals(4L, all.get("ipv4Count"));
+        assertEquals(1L, all.get("ipv6Count"));
+        assertEquals(2L, all.get("matchCount"));
+        assertEquals(2L, all.get("mismatchCount"));
+        assertEquals(2L, all.get("noAssignmentCount"));
+
+        List<Map<String, Object>> commonIps = (List<Map<String, Object>>) all.get("commonIps");
+        assertEquals(3, commonIps.size());
+        assertEquals("192.168.1.10", commonIps.get(0).get("ipAddress"));
+        assertEquals(3L, commonIps.get(0).get("count"));
+        assertEquals("IPv4", commonIps.get(0).get("type"));
+
+        // Property: department-scoped statistics only count that department's records
+        Map<String, Object> it = ipUsageStatisticsService.getStatistics(List.of("IT"));
+        assertEquals(4L, it.get("totalRecords"));
+        assertEquals(2L, it.get("matchCount"));
+        assertEquals(2L, it.get("mismatchCount"));
+        assertEquals(0L, it.get("noAssignmentCount"));
+
+        // Property: rebuilding twice does not double count
+        ipUsageStatisticsService.rebuild();
+        assertEquals(6L, ipUsageStatisticsService.getStatistics(null).get("totalRecords"));
+
+        // Property: recomputing a user's statuses moves counts just like a rebuild would
+        hrUser.setAssignedIpAddresses("192.168.1.10");
+        userRepository.save(hrUser);
+        ipComplianceStatusService.recomputeForUser(hrUser.getId());
+        Map<String, Object> recomputed = ipUsageStatisticsService.getStatistics(null);
+        assertEquals(3L, recomputed.get("matchCount"));
+        ipUsageStatisticsService.rebuild();
+        Map<String, Object> rebuilt = ipUsageStatisticsService.getStatistics(null);
+        for (String key : List.of("totalRecords", "matchCount", "mismatchCount", "noAssignmentCount")) {
+            assertEquals(rebuilt.get(key), recomputed.get(key), key);
+        }
+
+        // Property: no accessible departments yields empty statistics
+        Map<String, Object> none = ipUsageStatisticsService.getStatistics(List.of());
+        assertEquals(0L, none.get("totalRecords"));
+        assertTrue(((List<?>) none.get("commonIps")).isEmpty());
+    }
+
+    private User buildUser(String tcNo, String departmentCode, String assignedIps) {
+        return User.builder()
+                .tcNo(tcNo)
+                .firstName("Test")
+                .lastName("User" + tcNo.substring(9))
+                .personnelNo("P" + tcNo.substring(7))
+                .departmentCode(departmentCode)
+                .departmentName(departmentCode + " Department")
+                .mobilePhone("0555123" + tcNo.substring(7))
+                .passwordHash("$2a$10$dummyHashForTesting")
+                .role(UserRole.NORMAL_USER)
+                .assignedIpAddresses(assignedIps)
+                .build();
+    }
+
+    private void saveRecord(User user, String ipAddress, LocalDateTime timestamp) {
+        entryExitRecordRepository.save(EntryExitRecord.builder()
+                .userId(user.getId())
+                .type(EntryExitType.ENTRY)
+                .timestamp(timestamp)
+                .qrCodeValue("QR-" + timestamp)
+                .ipAddress(ipAddress)
+                .latitude(41.0082)
+                .longitude(28.9784)
+                .build());
+    }
+}
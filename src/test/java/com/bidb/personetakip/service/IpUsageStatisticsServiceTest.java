@@ -0,0 +1,129 @@
+package com.bidb.personetakip.service;
+
+import com.bidb.personetakip.model.EntryExitRecord;
+import com.bidb.personetakip.model.EntryExitType;
+import com.bidb.personetakip.model.IpComplianceStatus;
+import com.bidb.personetakip.repository.EntryExitRecordRepository;
+import com.bidb.personetakip.repository.IpUsageStatRepository;
+import com.bidb.personetakip.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for IpUsageStatisticsService
+ * Tests Requirements: 2.4, 4.3
+ */
+@ExtendWith(MockitoExtension.class)
+class IpUsageStatisticsServiceTest {
+
+    @Mock
+    private IpUsageStatRepository ipUsageStatRepository;
+
+    @Mock
+    private EntryExitRecordRepository entryExitRecordRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private IpComplianceStatusService ipComplianceStatusService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private IpUsageStatisticsService ipUsageStatisticsService;
+
+    @BeforeEach
+    void setUp() {
+        ipUsageStatisticsService = new IpUsageStatisticsService(ipUsageStatRepository, entryExitRecordRepository,
+            userRepository, ipComplianceStatusService, transactionManager);
+    }
+
+    @Test
+    void testRecordedScanIsCountedUnderItsStoredStatus() {
+        when(userRepository.findDepartmentCodeById(1L)).thenReturn(Optional.of("IT"));
+
+        ipUsageStatisticsService.onEntryExitRecorded(new EntryExitRecordedEvent(
+            record(1L, "192.168.1.10", IpComplianceStatus.MISMATCH)));
+
+        verify(ipUsageStatRepository).addCounts(eq("IT"), eq("192.168.1.10"), eq(4),
+            eq(1L), eq(0L), eq(1L), eq(0L), any(LocalDateTime.class));
+        verify(userRepository, never()).findById(anyLong());
+        verifyNoInteractions(ipComplianceStatusService);
+    }
+
+    @Test
+    void testRecordedScanWithoutStatusIsCountedAsOther() {
+        when(userRepository.findDepartmentCodeById(2L)).thenReturn(Optional.empty());
+
+        ipUsageStatisticsService.onEntryExitRecorded(new EntryExitRecordedEvent(record(2L, null, null)));
+
+        verify(ipUsageStatRepository).addCounts(eq(""), eq(""), eq(0),
+            eq(1L), eq(0L), eq(0L), eq(1L), any(LocalDateTime.class));
+        verifyNoInteractions(ipComplianceStatusService);
+    }
+
+    @Test
+    void testStatusChangeMovesCountsBetweenCounters() {
+        ipUsageStatisticsService.onIpComplianceStatusChanged(new IpComplianceStatusChangedEvent(
+            "IT", "10.0.0.5", IpComplianceStatus.MISMATCH, IpComplianceStatus.MATCH, 3));
+        ipUsageStatisticsService.onIpComplianceStatusChanged(new IpComplianceStatusChangedEvent(
+            "HR", null, null, IpComplianceStatus.MISMATCH, 2));
+
+        verify(ipUsageStatRepository).moveComplianceCounts(eq("IT"), eq("10.0.0.5"),
+            eq(3L), eq(-3L), eq(0L), any(LocalDateTime.class));
+        verify(ipUsageStatRepository).moveComplianceCounts(eq("HR"), eq(""),
+            eq(0L), eq(2L), eq(-2L), any(LocalDateTime.class));
+    }
+
+    @Test
+    void testRemovedUserRecordsAreSubtractedFromTheirDepartment() {
+        when(userRepository.findDepartmentCodeById(7L)).thenReturn(Optional.of("IT"));
+        when(entryExitRecordRepository.countByIpAndComplianceStatusForUser(7L)).thenReturn(List.of(
+            new Object[]{"10.0.0.5", IpComplianceStatus.MATCH, 4L},
+            new Object[]{null, null, 2L}));
+
+        ipUsageStatisticsService.removeUserRecords(7L);
+
+        verify(ipUsageStatRepository).addCounts(eq("IT"), eq("10.0.0.5"), eq(4),
+            eq(-4L), eq(-4L), eq(0L), eq(0L), any(LocalDateTime.class));
+        verify(ipUsageStatRepository).addCounts(eq("IT"), eq(""), eq(0),
+            eq(-2L), eq(0L), eq(0L), eq(-2L), any(LocalDateTime.class));
+    }
+
+    @Test
+    void testDepartmentChangeMovesUserRecordsBetweenDepartments() {
+        when(entryExitRecordRepository.countByIpAndComplianceStatusForUser(7L)).thenReturn(List.<Object[]>of(
+            new Object[]{"10.0.0.5", IpComplianceStatus.MISMATCH, 3L}));
+
+        ipUsageStatisticsService.moveUserRecords(7L, "IT", null);
+
+        verify(ipUsageStatRepository).addCounts(eq("IT"), eq("10.0.0.5"), eq(4),
+            eq(-3L), eq(0L), eq(-3L), eq(0L), any(LocalDateTime.class));
+        verify(ipUsageStatRepository).addCounts(eq(""), eq("10.0.0.5"), eq(4),
+            eq(3L), eq(0L), eq(3L), eq(0L), any(LocalDateTime.class));
+    }
+
+    private EntryExitRecord record(Long userId, String ipAddress, IpComplianceStatus status) {
+        return EntryExitRecord.builder()
+            .id(userId * 100)
+            .userId(userId)
+            .type(EntryExitType.ENTRY)
+            .timestamp(LocalDateTime.of(2031, 4, 1, 8, 0))
+            .qrCodeValue("QR-" + userId)
+            .ipAddress(ipAddress)
+            .ipComplianceStatus(status)
+            .build();
+    }
+}
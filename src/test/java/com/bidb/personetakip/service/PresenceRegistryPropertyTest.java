@@ -0,0 +1,140 @@
+package com.bidb.personetakip.service;
+
+import com.bidb.personetakip.dto.AdminUserDto;
+import com.bidb.personetakip.dto.UserStatusDto;
+import com.bidb.personetakip.model.EntryExitRecord;
+import com.bidb.personetakip.model.EntryExitType;
+import com.bidb.personetakip.model.User;
+import com.bidb.personetakip.model.UserRole;
+import com.bidb.personetakip.repository.EntryExitRecordRepository;
+import com.bidb.personetakip.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.transaction.AfterTransaction;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Property-based test for the in-memory presence registry.
+ * Tests that the registry built from the records agrees with each user's latest record,
+ * that newer events replace older ones but never the other way round, and that the
+ * attendance status filters page the users whose stored last event matches.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+public class PresenceRegistryPropertyTest {
+
+    @Autowired
+    private PresenceRegistry presenceRegistry;
+
+    @Autowired
+    private AdminUserService adminUserService;
+
+    @Autowired
+    private EntryExitRecordRepository entryExitRecordRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserLastStatusService userLastStatusService;
+
+    @Test
+    public void testRegistryTracksLatestEventPerUser() {
+        LocalDateTime time = LocalDateTime.of(2031, 6, 1, 8, 0);
+        User inside = userRepository.save(buildUser("12345678951"));
+        User outside = userRepository.save(buildUser("12345678952"));
+        User noRecords = userRepository.save(buildUser("12345678953"));
+
+        saveRecord(inside, EntryExitType.ENTRY, time);
+        saveRecord(inside, EntryExitType.EXIT, time.plusHours(1));
+        saveRecord(inside, EntryExitType.ENTRY, time.plusHours(2));
+        saveRecord(outside, EntryExitType.ENTRY, time);
+        EntryExitRecord lastExit = saveRecord(outside, EntryExitType.EXIT, time.plusHours(3));
+
+        presenceRegistry.load();
+
+        // Property: the registry reflects each user's latest record
+        assertTrue(presenceRegistry.isLoaded());
+        assertEquals(UserStatusDto.inside(time.plusHours(2)), presenceRegistry.getStatus(inside.getId()));
+        assertEquals(UserStatusDto.outside(time.plusHours(3)), presenceRegistry.getStatus(outside.getId()));
+        assertEquals(UserStatusDto.noRecords(), presenceRegistry.getStatus(noRecords.getId()));
+        assertEquals(Set.of(inside.getId()), presenceRegistry.getUsersInside());
+        assertEquals(1, presenceRegistry.countInside());
+
+        // Property: attendance filters agree with the registry
+        assertEquals(Set.of(inside.getId()), userIds("INSIDE"));
+        Set<Long> outsideIds = userIds("OUTSIDE");
+        assertTrue(outsideIds.contains(outside.getId()));
+        assertTrue(outsideIds.contains(noRecords.getId()));
+        assertFalse(outsideIds.contains(inside.getId()));
+
+        // Property: an older event never replaces a newer one
+        applyRecord(saveRecord(outside, EntryExitType.ENTRY, lastExit.getTimestamp().minusHours(2)));
+        assertEquals(UserStatusDto.outside(time.plusHours(3)), presenceRegistry.getStatus(outside.getId()));
+        assertEquals(Set.of(inside.getId()), userIds("INSIDE"));
+        assertTrue(userIds("OUTSIDE").contains(outside.getId()));
+
+        // Property: a newer event replaces the previous one
+        applyRecord(saveRecord(inside, EntryExitType.EXIT, time.plusHours(4)));
+        assertEquals(UserStatusDto.outside(time.plusHours(4)), presenceRegistry.getStatus(inside.getId()));
+        assertEquals(0, presenceRegistry.countInside());
+        assertTrue(userIds("INSIDE").isEmpty());
+        assertTrue(userIds("OUTSIDE").containsAll(Set.of(inside.getId(), outside.getId(), noRecords.getId())));
+    }
+
+    /**
+     * Rebuild the shared registry once the test data has been rolled back
+     */
+    @AfterTransaction
+    public void reloadRegistry() {
+        presenceRegistry.load();
+    }
+
+    /**
+     * Apply a saved record the way the entry/exit service does: to the stored last status and the registry
+     */
+    private void applyRecord(EntryExitRecord record) {
+        userLastStatusService.record(record);
+        presenceRegistry.record(record);
+    }
+
+    private Set<Long> userIds(String attendanceStatus) {
+        return adminUserService.getUsersByAttendanceStatus(attendanceStatus, 0, 100).getContent().stream()
+                .map(AdminUserDto::getId)
+                .collect(Collectors.toSet());
+    }
+
+    private User buildUser(String tcNo) {
+        return User.builder()
+                .tcNo(tcNo)
+                .firstName("Test")
+                .lastName("User" + tcNo.substring(9))
+                .personnelNo("P" + tcNo.substring(7))
+                .departmentCode("IT")
+                .departmentName("IT Department")
+                .mobilePhone("0555123" + tcNo.substring(7))
+                .passwordHash("$2a$10$dummyHashForTesting")
+                .role(UserRole.NORMAL_USER)
+                .build();
+    }
+
+    private EntryExitRecord saveRecord(User user, EntryExitType type, LocalDateTime timestamp) {
+        return entryExitRecordRepository.save(EntryExitRecord.builder()
+                .userId(user.getId())
+                .type(type)
+                .timestamp(timestamp)
+                .qrCodeValue("QR-" + timestamp)
+                .latitude(41.0082)
+                .longitude(28.9784)
+                .build());
+    }
+}
@@ -14,6 +14,8 @@ import org.junit.Before;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
 
 import java.time.LocalDateTime;
 import java.util.Optional;
@@ -58,7 +60,15 @@ public class QrCodeFunctionalityPreservationPropertyTest {
             qrCodeRepository, 
             qrCodeService,
             null,  // IpAddressService not needed for QR code functionality tests
-            mockIpTrackingConfig
+            mockIpTrackingConfig,
+            mock(IpComplianceStatusService.class),
+            mock(ApplicationEventPublisher.class),
+            mock(PresenceRegistry.class),
+            mock(UserLastStatusService.class),
+            mock(JdbcTemplate.class),
+            mock(RecentActivityBuffer.class),
+            mock(DailyAttendanceRollupService.class),
+            mock(IpUsageStatisticsService.class)
         );
     }
     
@@ -77,7 +87,7 @@ public class QrCodeFunctionalityPreservationPropertyTest {
         
         // Setup valid QR code validation
         QrCodeValidationDto validValidation = new QrCodeValidationDto(true, "Valid QR code", EntryExitType.ENTRY);
-        when(qrCodeService.validateQrCode(qrCodeValue, userId)).thenReturn(validValidation);
+        when(qrCodeService.validateQrCode(any(QrCode.class), eq(userId))).thenReturn(validValidation);
         
         // Setup QR code for entry/exit type determination
         QrCode qrCode = new QrCode();
@@ -104,10 +114,10 @@ public class QrCodeFunctionalityPreservationPropertyTest {
         );
         
         // Verify that QR code validation was called exactly once
-        verify(qrCodeService, times(1)).validateQrCode(qrCodeValue, userId);
+        verify(qrCodeService, times(1)).validateQrCode(qrCode, userId);
         
         // Verify that QR code usage was incremented exactly once
-        verify(qrCodeService, times(1)).incrementUsageCount(qrCodeValue);
+        verify(qrCodeService, times(1)).incrementUsageCount(qrCode);
         
         // Verify that the QR code value is preserved in the result
         // Note: The DTO doesn't include QR code value, but we verify it was used correctly
@@ -159,7 +169,7 @@ public class QrCodeFunctionalityPreservationPropertyTest {
         
         // Setup valid QR code validation
         QrCodeValidationDto validValidation = new QrCodeValidationDto(true, "Valid QR code", EntryExitType.EXIT);
-        when(qrCodeService.validateQrCode(qrCodeValue, userId)).thenReturn(validValidation);
+        when(qrCodeService.validateQrCode(any(QrCode.class), eq(userId))).thenReturn(validValidation);
         
         // Setup QR code for entry/exit type determination
         QrCode qrCode = new QrCode();
@@ -189,7 +199,7 @@ public class QrCodeFunctionalityPreservationPropertyTest {
         assertNotNull("Entry/exit operation should succeed with IP tracking", result);
         
         // Verify that QR code usage was incremented exactly once
-        verify(qrCodeService, times(1)).incrementUsageCount(qrCodeValue);
+        verify(qrCodeService, times(1)).incrementUsageCount(qrCode);
         
         // Verify that the increment happens after successful record saving
         // This ensures the QR code functionality order is preserved
@@ -211,7 +221,7 @@ public class QrCodeFunctionalityPreservationPropertyTest {
         
         // Setup invalid QR code validation
         QrCodeValidationDto invalidValidation = new QrCodeValidationDto(false, "Invalid QR code", null);
-        when(qrCodeService.validateQrCode(qrCodeValue, userId)).thenReturn(invalidValidation);
+        when(qrCodeService.validateQrCode(nullable(QrCode.class), eq(userId))).thenReturn(invalidValidation);
         
         // Attempt the entry/exit operation
         try {
@@ -224,12 +234,12 @@ public class QrCodeFunctionalityPreservationPropertyTest {
         }
         
         // Verify that QR code validation was called
-        verify(qrCodeService, times(1)).validateQrCode(qrCodeValue, userId);
+        verify(qrCodeService, times(1)).validateQrCode(nullable(QrCode.class), eq(userId));
         
         // Verify that no record was saved due to validation failure
         verify(entryExitRecordRepository, never()).save(any(EntryExitRecord.class));
         
         // Verify that usage count was not incremented due to validation failure
-        verify(qrCodeService, never()).incrementUsageCount(qrCodeValue);
+        verify(qrCodeService, never()).incrementUsageCount(nullable(QrCode.class));
     }
 }
\ No newline at end of file
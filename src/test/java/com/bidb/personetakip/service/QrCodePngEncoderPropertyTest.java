@@ -0,0 +1,50 @@
+package com.bidb.personetakip.service;
+
+import com.bidb.personetakip.util.QrCodePngEncoder;
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+import com.pholser.junit.quickcheck.From;
+import com.pholser.junit.quickcheck.Property;
+import com.pholser.junit.quickcheck.generator.InRange;
+import com.pholser.junit.quickcheck.runner.JUnitQuickcheck;
+import org.junit.runner.RunWith;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Property-based test for the 1-bit PNG QR code encoder.
+ *
+ * Validates: Requirements 5.5
+ *
+ * For any QR Code Value and size, the PNG written by QrCodePngEncoder decodes to exactly
+ * the pixels of ZXing's QRCodeWriter output for the same value and size.
+ */
+@RunWith(JUnitQuickcheck.class)
+public class QrCodePngEncoderPropertyTest {
+
+    /**
+     * Property: the encoded image has the same dimensions and dark pixels as ZXing's bit matrix
+     */
+    @Property(trials = 50)
+    public void pngMatchesZxingPixels(@From(QrCodeValueGenerator.class) String qrCodeValue,
+                                      @InRange(minInt = 50, maxInt = 700) int size) throws Exception {
+        BitMatrix expected = new QRCodeWriter().encode(qrCodeValue, BarcodeFormat.QR_CODE, size, size);
+
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(QrCodePngEncoder.encode(qrCodeValue, size)));
+
+        assertNotNull("PNG should be readable", image);
+        assertEquals(expected.getWidth(), image.getWidth());
+        assertEquals(expected.getHeight(), image.getHeight());
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                boolean dark = (image.getRGB(x, y) & 0xFFFFFF) == 0;
+                assertEquals("Pixel (" + x + ", " + y + ")", expected.get(x, y), dark);
+            }
+        }
+    }
+}
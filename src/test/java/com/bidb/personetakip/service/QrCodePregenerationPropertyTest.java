@@ -0,0 +1,87 @@
+package com.bidb.personetakip.service;
+
+import com.bidb.personetakip.model.QrCode;
+import com.bidb.personetakip.model.User;
+import com.bidb.personetakip.model.UserRole;
+import com.bidb.personetakip.repository.QrCodeRepository;
+import com.bidb.personetakip.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Property-based test for nightly QR code pre-generation.
+ * Tests that every user gets exactly one unused code for the date, across several batches,
+ * and that existing codes are neither replaced nor duplicated.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+public class QrCodePregenerationPropertyTest {
+
+    @Autowired
+    private QrCodePregenerationService qrCodePregenerationService;
+
+    @Autowired
+    private QrCodeRepository qrCodeRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    public void testEveryUserGetsOneCodeForTheDate() {
+        LocalDate date = LocalDate.of(2031, 8, 1);
+        User first = userRepository.save(buildUser("12345678971"));
+        User second = userRepository.save(buildUser("12345678972"));
+        User existing = userRepository.save(buildUser("12345678973"));
+        QrCode existingCode = qrCodeRepository.save(QrCode.builder()
+                .userId(existing.getId())
+                .qrCodeValue("EXISTING-QR-CODE")
+                .validDate(date)
+                .usageCount(1)
+                .build());
+
+        // Small batches so the users are spread over several inserts
+        ReflectionTestUtils.setField(qrCodePregenerationService, "batchSize", 1);
+        QrCodePregenerationService.PregenerationResult result = qrCodePregenerationService.pregenerate(date);
+
+        // Property: users without a code get one unused code for the date
+        assertEquals(date, result.validDate());
+        assertTrue(result.created() >= 2);
+        for (User user : new User[] {first, second}) {
+            Optional<QrCode> code = qrCodeRepository.findByUserIdAndValidDate(user.getId(), date);
+            assertTrue(code.isPresent());
+            assertEquals(0, code.get().getUsageCount());
+        }
+
+        // Property: an existing code is kept as it is
+        assertEquals(existingCode.getId(),
+                qrCodeRepository.findByUserIdAndValidDate(existing.getId(), date).orElseThrow().getId());
+
+        // Property: a second run creates nothing
+        assertEquals(0, qrCodePregenerationService.pregenerate(date).created());
+        assertEquals(1, qrCodeRepository.findByUserId(first.getId()).size());
+    }
+
+    private User buildUser(String tcNo) {
+        return User.builder()
+                .tcNo(tcNo)
+                .firstName("Test")
+                .lastName("User" + tcNo.substring(9))
+                .personnelNo("P" + tcNo.substring(7))
+                .departmentCode("IT")
+                .departmentName("IT Department")
+                .mobilePhone("0555123" + tcNo.substring(7))
+                .passwordHash("$2a$10$dummyHashForTesting")
+                .role(UserRole.NORMAL_USER)
+                .build();
+    }
+}
@@ -0,0 +1,108 @@
+package com.bidb.personetakip.service;
+
+import com.bidb.personetakip.exception.ResourceNotFoundException;
+import com.bidb.personetakip.model.User;
+import com.bidb.personetakip.model.UserRole;
+import com.bidb.personetakip.repository.QrCodeRepository;
+import com.bidb.personetakip.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Property-based test for department QR badge sheets.
+ * Tests that every user of the department gets exactly one badge with today's code,
+ * written in name order, in both the ZIP and the PDF output.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+public class QrCodeSheetPropertyTest {
+
+    private static final String DEPARTMENT = "SHEET";
+
+    @Autowired
+    private QrCodeSheetService qrCodeSheetService;
+
+    @Autowired
+    private QrCodeRepository qrCodeRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    public void testEveryUserGetsOneBadgeInNameOrder() throws Exception {
+        List<User> users = new ArrayList<>();
+        // More users than fit on one page and than the render window
+        for (int i = 0; i < 70; i++) {
+            users.add(userRepository.save(buildUser(String.format("1234567%04d", i), String.format("Name%02d", 69 - i))));
+        }
+
+        List<QrCodeSheetService.SheetEntry> entries = qrCodeSheetService.prepareDepartmentSheet(DEPARTMENT, null);
+
+        // Property: one badge per user, in last name order, each with the user's code for today
+        assertEquals(users.size(), entries.size());
+        assertEquals(users.get(users.size() - 1).getId(), entries.get(0).userId());
+        for (QrCodeSheetService.SheetEntry entry : entries) {
+            assertEquals(entry.qrCodeValue(), qrCodeRepository
+                    .findByUserIdAndValidDate(entry.userId(), LocalDate.now()).orElseThrow().getQrCodeValue());
+        }
+
+        // Property: the ZIP holds one PNG per badge, in badge order
+        ByteArrayOutputStream zip = new ByteArrayOutputStream();
+        qrCodeSheetService.writeZip(entries, 200, zip);
+        List<String> names = new ArrayList<>();
+        try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(zip.toByteArray()))) {
+            ZipEntry zipEntry;
+            while ((zipEntry = in.getNextEntry()) != null) {
+                byte[] png = in.readAllBytes();
+                assertArrayEquals(new byte[] {(byte) 0x89, 'P', 'N', 'G'}, Arrays.copyOf(png, 4));
+                names.add(zipEntry.getName());
+            }
+        }
+        assertEquals(entries.size(), names.size());
+        assertTrue(names.get(0).startsWith(entries.get(0).personnelNo() + "_"));
+
+        // Property: the PDF has one page per 12 badges
+        ByteArrayOutputStream pdf = new ByteArrayOutputStream();
+        qrCodeSheetService.writePdf(entries, pdf);
+        String document = pdf.toString(StandardCharsets.ISO_8859_1);
+        assertTrue(document.startsWith("%PDF-"));
+        assertTrue(document.endsWith("%%EOF\n"));
+        assertTrue(document.contains("/Count 6 "));
+    }
+
+    @Test
+    public void testUnknownDepartmentIsNotFound() {
+        assertThrows(ResourceNotFoundException.class,
+                () -> qrCodeSheetService.prepareDepartmentSheet("NO-SUCH-DEPT", null));
+    }
+
+    private User buildUser(String tcNo, String lastName) {
+        return User.builder()
+                .tcNo(tcNo)
+                .firstName("Test")
+                .lastName(lastName)
+                .personnelNo("P" + tcNo.substring(7))
+                .departmentCode(DEPARTMENT)
+                .departmentName("Sheet Department")
+                .mobilePhone("0555123" + tcNo.substring(7))
+                .passwordHash("$2a$10$dummyHashForTesting")
+                .role(UserRole.NORMAL_USER)
+                .build();
+    }
+}
@@ -0,0 +1,144 @@
+package com.bidb.personetakip.service;
+
+import com.bidb.personetakip.model.AdminAuditLog;
+import com.bidb.personetakip.model.EntryExitRecord;
+import com.bidb.personetakip.model.EntryExitType;
+import com.bidb.personetakip.repository.AdminAuditLogRepository;
+import com.bidb.personetakip.repository.EntryExitRecordRepository;
+import com.bidb.personetakip.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for RecentActivityBuffer
+ * Tests Requirements: 1.2
+ */
+@ExtendWith(MockitoExtension.class)
+class RecentActivityBufferTest {
+
+    private static final int CAPACITY = 5;
+
+    @Mock
+    private EntryExitRecordRepository entryExitRecordRepository;
+
+    @Mock
+    private AdminAuditLogRepository adminAuditLogRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    private RecentActivityBuffer recentActivityBuffer;
+
+    private LocalDateTime now;
+
+    @BeforeEach
+    void setUp() {
+        now = LocalDateTime.now();
+        recentActivityBuffer = new RecentActivityBuffer(
+            entryExitRecordRepository, adminAuditLogRepository, userRepository, CAPACITY);
+
+        when(userRepository.findAllUserDepartments()).thenReturn(List.of());
+        when(entryExitRecordRepository.findRecentRecords(any(), any())).thenReturn(List.of());
+        when(adminAuditLogRepository.findRecentLogs(any(), any())).thenReturn(List.of());
+        recentActivityBuffer.load();
+    }
+
+    @Test
+    void testBuffersKeepOnlyTheNewestItems() {
+        when(userRepository.findDepartmentCodeById(anyLong())).thenReturn(Optional.of("IT"));
+
+        for (int i = 0; i < 20; i++) {
+            recentActivityBuffer.recordAfterCommit(record(i, 1L, now.minusMinutes(20 - i)));
+        }
+
+        List<EntryExitRecord> recent = recentActivityBuffer.getRecentRecords(now.minusHours(24), null, 10);
+        assertEquals(CAPACITY, recent.size());
+        assertEquals(19L, recent.get(0).getId());
+        assertEquals(15L, recent.get(CAPACITY - 1).getId());
+        assertEquals(recent, recentActivityBuffer.getRecentRecords(now.minusHours(24), List.of("IT"), 10));
+    }
+
+    @Test
+    void testLateUploadsAreOrderedByTimestamp() {
+        when(userRepository.findDepartmentCodeById(anyLong())).thenReturn(Optional.of("IT"));
+
+        recentActivityBuffer.recordAfterCommit(record(1, 1L, now.minusMinutes(1)));
+        recentActivityBuffer.recordAfterCommit(record(2, 1L, now.minusMinutes(30)));
+        recentActivityBuffer.recordAfterCommit(record(3, 1L, now.minusMinutes(10)));
+
+        List<EntryExitRecord> recent = recentActivityBuffer.getRecentRecords(now.minusHours(24), null, 10);
+        assertEquals(List.of(1L, 3L, 2L), recent.stream().map(EntryExitRecord::getId).toList());
+        assertEquals(2, recentActivityBuffer.getRecentRecords(now.minusMinutes(20), null, 10).size());
+    }
+
+    @Test
+    void testDepartmentFeedsMergeOnlyRequestedDepartments() {
+        when(userRepository.findDepartmentCodeById(1L)).thenReturn(Optional.of("IT"));
+        when(userRepository.findDepartmentCodeById(2L)).thenReturn(Optional.of("HR"));
+        when(userRepository.findDepartmentCodeById(3L)).thenReturn(Optional.of("FIN"));
+
+        recentActivityBuffer.recordAfterCommit(record(1, 1L, now.minusMinutes(3)));
+        recentActivityBuffer.recordAfterCommit(record(2, 2L, now.minusMinutes(2)));
+        recentActivityBuffer.recordAfterCommit(record(3, 3L, now.minusMinutes(1)));
+
+        List<EntryExitRecord> recent = recentActivityBuffer.getRecentRecords(now.minusHours(24), List.of("IT", "HR"), 10);
+        assertEquals(List.of(2L, 1L), recent.stream().map(EntryExitRecord::getId).toList());
+
+        recentActivityBuffer.removeUserAfterCommit(2L);
+        recent = recentActivityBuffer.getRecentRecords(now.minusHours(24), List.of("IT", "HR"), 10);
+        assertEquals(List.of(1L), recent.stream().map(EntryExitRecord::getId).toList());
+        assertEquals(2, recentActivityBuffer.getRecentRecords(now.minusHours(24), null, 10).size());
+    }
+
+    @Test
+    void testRecordsFollowAChangedDepartment() {
+        when(userRepository.findDepartmentCodeById(1L)).thenReturn(Optional.of("IT"), Optional.of("HR"));
+
+        recentActivityBuffer.recordAfterCommit(record(1, 1L, now.minusMinutes(3)));
+        recentActivityBuffer.recordAfterCommit(record(2, 1L, now.minusMinutes(2)));
+        recentActivityBuffer.evictUserDepartmentAfterCommit(1L);
+        recentActivityBuffer.recordAfterCommit(record(3, 1L, now.minusMinutes(1)));
+
+        List<EntryExitRecord> it = recentActivityBuffer.getRecentRecords(now.minusHours(24), List.of("IT"), 10);
+        List<EntryExitRecord> hr = recentActivityBuffer.getRecentRecords(now.minusHours(24), List.of("HR"), 10);
+        assertEquals(List.of(2L, 1L), it.stream().map(EntryExitRecord::getId).toList());
+        assertEquals(List.of(3L), hr.stream().map(EntryExitRecord::getId).toList());
+        verify(userRepository, times(2)).findDepartmentCodeById(1L);
+    }
+
+    @Test
+    void testAuditLogsAreBoundedAndNewestFirst() {
+        for (int i = 0; i < 8; i++) {
+            recentActivityBuffer.recordAfterCommit(AdminAuditLog.builder()
+                .id((long) i)
+                .adminUserId(1L)
+                .action("USER_UPDATE")
+                .timestamp(now.minusMinutes(8 - i))
+                .build());
+        }
+
+        List<AdminAuditLog> logs = recentActivityBuffer.getRecentAuditLogs(now.minusHours(24), 3);
+        assertEquals(List.of(7L, 6L, 5L), logs.stream().map(AdminAuditLog::getId).toList());
+        assertEquals(CAPACITY, recentActivityBuffer.getRecentAuditLogs(now.minusHours(24), 10).size());
+    }
+
+    private EntryExitRecord record(long id, Long userId, LocalDateTime timestamp) {
+        EntryExitRecord record = new EntryExitRecord();
+        record.setId(id);
+        record.setUserId(userId);
+        record.setType(EntryExitType.ENTRY);
+        record.setTimestamp(timestamp);
+        return record;
+    }
+}
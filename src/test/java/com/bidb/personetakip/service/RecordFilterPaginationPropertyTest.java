@@ -0,0 +1,215 @@
+package com.bidb.personetakip.service;
+
+import com.bidb.personetakip.dto.AdminRecordDto;
+import com.bidb.personetakip.dto.AdminRecordSliceDto;
+import com.bidb.personetakip.exception.ValidationException;
+import com.bidb.personetakip.model.EntryExitRecord;
+import com.bidb.personetakip.model.EntryExitType;
+import com.bidb.personetakip.model.User;
+import com.bidb.personetakip.model.UserRole;
+import com.bidb.personetakip.repository.EntryExitRecordRepository;
+import com.bidb.personetakip.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Property-based test for database-side record filtering.
+ * Tests that combined filters and pagination executed in SQL return the same records
+ * as the in-memory compliance evaluation, one page at a time.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+public class RecordFilterPaginationPropertyTest {
+
+    @Autowired
+    private AdminRecordsService adminRecordsService;
+
+    @Autowired
+    private EntryExitRecordRepository entryExitRecordRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private IpComplianceService ipComplianceService;
+
+    @Autowired
+    private IpComplianceStatusService ipComplianceStatusService;
+
+    @Test
+    public void testCombinedFiltersArePaginatedInDatabase() {
+        User itUser = userRepository.save(buildUser("12345678901", "IT", "192.168.1.100; 10.0.0.1"));
+        User hrUser = userRepository.save(buildUser("12345678902", "HR", null));
+
+        List<String> ips = List.of("192.168.1.100", "172.16.0.50", "10.0.0.1", "172.16.0.51", "203.0.113.7");
+        LocalDateTime base = LocalDate.now().atTime(12, 0);
+        for (int i = 0; i < 25; i++) {
+            String ip = i % 6 == 5 ? null : ips.get(i % ips.size());
+            saveRecord(i % 2 == 0 ? itUser : hrUser, ip, base.minusMinutes(i));
+        }
+
+        // Records saved directly have no stored compliance status yet
+        ipComplianceStatusService.backfillMissingStatuses();
+
+        // Property: mismatch filter returns exactly the records the compliance service flags as mismatches
+        long expectedMismatches = entryExitRecordRepository.findAll().stream()
+                .filter(record -> {
+                    User owner = userRepository.findById(record.getUserId()).orElse(null);
+                    return owner != null && ipComplianceService.hasIpMismatch(record, owner);
+                })
+                .count();
+
+        Page<AdminRecordDto> mismatchPage = adminRecordsService.getRecordsWithFilters(
+                null, null, null, null, null, "mismatch", 0, 3);
+        assertEquals(expectedMismatches, mismatchPage.getTotalElements(),
+                "Mismatch total should be computed by the database");
+        assertTrue(mismatchPage.getContent().stream().allMatch(dto -> Boolean.TRUE.equals(dto.getIpMismatch())),
+                "Every record on a mismatch page should be a mismatch");
+
+        // Property: department filter with paging returns disjoint, ordered pages covering all matches
+        List<AdminRecordDto> collected = new ArrayList<>();
+        int page = 0;
+        Page<AdminRecordDto> current;
+        do {
+            current = adminRecordsService.getRecordsWithFilters(
+                    LocalDate.now(), LocalDate.now(), null, "IT", null, null, page++, 4);
+            collected.addAll(current.getContent());
+        } while (current.hasNext());
+
+        assertEquals(13, collected.size(), "All IT records should be returned across pages");
+        assertTrue(collected.stream().allMatch(dto -> "IT".equals(dto.getUserDepartmentCode())),
+                "Department filter should only return records of that department");
+        for (int i = 1; i < collected.size(); i++) {
+            assertFalse(collected.get(i).getTimestamp().isAfter(collected.get(i - 1).getTimestamp()),
+                    "Records should be ordered newest first across pages");
+        }
+
+        // Property: prefix filter matches records by IP prefix only
+        Page<AdminRecordDto> prefixPage = adminRecordsService.getRecordsWithFilters(
+                null, null, null, null, "172.16.0.", null, 0, 50);
+        assertTrue(prefixPage.getTotalElements() > 0, "Prefix filter should match records");
+        assertTrue(prefixPage.getContent().stream().allMatch(dto -> dto.getIpAddress().startsWith("172.16.0.")),
+                "Prefix filter should only return records within the prefix");
+    }
+
+    @Test
+    public void testCursorSlicesCoverAllRecordsInOrder() {
+        User itUser = userRepository.save(buildUser("12345678903", "IT", "192.168.1.100"));
+
+        // Several records share a timestamp so the id tie-breaker is exercised
+        LocalDateTime base = LocalDate.now().atTime(9, 0);
+        for (int i = 0; i < 17; i++) {
+            saveRecord(itUser, "192.168.1.100", base.minusMinutes(i / 3));
+        }
+
+        List<AdminRecordDto> collected = new ArrayList<>();
+        String cursor = null;
+        AdminRecordSliceDto slice;
+        do {
+            slice = adminRecordsService.getRecordsSlice(
+                    null, null, itUser.getId(), null, null, null, cursor, 5, cursor == null, null);
+            collected.addAll(slice.getContent());
+            cursor = slice.getNextCursor();
+        } while (slice.isHasNext());
+
+        // Property: slices are disjoint and together contain every matching record
+        assertEquals(17, collected.size(), "All records should be returned across slices");
+        assertEquals(17, collected.stream().map(AdminRecordDto::getId).distinct().count(),
+                "Slices should not overlap");
+
+        // Property: slices follow the same order as page-based listing
+        Page<AdminRecordDto> firstPage = adminRecordsService.getRecordsWithFilters(
+                null, null, itUser.getId(), null, null, null, 0, 17);
+        assertEquals(firstPage.getContent().stream().map(AdminRecordDto::getId).toList(),
+                collected.stream().map(AdminRecordDto::getId).toList(),
+                "Cursor order should match page order");
+
+        // Property: requested totals are served from the cache on repeated calls
+        AdminRecordSliceDto first = adminRecordsService.getRecordsSlice(
+                null, null, itUser.getId(), null, null, null, null, 5, true, null);
+        assertEquals(17L, first.getTotalElements());
+        assertTrue(first.isTotalCached(), "Total should be cached after the first request");
+
+        assertThrows(ValidationException.class, () -> adminRecordsService.getRecordsSlice(
+                null, null, null, null, null, null, "not-a-cursor", 5, false, null));
+    }
+
+    @Test
+    public void testStoredComplianceStatusFollowsAssignmentChanges() {
+        User user = userRepository.save(buildUser("12345678904", "IT", "192.168.1.100"));
+        saveRecord(user, "192.168.1.100", LocalDate.now().atTime(8, 0));
+        saveRecord(user, "203.0.113.7", LocalDate.now().atTime(8, 5));
+        saveRecord(user, null, LocalDate.now().atTime(8, 10));
+
+        // Property: backfill stores the same status the compliance service computes
+        ipComplianceStatusService.backfillMissingStatuses();
+        for (EntryExitRecord record : entryExitRecordRepository.findByUserId(user.getId())) {
+            assertEquals(ipComplianceService.getIpComplianceStatus(record, user), record.getIpComplianceStatus(),
+                    "Stored status should match the computed status");
+        }
+
+        // Property: recomputing after an assignment change updates the stored statuses
+        user.setAssignedIpAddresses("203.0.113.7");
+        userRepository.save(user);
+        ipComplianceStatusService.recomputeForUser(user.getId());
+
+        Page<AdminRecordDto> mismatches = adminRecordsService.getRecordsWithIpMismatch(0, 10);
+        assertEquals(1, mismatches.getTotalElements());
+        assertEquals("192.168.1.100", mismatches.getContent().get(0).getIpAddress());
+    }
+
+    @Test
+    public void testRecordsWithoutStoredStatusAreFilteredByAssignment() {
+        User user = userRepository.save(buildUser("12345678905", "IT", "192.168.1.100"));
+        saveRecord(user, "192.168.1.100", LocalDate.now().atTime(8, 0));
+        saveRecord(user, "203.0.113.7", LocalDate.now().atTime(8, 5));
+        saveRecord(user, null, LocalDate.now().atTime(8, 10));
+
+        // Property: before the backfill, each filter returns the records the compliance service would flag
+        assertEquals(1, adminRecordsService.getRecordsWithFilters(
+                null, null, user.getId(), null, null, "mismatch", 0, 10).getTotalElements());
+        assertEquals(1, adminRecordsService.getRecordsWithFilters(
+                null, null, user.getId(), null, null, "match", 0, 10).getTotalElements());
+        assertEquals(1, adminRecordsService.getRecordsWithFilters(
+                null, null, user.getId(), null, null, "unknown", 0, 10).getTotalElements());
+    }
+
+    private User buildUser(String tcNo, String departmentCode, String assignedIps) {
+        return User.builder()
+                .tcNo(tcNo)
+                .firstName("Test")
+                .lastName("User" + tcNo.substring(9))
+                .personnelNo("P" + tcNo.substring(7))
+                .departmentCode(departmentCode)
+                .departmentName(departmentCode + " Department")
+                .mobilePhone("0555123" + tcNo.substring(7))
+                .passwordHash("$2a$10$dummyHashForTesting")
+                .role(UserRole.NORMAL_USER)
+                .assignedIpAddresses(assignedIps)
+                .build();
+    }
+
+    private void saveRecord(User user, String ipAddress, LocalDateTime timestamp) {
+        entryExitRecordRepository.save(EntryExitRecord.builder()
+                .userId(user.getId())
+                .type(EntryExitType.ENTRY)
+                .timestamp(timestamp)
+                .qrCodeValue("QR-" + timestamp)
+                .ipAddress(ipAddress)
+                .latitude(41.0082)
+                .longitude(28.9784)
+                .build());
+    }
+}
@@ -0,0 +1,117 @@
+package com.bidb.personetakip.service;
+
+import com.bidb.personetakip.dto.AdminRecordDto;
+import com.bidb.personetakip.model.EntryExitRecord;
+import com.bidb.personetakip.model.EntryExitType;
+import com.bidb.personetakip.model.User;
+import com.bidb.personetakip.model.UserRole;
+import com.bidb.personetakip.repository.EntryExitRecordRepository;
+import com.bidb.personetakip.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Property-based test for batch enrichment of records with their owners.
+ * Tests that every record of a page carries its own owner's fields, and that the number of
+ * SQL statements needed for a page does not grow with the number of distinct owners.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+@Transactional
+public class UserBatchLoaderPropertyTest {
+
+    private static final int USER_COUNT = 6;
+
+    @Autowired
+    private AdminRecordsService adminRecordsService;
+
+    @Autowired
+    private EntryExitRecordRepository entryExitRecordRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    public void testRecordsAreEnrichedWithOneUserQueryPerPage() {
+        LocalDate day = LocalDate.of(2032, 2, 9);
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < USER_COUNT; i++) {
+            User user = userRepository.save(User.builder()
+                    .tcNo("1234567894" + i)
+                    .firstName("Batch" + i)
+                    .lastName("Owner" + i)
+                    .personnelNo("BT" + i)
+                    .departmentCode("BTCH")
+                    .departmentName("Batch Department")
+                    .mobilePhone("0555123494" + i)
+                    .passwordHash("$2a$10$dummyHashForTesting")
+                    .role(UserRole.NORMAL_USER)
+                    .build());
+            users.add(user);
+            saveRecord(user, EntryExitType.ENTRY, day, 8, i);
+            saveRecord(user, EntryExitType.EXIT, day, 17, i);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        Statistics statistics = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+
+        statistics.clear();
+        Page<AdminRecordDto> allOwners = adminRecordsService.getRecordsWithFilters(
+                day, day, null, "BTCH", null, null, 0, 50, null);
+        long statementsForAllOwners = statistics.getPrepareStatementCount();
+
+        entityManager.clear();
+        statistics.clear();
+        Page<AdminRecordDto> oneOwner = adminRecordsService.getRecordsWithFilters(
+                day, day, users.get(0).getId(), "BTCH", null, null, 0, 50, null);
+        long statementsForOneOwner = statistics.getPrepareStatementCount();
+
+        // Property: every record carries its own owner's fields
+        assertEquals(USER_COUNT * 2, allOwners.getContent().size());
+        Map<Long, User> usersById = users.stream().collect(Collectors.toMap(User::getId, user -> user));
+        for (AdminRecordDto dto : allOwners.getContent()) {
+            User owner = usersById.get(dto.getUserId());
+            assertNotNull(owner);
+            assertEquals(owner.getTcNo(), dto.getUserTcNo());
+            assertEquals(owner.getFirstName() + " " + owner.getLastName(), dto.getUserFullName());
+            assertEquals(owner.getPersonnelNo(), dto.getUserPersonnelNo());
+            assertEquals("BTCH", dto.getUserDepartmentCode());
+            assertEquals("Batch Department", dto.getUserDepartmentName());
+        }
+        assertEquals(2, oneOwner.getContent().size());
+
+        // Property: six owners cost no more statements than one (no query per record or owner)
+        assertEquals(statementsForOneOwner, statementsForAllOwners);
+    }
+
+    private void saveRecord(User user, EntryExitType type, LocalDate day, int hour, int minute) {
+        entryExitRecordRepository.save(EntryExitRecord.builder()
+                .userId(user.getId())
+                .type(type)
+                .timestamp(day.atTime(hour, minute))
+                .qrCodeValue("QR-BT-" + user.getId() + "-" + hour)
+                .latitude(41.0082)
+                .longitude(28.9784)
+                .build());
+    }
+}
@@ -0,0 +1,113 @@
+package com.bidb.personetakip.service;
+
+import com.bidb.personetakip.dto.UserStatusDto;
+import com.bidb.personetakip.model.EntryExitRecord;
+import com.bidb.personetakip.model.EntryExitType;
+import com.bidb.personetakip.model.User;
+import com.bidb.personetakip.model.UserRole;
+import com.bidb.personetakip.repository.EntryExitRecordRepository;
+import com.bidb.personetakip.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Property-based test for the stored last entry/exit status.
+ * Tests that the stored row follows each user's latest record, that an older event
+ * never replaces a newer one, and that the backfill agrees with the records.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+public class UserLastStatusPropertyTest {
+
+    @Autowired
+    private UserLastStatusService userLastStatusService;
+
+    @Autowired
+    private EntryExitRecordRepository entryExitRecordRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    public void testStoredStatusFollowsLatestRecord() {
+        LocalDateTime time = LocalDateTime.of(2031, 7, 1, 8, 0);
+        User user = userRepository.save(buildUser("12345678961"));
+
+        // Property: nothing is stored for a user without records
+        assertEquals(Optional.empty(), userLastStatusService.getStatus(user.getId()));
+
+        userLastStatusService.record(saveRecord(user, EntryExitType.ENTRY, time));
+        assertEquals(Optional.of(UserStatusDto.inside(time)), userLastStatusService.getStatus(user.getId()));
+
+        // Property: a newer event replaces the stored one
+        userLastStatusService.record(saveRecord(user, EntryExitType.EXIT, time.plusHours(2)));
+        assertEquals(Optional.of(UserStatusDto.outside(time.plusHours(2))),
+                userLastStatusService.getStatus(user.getId()));
+
+        // Property: an older event never replaces a newer one
+        userLastStatusService.record(saveRecord(user, EntryExitType.ENTRY, time.plusHours(1)));
+        assertEquals(Optional.of(UserStatusDto.outside(time.plusHours(2))),
+                userLastStatusService.getStatus(user.getId()));
+
+        // Property: removing the user forgets the stored status
+        userLastStatusService.remove(user.getId());
+        assertEquals(Optional.empty(), userLastStatusService.getStatus(user.getId()));
+    }
+
+    @Test
+    public void testBackfillStoresLatestRecordOfMissingUsers() {
+        LocalDateTime time = LocalDateTime.of(2031, 7, 2, 8, 0);
+        User inside = userRepository.save(buildUser("12345678962"));
+        User outside = userRepository.save(buildUser("12345678963"));
+
+        saveRecord(inside, EntryExitType.ENTRY, time);
+        saveRecord(inside, EntryExitType.EXIT, time.plusHours(1));
+        saveRecord(inside, EntryExitType.ENTRY, time.plusHours(2));
+        saveRecord(outside, EntryExitType.ENTRY, time);
+        saveRecord(outside, EntryExitType.EXIT, time.plusHours(3));
+
+        // Property: the backfill stores each user's latest record
+        assertTrue(userLastStatusService.backfillMissing() >= 2);
+        assertEquals(Optional.of(UserStatusDto.inside(time.plusHours(2))),
+                userLastStatusService.getStatus(inside.getId()));
+        assertEquals(Optional.of(UserStatusDto.outside(time.plusHours(3))),
+                userLastStatusService.getStatus(outside.getId()));
+
+        // Property: users already stored are left alone
+        assertEquals(0, userLastStatusService.backfillMissing());
+    }
+
+    private User buildUser(String tcNo) {
+        return User.builder()
+                .tcNo(tcNo)
+                .firstName("Test")
+                .lastName("User" + tcNo.substring(9))
+                .personnelNo("P" + tcNo.substring(7))
+                .departmentCode("IT")
+                .departmentName("IT Department")
+                .mobilePhone("0555123" + tcNo.substring(7))
+                .passwordHash("$2a$10$dummyHashForTesting")
+                .role(UserRole.NORMAL_USER)
+                .build();
+    }
+
+    private EntryExitRecord saveRecord(User user, EntryExitType type, LocalDateTime timestamp) {
+        return entryExitRecordRepository.save(EntryExitRecord.builder()
+                .userId(user.getId())
+                .type(type)
+                .timestamp(timestamp)
+                .qrCodeValue("QR-" + timestamp)
+                .latitude(41.0082)
+                .longitude(28.9784)
+                .build());
+    }
+}